@@ -0,0 +1,16 @@
+package com.orderprocessing.order.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Non-blocking variant of the order service: WebFlux on Netty, R2DBC and reactor-kafka,
+ * serving the same {@code /api/v1/orders} contract and saga topics as the MVC service.
+ */
+@SpringBootApplication
+public class ReactiveOrderServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveOrderServiceApplication.class, args);
+    }
+}
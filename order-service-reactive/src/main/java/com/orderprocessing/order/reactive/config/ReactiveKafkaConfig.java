@@ -0,0 +1,88 @@
+package com.orderprocessing.order.reactive.config;
+
+import com.orderprocessing.order.reactive.service.SagaReplyConsumer.InventoryEvent;
+import com.orderprocessing.order.reactive.service.SagaReplyConsumer.PaymentEvent;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class ReactiveKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.application.name:order-service-reactive}")
+    private String applicationName;
+
+    // Same topics as the MVC service
+    public static final String ORDER_EVENTS_TOPIC = "order-events";
+    public static final String INVENTORY_EVENTS_TOPIC = "inventory-events";
+    public static final String PAYMENT_EVENTS_TOPIC = "payment-events";
+
+    // ==================== PRODUCER ====================
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, Object> kafkaSender(
+            @Value("${order.kafka.producer.max-in-flight:256}") int maxInFlight) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+
+        // Reliability settings
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.RETRIES_CONFIG, 3);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        // Performance tuning
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        // Bounds unacknowledged sends; callers waiting on a send are the backpressure signal
+        return KafkaSender.create(SenderOptions.<String, Object>create(props).maxInFlight(maxInFlight));
+    }
+
+    // ==================== CONSUMERS ====================
+
+    @Bean
+    public ReceiverOptions<String, InventoryEvent> inventoryReceiverOptions() {
+        return receiverOptions(INVENTORY_EVENTS_TOPIC, "-inventory-group", InventoryEvent.class);
+    }
+
+    @Bean
+    public ReceiverOptions<String, PaymentEvent> paymentReceiverOptions() {
+        return receiverOptions(PAYMENT_EVENTS_TOPIC, "-payment-group", PaymentEvent.class);
+    }
+
+    private <T> ReceiverOptions<String, T> receiverOptions(String topic, String groupSuffix, Class<T> type) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + groupSuffix);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        // Replies are bound by shape; the producers' type headers name their own classes
+        JsonDeserializer<T> valueDeserializer = new JsonDeserializer<>(type, false);
+
+        return ReceiverOptions.<String, T>create(props)
+                .withValueDeserializer(valueDeserializer)
+                .commitInterval(Duration.ofMillis(500))
+                .subscription(List.of(topic));
+    }
+}
@@ -0,0 +1,109 @@
+package com.orderprocessing.order.reactive.controller;
+
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.reactive.dto.OrderResponse;
+import com.orderprocessing.order.reactive.service.ReactiveOrderService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The {@code /api/v1/orders} contract of the MVC {@code OrderController}, on WebFlux.
+ */
+@RestController
+@RequestMapping("/api/v1/orders")
+public class ReactiveOrderController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveOrderController.class);
+
+    private final ReactiveOrderService orderService;
+
+    public ReactiveOrderController(ReactiveOrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    // ==================== COMMAND ENDPOINTS ====================
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+        log.info("Received create order request for customer: {}", request.customerId());
+        return orderService.createOrder(request);
+    }
+
+    @PostMapping("/{orderId}/cancel")
+    public Mono<OrderResponse> cancelOrder(@PathVariable String orderId) {
+        log.info("Received cancel request for order: {}", orderId);
+        return orderService.cancelOrder(orderId);
+    }
+
+    // ==================== QUERY ENDPOINTS ====================
+
+    @GetMapping("/{orderId}")
+    public Mono<OrderResponse> getOrder(@PathVariable String orderId) {
+        return orderService.getOrderById(orderId);
+    }
+
+    @GetMapping
+    public Mono<List<OrderResponse>> getOrdersByCustomer(@RequestParam String customerId) {
+        return orderService.getOrdersByCustomerId(customerId);
+    }
+
+    @GetMapping("/status/{status}")
+    public Mono<List<OrderResponse>> getOrdersByStatus(@PathVariable OrderStatus status) {
+        return orderService.getOrdersByStatus(status);
+    }
+
+    @GetMapping("/customer/{customerId}/active")
+    public Mono<List<OrderResponse>> getActiveOrders(@PathVariable String customerId) {
+        return orderService.getActiveOrdersByCustomerId(customerId);
+    }
+
+    @GetMapping("/customer/{customerId}/summary")
+    public Mono<ReactiveOrderService.OrderSummary> getCustomerSummary(@PathVariable String customerId) {
+        return orderService.getCustomerOrderSummary(customerId);
+    }
+
+    // ==================== EXCEPTION HANDLERS ====================
+
+    @ExceptionHandler(ReactiveOrderService.OrderNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleOrderNotFound(ReactiveOrderService.OrderNotFoundException ex) {
+        log.warn("Order not found: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse("ORDER_NOT_FOUND", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalState(IllegalStateException ex) {
+        log.warn("Illegal state transition: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse("INVALID_STATE_TRANSITION", ex.getMessage()));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleValidation(WebExchangeBindException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("VALIDATION_FAILED", ex.getReason()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
+        log.error("Unexpected error: ", ex);
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred"));
+    }
+
+    public record ErrorResponse(String code, String message) {}
+}
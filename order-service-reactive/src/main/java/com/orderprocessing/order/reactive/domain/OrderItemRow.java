@@ -0,0 +1,46 @@
+package com.orderprocessing.order.reactive.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+
+@Table("order_items")
+public class OrderItemRow {
+
+    @Id
+    private Long id;
+    private String orderId;
+    private String productId;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+
+    protected OrderItemRow() {}
+
+    public OrderItemRow(String productId, String productName, Integer quantity, BigDecimal unitPrice) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    void setOrderId(String orderId) { this.orderId = orderId; }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getOrderId() { return orderId; }
+
+    public String getProductId() { return productId; }
+
+    public String getProductName() { return productName; }
+
+    public Integer getQuantity() { return quantity; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+}
@@ -0,0 +1,113 @@
+package com.orderprocessing.order.reactive.domain;
+
+import com.orderprocessing.order.domain.OrderStateMachine;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.event.OrderEventType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Row of the {@code orders} table. Carries the same saga rules as the JPA {@code Order}
+ * through the shared {@link OrderStateMachine}.
+ */
+@Table("orders")
+public class OrderRow {
+
+    @Id
+    private String id;
+    private String customerId;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Instant createdAt;
+    private Instant updatedAt;
+    // null until inserted, which is how Spring Data tells an insert from an update
+    @Version
+    private Long version;
+    private String sagaId;
+    private String failureReason;
+
+    @Transient
+    private List<OrderItemRow> items = List.of();
+
+    public static OrderRow create(String customerId, List<OrderItemRow> items) {
+        OrderRow order = new OrderRow();
+        order.id = UUID.randomUUID().toString();
+        order.customerId = customerId;
+        order.status = OrderStatus.PENDING;
+        order.createdAt = Instant.now();
+        order.sagaId = UUID.randomUUID().toString();
+        items.forEach(item -> item.setOrderId(order.id));
+        order.items = List.copyOf(items);
+        order.totalAmount = items.stream()
+                .map(OrderItemRow::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return order;
+    }
+
+    public void transitionTo(OrderStatus newStatus) {
+        if (!OrderStateMachine.active().isAllowed(status, newStatus)) {
+            throw invalidTransition(newStatus);
+        }
+        this.status = newStatus;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * See {@code Order.advance}: applies a saga step and its continuations as one transition.
+     */
+    public OrderEventType advance(OrderStatus reached) {
+        OrderStateMachine stateMachine = OrderStateMachine.active();
+        OrderStatus settled = stateMachine.settle(status, reached);
+        if (settled == null) {
+            throw invalidTransition(reached);
+        }
+        OrderEventType event = stateMachine.settledEvent(status, reached);
+        this.status = settled;
+        this.updatedAt = Instant.now();
+        return event;
+    }
+
+    public void markFailed(String reason) {
+        this.failureReason = reason;
+        this.updatedAt = Instant.now();
+    }
+
+    private IllegalStateException invalidTransition(OrderStatus newStatus) {
+        return new IllegalStateException(
+                String.format("Invalid transition from %s to %s", this.status, newStatus)
+        );
+    }
+
+    public OrderRow withItems(List<OrderItemRow> items) {
+        this.items = List.copyOf(items);
+        return this;
+    }
+
+    // Getters
+    public String getId() { return id; }
+
+    public String getCustomerId() { return customerId; }
+
+    public OrderStatus getStatus() { return status; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    public Long getVersion() { return version; }
+
+    public String getSagaId() { return sagaId; }
+
+    public String getFailureReason() { return failureReason; }
+
+    public List<OrderItemRow> getItems() { return items; }
+}
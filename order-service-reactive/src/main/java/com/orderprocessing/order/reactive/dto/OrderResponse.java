@@ -0,0 +1,58 @@
+package com.orderprocessing.order.reactive.dto;
+
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.reactive.domain.OrderItemRow;
+import com.orderprocessing.order.reactive.domain.OrderRow;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Same JSON shape as the MVC service's {@code OrderResponse}.
+ */
+public record OrderResponse(
+        String id,
+        String customerId,
+        OrderStatus status,
+        List<OrderItemResponse> items,
+        BigDecimal totalAmount,
+        Instant createdAt,
+        Instant updatedAt,
+        String failureReason
+) {
+    public record OrderItemResponse(
+            Long id,
+            String productId,
+            String productName,
+            Integer quantity,
+            BigDecimal unitPrice,
+            BigDecimal totalPrice
+    ) {
+        public static OrderItemResponse fromRow(OrderItemRow item) {
+            return new OrderItemResponse(
+                    item.getId(),
+                    item.getProductId(),
+                    item.getProductName(),
+                    item.getQuantity(),
+                    item.getUnitPrice(),
+                    item.getTotalPrice()
+            );
+        }
+    }
+
+    public static OrderResponse fromRow(OrderRow order) {
+        return new OrderResponse(
+                order.getId(),
+                order.getCustomerId(),
+                order.getStatus(),
+                order.getItems().stream()
+                        .map(OrderItemResponse::fromRow)
+                        .toList(),
+                order.getTotalAmount(),
+                order.getCreatedAt(),
+                order.getUpdatedAt(),
+                order.getFailureReason()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.orderprocessing.order.reactive.repository;
+
+import com.orderprocessing.order.reactive.domain.OrderItemRow;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@Repository
+public interface OrderItemRowRepository extends ReactiveCrudRepository<OrderItemRow, Long> {
+
+    Flux<OrderItemRow> findByOrderId(String orderId);
+
+    Flux<OrderItemRow> findByOrderIdIn(Collection<String> orderIds);
+}
@@ -0,0 +1,24 @@
+package com.orderprocessing.order.reactive.repository;
+
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.reactive.domain.OrderRow;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface OrderRowRepository extends ReactiveCrudRepository<OrderRow, String> {
+
+    Flux<OrderRow> findByCustomerIdOrderByCreatedAtDesc(String customerId);
+
+    Flux<OrderRow> findByStatus(OrderStatus status);
+
+    Mono<OrderRow> findBySagaId(String sagaId);
+
+    Flux<OrderRow> findByCustomerIdAndStatusIn(String customerId, Collection<OrderStatus> statuses);
+
+    Mono<Long> countByCustomerIdAndStatus(String customerId, OrderStatus status);
+}
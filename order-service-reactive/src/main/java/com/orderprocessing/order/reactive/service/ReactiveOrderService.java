@@ -0,0 +1,278 @@
+package com.orderprocessing.order.reactive.service;
+
+import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.reactive.config.ReactiveKafkaConfig;
+import com.orderprocessing.order.reactive.domain.OrderItemRow;
+import com.orderprocessing.order.reactive.domain.OrderRow;
+import com.orderprocessing.order.reactive.dto.OrderResponse;
+import com.orderprocessing.order.reactive.repository.OrderItemRowRepository;
+import com.orderprocessing.order.reactive.repository.OrderRowRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Commands, saga steps and queries of the reactive variant, mirroring {@code OrderCommandService}
+ * and {@code OrderQueryService}. Nothing here blocks: database work runs on the R2DBC pool and
+ * each event is published once its transaction has committed.
+ */
+@Service
+public class ReactiveOrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveOrderService.class);
+
+    private static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.of(
+            OrderStatus.PENDING,
+            OrderStatus.INVENTORY_RESERVED,
+            OrderStatus.PAYMENT_PROCESSING
+    );
+
+    private final OrderRowRepository orderRepository;
+    private final OrderItemRowRepository itemRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final KafkaSender<String, Object> kafkaSender;
+
+    public ReactiveOrderService(OrderRowRepository orderRepository,
+                                OrderItemRowRepository itemRepository,
+                                R2dbcEntityTemplate entityTemplate,
+                                TransactionalOperator transactionalOperator,
+                                KafkaSender<String, Object> kafkaSender) {
+        this.orderRepository = orderRepository;
+        this.itemRepository = itemRepository;
+        this.entityTemplate = entityTemplate;
+        this.transactionalOperator = transactionalOperator;
+        this.kafkaSender = kafkaSender;
+    }
+
+    // ==================== COMMANDS ====================
+
+    public Mono<OrderResponse> createOrder(CreateOrderRequest request) {
+        List<OrderItemRow> items = request.items().stream()
+                .map(item -> new OrderItemRow(item.productId(), item.productName(), item.quantity(), item.unitPrice()))
+                .toList();
+        OrderRow order = OrderRow.create(request.customerId(), items);
+
+        return entityTemplate.insert(order)
+                .flatMap(saved -> Flux.fromIterable(order.getItems())
+                        .concatMap(entityTemplate::insert)
+                        .collectList()
+                        .map(saved::withItems))
+                .as(transactionalOperator::transactional)
+                .flatMap(saved -> publishOrderCreated(saved).thenReturn(saved))
+                .doOnNext(saved -> log.info("Order created: {} for customer: {}", saved.getId(), saved.getCustomerId()))
+                .map(OrderResponse::fromRow);
+    }
+
+    public Mono<OrderResponse> cancelOrder(String orderId) {
+        return updateOrder(orderRepository.findById(orderId)
+                .switchIfEmpty(Mono.error(() -> new OrderNotFoundException(orderId))), order -> {
+            if (order.getStatus() == OrderStatus.COMPLETED) {
+                throw new IllegalStateException("Cannot cancel a completed order");
+            }
+            order.transitionTo(OrderStatus.CANCELLED);
+            return OrderEventType.ORDER_CANCELLED;
+        });
+    }
+
+    // ==================== SAGA STEPS ====================
+
+    public Mono<OrderResponse> handleInventoryReserved(String sagaId) {
+        // INVENTORY_RESERVED -> PAYMENT_PROCESSING
+        return updateSaga(sagaId, order -> order.advance(OrderStatus.INVENTORY_RESERVED));
+    }
+
+    public Mono<OrderResponse> handleInventoryFailed(String sagaId, String reason) {
+        // INVENTORY_FAILED -> CANCELLED
+        return updateSaga(sagaId, order -> {
+            OrderEventType eventType = order.advance(OrderStatus.INVENTORY_FAILED);
+            order.markFailed(reason);
+            return eventType;
+        });
+    }
+
+    public Mono<OrderResponse> handlePaymentCompleted(String sagaId) {
+        // PAYMENT_COMPLETED -> COMPLETED
+        return updateSaga(sagaId, order -> order.advance(OrderStatus.PAYMENT_COMPLETED));
+    }
+
+    public Mono<OrderResponse> handlePaymentFailed(String sagaId, String reason) {
+        // PAYMENT_FAILED -> COMPENSATING
+        return updateSaga(sagaId, order -> {
+            OrderEventType eventType = order.advance(OrderStatus.PAYMENT_FAILED);
+            order.markFailed(reason);
+            return eventType;
+        });
+    }
+
+    private Mono<OrderResponse> updateSaga(String sagaId, Function<OrderRow, OrderEventType> step) {
+        return updateOrder(orderRepository.findBySagaId(sagaId)
+                .switchIfEmpty(Mono.error(() -> new SagaNotFoundException(sagaId))), step);
+    }
+
+    // Applies the step and saves under the @Version check, then publishes after commit
+    private Mono<OrderResponse> updateOrder(Mono<OrderRow> lookup, Function<OrderRow, OrderEventType> step) {
+        return lookup
+                .flatMap(order -> {
+                    OrderStatus fromStatus = order.getStatus();
+                    OrderEventType eventType = step.apply(order);
+                    return orderRepository.save(order)
+                            .flatMap(this::loadItems)
+                            .map(saved -> new StepResult(saved, fromStatus, eventType));
+                })
+                .as(transactionalOperator::transactional)
+                .flatMap(result -> publishTransition(result.order(), result.fromStatus(), result.eventType())
+                        .thenReturn(result.order()))
+                .map(OrderResponse::fromRow);
+    }
+
+    private record StepResult(OrderRow order, OrderStatus fromStatus, OrderEventType eventType) {}
+
+    // ==================== QUERIES ====================
+
+    public Mono<OrderResponse> getOrderById(String orderId) {
+        return orderRepository.findById(orderId)
+                .switchIfEmpty(Mono.error(() -> new OrderNotFoundException(orderId)))
+                .flatMap(this::loadItems)
+                .map(OrderResponse::fromRow);
+    }
+
+    public Mono<List<OrderResponse>> getOrdersByCustomerId(String customerId) {
+        return withItems(orderRepository.findByCustomerIdOrderByCreatedAtDesc(customerId));
+    }
+
+    public Mono<List<OrderResponse>> getOrdersByStatus(OrderStatus status) {
+        return withItems(orderRepository.findByStatus(status));
+    }
+
+    public Mono<List<OrderResponse>> getActiveOrdersByCustomerId(String customerId) {
+        return withItems(orderRepository.findByCustomerIdAndStatusIn(customerId, ACTIVE_STATUSES));
+    }
+
+    public Mono<OrderSummary> getCustomerOrderSummary(String customerId) {
+        return Mono.zip(
+                orderRepository.countByCustomerIdAndStatus(customerId, OrderStatus.PENDING),
+                orderRepository.countByCustomerIdAndStatus(customerId, OrderStatus.COMPLETED),
+                orderRepository.countByCustomerIdAndStatus(customerId, OrderStatus.CANCELLED),
+                withItems(orderRepository.findByCustomerIdOrderByCreatedAtDesc(customerId).take(5))
+        ).map(counts -> new OrderSummary(counts.getT1(), counts.getT2(), counts.getT3(), counts.getT4()));
+    }
+
+    private Mono<OrderRow> loadItems(OrderRow order) {
+        return itemRepository.findByOrderId(order.getId())
+                .collectList()
+                .map(order::withItems);
+    }
+
+    // One item query per page of orders instead of one per order
+    private Mono<List<OrderResponse>> withItems(Flux<OrderRow> orders) {
+        return orders.collectList().flatMap(rows -> {
+            if (rows.isEmpty()) {
+                return Mono.just(List.<OrderResponse>of());
+            }
+            List<String> ids = rows.stream().map(OrderRow::getId).toList();
+            return itemRepository.findByOrderIdIn(ids)
+                    .collect(Collectors.groupingBy(OrderItemRow::getOrderId))
+                    .map(itemsByOrder -> rows.stream()
+                            .map(row -> OrderResponse.fromRow(row.withItems(itemsByOrder.getOrDefault(row.getId(), List.of()))))
+                            .toList());
+        });
+    }
+
+    // ==================== EVENTS ====================
+
+    // Full body once; later events are OrderTransitionEvents, as in the MVC service
+    private Mono<Void> publishOrderCreated(OrderRow order) {
+        List<OrderEvent.OrderItemPayload> itemPayloads = order.getItems().stream()
+                .map(item -> new OrderEvent.OrderItemPayload(
+                        item.getProductId(),
+                        item.getProductName(),
+                        item.getQuantity(),
+                        Money.of(item.getUnitPrice())
+                ))
+                .toList();
+
+        OrderEvent event = new OrderEvent(
+                order.getId(),
+                OrderEventType.ORDER_CREATED,
+                order.getCustomerId(),
+                order.getStatus(),
+                Money.of(order.getTotalAmount()),
+                itemPayloads,
+                order.getSagaId()
+        );
+        event.setVersion(order.getVersion() != null ? order.getVersion() : 0L);
+        return publish(order, OrderEventType.ORDER_CREATED, event);
+    }
+
+    private Mono<Void> publishTransition(OrderRow order, OrderStatus fromStatus, OrderEventType eventType) {
+        // The saved row carries the version incremented by the update
+        return publish(order, eventType, new OrderTransitionEvent(
+                order.getId(),
+                eventType,
+                order.getSagaId(),
+                fromStatus,
+                order.getStatus(),
+                order.getVersion(),
+                order.getFailureReason()
+        ));
+    }
+
+    private Mono<Void> publish(OrderRow order, OrderEventType eventType, BaseEvent event) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(
+                ReactiveKafkaConfig.ORDER_EVENTS_TOPIC,
+                order.getCustomerId(), // Customer affinity, as in the MVC service
+                event
+        );
+
+        // Failures are logged like the MVC service does; the state change is already committed
+        return kafkaSender.send(Mono.just(SenderRecord.create(record, order.getId())))
+                .doOnNext(result -> log.debug("Published event {} for order {} to partition {}",
+                        eventType, order.getId(), result.recordMetadata().partition()))
+                .then()
+                .onErrorResume(ex -> {
+                    log.error("Failed to publish event {} for order {}: {}", eventType, order.getId(), ex.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public record OrderSummary(
+            long pendingOrders,
+            long completedOrders,
+            long cancelledOrders,
+            List<OrderResponse> recentOrders
+    ) {}
+
+    // ==================== EXCEPTIONS ====================
+
+    public static class OrderNotFoundException extends RuntimeException {
+        public OrderNotFoundException(String orderId) {
+            super("Order not found: " + orderId);
+        }
+    }
+
+    public static class SagaNotFoundException extends RuntimeException {
+        public SagaNotFoundException(String sagaId) {
+            super("Saga not found: " + sagaId);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.orderprocessing.order.reactive.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Consumes the inventory and payment replies with reactor-kafka. Records are processed in order
+ * per partition and partitions concurrently; the receiver only polls as fast as the saga steps
+ * (and therefore the R2DBC pool) complete, so a slow database pauses consumption instead of
+ * buffering records in memory.
+ */
+@Component
+@ConditionalOnProperty(name = "order.kafka.listeners.enabled", havingValue = "true", matchIfMissing = true)
+public class SagaReplyConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaReplyConsumer.class);
+
+    private final ReactiveOrderService orderService;
+    private final ReceiverOptions<String, InventoryEvent> inventoryOptions;
+    private final ReceiverOptions<String, PaymentEvent> paymentOptions;
+    private final Duration retryBackoff;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public SagaReplyConsumer(ReactiveOrderService orderService,
+                             ReceiverOptions<String, InventoryEvent> inventoryReceiverOptions,
+                             ReceiverOptions<String, PaymentEvent> paymentReceiverOptions,
+                             @Value("${order.kafka.listeners.retry-backoff:1s}") Duration retryBackoff) {
+        this.orderService = orderService;
+        this.inventoryOptions = inventoryReceiverOptions;
+        this.paymentOptions = paymentReceiverOptions;
+        this.retryBackoff = retryBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(consume(inventoryOptions, this::handleInventoryEvent).subscribe());
+        subscriptions.add(consume(paymentOptions, this::handlePaymentEvent).subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    private <T> Flux<ReceiverRecord<String, T>> consume(ReceiverOptions<String, T> options,
+                                                        Function<T, Mono<?>> handler) {
+        return KafkaReceiver.create(options)
+                .receive()
+                .groupBy(record -> record.receiverOffset().topicPartition())
+                .flatMap(partition -> partition.concatMap(record -> Mono.defer(() -> handler.apply(record.value()))
+                        // Same policy as the MVC container: 3 retries, 1s apart, then skip
+                        .retryWhen(Retry.fixedDelay(3, retryBackoff))
+                        .onErrorResume(ex -> {
+                            log.error("Giving up on {} at offset {}: {}", record.topic(), record.offset(), ex.getMessage());
+                            return Mono.empty();
+                        })
+                        .then(Mono.fromRunnable(record.receiverOffset()::acknowledge))
+                        .thenReturn(record)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Saga reply consumer restarting: {}", signal.failure().getMessage())));
+    }
+
+    private Mono<?> handleInventoryEvent(InventoryEvent event) {
+        log.info("Received inventory event: type={}, sagaId={}", event.eventType(), event.sagaId());
+        return switch (event.eventType()) {
+            case INVENTORY_RESERVED -> orderService.handleInventoryReserved(event.sagaId());
+            case INVENTORY_RESERVATION_FAILED -> orderService.handleInventoryFailed(event.sagaId(), event.reason());
+            // Order is already in COMPENSATING state, this confirms inventory rollback
+            case INVENTORY_RELEASED -> Mono.empty();
+        };
+    }
+
+    private Mono<?> handlePaymentEvent(PaymentEvent event) {
+        log.info("Received payment event: type={}, sagaId={}", event.eventType(), event.sagaId());
+        return switch (event.eventType()) {
+            case PAYMENT_COMPLETED -> orderService.handlePaymentCompleted(event.sagaId());
+            case PAYMENT_FAILED -> orderService.handlePaymentFailed(event.sagaId(), event.reason());
+            // This confirms the payment was rolled back as part of compensation
+            case PAYMENT_REFUNDED -> Mono.empty();
+        };
+    }
+
+    // Same shape as the records the MVC listeners bind
+    public record InventoryEvent(
+            String eventId,
+            String sagaId,
+            String orderId,
+            InventoryEventType eventType,
+            String reason
+    ) {}
+
+    public enum InventoryEventType {
+        INVENTORY_RESERVED,
+        INVENTORY_RESERVATION_FAILED,
+        INVENTORY_RELEASED
+    }
+
+    public record PaymentEvent(
+            String eventId,
+            String sagaId,
+            String orderId,
+            PaymentEventType eventType,
+            String transactionId,
+            BigDecimal amount,
+            String reason
+    ) {}
+
+    public enum PaymentEventType {
+        PAYMENT_COMPLETED,
+        PAYMENT_FAILED,
+        PAYMENT_REFUNDED
+    }
+}
@@ -0,0 +1,27 @@
+-- Same tables the MVC service maps with JPA
+CREATE TABLE IF NOT EXISTS orders (
+    id              VARCHAR(255)   NOT NULL PRIMARY KEY,
+    customer_id     VARCHAR(255)   NOT NULL,
+    status          VARCHAR(255)   NOT NULL,
+    total_amount    NUMERIC(12, 2) NOT NULL,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at      TIMESTAMP(6) WITH TIME ZONE,
+    version         BIGINT,
+    saga_id         VARCHAR(255),
+    failure_reason  VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_saga_id ON orders (saga_id);
+CREATE INDEX IF NOT EXISTS idx_orders_customer_id_created_at ON orders (customer_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders (status);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id        VARCHAR(255)   NOT NULL REFERENCES orders (id),
+    product_id      VARCHAR(255)   NOT NULL,
+    product_name    VARCHAR(255)   NOT NULL,
+    quantity        INTEGER        NOT NULL,
+    unit_price      NUMERIC(10, 2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
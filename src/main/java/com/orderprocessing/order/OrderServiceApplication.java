@@ -7,14 +7,15 @@ import io.swagger.v3.oas.annotations.info.License;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
-import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-//use exclude in SpringBootApplication and remove @EnableKafka to disable kafka
+// Kafka is set up by KafkaConfig: listeners run with order.kafka.listeners.enabled, and
+// order.transport.type=in-process runs the saga without a broker
 @SpringBootApplication(exclude = {
         org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration.class
 })
-//@EnableKafka
 @EnableJpaAuditing
+@EnableScheduling
 @OpenAPIDefinition(
         info = @Info(
                 title = "Order Processing System API",
@@ -0,0 +1,146 @@
+package com.orderprocessing.order.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit driven by observed latency (gradient algorithm, in the spirit of
+ * Netflix's Gradient2 limiter).
+ * <p>
+ * A long-term exponentially smoothed RTT is compared with each new sample. While samples stay
+ * close to the long-term RTT the limit grows by a small queue allowance; when latency rises the
+ * limit shrinks proportionally to {@code longRtt / shortRtt}. Failed calls (timeouts, 5xx,
+ * listener errors) cut the limit multiplicatively, AIMD-style.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_RTT_SMOOTHING = 2.0 / (600 + 1); // ~600 sample EWMA
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid limits for %s: initial=%d, min=%d, max=%d", name, initialLimit, minLimit, maxLimit));
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+
+        Gauge.builder("orders.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.inflight", inFlight, AtomicInteger::get)
+                .description("Calls currently admitted")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("orders.admission.rejected")
+                .description("Calls rejected because the concurrency limit was reached")
+                .tag("limiter", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a call if fewer than {@link #getLimit()} calls are in flight. The returned permit
+     * must be completed exactly once.
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(System.nanoTime(), current + 1));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        rttNanos = Math.max(1, rttNanos);
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * DROP_BACKOFF);
+            limit = (int) estimatedLimit;
+            return;
+        }
+
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_SMOOTHING;
+        }
+
+        // Let the baseline recover quickly after a latency spike has passed
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Not enough load to learn anything about the limit
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /** The call finished normally; its latency feeds the limit. */
+        public void success() {
+            inFlight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inFlightAtStart, false);
+        }
+
+        /** The call failed or timed out; the limit backs off. */
+        public void dropped() {
+            inFlight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inFlightAtStart, true);
+        }
+    }
+}
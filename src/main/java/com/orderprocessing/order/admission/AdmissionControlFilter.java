@@ -0,0 +1,72 @@
+package com.orderprocessing.order.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.controller.OrderController;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Sheds command requests (order creation/cancellation) above the adaptive concurrency limit
+ * with {@code 503 Service Unavailable} and a {@code Retry-After} hint, before they can tie up a
+ * request thread waiting on JDBC connections or the Kafka producer buffer.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final String retryAfterSeconds;
+
+    public AdmissionControlFilter(AdaptiveConcurrencyLimiter limiter, ObjectMapper objectMapper, Duration retryAfter) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Only commands are limited; queries, including the POST multi-get, are not
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getRequestURI().equals(request.getContextPath() + OrderController.LOOKUP_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+        if (permit.isEmpty()) {
+            reject(response);
+            return;
+        }
+
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (dropped) {
+                permit.get().dropped();
+            } else {
+                permit.get().success();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new OrderController.ErrorResponse(
+                "OVERLOADED", "Order service is at capacity, retry later"));
+    }
+}
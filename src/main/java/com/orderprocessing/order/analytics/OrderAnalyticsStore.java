@@ -0,0 +1,378 @@
+package com.orderprocessing.order.analytics;
+
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.event.OrderSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * In-memory columnar aggregate of every order seen on {@code order-events}, for revenue and
+ * status dashboards that would otherwise scan the orders table.
+ * <p>
+ * One row per order, one primitive array per column: status ordinal, dictionary-encoded
+ * customer, amount in cents and creation time in epoch millis. Rows are appended or updated in
+ * place by a single feed thread; queries read a consistent prefix of the rows without locking
+ * and reduce it in parallel on the common fork-join pool.
+ * <p>
+ * The feed keeps the last order version applied to each row: redelivered and reordered events at
+ * or below it are skipped, and a transition more than one version ahead is applied but counted in
+ * {@code orders.analytics.version-gaps}, since the store has missed events for that order.
+ */
+@Component
+public class OrderAnalyticsStore {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAnalyticsStore.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int splitThreshold;
+    private final Counter versionGaps;
+
+    // Feed-side state, only touched under the store's monitor
+    private final Map<String, Integer> rowByOrderId = new HashMap<>();
+    private final Map<String, Integer> customerIndex = new HashMap<>();
+    // Last order version applied, per row; never read by queries
+    private long[] versions = new long[INITIAL_CAPACITY];
+
+    // Published to readers: rows [0, size) of columns are complete
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile String[] customers = new String[INITIAL_CAPACITY];
+    private volatile int size;
+    private volatile Instant lastEventAt;
+
+    public OrderAnalyticsStore(@Value("${order.analytics.split-threshold:65536}") int splitThreshold,
+                               MeterRegistry meterRegistry) {
+        this.splitThreshold = splitThreshold;
+        this.versionGaps = Counter.builder("orders.analytics.version-gaps")
+                .description("Transitions applied more than one version after the last one seen for their order")
+                .register(meterRegistry);
+    }
+
+    // ==================== FEED ====================
+
+    public synchronized void apply(OrderEvent event) {
+        if (event.getAggregateId() == null || event.getStatus() == null) {
+            return; // failure events carry no order state
+        }
+        Instant createdAt = event.getTimestamp() != null ? event.getTimestamp() : Instant.now();
+        upsert(event.getAggregateId(), event.getStatus(), event.getCustomerId(), event.getTotalAmount(), createdAt,
+                event.getVersion());
+        lastEventAt = event.getTimestamp();
+    }
+
+    // Status only; orders created before the replayed range are not tracked
+    public synchronized void apply(OrderTransitionEvent event) {
+        if (event.getAggregateId() == null || event.getStatus() == null) {
+            return;
+        }
+        Integer row = rowByOrderId.get(event.getAggregateId());
+        if (row != null && event.getVersion() > versions[row] + 1) {
+            versionGaps.increment();
+            log.debug("Order {} skipped from version {} to {}", event.getAggregateId(),
+                    versions[row], event.getVersion());
+        }
+        upsert(event.getAggregateId(), event.getStatus(), null, null, null, event.getVersion());
+        lastEventAt = event.getTimestamp();
+    }
+
+    /**
+     * Seeds a row from {@code order-state}, see {@link com.orderprocessing.order.service.OrderStateBootstrapper}.
+     */
+    public synchronized void apply(OrderSnapshot snapshot) {
+        Instant createdAt = snapshot.createdAt() != null ? snapshot.createdAt() : Instant.now();
+        upsert(snapshot.orderId(), snapshot.status(), snapshot.customerId(), snapshot.totalAmount(), createdAt,
+                snapshot.version());
+        if (snapshot.updatedAt() != null && (lastEventAt == null || snapshot.updatedAt().isAfter(lastEventAt))) {
+            lastEventAt = snapshot.updatedAt();
+        }
+    }
+
+    private void upsert(String orderId, OrderStatus status, String customerId, Money totalAmount,
+                        Instant createdAt, long version) {
+        Columns current = columns;
+        Integer row = rowByOrderId.get(orderId);
+        if (row != null) {
+            if (version <= versions[row]) {
+                return; // redelivered, or older than what the row already holds
+            }
+            current.status[row] = status.ordinal();
+            if (totalAmount != null) {
+                current.amountCents[row] = totalAmount.minorUnits();
+            }
+            versions[row] = version;
+        } else if (customerId != null && totalAmount != null) {
+            int next = size;
+            if (next == current.capacity()) {
+                current = current.grow();
+                columns = current;
+                versions = Arrays.copyOf(versions, current.capacity());
+            }
+            current.status[next] = status.ordinal();
+            current.customer[next] = customerId(customerId);
+            current.amountCents[next] = totalAmount.minorUnits();
+            current.createdAtMillis[next] = createdAt.toEpochMilli();
+            versions[next] = version;
+            rowByOrderId.put(orderId, next);
+            size = next + 1;
+        }
+    }
+
+    private int customerId(String customerId) {
+        Integer id = customerIndex.get(customerId);
+        if (id != null) {
+            return id;
+        }
+        int next = customerIndex.size();
+        String[] names = customers;
+        if (next == names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        names[next] = customerId;
+        customers = names;
+        customerIndex.put(customerId, next);
+        return next;
+    }
+
+    // ==================== QUERY ====================
+
+    public AnalyticsResult aggregate(AnalyticsQuery query) {
+        // Read size before the arrays: any arrays published later still contain rows [0, rows)
+        int rows = size;
+        Columns snapshot = columns;
+        String[] names = customers;
+
+        int customerFilter = -1;
+        if (query.customerId() != null) {
+            Integer id = findCustomer(query.customerId());
+            if (id == null) {
+                return new AnalyticsResult(rows, lastEventAt, List.of());
+            }
+            customerFilter = id;
+        }
+
+        Scan scan = new Scan(snapshot, query, statusMask(query.statuses()), customerFilter, 0, rows);
+        Map<GroupKey, Accumulator> groups = rows < splitThreshold ? scan.compute() : ForkJoinPool.commonPool().invoke(scan);
+
+        List<Group> result = new ArrayList<>(groups.size());
+        for (Map.Entry<GroupKey, Accumulator> entry : groups.entrySet()) {
+            GroupKey key = entry.getKey();
+            result.add(entry.getValue().toGroup(
+                    key.status() < 0 ? null : OrderStatus.values()[key.status()],
+                    key.customer() < 0 ? null : names[key.customer()],
+                    key.bucket() == Long.MIN_VALUE ? null : Instant.ofEpochMilli(key.bucket() * query.bucket().toMillis()),
+                    query.percentiles()));
+        }
+        result.sort(Comparator.comparing(Group::count).reversed());
+        return new AnalyticsResult(rows, lastEventAt, result);
+    }
+
+    private synchronized Integer findCustomer(String customerId) {
+        return customerIndex.get(customerId);
+    }
+
+    private static long statusMask(Set<OrderStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return -1L;
+        }
+        long mask = 0;
+        for (OrderStatus status : statuses) {
+            mask |= 1L << status.ordinal();
+        }
+        return mask;
+    }
+
+    // ==================== REDUCTION ====================
+
+    private final class Scan extends RecursiveTask<Map<GroupKey, Accumulator>> {
+        private final Columns columns;
+        private final AnalyticsQuery query;
+        private final long statusMask;
+        private final int customerFilter;
+        private final int from;
+        private final int to;
+
+        private Scan(Columns columns, AnalyticsQuery query, long statusMask, int customerFilter, int from, int to) {
+            this.columns = columns;
+            this.query = query;
+            this.statusMask = statusMask;
+            this.customerFilter = customerFilter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<GroupKey, Accumulator> compute() {
+            if (to - from > splitThreshold) {
+                int mid = (from + to) >>> 1;
+                Scan left = new Scan(columns, query, statusMask, customerFilter, from, mid);
+                Scan right = new Scan(columns, query, statusMask, customerFilter, mid, to);
+                left.fork();
+                Map<GroupKey, Accumulator> merged = right.compute();
+                left.join().forEach((key, acc) -> merged.merge(key, acc, Accumulator::merge));
+                return merged;
+            }
+
+            int[] status = columns.status;
+            int[] customer = columns.customer;
+            long[] amountCents = columns.amountCents;
+            long[] createdAt = columns.createdAtMillis;
+            long fromMillis = query.from() == null ? Long.MIN_VALUE : query.from().toEpochMilli();
+            long toMillis = query.to() == null ? Long.MAX_VALUE : query.to().toEpochMilli();
+            long bucketMillis = query.bucket().toMillis();
+            boolean byStatus = query.groupBy().contains(GroupBy.STATUS);
+            boolean byCustomer = query.groupBy().contains(GroupBy.CUSTOMER);
+            boolean byBucket = query.groupBy().contains(GroupBy.BUCKET);
+
+            Map<GroupKey, Accumulator> groups = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                if ((statusMask & (1L << status[i])) == 0
+                        || (customerFilter >= 0 && customer[i] != customerFilter)
+                        || createdAt[i] < fromMillis || createdAt[i] >= toMillis) {
+                    continue;
+                }
+                GroupKey key = new GroupKey(
+                        byStatus ? status[i] : -1,
+                        byCustomer ? customer[i] : -1,
+                        byBucket ? Math.floorDiv(createdAt[i], bucketMillis) : Long.MIN_VALUE);
+                groups.computeIfAbsent(key, k -> new Accumulator()).add(amountCents[i]);
+            }
+            return groups;
+        }
+    }
+
+    private record GroupKey(int status, int customer, long bucket) {}
+
+    private static final class Accumulator {
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        // Raw amounts, sorted once at the end for exact percentiles
+        private long[] values = new long[16];
+
+        void add(long cents) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[(int) count++] = cents;
+            sum = Math.addExact(sum, cents);
+            min = Math.min(min, cents);
+            max = Math.max(max, cents);
+        }
+
+        Accumulator merge(Accumulator other) {
+            long[] mergedValues = Arrays.copyOf(values, (int) (count + other.count));
+            System.arraycopy(other.values, 0, mergedValues, (int) count, (int) other.count);
+            values = mergedValues;
+            count += other.count;
+            sum = Math.addExact(sum, other.sum);
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+
+        Group toGroup(OrderStatus status, String customerId, Instant bucketStart, List<Double> percentiles) {
+            long[] sorted = Arrays.copyOf(values, (int) count);
+            Arrays.parallelSort(sorted);
+            Map<String, Money> quantiles = new LinkedHashMap<>();
+            for (double p : percentiles) {
+                int rank = (int) Math.ceil(p * count) - 1;
+                quantiles.put("p" + BigDecimal.valueOf(p * 100).stripTrailingZeros().toPlainString(),
+                        Money.ofMinor(sorted[Math.max(0, Math.min(rank, sorted.length - 1))]));
+            }
+            return new Group(status, customerId, bucketStart, count, Money.ofMinor(sum), Money.ofMinor(min), Money.ofMinor(max),
+                    quantiles);
+        }
+    }
+
+    private static final class Columns {
+        private final int[] status;
+        private final int[] customer;
+        private final long[] amountCents;
+        private final long[] createdAtMillis;
+
+        private Columns(int capacity) {
+            this(new int[capacity], new int[capacity], new long[capacity], new long[capacity]);
+        }
+
+        private Columns(int[] status, int[] customer, long[] amountCents, long[] createdAtMillis) {
+            this.status = status;
+            this.customer = customer;
+            this.amountCents = amountCents;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        int capacity() {
+            return status.length;
+        }
+
+        Columns grow() {
+            int capacity = capacity() * 2;
+            return new Columns(Arrays.copyOf(status, capacity), Arrays.copyOf(customer, capacity),
+                    Arrays.copyOf(amountCents, capacity), Arrays.copyOf(createdAtMillis, capacity));
+        }
+    }
+
+    // ==================== API ====================
+
+    public enum GroupBy { STATUS, CUSTOMER, BUCKET }
+
+    public record AnalyticsQuery(
+            Set<GroupBy> groupBy,
+            Set<OrderStatus> statuses,
+            String customerId,
+            Instant from,
+            Instant to,
+            Duration bucket,
+            List<Double> percentiles
+    ) {
+        public AnalyticsQuery {
+            groupBy = groupBy == null || groupBy.isEmpty() ? EnumSet.noneOf(GroupBy.class) : EnumSet.copyOf(groupBy);
+            bucket = bucket == null ? Duration.ofDays(1) : bucket;
+            percentiles = percentiles == null ? List.of(0.5, 0.9, 0.99) : List.copyOf(percentiles);
+            if (bucket.toMillis() <= 0) {
+                throw new IllegalArgumentException("Bucket must be at least 1ms, got " + bucket);
+            }
+            for (double p : percentiles) {
+                if (p <= 0 || p > 1) {
+                    throw new IllegalArgumentException("Percentiles must be in (0, 1], got " + p);
+                }
+            }
+        }
+    }
+
+    public record Group(
+            OrderStatus status,
+            String customerId,
+            Instant bucketStart,
+            long count,
+            Money totalAmount,
+            Money minAmount,
+            Money maxAmount,
+            Map<String, Money> percentiles
+    ) {}
+
+    public record AnalyticsResult(long ordersTracked, Instant lastEventAt, List<Group> groups) {}
+}
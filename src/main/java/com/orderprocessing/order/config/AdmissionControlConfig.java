@@ -0,0 +1,67 @@
+package com.orderprocessing.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.admission.AdaptiveConcurrencyLimiter;
+import com.orderprocessing.order.admission.AdmissionControlFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class AdmissionControlConfig {
+
+    public static final String COMMAND_LIMITER = "commandLimiter";
+    public static final String INVENTORY_LISTENER_LIMITER = "inventoryListenerLimiter";
+    public static final String PAYMENT_LISTENER_LIMITER = "paymentListenerLimiter";
+
+    // ==================== LIMITERS ====================
+
+    @Bean(COMMAND_LIMITER)
+    public AdaptiveConcurrencyLimiter commandLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${order.admission.commands.initial-limit:20}") int initialLimit,
+            @Value("${order.admission.commands.min-limit:4}") int minLimit,
+            @Value("${order.admission.commands.max-limit:200}") int maxLimit) {
+        return new AdaptiveConcurrencyLimiter("commands", initialLimit, minLimit, maxLimit, meterRegistry);
+    }
+
+    // Listener limits are capped by the container concurrency (3 consumer threads per listener)
+
+    @Bean(INVENTORY_LISTENER_LIMITER)
+    public AdaptiveConcurrencyLimiter inventoryListenerLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${order.admission.listeners.min-limit:1}") int minLimit,
+            @Value("${order.admission.listeners.max-limit:3}") int maxLimit) {
+        return new AdaptiveConcurrencyLimiter("inventory-listener", maxLimit, minLimit, maxLimit, meterRegistry);
+    }
+
+    @Bean(PAYMENT_LISTENER_LIMITER)
+    public AdaptiveConcurrencyLimiter paymentListenerLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${order.admission.listeners.min-limit:1}") int minLimit,
+            @Value("${order.admission.listeners.max-limit:3}") int maxLimit) {
+        return new AdaptiveConcurrencyLimiter("payment-listener", maxLimit, minLimit, maxLimit, meterRegistry);
+    }
+
+    // ==================== HTTP ====================
+
+    @Bean
+    @ConditionalOnProperty(name = "order.admission.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            @Qualifier(COMMAND_LIMITER) AdaptiveConcurrencyLimiter commandLimiter,
+            ObjectMapper objectMapper,
+            @Value("${order.admission.retry-after:1s}") Duration retryAfter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(commandLimiter, objectMapper, retryAfter));
+        // POST /api/v1/orders and POST /api/v1/orders/{orderId}/cancel
+        registration.addUrlPatterns("/api/v1/orders", "/api/v1/orders/*");
+        registration.setName("admissionControlFilter");
+        return registration;
+    }
+}
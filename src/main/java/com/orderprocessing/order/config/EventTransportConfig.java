@@ -0,0 +1,184 @@
+package com.orderprocessing.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.listener.ActiveOrderIndexListener;
+import com.orderprocessing.order.listener.InventoryEventListener;
+import com.orderprocessing.order.listener.OrderAnalyticsListener;
+import com.orderprocessing.order.listener.PaymentEventListener;
+import com.orderprocessing.order.service.OrderQueryService;
+import com.orderprocessing.order.skew.SkewEndpoint;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
+import com.orderprocessing.order.transport.EventTransport;
+import com.orderprocessing.order.transport.InProcessEventTransport;
+import com.orderprocessing.order.transport.InProcessSagaParticipants;
+import com.orderprocessing.order.transport.KafkaEventTransport;
+import com.orderprocessing.order.transport.SpoolingKafkaEventTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Selects the saga's {@link EventTransport} with {@code order.transport.type}: {@code kafka}
+ * (default), where the saga listeners consume through {@code @KafkaListener} once
+ * {@code order.kafka.listeners.enabled} is set and sends can fall back to a disk spool during
+ * broker outages ({@code order.transport.spool.enabled}), or {@code in-process}, where they are subscribed
+ * to the {@link InProcessEventTransport} here and no broker is needed.
+ */
+@Configuration
+public class EventTransportConfig {
+
+    /**
+     * Fed by both transports: Kafka through the template's producer listener, in-process by the
+     * transport itself; the saga listeners report what they consume.
+     */
+    @Bean
+    public TrafficSkewMonitor trafficSkewMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${order.transport.type:kafka}") String transportType,
+            @Value("${order.transport.in-process.partitions:8}") int inProcessPartitions,
+            @Value("${order.skew.kafka-partitions:3}") int kafkaPartitions,
+            @Value("${order.skew.top-keys:10}") int topKeys,
+            @Value("${order.skew.sketch-capacity:256}") int sketchCapacity,
+            @Value("${order.skew.key-sample-rate:0.1}") double keySampleRate,
+            @Value("${order.skew.warn.min-events:1000}") long warnMinEvents,
+            @Value("${order.skew.warn.imbalance:2.0}") double warnImbalance,
+            @Value("${order.skew.warn.utilization:0.8}") double warnUtilization) {
+        int partitions = "in-process".equals(transportType) ? inProcessPartitions : kafkaPartitions;
+        return new TrafficSkewMonitor(new TrafficSkewMonitor.Settings(partitions, topKeys, sketchCapacity,
+                keySampleRate, warnMinEvents, warnImbalance, warnUtilization), meterRegistry);
+    }
+
+    @Bean
+    public SkewEndpoint skewEndpoint(TrafficSkewMonitor trafficSkewMonitor) {
+        return new SkewEndpoint(trafficSkewMonitor);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "order.transport.type", havingValue = "kafka", matchIfMissing = true)
+    static class KafkaTransport {
+
+        @Bean
+        @ConditionalOnProperty(name = "order.transport.spool.enabled", havingValue = "false", matchIfMissing = true)
+        public EventTransport eventTransport(KafkaTemplate<String, Object> kafkaTemplate) {
+            return new KafkaEventTransport(kafkaTemplate);
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "order.transport.spool.enabled", havingValue = "true")
+        public SpoolingKafkaEventTransport spoolingEventTransport(
+                KafkaTemplate<String, Object> kafkaTemplate,
+                ObjectMapper objectMapper,
+                MeterRegistry meterRegistry,
+                @Value("${order.transport.spool.directory:data/kafka-spool}") String directory,
+                @Value("${order.transport.spool.segment-size:64MB}") DataSize segmentSize,
+                @Value("${order.transport.spool.max-size:1GB}") DataSize maxSize,
+                @Value("${order.transport.spool.batch-size:500}") int batchSize,
+                @Value("${order.transport.spool.retry-interval:1s}") Duration retryInterval) {
+            return new SpoolingKafkaEventTransport(kafkaTemplate, new SpoolingKafkaEventTransport.Settings(
+                    Path.of(directory), (int) segmentSize.toBytes(), maxSize.toBytes(), batchSize, retryInterval),
+                    objectMapper, meterRegistry);
+        }
+    }
+
+    /**
+     * Subscribes the saga replies and, on {@code order-events}, the active order index and the
+     * analytics store. Nothing from before the process started can be replayed here, so the index
+     * is loaded from the database's active orders first, while analytics only covers the orders
+     * whose events this process delivered. Inventory and payment subscribe to {@code order-events}
+     * themselves, or are played in the JVM with {@code order.transport.in-process.participants.enabled}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "order.transport.type", havingValue = "in-process")
+    static class InProcessTransport {
+
+        @Bean
+        public InProcessEventTransport eventTransport(
+                ObjectMapper objectMapper,
+                MeterRegistry meterRegistry,
+                TrafficSkewMonitor skewMonitor,
+                @Value("${order.transport.in-process.partitions:8}") int partitions,
+                @Value("${order.transport.in-process.capacity:65536}") int capacity,
+                @Value("${order.transport.in-process.max-block:60s}") Duration maxBlock,
+                @Value("${order.transport.in-process.retry-attempts:3}") int retryAttempts,
+                @Value("${order.transport.in-process.retry-interval:1s}") Duration retryInterval,
+                @Value("${order.transport.in-process.journal.directory:}") String journalDirectory,
+                @Value("${order.transport.in-process.journal.segment-size:64MB}") DataSize segmentSize,
+                @Value("${order.kafka.exactly-once.enabled:false}") boolean exactlyOnce) {
+            Path journal = journalDirectory.isBlank() ? null : Path.of(journalDirectory);
+            // Without a journal, offsets start over on restart and would collide in processed_messages
+            if (exactlyOnce && journal == null) {
+                throw new IllegalStateException(
+                        "order.kafka.exactly-once.enabled with the in-process transport needs order.transport.in-process.journal.directory");
+            }
+            return new InProcessEventTransport(new InProcessEventTransport.Settings(
+                    partitions, capacity, maxBlock, retryAttempts, retryInterval, journal,
+                    (int) segmentSize.toBytes()), objectMapper, meterRegistry, skewMonitor);
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "order.transport.in-process.participants.enabled", havingValue = "true")
+        public InProcessSagaParticipants inProcessSagaParticipants(
+                InProcessEventTransport eventTransport,
+                @Value("${order.transport.in-process.participants.latency:0ms}") Duration latency,
+                @Value("${order.transport.in-process.participants.inventory-failure-ratio:0}") double inventoryFailures,
+                @Value("${order.transport.in-process.participants.payment-failure-ratio:0}") double paymentFailures) {
+            return new InProcessSagaParticipants(eventTransport,
+                    new InProcessSagaParticipants.Settings(latency, inventoryFailures, paymentFailures));
+        }
+
+        // Subscribed once all beans exist, before the transport starts and replays its journal
+        @Bean
+        public SmartInitializingSingleton inProcessSagaSubscriptions(
+                InProcessEventTransport eventTransport,
+                InventoryEventListener inventoryEventListener,
+                PaymentEventListener paymentEventListener,
+                ActiveOrderIndexListener activeOrderIndexListener,
+                OrderAnalyticsListener orderAnalyticsListener,
+                OrderQueryService orderQueryService,
+                ObjectProvider<InProcessSagaParticipants> participants,
+                @Value("${spring.application.name:order-service}") String applicationName) {
+            return () -> {
+                subscribe(eventTransport, inventoryEventListener, paymentEventListener, applicationName);
+
+                orderQueryService.loadActiveOrderIndex(eventTransport.partitionCount());
+                eventTransport.subscribe(KafkaConfig.ORDER_EVENTS_TOPIC, applicationName + "-active-order-index",
+                        BaseEvent.class, (event, delivery, acknowledgment) -> activeOrderIndexListener
+                                .handleOrderEvent(event, delivery.key(), delivery.partition(), delivery.offset()));
+                eventTransport.subscribe(KafkaConfig.ORDER_EVENTS_TOPIC, applicationName + "-analytics",
+                        BaseEvent.class, (event, delivery, acknowledgment) -> orderAnalyticsListener
+                                .handleOrderEvent(event));
+
+                participants.ifAvailable(participant -> participant.subscribe(applicationName + "-in-process-participants"));
+            };
+        }
+
+        private static void subscribe(InProcessEventTransport eventTransport,
+                                      InventoryEventListener inventoryEventListener,
+                                      PaymentEventListener paymentEventListener,
+                                      String applicationName) {
+            String inventoryGroup = applicationName + "-inventory-group";
+            eventTransport.subscribe(KafkaConfig.INVENTORY_EVENTS_TOPIC, inventoryGroup,
+                    InventoryEventListener.InventoryEvent.class,
+                    (event, delivery, acknowledgment) -> inventoryEventListener.handleInventoryEvent(
+                            event, delivery.key(), inventoryGroup, delivery.topic(), delivery.partition(),
+                            delivery.offset(), acknowledgment));
+
+            String paymentGroup = applicationName + "-payment-group";
+            eventTransport.subscribe(KafkaConfig.PAYMENT_EVENTS_TOPIC, paymentGroup,
+                    PaymentEventListener.PaymentEvent.class,
+                    (event, delivery, acknowledgment) -> paymentEventListener.handlePaymentEvent(
+                            event, delivery.key(), paymentGroup, delivery.topic(), delivery.partition(),
+                            delivery.offset(), acknowledgment));
+        }
+    }
+}
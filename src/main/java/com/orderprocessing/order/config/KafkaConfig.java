@@ -1,24 +1,41 @@
 package com.orderprocessing.order.config;
 
+import com.orderprocessing.common.event.BaseEvent;
 import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderSnapshot;
+import com.orderprocessing.order.listener.ActiveOrderIndexListener;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.CompositeProducerListener;
+import org.springframework.kafka.support.LoggingProducerListener;
+import org.springframework.kafka.support.ProducerListener;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,36 +48,101 @@ public class KafkaConfig {
     @Value("${spring.application.name:order-service}")
     private String applicationName;
 
+    // Transactional producer, read_committed consumers and Kafka transactions around saga replies
+    @Value("${order.kafka.exactly-once.enabled:false}")
+    private boolean exactlyOnce;
+
+    // Unique per instance; the random default changes on every restart, which EOS v2 tolerates
+    @Value("${order.kafka.exactly-once.transaction-id-prefix:${spring.application.name:order-service}-${random.uuid}-}")
+    private String transactionIdPrefix;
+
+    // Rebalance behaviour of the order-event consumers; instance-id enables static membership
+    // for the saga reply groups
+    @Value("${order.kafka.consumer.assignment-strategy:org.apache.kafka.clients.consumer.CooperativeStickyAssignor}")
+    private String assignmentStrategy;
+
+    @Value("${order.kafka.consumer.instance-id:}")
+    private String consumerInstanceId;
+
+    @Value("${order.kafka.consumer.session-timeout:45s}")
+    private Duration sessionTimeout;
+
+    @Value("${order.kafka.consumer.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    // With the spool, a send gives up on an unreachable broker this quickly and is spooled instead
+    @Value("${order.transport.spool.enabled:false}")
+    private boolean spoolEnabled;
+
+    @Value("${order.transport.spool.max-block:1s}")
+    private Duration spoolMaxBlock;
+
     // Topic names as constants
     public static final String ORDER_EVENTS_TOPIC = "order-events";
     public static final String INVENTORY_EVENTS_TOPIC = "inventory-events";
     public static final String PAYMENT_EVENTS_TOPIC = "payment-events";
+    public static final String ORDER_STATE_TOPIC = "order-state";
+
+    private static final long ACTIVE_ORDER_INDEX_IDLE_MILLIS = 1000;
 
     // ==================== TOPICS ====================
 
-    @Bean
-    public NewTopic orderEventsTopic() {
-        return TopicBuilder.name(ORDER_EVENTS_TOPIC)
-                .partitions(3)
-                .replicas(1)
-                .config("retention.ms", "604800000") // 7 days
-                .build();
-    }
+    /**
+     * Topic declarations for environments where the service owns its topics. Off in prod, where
+     * topics are managed with the cluster and the admin round-trips only slow down startup.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "order.kafka.provision-topics", havingValue = "true", matchIfMissing = true)
+    static class TopicProvisioning {
 
-    @Bean
-    public NewTopic inventoryEventsTopic() {
-        return TopicBuilder.name(INVENTORY_EVENTS_TOPIC)
-                .partitions(3)
-                .replicas(1)
-                .build();
+        @Bean
+        public NewTopic orderEventsTopic() {
+            return TopicBuilder.name(ORDER_EVENTS_TOPIC)
+                    .partitions(3)
+                    .replicas(1)
+                    .config("retention.ms", "604800000") // 7 days
+                    .build();
+        }
+
+        @Bean
+        public NewTopic inventoryEventsTopic() {
+            return TopicBuilder.name(INVENTORY_EVENTS_TOPIC)
+                    .partitions(3)
+                    .replicas(1)
+                    .build();
+        }
+
+        @Bean
+        public NewTopic paymentEventsTopic() {
+            return TopicBuilder.name(PAYMENT_EVENTS_TOPIC)
+                    .partitions(3)
+                    .replicas(1)
+                    .build();
+        }
+
+        // Latest snapshot per order ID, kept indefinitely by compaction instead of retention
+        @Bean
+        public NewTopic orderStateTopic() {
+            return TopicBuilder.name(ORDER_STATE_TOPIC)
+                    .partitions(3)
+                    .replicas(1)
+                    .compact()
+                    .config("min.cleanable.dirty.ratio", "0.1")
+                    .config("segment.ms", "3600000") // 1 hour, so the active segment is soon compactable
+                    .build();
+        }
     }
 
-    @Bean
-    public NewTopic paymentEventsTopic() {
-        return TopicBuilder.name(PAYMENT_EVENTS_TOPIC)
-                .partitions(3)
-                .replicas(1)
-                .build();
+    // ==================== LISTENERS ====================
+
+    /**
+     * The {@code @KafkaListener}s (saga replies, active order index, analytics) only consume with
+     * {@code order.kafka.listeners.enabled}, so the service starts without a reachable broker.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "order.kafka.listeners.enabled", havingValue = "true")
+    @EnableKafka
+    static class Listeners {
     }
 
     // ==================== PRODUCER ====================
@@ -81,24 +163,48 @@ public class KafkaConfig {
         props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
         props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
         props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
+        if (spoolEnabled) {
+            props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, spoolMaxBlock.toMillis());
+        }
 
-        return new DefaultKafkaProducerFactory<>(props);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(props);
+        if (exactlyOnce) {
+            factory.setTransactionIdPrefix(transactionIdPrefix);
+        }
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, Object> kafkaTemplate(TrafficSkewMonitor skewMonitor) {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        // REST commands aren't consume-transform-produce; they send without a Kafka transaction
+        template.setAllowNonTransactional(exactlyOnce);
+        // Failures are logged as by default; successful sends tell the skew monitor their partition
+        template.setProducerListener(new CompositeProducerListener<>(new LoggingProducerListener<>(),
+                new ProducerListener<>() {
+                    @Override
+                    public void onSuccess(ProducerRecord<String, Object> record, RecordMetadata metadata) {
+                        skewMonitor.produced(record.topic(), metadata.partition(), record.key());
+                    }
+                }));
+        return template;
     }
 
     // ==================== CONSUMER ====================
 
     @Bean
-    public ConsumerFactory<String, OrderEvent> orderEventConsumerFactory() {
+    public ConsumerFactory<String, BaseEvent> orderEventConsumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(orderEventConsumerProps());
+    }
+
+    private Map<String, Object> orderEventConsumerProps() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-group");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, assignmentStrategy);
+        isolation(props);
 
         // Deserialization
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
@@ -106,26 +212,146 @@ public class KafkaConfig {
         props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.orderprocessing.*");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName());
+        return props;
+    }
+
+    /**
+     * Consumers of the saga reply groups: with {@code order.kafka.consumer.instance-id} they are
+     * static members. The container appends "-&lt;n&gt;" to the id per concurrent consumer, so
+     * the ids stay unique within a group.
+     */
+    private ConsumerFactory<String, BaseEvent> sagaReplyConsumerFactory() {
+        if (consumerInstanceId.isBlank()) {
+            return orderEventConsumerFactory();
+        }
+        Map<String, Object> props = orderEventConsumerProps();
+        props.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, consumerInstanceId);
+        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, (int) sessionTimeout.toMillis());
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    // Skip events of aborted transactions once the service itself produces transactionally
+    private void isolation(Map<String, Object> props) {
+        if (exactlyOnce) {
+            props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        }
+    }
+
+    /**
+     * Group-less consumers for {@link com.orderprocessing.order.service.OrderStateBootstrapper},
+     * tuned for reading a whole compacted topic quickly.
+     */
+    @Bean
+    public ConsumerFactory<String, OrderSnapshot> orderStateConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10000);
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 8 * 1024 * 1024);
+        props.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, 64 * 1024 * 1024);
+        isolation(props);
+
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.orderprocessing.*");
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, OrderSnapshot.class.getName());
 
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, BaseEvent> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, BaseEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
 
-        factory.setConsumerFactory(orderEventConsumerFactory());
+        factory.setConsumerFactory(sagaReplyConsumerFactory());
         factory.setConcurrency(3);
 
         // Manual acknowledgment for at-least-once delivery
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
 
+        // Rolling restarts: a stopping consumer finishes the records it fetched and commits them
+        // before closing, and with an instance id it rejoins without a rebalance
+        factory.getContainerProperties().setStopImmediate(false);
+        factory.getContainerProperties().setShutdownTimeout(shutdownTimeout.toMillis());
+
         // Error handling with retry
         factory.setCommonErrorHandler(new DefaultErrorHandler(
                 new FixedBackOff(1000L, 3L) // 1 second interval, 3 retries
         ));
 
+        if (exactlyOnce) {
+            // Each record in a Kafka transaction: replies and the acknowledged offset commit
+            // together, after the database (see ProcessedMessageLedger)
+            factory.getContainerProperties().setTransactionManager(new KafkaTransactionManager<>(producerFactory()));
+            // Failed transactions are retried by the after-rollback processor, not the error handler
+            factory.setAfterRollbackProcessor(new DefaultAfterRollbackProcessor<>(new FixedBackOff(1000L, 3L)));
+        }
+
         return factory;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BaseEvent> activeOrderIndexListenerContainerFactory(
+            // Lazy: the listener's @KafkaListener names this factory, so injecting the listener itself
+            // would create the factory while the listener is still being post-processed, a circular
+            // reference whenever @EnableKafka is active. The proxy is first called on partition assignment.
+            @Lazy ActiveOrderIndexListener activeOrderIndexListener) {
+        ConcurrentKafkaListenerContainerFactory<String, BaseEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(orderEventConsumerFactory());
+        factory.setConcurrency(3);
+
+        // Assigned partitions are replayed from the beginning, so committed offsets don't matter
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setConsumerRebalanceListener(activeOrderIndexListener);
+        // Warms up partitions whose replay ends without a record (ActiveOrderIndexListener.onPartitionIdle)
+        factory.getContainerProperties().setIdlePartitionEventInterval(ACTIVE_ORDER_INDEX_IDLE_MILLIS);
+
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BaseEvent> orderAnalyticsListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, BaseEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(orderEventConsumerFactory());
+        // Single writer for OrderAnalyticsStore
+        factory.setConcurrency(1);
+
+        // Never acknowledged: every node replays all partitions from offset 0 on startup
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        return factory;
+    }
+
+    /**
+     * Resolves a topic's partitions for manually assigned listeners, e.g.
+     * {@code partitions = "#{@partitionFinder.partitions('order-events')}"}.
+     */
+    @Bean
+    public PartitionFinder partitionFinder() {
+        return new PartitionFinder(orderEventConsumerFactory());
+    }
+
+    public static class PartitionFinder {
+
+        private final ConsumerFactory<String, ?> consumerFactory;
+
+        public PartitionFinder(ConsumerFactory<String, ?> consumerFactory) {
+            this.consumerFactory = consumerFactory;
+        }
+
+        public String[] partitions(String topic) {
+            try (Consumer<String, ?> consumer = consumerFactory.createConsumer()) {
+                return consumer.partitionsFor(topic).stream()
+                        .map(PartitionInfo::partition)
+                        .map(String::valueOf)
+                        .toArray(String[]::new);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.orderprocessing.order.config;
+
+import com.orderprocessing.order.domain.Money;
+import io.swagger.v3.oas.models.media.NumberSchema;
+import org.springdoc.core.customizers.OpenApiCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+
+/**
+ * Documents {@link Money} as the decimal number it is on the wire (see {@code Money.Serializer})
+ * instead of the record's {@code minorUnits}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class OpenApiConfig {
+
+    @Bean
+    public OpenApiCustomizer moneyAsDecimal() {
+        return openApi -> {
+            if (openApi.getComponents() != null && openApi.getComponents().getSchemas() != null) {
+                openApi.getComponents().getSchemas().computeIfPresent(Money.class.getSimpleName(),
+                        (name, schema) -> new NumberSchema().example(new BigDecimal("19.99"))
+                                .description("Amount with " + Money.SCALE + " decimals"));
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.orderprocessing.order.config;
+
+import com.orderprocessing.order.domain.OrderStateMachine;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.domain.SagaDefinition;
+import com.orderprocessing.order.event.OrderEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Compiles the saga definition at startup. Extra steps can be declared without code changes, e.g.
+ * letting a bulk transition abort orders stuck in payment, and cancelling compensated orders
+ * without waiting for the inventory release:
+ * <pre>
+ * order.saga.transitions=PAYMENT_PROCESSING>COMPENSATING:ORDER_COMPENSATION_STARTED
+ * order.saga.continuations=COMPENSATING>CANCELLED
+ * </pre>
+ * A status can continue to one status only, so the standard continuations can't be redeclared.
+ * The terminal statuses of the standard saga (COMPLETED, CANCELLED) must not gain outgoing edges:
+ * terminal orders are archived and cached as immutable ({@code TerminalOrder}), so such
+ * transitions are rejected.
+ */
+@Configuration
+public class SagaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaConfig.class);
+
+    @Bean
+    public SagaDefinition sagaDefinition(
+            @Value("${order.saga.transitions:}") List<String> extraTransitions,
+            @Value("${order.saga.continuations:}") List<String> extraContinuations) {
+        SagaDefinition standard = SagaDefinition.standard();
+        OrderStateMachine standardStateMachine = standard.compile();
+        SagaDefinition.Builder builder = standard.toBuilder();
+
+        // FROM>TO:EVENT
+        for (String transition : extraTransitions) {
+            String[] edge = transition.trim().split("[>:]");
+            if (edge.length != 3) {
+                throw new IllegalArgumentException("Expected FROM>TO:EVENT in order.saga.transitions, got " + transition);
+            }
+            OrderStatus from = OrderStatus.valueOf(edge[0].trim());
+            if (standardStateMachine.isTerminal(from)) {
+                throw new IllegalArgumentException("Terminal status " + from
+                        + " cannot gain transitions in order.saga.transitions, got " + transition);
+            }
+            builder.transition(from, OrderStatus.valueOf(edge[1].trim()), OrderEventType.valueOf(edge[2].trim()));
+        }
+
+        // REACHED>NEXT
+        for (String continuation : extraContinuations) {
+            String[] step = continuation.trim().split(">");
+            if (step.length != 2) {
+                throw new IllegalArgumentException("Expected REACHED>NEXT in order.saga.continuations, got " + continuation);
+            }
+            builder.continueWith(OrderStatus.valueOf(step[0].trim()), OrderStatus.valueOf(step[1].trim()));
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    public OrderStateMachine orderStateMachine(SagaDefinition sagaDefinition) {
+        OrderStateMachine stateMachine = sagaDefinition.compile();
+        OrderStateMachine.activate(stateMachine);
+        log.info("Saga compiled: {} transitions, {} continuations",
+                sagaDefinition.edges().size(), sagaDefinition.continuations().size());
+        return stateMachine;
+    }
+}
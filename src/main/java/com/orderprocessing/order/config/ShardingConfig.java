@@ -0,0 +1,121 @@
+package com.orderprocessing.order.config;
+
+import com.orderprocessing.order.sharding.BucketMover;
+import com.orderprocessing.order.sharding.ShardDirectory;
+import com.orderprocessing.order.sharding.ShardRouter;
+import com.orderprocessing.order.sharding.ShardRoutingDataSource;
+import com.orderprocessing.order.sharding.ShardsEndpoint;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Horizontal sharding of orders by customer ({@code order.sharding.enabled}, PostgreSQL, see
+ * {@code db/postgres/sharding.sql}). Each of {@code order.sharding.shards} gets its own pool, and
+ * the application's {@link DataSource} routes every transaction to the shard {@link ShardRouter}
+ * picked for it. Disabled, the router is a pass-through over {@code spring.datasource}.
+ */
+@Configuration
+public class ShardingConfig {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "order.sharding.enabled", havingValue = "true")
+    static class Sharded {
+
+        @Bean
+        public ShardPools shardPools(Environment environment,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${order.sharding.pool-size:10}") int poolSize) {
+            List<Shard> shards = Binder.get(environment)
+                    .bind("order.sharding.shards", Bindable.listOf(Shard.class))
+                    .orElseThrow(() -> new IllegalStateException("order.sharding.shards lists no shards"));
+            List<HikariDataSource> pools = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                HikariDataSource pool = new HikariDataSource();
+                pool.setPoolName("shard-" + i);
+                pool.setJdbcUrl(shards.get(i).url());
+                pool.setUsername(shards.get(i).username());
+                pool.setPassword(shards.get(i).password());
+                pool.setMaximumPoolSize(poolSize);
+                pool.setMetricRegistry(meterRegistry);
+                pools.add(pool);
+            }
+            return new ShardPools(pools);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardPools shardPools) {
+            // Lazy: a transaction takes its connection at the first statement, after it was routed
+            return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardPools.dataSources()));
+        }
+
+        @Bean
+        public ShardDirectory shardDirectory(ShardPools shardPools,
+                                             @Value("${order.sharding.initial-shards:0}") int initialShards) {
+            return new ShardDirectory(shardPools.pools().get(0),
+                    initialShards > 0 ? initialShards : shardPools.pools().size());
+        }
+
+        @Bean
+        public ShardRouter shardRouter(ShardPools shardPools,
+                                       DataSource dataSource,
+                                       ShardDirectory shardDirectory,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${order.sharding.max-write-wait:10s}") Duration maxWriteWait) {
+            return new ShardRouter(shardPools.dataSources(), dataSource, shardDirectory, maxWriteWait, meterRegistry);
+        }
+
+        @Bean
+        public BucketMover bucketMover(ShardRouter shardRouter,
+                                       @Value("${order.sharding.refresh-interval:PT2S}") Duration refreshInterval,
+                                       @Value("${order.sharding.move-grace:5s}") Duration grace,
+                                       @Value("${order.sharding.move-batch:64}") int batchBuckets) {
+            return new BucketMover(shardRouter, refreshInterval, grace, batchBuckets);
+        }
+
+        @Bean
+        public ShardsEndpoint shardsEndpoint(ShardRouter shardRouter, BucketMover bucketMover) {
+            return new ShardsEndpoint(shardRouter, bucketMover);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "order.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    static class Unsharded {
+
+        @Bean
+        public ShardRouter shardRouter() {
+            return ShardRouter.single();
+        }
+    }
+
+    record Shard(String url, String username, String password) {
+    }
+
+    // The shards' own pools; not DataSource beans, so only the routing one is injected by type
+    record ShardPools(List<HikariDataSource> pools) implements AutoCloseable {
+
+        List<DataSource> dataSources() {
+            return List.copyOf(pools);
+        }
+
+        @Override
+        public void close() {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+}
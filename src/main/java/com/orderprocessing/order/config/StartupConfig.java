@@ -0,0 +1,59 @@
+package com.orderprocessing.order.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Defers beans that no request on the order path needs until first use. By default that is
+ * springdoc: the OpenAPI model and Swagger UI are only built when {@code /api-docs} or
+ * {@code /swagger-ui.html} is first hit.
+ * <pre>
+ * order.startup.lazy-packages=org.springdoc,com.example.reporting
+ * </pre>
+ * Everything else stays eager so configuration errors still fail the boot, not the first order.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    // Static: must run before any bean definition is instantiated
+    @Bean
+    public static BeanFactoryPostProcessor lazyNonCriticalBeans(Environment environment) {
+        List<String> packages = Binder.get(environment)
+                .bind("order.startup.lazy-packages", String[].class)
+                .map(List::of)
+                .orElse(List.of("org.springdoc"));
+
+        return beanFactory -> {
+            int deferred = 0;
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String type = declaringType(beanFactory, definition);
+                if (type != null && packages.stream().anyMatch(type::startsWith)) {
+                    definition.setLazyInit(true);
+                    deferred++;
+                }
+            }
+            log.debug("Deferred {} bean(s) from {} to first use", deferred, packages);
+        };
+    }
+
+    // Components name their own class; @Bean methods count as part of their configuration class
+    private static String declaringType(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String factoryBean = definition.getFactoryBeanName();
+        if (factoryBean != null && beanFactory.containsBeanDefinition(factoryBean)) {
+            return beanFactory.getBeanDefinition(factoryBean).getBeanClassName();
+        }
+        return definition.getBeanClassName();
+    }
+}
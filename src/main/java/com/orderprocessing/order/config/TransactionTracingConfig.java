@@ -0,0 +1,55 @@
+package com.orderprocessing.order.config;
+
+import com.orderprocessing.order.tracing.TracingDataSource;
+import com.orderprocessing.order.tracing.TracingJpaTransactionManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Replaces Boot's {@code JpaTransactionManager} with the tracing one. Statements reach the traces
+ * through {@code hibernate.session_factory.statement_inspector} (see application.yml), connection
+ * checkouts behind the sharding's lazy proxy through a {@link TracingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.transaction.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionTracingConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            MeterRegistry meterRegistry,
+            ObjectProvider<TransactionManagerCustomizers> customizers,
+            @Value("${order.transaction.slow-threshold:500ms}") Duration slowThreshold,
+            @Value("${order.transaction.max-traced-steps:100}") int maxSteps) {
+        TracingJpaTransactionManager transactionManager =
+                new TracingJpaTransactionManager(meterRegistry, slowThreshold, maxSteps);
+        // Same customization (spring.transaction.*) as Boot applies to its own transaction manager
+        customizers.ifAvailable(c -> c.customize((TransactionManager) transactionManager));
+        return transactionManager;
+    }
+
+    // Behind the lazy proxy (sharding) the connection is checked out at the first statement
+    @Bean
+    public static BeanPostProcessor lazyConnectionTracing() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LazyConnectionDataSourceProxy lazy
+                        && !(lazy.getTargetDataSource() instanceof TracingDataSource)) {
+                    lazy.setTargetDataSource(new TracingDataSource(lazy.getTargetDataSource()));
+                }
+                return bean;
+            }
+        };
+    }
+}
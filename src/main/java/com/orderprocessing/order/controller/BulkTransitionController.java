@@ -0,0 +1,114 @@
+package com.orderprocessing.order.controller;
+
+import com.orderprocessing.order.dto.BulkTransitionRequest;
+import com.orderprocessing.order.service.BulkTransitionService;
+import com.orderprocessing.order.service.BulkTransitionService.Progress;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/orders/bulk-transitions")
+@Tag(name = "Bulk transitions", description = "Background jobs moving many orders to one status")
+public class BulkTransitionController {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkTransitionController.class);
+
+    private final BulkTransitionService bulkTransitionService;
+
+    public BulkTransitionController(BulkTransitionService bulkTransitionService) {
+        this.bulkTransitionService = bulkTransitionService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Start a bulk transition",
+            description = "Queues a job moving every order in one of the given statuses (optionally only one "
+                    + "customer's, or created before a cut-off) to the target status. Poll the returned location "
+                    + "for progress.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Job queued"),
+            @ApiResponse(responseCode = "400", description = "Invalid request or transition")
+    })
+    public ResponseEntity<Progress> submit(@Valid @RequestBody BulkTransitionRequest request) {
+        Progress job = bulkTransitionService.submit(request);
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+
+    @GetMapping
+    @Operation(summary = "List bulk transitions", description = "The latest jobs, newest first")
+    public ResponseEntity<List<Progress>> list() {
+        return ResponseEntity.ok(bulkTransitionService.list());
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get a bulk transition", description = "State and progress of a job")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job found"),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    public ResponseEntity<Progress> get(@Parameter(description = "Job ID") @PathVariable String jobId) {
+        return ResponseEntity.ok(bulkTransitionService.get(jobId));
+    }
+
+    @PostMapping("/{jobId}/stop")
+    @Operation(summary = "Stop a bulk transition",
+            description = "Stops the job once the chunks in flight are done; it can be resumed later")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Stop requested"),
+            @ApiResponse(responseCode = "404", description = "Job not found"),
+            @ApiResponse(responseCode = "409", description = "Job finished or running on another instance")
+    })
+    public ResponseEntity<Progress> stop(@Parameter(description = "Job ID") @PathVariable String jobId) {
+        return ResponseEntity.accepted().body(bulkTransitionService.stop(jobId));
+    }
+
+    @PostMapping("/{jobId}/resume")
+    @Operation(summary = "Resume a bulk transition",
+            description = "Queues a stopped, failed or abandoned job again. Orders it already moved are not "
+                    + "selected again.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Job queued"),
+            @ApiResponse(responseCode = "404", description = "Job not found"),
+            @ApiResponse(responseCode = "409", description = "Job complete or still running")
+    })
+    public ResponseEntity<Progress> resume(@Parameter(description = "Job ID") @PathVariable String jobId) {
+        return ResponseEntity.accepted().body(bulkTransitionService.resume(jobId));
+    }
+
+    @ExceptionHandler(BulkTransitionService.JobNotFoundException.class)
+    public ResponseEntity<OrderController.ErrorResponse> handleJobNotFound(BulkTransitionService.JobNotFoundException ex) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(new OrderController.ErrorResponse("JOB_NOT_FOUND", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<OrderController.ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
+        log.warn("Invalid bulk transition: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new OrderController.ErrorResponse("INVALID_REQUEST", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<OrderController.ErrorResponse> handleIllegalState(IllegalStateException ex) {
+        log.warn("Bulk transition conflict: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(new OrderController.ErrorResponse("JOB_CONFLICT", ex.getMessage()));
+    }
+}
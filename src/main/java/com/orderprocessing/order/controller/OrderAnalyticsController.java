@@ -0,0 +1,67 @@
+package com.orderprocessing.order.controller;
+
+import com.orderprocessing.order.analytics.OrderAnalyticsStore;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore.AnalyticsQuery;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore.AnalyticsResult;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore.GroupBy;
+import com.orderprocessing.order.domain.OrderStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/analytics/orders")
+@Tag(name = "Order analytics", description = "Revenue and status aggregates over all orders")
+public class OrderAnalyticsController {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAnalyticsController.class);
+
+    private final OrderAnalyticsStore analyticsStore;
+
+    public OrderAnalyticsController(OrderAnalyticsStore analyticsStore) {
+        this.analyticsStore = analyticsStore;
+    }
+
+    @GetMapping
+    @Operation(summary = "Aggregate orders",
+            description = "Counts, sums and percentiles of order totals, grouped by status, customer and/or "
+                    + "creation-time bucket. Served from the in-memory aggregate fed by order-events.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Aggregates computed"),
+            @ApiResponse(responseCode = "400", description = "Invalid bucket or percentile")
+    })
+    public ResponseEntity<AnalyticsResult> aggregate(
+            @Parameter(description = "Dimensions to group by") @RequestParam(required = false) Set<GroupBy> groupBy,
+            @Parameter(description = "Only these statuses") @RequestParam(required = false) Set<OrderStatus> status,
+            @Parameter(description = "Only this customer") @RequestParam(required = false) String customerId,
+            @Parameter(description = "Created at or after (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Created before (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "Time bucket width, e.g. PT1H") @RequestParam(required = false) Duration bucket,
+            @Parameter(description = "Percentiles in (0, 1]") @RequestParam(required = false) List<Double> percentiles) {
+        AnalyticsQuery query = new AnalyticsQuery(groupBy, status, customerId, from, to, bucket, percentiles);
+        return ResponseEntity.ok(analyticsStore.aggregate(query));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<OrderController.ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
+        log.warn("Invalid analytics query: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new OrderController.ErrorResponse("INVALID_QUERY", ex.getMessage()));
+    }
+}
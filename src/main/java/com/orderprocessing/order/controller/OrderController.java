@@ -2,9 +2,14 @@ package com.orderprocessing.order.controller;
 
 import com.orderprocessing.order.domain.OrderStatus;
 import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.dto.OrderLookupRequest;
+import com.orderprocessing.order.dto.OrderLookupResponse;
 import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.service.IdempotentOrderService;
 import com.orderprocessing.order.service.OrderCommandService;
+import com.orderprocessing.order.service.OrderLookupService;
 import com.orderprocessing.order.service.OrderQueryService;
+import com.orderprocessing.order.sharding.ShardMovingException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,6 +20,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,12 +34,23 @@ public class OrderController {
 
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
+    public static final String LOOKUP_PATH = "/api/v1/orders/lookup";
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final OrderCommandService commandService;
     private final OrderQueryService queryService;
+    private final OrderLookupService lookupService;
+    private final IdempotentOrderService idempotentOrderService;
 
-    public OrderController(OrderCommandService commandService, OrderQueryService queryService) {
+    public OrderController(OrderCommandService commandService,
+                           OrderQueryService queryService,
+                           OrderLookupService lookupService,
+                           IdempotentOrderService idempotentOrderService) {
         this.commandService = commandService;
         this.queryService = queryService;
+        this.lookupService = lookupService;
+        this.idempotentOrderService = idempotentOrderService;
     }
 
     // ==================== COMMAND ENDPOINTS ====================
@@ -43,18 +60,29 @@ public class OrderController {
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Order created successfully",
                     content = @Content(schema = @Schema(implementation = OrderResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid request payload"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "400", description = "Invalid request payload or Idempotency-Key"),
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still running"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay")
     })
     public ResponseEntity<OrderResponse> createOrder(
+            @Parameter(description = "Client-chosen key; retries with the same key get the first response "
+                    + "(with Idempotent-Replayed: true) instead of a new order")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request) {
         log.info("Received create order request for customer: {}", request.customerId());
 
-        OrderResponse response = commandService.createOrder(request);
-
+        if (idempotencyKey == null) {
+            return ResponseEntity
+                    .status(HttpStatus.CREATED)
+                    .body(commandService.createOrder(request));
+        }
+        IdempotentOrderService.Outcome outcome = idempotentOrderService.createOrder(idempotencyKey, request);
         return ResponseEntity
                 .status(HttpStatus.CREATED)
-                .body(response);
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(outcome.replayed()))
+                .body(outcome.response());
     }
 
     @PostMapping("/{orderId}/cancel")
@@ -62,7 +90,8 @@ public class OrderController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Order cancelled successfully"),
             @ApiResponse(responseCode = "404", description = "Order not found"),
-            @ApiResponse(responseCode = "409", description = "Order cannot be cancelled (already completed)")
+            @ApiResponse(responseCode = "409", description = "Order cannot be cancelled (already completed)"),
+            @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay")
     })
     public ResponseEntity<OrderResponse> cancelOrder(
             @Parameter(description = "Order ID") @PathVariable String orderId) {
@@ -95,6 +124,19 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @PostMapping("/lookup")
+    @Operation(summary = "Look up many orders",
+            description = "Resolves order IDs and saga IDs in one request; unknown keys are returned as not found. "
+                    + "view=STATUS returns status only, without items")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lookup completed, possibly with not-found entries"),
+            @ApiResponse(responseCode = "400", description = "No keys, or more than order.query.lookup.max-keys")
+    })
+    public ResponseEntity<OrderLookupResponse> lookupOrders(
+            @Valid @RequestBody OrderLookupRequest request) {
+        return ResponseEntity.ok(lookupService.lookup(request));
+    }
+
     @GetMapping("/status/{status}")
     @Operation(summary = "Get orders by status", description = "Retrieves all orders with a specific status")
     public ResponseEntity<List<OrderResponse>> getOrdersByStatus(
@@ -129,6 +171,13 @@ public class OrderController {
                 .body(new ErrorResponse("ORDER_NOT_FOUND", ex.getMessage()));
     }
 
+    @ExceptionHandler(OrderLookupService.InvalidLookupException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidLookup(OrderLookupService.InvalidLookupException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("INVALID_LOOKUP", ex.getMessage()));
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<ErrorResponse> handleIllegalState(IllegalStateException ex) {
         log.warn("Illegal state transition: {}", ex.getMessage());
@@ -137,6 +186,38 @@ public class OrderController {
                 .body(new ErrorResponse("INVALID_STATE_TRANSITION", ex.getMessage()));
     }
 
+    @ExceptionHandler(IdempotentOrderService.KeyInFlightException.class)
+    public ResponseEntity<ErrorResponse> handleKeyInFlight(IdempotentOrderService.KeyInFlightException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("IDEMPOTENCY_KEY_IN_FLIGHT", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotentOrderService.InvalidKeyException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidKey(IdempotentOrderService.InvalidKeyException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("INVALID_IDEMPOTENCY_KEY", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotentOrderService.KeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleKeyReused(IdempotentOrderService.KeyReusedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(new ErrorResponse("IDEMPOTENCY_KEY_REUSED", ex.getMessage()));
+    }
+
+    // The customer's orders are being moved to another shard; the move takes seconds
+    @ExceptionHandler(ShardMovingException.class)
+    public ResponseEntity<ErrorResponse> handleShardMoving(ShardMovingException ex) {
+        log.warn("Write rejected during a shard move: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("SHARD_MOVING", ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error: ", ex);
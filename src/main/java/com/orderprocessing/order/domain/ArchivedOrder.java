@@ -0,0 +1,56 @@
+package com.orderprocessing.order.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only copy of a terminal (COMPLETED/CANCELLED) order moved out of the hot
+ * {@code orders} table by {@code OrderArchiver}.
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "orders_archive")
+public class ArchivedOrder {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money totalAmount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    private Long version;
+
+    @Column(name = "saga_id")
+    private String sagaId;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(nullable = false)
+    private Instant archivedAt;
+
+    protected ArchivedOrder() {}
+
+    public List<ArchivedOrderItem> getItems() { return new ArrayList<>(items); }
+}
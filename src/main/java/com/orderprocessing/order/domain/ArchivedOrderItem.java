@@ -0,0 +1,46 @@
+package com.orderprocessing.order.domain;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+@Entity
+@Immutable
+@Table(name = "order_items_archive")
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String productId;
+
+    @Column(nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private Money unitPrice;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private ArchivedOrder order;
+
+    protected ArchivedOrderItem() {}
+
+    public Money getTotalPrice() {
+        return unitPrice.times(quantity);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getProductId() { return productId; }
+
+    public String getProductName() { return productName; }
+
+    public Integer getQuantity() { return quantity; }
+
+    public Money getUnitPrice() { return unitPrice; }
+}
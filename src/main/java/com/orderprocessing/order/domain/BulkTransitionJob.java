@@ -0,0 +1,127 @@
+package com.orderprocessing.order.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A bulk transition run by {@code BulkTransitionService}: every order matching the criteria
+ * ({@code fromStatuses}, optionally one customer and a creation cut-off) is moved to
+ * {@code targetStatus}. Holds the criteria and the progress, so a stopped, failed or interrupted
+ * job can be resumed.
+ */
+@Getter
+@Entity
+@Table(name = "bulk_transition_jobs")
+public class BulkTransitionJob {
+
+    public enum State { QUEUED, RUNNING, STOPPED, FAILED, COMPLETED }
+
+    private static final int MAX_ERROR = 1000;
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    // Comma-separated OrderStatus names
+    @Column(name = "from_statuses", nullable = false)
+    private String fromStatuses;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_status", nullable = false)
+    private OrderStatus targetStatus;
+
+    @Column(name = "customer_id")
+    private String customerId;
+
+    @Column(name = "created_before")
+    private Instant createdBefore;
+
+    // Stored as the failure reason of every transitioned order
+    private String reason;
+
+    @Column(name = "rate_per_second", nullable = false)
+    private int ratePerSecond;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state;
+
+    // Orders matched, moved, and skipped because they had left fromStatuses in the meantime
+    private long selected;
+    private long transitioned;
+    private long skipped;
+
+    @Column(length = MAX_ERROR)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Heartbeat while running
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    // Two instances resuming the same abandoned job: one of them wins
+    @Version
+    private Long version;
+
+    protected BulkTransitionJob() {}
+
+    public BulkTransitionJob(String id, Set<OrderStatus> fromStatuses, OrderStatus targetStatus, String customerId,
+                             Instant createdBefore, String reason, int ratePerSecond, Instant createdAt) {
+        this.id = id;
+        this.fromStatuses = fromStatuses.stream().map(Enum::name).sorted().collect(Collectors.joining(","));
+        this.targetStatus = targetStatus;
+        this.customerId = customerId;
+        this.createdBefore = createdBefore;
+        this.reason = reason;
+        this.ratePerSecond = ratePerSecond;
+        this.state = State.QUEUED;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    public Set<OrderStatus> fromStatusSet() {
+        return Arrays.stream(fromStatuses.split(","))
+                .map(OrderStatus::valueOf)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(OrderStatus.class)));
+    }
+
+    public void moveTo(State state, Instant now) {
+        this.state = state;
+        this.updatedAt = now;
+        if (state == State.QUEUED || state == State.RUNNING) {
+            this.error = null;
+            this.finishedAt = null;
+        } else {
+            this.finishedAt = now;
+        }
+    }
+
+    public void progress(long selected, long transitioned, long skipped, Instant now) {
+        this.selected = selected;
+        this.transitioned = transitioned;
+        this.skipped = skipped;
+        this.updatedAt = now;
+    }
+
+    public void fail(String error, Instant now) {
+        this.error = error != null && error.length() > MAX_ERROR ? error.substring(0, MAX_ERROR) : error;
+        moveTo(State.FAILED, now);
+    }
+}
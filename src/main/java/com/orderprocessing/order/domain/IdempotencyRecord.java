@@ -0,0 +1,65 @@
+package com.orderprocessing.order.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * An {@code Idempotency-Key} a customer created an order with, and the response (JSON) replayed
+ * for retries of that request. Written by {@code IdempotentOrderService} in the order's transaction.
+ */
+@Getter
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    // <customer id>/<idempotency key>
+    @Id
+    @Column(length = 2 * MAX_KEY_LENGTH + 1)
+    private String id;
+
+    // Shards and moves the record with the customer's orders
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    // SHA-256 of the request body, so a key reused for another request is told apart
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id")
+    private String orderId;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected IdempotencyRecord() {}
+
+    public IdempotencyRecord(String customerId, String key, String requestHash, Instant createdAt) {
+        this.id = idOf(customerId, key);
+        this.customerId = customerId;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+    }
+
+    public static String idOf(String customerId, String key) {
+        return customerId + "/" + key;
+    }
+
+    public void complete(String orderId, String response) {
+        this.orderId = orderId;
+        this.response = response;
+    }
+}
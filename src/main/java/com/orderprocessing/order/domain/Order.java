@@ -1,17 +1,18 @@
 package com.orderprocessing.order.domain;
 
+import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.sharding.ShardKeys;
 import jakarta.persistence.*;
 import lombok.Getter;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Getter
 @Entity
 @Table(name = "orders")
+// Not cached: terminal orders are read through the cached TerminalOrder view
 public class Order {
 
     // Getters
@@ -29,7 +30,7 @@ public class Order {
     private List<OrderItem> items = new ArrayList<>();
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal totalAmount;
+    private Money totalAmount;
 
     @Column(nullable = false)
     private Instant createdAt;
@@ -50,11 +51,13 @@ public class Order {
 
     public static Order create(String customerId, List<OrderItem> items) {
         Order order = new Order();
-        order.id = UUID.randomUUID().toString();
+        // Both IDs carry the customer's shard bucket
+        int bucket = ShardKeys.bucketOfCustomer(customerId);
+        order.id = ShardKeys.newId(bucket);
         order.customerId = customerId;
         order.status = OrderStatus.PENDING;
         order.createdAt = Instant.now();
-        order.sagaId = UUID.randomUUID().toString();
+        order.sagaId = ShardKeys.newId(bucket);
 
         items.forEach(order::addItem);
         order.recalculateTotal();
@@ -62,22 +65,19 @@ public class Order {
         return order;
     }
 
-    public void addItem(OrderItem item) {
+    // Items are immutable once persisted, so they are only ever added while the order is created
+    private void addItem(OrderItem item) {
         items.add(item);
         item.setOrder(this);
-        recalculateTotal();
-    }
-
-    public void removeItem(OrderItem item) {
-        items.remove(item);
-        item.setOrder(null);
-        recalculateTotal();
     }
 
     private void recalculateTotal() {
-        this.totalAmount = items.stream()
-                .map(OrderItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // In minor units: no Money or BigDecimal per item
+        long total = 0;
+        for (OrderItem item : items) {
+            total = Math.addExact(total, item.totalMinorUnits());
+        }
+        this.totalAmount = Money.ofMinor(total);
     }
 
     public void transitionTo(OrderStatus newStatus) {
@@ -86,30 +86,38 @@ public class Order {
         this.updatedAt = Instant.now();
     }
 
+    /**
+     * Applies a saga step: moves to {@code reached} and on through any continuation or
+     * compensation the saga defines for it (e.g. INVENTORY_RESERVED -> PAYMENT_PROCESSING),
+     * as one transition.
+     *
+     * @return the event to publish for the status the order settled in
+     */
+    public OrderEventType advance(OrderStatus reached) {
+        OrderStateMachine stateMachine = OrderStateMachine.active();
+        OrderStatus settled = stateMachine.settle(this.status, reached);
+        if (settled == null) {
+            throw invalidTransition(reached);
+        }
+        OrderEventType event = stateMachine.settledEvent(this.status, reached);
+        this.status = settled;
+        this.updatedAt = Instant.now();
+        return event;
+    }
+
     private void validateTransition(OrderStatus newStatus) {
-        // State machine validation
-        boolean valid = switch (this.status) {
-            case PENDING -> newStatus == OrderStatus.INVENTORY_RESERVED
-                    || newStatus == OrderStatus.INVENTORY_FAILED
-                    || newStatus == OrderStatus.CANCELLED;
-            case INVENTORY_RESERVED -> newStatus == OrderStatus.PAYMENT_PROCESSING
-                    || newStatus == OrderStatus.COMPENSATING;
-            case PAYMENT_PROCESSING -> newStatus == OrderStatus.PAYMENT_COMPLETED
-                    || newStatus == OrderStatus.PAYMENT_FAILED;
-            case PAYMENT_COMPLETED -> newStatus == OrderStatus.COMPLETED;
-            case PAYMENT_FAILED, INVENTORY_FAILED -> newStatus == OrderStatus.COMPENSATING
-                    || newStatus == OrderStatus.CANCELLED;
-            case COMPENSATING -> newStatus == OrderStatus.CANCELLED;
-            default -> false;
-        };
-
-        if (!valid) {
-            throw new IllegalStateException(
-                    String.format("Invalid transition from %s to %s", this.status, newStatus)
-            );
+        // State machine validation (see SagaDefinition)
+        if (!OrderStateMachine.active().isAllowed(this.status, newStatus)) {
+            throw invalidTransition(newStatus);
         }
     }
 
+    private IllegalStateException invalidTransition(OrderStatus newStatus) {
+        return new IllegalStateException(
+                String.format("Invalid transition from %s to %s", this.status, newStatus)
+        );
+    }
+
     public void markFailed(String reason) {
         this.failureReason = reason;
         this.updatedAt = Instant.now();
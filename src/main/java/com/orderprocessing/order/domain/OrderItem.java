@@ -1,10 +1,15 @@
 package com.orderprocessing.order.domain;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
+// Items are written once in Order.create and never updated afterwards, as READ_ONLY caching requires
 @Entity
+@Immutable
 @Table(name = "order_items")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "order-items")
 public class OrderItem {
 
     @Id
@@ -21,7 +26,7 @@ public class OrderItem {
     private Integer quantity;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal unitPrice;
+    private Money unitPrice;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
@@ -29,32 +34,32 @@ public class OrderItem {
 
     protected OrderItem() {}
 
-    public OrderItem(String productId, String productName, Integer quantity, BigDecimal unitPrice) {
+    public OrderItem(String productId, String productName, Integer quantity, Money unitPrice) {
         this.productId = productId;
         this.productName = productName;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
     }
 
-    public BigDecimal getTotalPrice() {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    public Money getTotalPrice() {
+        return Money.ofMinor(totalMinorUnits());
     }
 
-    // Getters and setters
+    long totalMinorUnits() {
+        return Math.multiplyExact(unitPrice.minorUnits(), quantity);
+    }
+
+    // Getters; the order is set once by Order.addItem before the item is persisted
     public Long getId() { return id; }
 
     public String getProductId() { return productId; }
-    public void setProductId(String productId) { this.productId = productId; }
 
     public String getProductName() { return productName; }
-    public void setProductName(String productName) { this.productName = productName; }
 
     public Integer getQuantity() { return quantity; }
-    public void setQuantity(Integer quantity) { this.quantity = quantity; }
 
-    public BigDecimal getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+    public Money getUnitPrice() { return unitPrice; }
 
     public Order getOrder() { return order; }
-    public void setOrder(Order order) { this.order = order; }
+    void setOrder(Order order) { this.order = order; }
 }
\ No newline at end of file
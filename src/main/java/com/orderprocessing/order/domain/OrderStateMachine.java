@@ -0,0 +1,145 @@
+package com.orderprocessing.order.domain;
+
+import com.orderprocessing.order.event.OrderEventType;
+
+/**
+ * {@link SagaDefinition} compiled into flat lookup tables indexed by {@link OrderStatus#ordinal()}.
+ * <p>
+ * Allowed edges are one {@code long} bitset per source status, and events and multi-hop
+ * destinations are precomputed per {@code (from, to)} pair, so validating or applying a step
+ * is a constant-time array lookup that does not allocate.
+ */
+public final class OrderStateMachine {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int N = STATUSES.length;
+
+    private static volatile OrderStateMachine active = SagaDefinition.standard().compile();
+
+    // allowed[from] has bit `to` set when from -> to is a valid edge
+    private final long[] allowed;
+    // [from * N + to] -> event emitted by the edge
+    private final OrderEventType[] edgeEvents;
+    // [from * N + reached] -> status the order settles in after continuations (null if invalid)
+    private final OrderStatus[] settled;
+    // [from * N + reached] -> event of the last hop into the settled status
+    private final OrderEventType[] settledEvents;
+    // bit set for failure statuses that start a compensation
+    private final long compensating;
+
+    private OrderStateMachine(long[] allowed, OrderEventType[] edgeEvents, OrderStatus[] settled,
+                              OrderEventType[] settledEvents, long compensating) {
+        this.allowed = allowed;
+        this.edgeEvents = edgeEvents;
+        this.settled = settled;
+        this.settledEvents = settledEvents;
+        this.compensating = compensating;
+    }
+
+    /**
+     * The state machine used by {@link Order}; replaced at startup when a custom saga is configured.
+     */
+    public static OrderStateMachine active() {
+        return active;
+    }
+
+    public static void activate(OrderStateMachine stateMachine) {
+        active = stateMachine;
+    }
+
+    static OrderStateMachine compile(SagaDefinition definition) {
+        if (N > Long.SIZE) {
+            throw new IllegalStateException("Transition bitsets support at most 64 statuses, got " + N);
+        }
+
+        long[] allowed = new long[N];
+        OrderEventType[] edgeEvents = new OrderEventType[N * N];
+        for (SagaDefinition.Edge edge : definition.edges()) {
+            if (edge.event() == null) {
+                throw new IllegalArgumentException("No event for transition " + edge.from() + " -> " + edge.to());
+            }
+            int index = edge.from().ordinal() * N + edge.to().ordinal();
+            if (edgeEvents[index] != null) {
+                throw new IllegalArgumentException("Duplicate transition " + edge.from() + " -> " + edge.to());
+            }
+            allowed[edge.from().ordinal()] |= 1L << edge.to().ordinal();
+            edgeEvents[index] = edge.event();
+        }
+
+        OrderStatus[] next = new OrderStatus[N];
+        long compensating = 0;
+        for (SagaDefinition.Continuation continuation : definition.continuations()) {
+            int reached = continuation.reached().ordinal();
+            if (next[reached] != null) {
+                throw new IllegalArgumentException("Duplicate continuation from " + continuation.reached());
+            }
+            if ((allowed[reached] & (1L << continuation.next().ordinal())) == 0) {
+                throw new IllegalArgumentException("Continuation " + continuation.reached() + " -> "
+                        + continuation.next() + " is not an allowed transition");
+            }
+            next[reached] = continuation.next();
+            if (continuation.compensation()) {
+                compensating |= 1L << reached;
+            }
+        }
+
+        OrderStatus[] settled = new OrderStatus[N * N];
+        OrderEventType[] settledEvents = new OrderEventType[N * N];
+        for (OrderStatus from : STATUSES) {
+            for (OrderStatus reached : STATUSES) {
+                int index = from.ordinal() * N + reached.ordinal();
+                if (edgeEvents[index] == null) {
+                    continue;
+                }
+                OrderStatus current = reached;
+                OrderEventType event = edgeEvents[index];
+                for (int hops = 0; next[current.ordinal()] != null; hops++) {
+                    if (hops == N) {
+                        throw new IllegalArgumentException("Continuation cycle starting at " + reached);
+                    }
+                    OrderStatus following = next[current.ordinal()];
+                    event = edgeEvents[current.ordinal() * N + following.ordinal()];
+                    current = following;
+                }
+                settled[index] = current;
+                settledEvents[index] = event;
+            }
+        }
+
+        return new OrderStateMachine(allowed, edgeEvents, settled, settledEvents, compensating);
+    }
+
+    public boolean isAllowed(OrderStatus from, OrderStatus to) {
+        return (allowed[from.ordinal()] & (1L << to.ordinal())) != 0;
+    }
+
+    /**
+     * Event emitted by the single edge {@code from -> to}, or {@code null} if the edge doesn't exist.
+     */
+    public OrderEventType eventFor(OrderStatus from, OrderStatus to) {
+        return edgeEvents[from.ordinal() * N + to.ordinal()];
+    }
+
+    /**
+     * Status an order in {@code from} ends up in once {@code reached} and all its continuations
+     * are applied, or {@code null} if {@code from -> reached} is not allowed.
+     */
+    public OrderStatus settle(OrderStatus from, OrderStatus reached) {
+        return settled[from.ordinal() * N + reached.ordinal()];
+    }
+
+    /**
+     * Event to publish after {@link #settle(OrderStatus, OrderStatus)}.
+     */
+    public OrderEventType settledEvent(OrderStatus from, OrderStatus reached) {
+        return settledEvents[from.ordinal() * N + reached.ordinal()];
+    }
+
+    public boolean isTerminal(OrderStatus status) {
+        return allowed[status.ordinal()] == 0;
+    }
+
+    public boolean startsCompensation(OrderStatus status) {
+        return (compensating & (1L << status.ordinal())) != 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.orderprocessing.order.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * A consumed Kafka record whose database effects are committed, with the order events it produced
+ * (JSON), written by {@code ProcessedMessageLedger} in the same transaction.
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "processed_messages",
+        indexes = @Index(name = "idx_processed_messages_processed_at", columnList = "processed_at"))
+public class ProcessedMessage {
+
+    // <consumer group>/<topic>-<partition>@<offset>
+    @Id
+    private String id;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(nullable = false)
+    private String replies;
+
+    protected ProcessedMessage() {}
+
+    public ProcessedMessage(String id, Instant processedAt, String replies) {
+        this.id = id;
+        this.processedAt = processedAt;
+        this.replies = replies;
+    }
+
+    public static String idOf(String consumerGroup, String topic, int partition, long offset) {
+        return consumerGroup + "/" + topic + "-" + partition + "@" + offset;
+    }
+}
@@ -0,0 +1,109 @@
+package com.orderprocessing.order.domain;
+
+import com.orderprocessing.order.event.OrderEventType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declarative description of the order saga: the allowed status edges with the event each edge
+ * emits, the steps that continue automatically (e.g. once inventory is reserved the order moves
+ * straight on to payment) and the compensations started by failures.
+ * <p>
+ * A definition is compiled once into an {@link OrderStateMachine}; additional steps can be
+ * appended to {@link #standard()} through {@link #toBuilder()}.
+ */
+public final class SagaDefinition {
+
+    private final List<Edge> edges;
+    private final List<Continuation> continuations;
+
+    private SagaDefinition(List<Edge> edges, List<Continuation> continuations) {
+        this.edges = Collections.unmodifiableList(edges);
+        this.continuations = Collections.unmodifiableList(continuations);
+    }
+
+    /**
+     * The order saga as implemented by the inventory and payment services.
+     */
+    public static SagaDefinition standard() {
+        return builder()
+                .transition(OrderStatus.PENDING, OrderStatus.INVENTORY_RESERVED, OrderEventType.ORDER_INVENTORY_RESERVED)
+                .transition(OrderStatus.PENDING, OrderStatus.INVENTORY_FAILED, OrderEventType.ORDER_INVENTORY_FAILED)
+                .transition(OrderStatus.PENDING, OrderStatus.CANCELLED, OrderEventType.ORDER_CANCELLED)
+                .transition(OrderStatus.INVENTORY_RESERVED, OrderStatus.PAYMENT_PROCESSING, OrderEventType.ORDER_PAYMENT_PROCESSING)
+                .transition(OrderStatus.INVENTORY_RESERVED, OrderStatus.COMPENSATING, OrderEventType.ORDER_COMPENSATION_STARTED)
+                .transition(OrderStatus.PAYMENT_PROCESSING, OrderStatus.PAYMENT_COMPLETED, OrderEventType.ORDER_PAYMENT_COMPLETED)
+                .transition(OrderStatus.PAYMENT_PROCESSING, OrderStatus.PAYMENT_FAILED, OrderEventType.ORDER_PAYMENT_FAILED)
+                .transition(OrderStatus.PAYMENT_COMPLETED, OrderStatus.COMPLETED, OrderEventType.ORDER_COMPLETED)
+                .transition(OrderStatus.PAYMENT_FAILED, OrderStatus.COMPENSATING, OrderEventType.ORDER_COMPENSATION_STARTED)
+                .transition(OrderStatus.PAYMENT_FAILED, OrderStatus.CANCELLED, OrderEventType.ORDER_CANCELLED)
+                .transition(OrderStatus.INVENTORY_FAILED, OrderStatus.COMPENSATING, OrderEventType.ORDER_COMPENSATION_STARTED)
+                .transition(OrderStatus.INVENTORY_FAILED, OrderStatus.CANCELLED, OrderEventType.ORDER_CANCELLED)
+                .transition(OrderStatus.COMPENSATING, OrderStatus.CANCELLED, OrderEventType.ORDER_CANCELLED)
+                // Forward steps
+                .continueWith(OrderStatus.INVENTORY_RESERVED, OrderStatus.PAYMENT_PROCESSING)
+                .continueWith(OrderStatus.PAYMENT_COMPLETED, OrderStatus.COMPLETED)
+                // Compensations
+                .compensateWith(OrderStatus.INVENTORY_FAILED, OrderStatus.CANCELLED)
+                .compensateWith(OrderStatus.PAYMENT_FAILED, OrderStatus.COMPENSATING)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.edges.addAll(edges);
+        builder.continuations.addAll(continuations);
+        return builder;
+    }
+
+    public OrderStateMachine compile() {
+        return OrderStateMachine.compile(this);
+    }
+
+    public List<Edge> edges() {
+        return edges;
+    }
+
+    public List<Continuation> continuations() {
+        return continuations;
+    }
+
+    public record Edge(OrderStatus from, OrderStatus to, OrderEventType event) {}
+
+    public record Continuation(OrderStatus reached, OrderStatus next, boolean compensation) {}
+
+    public static final class Builder {
+        private final List<Edge> edges = new ArrayList<>();
+        private final List<Continuation> continuations = new ArrayList<>();
+
+        private Builder() {}
+
+        /** Allows {@code from -> to}; {@code event} is published when the order settles in {@code to}. */
+        public Builder transition(OrderStatus from, OrderStatus to, OrderEventType event) {
+            edges.add(new Edge(from, to, event));
+            return this;
+        }
+
+        /** Once {@code reached}, the order moves on to {@code next} in the same step. */
+        public Builder continueWith(OrderStatus reached, OrderStatus next) {
+            continuations.add(new Continuation(reached, next, false));
+            return this;
+        }
+
+        /** A failure status whose compensation starts immediately. */
+        public Builder compensateWith(OrderStatus failed, OrderStatus compensation) {
+            continuations.add(new Continuation(failed, compensation, true));
+            return this;
+        }
+
+        public SagaDefinition build() {
+            return new SagaDefinition(new ArrayList<>(edges), new ArrayList<>(continuations));
+        }
+    }
+}
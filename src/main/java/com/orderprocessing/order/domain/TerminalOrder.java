@@ -0,0 +1,64 @@
+package com.orderprocessing.order.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a terminal (COMPLETED/CANCELLED) order still in the hot {@code orders} table,
+ * for the reads that can be served from the second-level cache. A terminal order never changes
+ * again, so it is cached READ_ONLY; {@link Order} itself is not cached, and an order in flight is
+ * never resident. {@code OrderArchiver} evicts it when the order moves to the archive.
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "orders")
+// The terminal states of the standard saga (OrderStateMachine#isTerminal)
+@SQLRestriction("status IN ('COMPLETED', 'CANCELLED')")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "terminal-orders")
+public class TerminalOrder {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @OneToMany
+    @JoinColumn(name = "order_id", insertable = false, updatable = false)
+    @Immutable
+    @Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "terminal-orders.items")
+    private List<OrderItem> items = new ArrayList<>();
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private Money totalAmount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    private Long version;
+
+    @Column(name = "saga_id")
+    private String sagaId;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    protected TerminalOrder() {}
+
+    public List<OrderItem> getItems() { return new ArrayList<>(items); }
+}
@@ -0,0 +1,33 @@
+package com.orderprocessing.order.dto;
+
+import com.orderprocessing.order.domain.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Moves every order in one of {@code fromStatuses} to {@code targetStatus}, optionally only those
+ * of one customer and/or created before a cut-off. {@code ratePerSecond} defaults to
+ * {@code order.bulk-transition.default-rate}.
+ */
+public record BulkTransitionRequest(
+        @NotEmpty(message = "At least one status to move orders from is required")
+        Set<OrderStatus> fromStatuses,
+
+        @NotNull(message = "Target status is required")
+        OrderStatus targetStatus,
+
+        String customerId,
+
+        Instant createdBefore,
+
+        @Size(max = 255, message = "Reason must be at most 255 characters")
+        String reason,
+
+        @Positive(message = "Rate must be positive")
+        Integer ratePerSecond
+) {}
@@ -1,6 +1,7 @@
 package com.orderprocessing.order.dto;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -30,6 +31,7 @@ public record CreateOrderRequest(
 
             @NotNull(message = "Unit price is required")
             @Positive(message = "Unit price must be positive")
+            @Digits(integer = 8, fraction = 2, message = "Unit price must fit NUMERIC(10, 2)")
             BigDecimal unitPrice
     ) {}
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.orderprocessing.order.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+/**
+ * Multi-get by order ID and/or saga ID. {@code view=STATUS} returns status only, without loading
+ * order items.
+ */
+public record OrderLookupRequest(
+        List<@NotBlank(message = "Order IDs must not be blank") String> orderIds,
+
+        List<@NotBlank(message = "Saga IDs must not be blank") String> sagaIds,
+
+        View view
+) {
+    public enum View { FULL, STATUS }
+
+    public OrderLookupRequest {
+        orderIds = orderIds == null ? List.of() : orderIds;
+        sagaIds = sagaIds == null ? List.of() : sagaIds;
+        view = view == null ? View.FULL : view;
+    }
+}
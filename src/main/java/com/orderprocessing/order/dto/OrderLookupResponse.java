@@ -0,0 +1,31 @@
+package com.orderprocessing.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One entry per distinct requested key, in request order. Keys that match no order come back
+ * with {@code found=false}; the others carry {@code order} or, in the status view,
+ * {@code status}.
+ */
+public record OrderLookupResponse(
+        int requested,
+        int found,
+        List<Entry> results
+) {
+    public enum KeyType { ORDER_ID, SAGA_ID }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry(
+            String key,
+            KeyType keyType,
+            boolean found,
+            OrderStatusResponse status,
+            OrderResponse order
+    ) {
+        public static Entry notFound(String key, KeyType keyType) {
+            return new Entry(key, keyType, false, null, null);
+        }
+    }
+}
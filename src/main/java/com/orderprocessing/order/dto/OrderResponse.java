@@ -1,10 +1,13 @@
 package com.orderprocessing.order.dto;
 
+import com.orderprocessing.order.domain.ArchivedOrder;
+import com.orderprocessing.order.domain.ArchivedOrderItem;
+import com.orderprocessing.order.domain.Money;
 import com.orderprocessing.order.domain.Order;
 import com.orderprocessing.order.domain.OrderItem;
 import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.domain.TerminalOrder;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 
@@ -13,7 +16,7 @@ public record OrderResponse(
         String customerId,
         OrderStatus status,
         List<OrderItemResponse> items,
-        BigDecimal totalAmount,
+        Money totalAmount,
         Instant createdAt,
         Instant updatedAt,
         String failureReason
@@ -23,8 +26,8 @@ public record OrderResponse(
             String productId,
             String productName,
             Integer quantity,
-            BigDecimal unitPrice,
-            BigDecimal totalPrice
+            Money unitPrice,
+            Money totalPrice
     ) {
         public static OrderItemResponse fromEntity(OrderItem item) {
             return new OrderItemResponse(
@@ -36,6 +39,17 @@ public record OrderResponse(
                     item.getTotalPrice()
             );
         }
+
+        public static OrderItemResponse fromArchive(ArchivedOrderItem item) {
+            return new OrderItemResponse(
+                    item.getId(),
+                    item.getProductId(),
+                    item.getProductName(),
+                    item.getQuantity(),
+                    item.getUnitPrice(),
+                    item.getTotalPrice()
+            );
+        }
     }
 
     public static OrderResponse fromEntity(Order order) {
@@ -52,4 +66,34 @@ public record OrderResponse(
                 order.getFailureReason()
         );
     }
+
+    public static OrderResponse fromTerminal(TerminalOrder order) {
+        return new OrderResponse(
+                order.getId(),
+                order.getCustomerId(),
+                order.getStatus(),
+                order.getItems().stream()
+                        .map(OrderItemResponse::fromEntity)
+                        .toList(),
+                order.getTotalAmount(),
+                order.getCreatedAt(),
+                order.getUpdatedAt(),
+                order.getFailureReason()
+        );
+    }
+
+    public static OrderResponse fromArchive(ArchivedOrder order) {
+        return new OrderResponse(
+                order.getId(),
+                order.getCustomerId(),
+                order.getStatus(),
+                order.getItems().stream()
+                        .map(OrderItemResponse::fromArchive)
+                        .toList(),
+                order.getTotalAmount(),
+                order.getCreatedAt(),
+                order.getUpdatedAt(),
+                order.getFailureReason()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.orderprocessing.order.dto;
+
+import com.orderprocessing.order.domain.OrderStatus;
+
+import java.time.Instant;
+
+/**
+ * Status-only view of an order, selected as a projection without loading the entity or its items.
+ */
+public record OrderStatusResponse(
+        String id,
+        String sagaId,
+        OrderStatus status,
+        String failureReason,
+        Instant updatedAt
+) {}
@@ -1,19 +1,21 @@
 package com.orderprocessing.order.event;
 
 import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.domain.Money;
 import com.orderprocessing.order.domain.OrderStatus;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 public class OrderEvent extends BaseEvent {
 
     private String customerId;
     private OrderStatus status;
-    private BigDecimal totalAmount;
+    private Money totalAmount;
     private List<OrderItemPayload> items;
     private String sagaId;
     private String failureReason;
+    // Order version at creation; transitions follow as OrderTransitionEvent
+    private long version;
 
     // Default constructor for deserialization
     public OrderEvent() {
@@ -21,7 +23,7 @@ public class OrderEvent extends BaseEvent {
     }
 
     public OrderEvent(String orderId, OrderEventType eventType, String customerId,
-                      OrderStatus status, BigDecimal totalAmount,
+                      OrderStatus status, Money totalAmount,
                       List<OrderItemPayload> items, String sagaId) {
         super(orderId, eventType.name());
         this.customerId = customerId;
@@ -51,12 +53,12 @@ public class OrderEvent extends BaseEvent {
         private String productId;
         private String productName;
         private Integer quantity;
-        private BigDecimal unitPrice;
+        private Money unitPrice;
 
         public OrderItemPayload() {}
 
         public OrderItemPayload(String productId, String productName,
-                                Integer quantity, BigDecimal unitPrice) {
+                                Integer quantity, Money unitPrice) {
             this.productId = productId;
             this.productName = productName;
             this.quantity = quantity;
@@ -72,8 +74,8 @@ public class OrderEvent extends BaseEvent {
         public Integer getQuantity() { return quantity; }
         public void setQuantity(Integer quantity) { this.quantity = quantity; }
 
-        public BigDecimal getUnitPrice() { return unitPrice; }
-        public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+        public Money getUnitPrice() { return unitPrice; }
+        public void setUnitPrice(Money unitPrice) { this.unitPrice = unitPrice; }
     }
 
     // Getters and setters
@@ -83,8 +85,8 @@ public class OrderEvent extends BaseEvent {
     public OrderStatus getStatus() { return status; }
     public void setStatus(OrderStatus status) { this.status = status; }
 
-    public BigDecimal getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public Money getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Money totalAmount) { this.totalAmount = totalAmount; }
 
     public List<OrderItemPayload> getItems() { return items; }
     public void setItems(List<OrderItemPayload> items) { this.items = items; }
@@ -94,4 +96,7 @@ public class OrderEvent extends BaseEvent {
 
     public String getFailureReason() { return failureReason; }
     public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.orderprocessing.order.event;
+
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.domain.OrderStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Full state of one order as last committed, published to the compacted {@code order-state}
+ * topic keyed by order ID. {@code version} is the order's optimistic-lock version: a consumer
+ * keeps the highest version it has seen, so re-publishing a snapshot is harmless.
+ */
+public record OrderSnapshot(
+        String orderId,
+        String customerId,
+        OrderStatus status,
+        List<OrderEvent.OrderItemPayload> items,
+        Money totalAmount,
+        Instant createdAt,
+        Instant updatedAt,
+        long version,
+        String sagaId,
+        String failureReason
+) {
+    public boolean isNewerThan(OrderSnapshot other) {
+        return other == null || version > other.version;
+    }
+}
@@ -0,0 +1,56 @@
+package com.orderprocessing.order.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.domain.OrderStatus;
+
+/**
+ * A status change of an existing order on {@code order-events}. Only {@code ORDER_CREATED} is
+ * published as a full {@link OrderEvent}; customer, items and total never change afterwards, so
+ * transitions carry the new status and the order's version instead. The record key is still the
+ * customer ID.
+ * <p>
+ * Versions increase by one per transition. A consumer that sees a gap, or a transition for an
+ * order it never saw created, has missed events and should take the full state from the order
+ * API or the {@code order-state} topic.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderTransitionEvent extends BaseEvent {
+
+    private String sagaId;
+    private OrderStatus fromStatus;
+    private OrderStatus status;
+    private long version;
+    private String failureReason;
+
+    // Default constructor for deserialization
+    public OrderTransitionEvent() {
+        super();
+    }
+
+    public OrderTransitionEvent(String orderId, OrderEventType eventType, String sagaId,
+                                OrderStatus fromStatus, OrderStatus status, long version, String failureReason) {
+        super(orderId, eventType.name());
+        this.sagaId = sagaId;
+        this.fromStatus = fromStatus;
+        this.status = status;
+        this.version = version;
+        this.failureReason = failureReason;
+    }
+
+    // Getters and setters
+    public String getSagaId() { return sagaId; }
+    public void setSagaId(String sagaId) { this.sagaId = sagaId; }
+
+    public OrderStatus getFromStatus() { return fromStatus; }
+    public void setFromStatus(OrderStatus fromStatus) { this.fromStatus = fromStatus; }
+
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public String getFailureReason() { return failureReason; }
+    public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+}
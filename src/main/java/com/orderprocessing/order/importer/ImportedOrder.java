@@ -0,0 +1,115 @@
+package com.orderprocessing.order.importer;
+
+import com.orderprocessing.order.domain.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A historical order as read by {@link OrderImportReader}, one NDJSON line or the CSV rows of one
+ * order. {@code totalAmount} is optional and, when given, must match the items.
+ */
+public record ImportedOrder(
+        String id,
+        String customerId,
+        OrderStatus status,
+        BigDecimal totalAmount,
+        Instant createdAt,
+        Instant updatedAt,
+        String sagaId,
+        String failureReason,
+        List<Item> items
+) {
+
+    private static final int MAX_TEXT = 255;
+    // Integer digits of NUMERIC(10, 2) and NUMERIC(12, 2)
+    private static final int MAX_PRICE_DIGITS = 8;
+    private static final int MAX_TOTAL_DIGITS = 10;
+
+    /**
+     * Sum of the item totals, as {@code Order} computes it.
+     */
+    public BigDecimal total() {
+        return items.stream()
+                .map(item -> item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Checks the invariants {@code Order} and {@code CreateOrderRequest} enforce, plus the column
+     * limits the ORM would otherwise report on insert.
+     *
+     * @return why the order cannot be imported, null if it can
+     */
+    public String violation() {
+        String violation = firstOf(
+                text("id", id),
+                text("customerId", customerId),
+                status == null ? "status is required" : null,
+                createdAt == null ? "createdAt is required" : null,
+                updatedAt != null && createdAt != null && updatedAt.isBefore(createdAt) ? "updatedAt is before createdAt" : null,
+                optionalText("sagaId", sagaId),
+                optionalText("failureReason", failureReason),
+                items == null || items.isEmpty() ? "Order must contain at least one item" : null);
+        if (violation != null) {
+            return violation;
+        }
+        for (Item item : items) {
+            violation = item.violation();
+            if (violation != null) {
+                return violation;
+            }
+        }
+        BigDecimal total = total();
+        if (digits(total) > MAX_TOTAL_DIGITS) {
+            return "Total " + total + " exceeds NUMERIC(12, 2)";
+        }
+        if (totalAmount != null && totalAmount.compareTo(total) != 0) {
+            return "totalAmount " + totalAmount + " does not match the items (" + total + ")";
+        }
+        return null;
+    }
+
+    public record Item(
+            String productId,
+            String productName,
+            Integer quantity,
+            BigDecimal unitPrice
+    ) {
+
+        private String violation() {
+            return firstOf(
+                    text("productId", productId),
+                    text("productName", productName),
+                    quantity == null || quantity <= 0 ? "Quantity must be positive" : null,
+                    unitPrice == null || unitPrice.signum() <= 0 ? "Unit price must be positive" : null,
+                    unitPrice != null && (unitPrice.scale() > 2 || digits(unitPrice) > MAX_PRICE_DIGITS)
+                            ? "Unit price " + unitPrice + " exceeds NUMERIC(10, 2)" : null);
+        }
+    }
+
+    private static String text(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return field + " is required";
+        }
+        return optionalText(field, value);
+    }
+
+    private static String optionalText(String field, String value) {
+        return value != null && value.length() > MAX_TEXT ? field + " is longer than " + MAX_TEXT : null;
+    }
+
+    private static int digits(BigDecimal value) {
+        return value.precision() - value.scale();
+    }
+
+    private static String firstOf(String... violations) {
+        for (String violation : violations) {
+            if (violation != null) {
+                return violation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,416 @@
+package com.orderprocessing.order.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Loads historical orders into {@code orders}/{@code order_items} with PostgreSQL {@code COPY},
+ * bypassing JPA: no entity is managed, no saga or order event is published and nothing is
+ * cached. Imported orders only reach the active order index and analytics store through
+ * {@code order-events}, so they stay out of both.
+ * <p>
+ * The input is streamed by {@link OrderImportReader} and cut into chunks of {@code chunkSize}
+ * orders, which {@code parallelism} workers copy on their own connections. Each chunk is one
+ * transaction that also records it in {@code order_import_chunks}, so after a failure the same
+ * import id skips every committed chunk and continues with the rest; chunk boundaries only depend
+ * on the input and the chunk size, which must not change between attempts. Invalid orders are
+ * logged and counted, not imported.
+ * <p>
+ * With {@code deferIndexes} the secondary indexes of both tables are dropped first and rebuilt
+ * once every chunk is in, which is far cheaper than maintaining them row by row. Their definitions
+ * are kept in {@code order_import_deferred_indexes} until then, so a failed import still restores
+ * them when it is resumed. Lookups by saga id or customer are slow until the import completes;
+ * run it while the service is not taking traffic.
+ * <p>
+ * With sharding, one importer per shard reads the whole input and keeps the orders whose customer
+ * the shard owns ({@code keep}); the chunk numbering, checkpoints and deferred indexes are then
+ * per shard. Imported orders keep their IDs, which carry no shard bucket.
+ */
+public class OrderBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBulkImporter.class);
+
+    private static final String COPY_ORDERS = "COPY orders (id, customer_id, status, total_amount, created_at, "
+            + "updated_at, version, saga_id, failure_reason) FROM STDIN (FORMAT csv)";
+    private static final String COPY_ITEMS = "COPY order_items (order_id, product_id, product_name, quantity, "
+            + "unit_price) FROM STDIN (FORMAT csv)";
+    // Indexes that do not back a primary key or unique constraint
+    private static final String SECONDARY_INDEXES = """
+            SELECT i.indexrelid::regclass::text AS index_name, pg_get_indexdef(i.indexrelid) AS definition
+            FROM pg_index i
+            WHERE i.indrelid IN ('orders'::regclass, 'order_items'::regclass)
+              AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+            """;
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+    private static final int MAX_LOGGED_REJECTIONS = 100;
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Settings settings;
+    private final Predicate<OrderImportReader.Record> keep;
+
+    public OrderBulkImporter(DataSource dataSource, ObjectMapper objectMapper, Settings settings) {
+        this(dataSource, objectMapper, settings, record -> true);
+    }
+
+    /**
+     * An importer for the records of the input {@code keep} accepts, rejected ones included.
+     */
+    public OrderBulkImporter(DataSource dataSource, ObjectMapper objectMapper, Settings settings,
+                             Predicate<OrderImportReader.Record> keep) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        this.keep = keep;
+    }
+
+    /**
+     * Imports {@code input}, or resumes the import with the same id.
+     *
+     * @return the totals over every attempt; {@link Result#complete()} is false if a chunk failed
+     */
+    public Result importOrders(Path input, String importId) throws IOException, InterruptedException {
+        long startedAt = System.nanoTime();
+        Progress progress = new Progress();
+        Set<Long> committed = committedChunks(importId, progress);
+        if (!committed.isEmpty()) {
+            log.info("Resuming import {} after {} committed chunks ({} orders)", importId, committed.size(), progress.orders);
+        }
+        List<DeferredIndex> deferred = settings.deferIndexes() ? dropSecondaryIndexes(importId) : List.of();
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.parallelism(), Thread.ofPlatform()
+                .name("order-import-", 0).factory());
+        // Bounds the chunks held in memory while the workers are busy
+        Semaphore inFlight = new Semaphore(settings.parallelism() * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long chunks = 0;
+        try (OrderImportReader reader = OrderImportReader.open(input, objectMapper)) {
+            long nextProgress = System.nanoTime() + PROGRESS_INTERVAL.toNanos();
+            List<OrderImportReader.Record> chunk = new ArrayList<>(settings.chunkSize());
+            OrderImportReader.Record record;
+            while (failure.get() == null && (record = reader.next()) != null) {
+                if (!keep.test(record)) {
+                    continue;
+                }
+                chunk.add(record);
+                if (chunk.size() < settings.chunkSize()) {
+                    continue;
+                }
+                submit(workers, inFlight, failure, importId, chunks++, chunk, committed, progress);
+                chunk = new ArrayList<>(settings.chunkSize());
+                if (System.nanoTime() > nextProgress) {
+                    logProgress(importId, progress, startedAt);
+                    nextProgress = System.nanoTime() + PROGRESS_INTERVAL.toNanos();
+                }
+            }
+            if (!chunk.isEmpty() && failure.get() == null) {
+                submit(workers, inFlight, failure, importId, chunks++, chunk, committed, progress);
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        Throwable failed = failure.get();
+        if (failed != null) {
+            log.atError()
+                    .addKeyValue("importId", importId)
+                    .setCause(failed)
+                    .log("Import stopped; run it again with the same id to resume from the committed chunks"
+                            + (deferred.isEmpty() ? "" : " and rebuild the dropped indexes"));
+        } else {
+            rebuildIndexes(importId, deferred);
+            jdbcTemplate.execute("ANALYZE orders");
+            jdbcTemplate.execute("ANALYZE order_items");
+        }
+        Result result = new Result(importId, chunks, progress.orders.get(), progress.items.get(),
+                progress.rejected.get(), Duration.ofNanos(System.nanoTime() - startedAt), failed == null);
+        log.info("Import {} {}: {} orders, {} items, {} rejected in {}", importId,
+                result.complete() ? "complete" : "failed", result.orders(), result.items(), result.rejected(), result.elapsed());
+        return result;
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, AtomicReference<Throwable> failure,
+                        String importId, long chunk, List<OrderImportReader.Record> records,
+                        Set<Long> committed, Progress progress) throws InterruptedException {
+        if (committed.contains(chunk)) {
+            return;
+        }
+        inFlight.acquire();
+        workers.execute(() -> {
+            try {
+                if (failure.get() == null) {
+                    copyChunk(importId, chunk, records, progress);
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void logProgress(String importId, Progress progress, long startedAt) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt));
+        log.atInfo()
+                .addKeyValue("importId", importId)
+                .addKeyValue("rejected", progress.rejected.get())
+                .log("Imported {} orders, {} items ({} orders/s)", progress.orders.get(), progress.items.get(),
+                        progress.orders.get() / seconds);
+    }
+
+    // ==================== CHUNKS ====================
+
+    private Set<Long> committedChunks(String importId, Progress progress) {
+        Set<Long> committed = new HashSet<>();
+        jdbcTemplate.query("SELECT chunk, orders, items, rejected FROM order_import_chunks WHERE import_id = ?",
+                row -> {
+                    committed.add(row.getLong("chunk"));
+                    progress.orders.addAndGet(row.getInt("orders"));
+                    progress.items.addAndGet(row.getInt("items"));
+                    progress.rejected.addAndGet(row.getInt("rejected"));
+                }, importId);
+        return committed;
+    }
+
+    private void copyChunk(String importId, long chunk, List<OrderImportReader.Record> records, Progress progress) {
+        List<ImportedOrder> orders = new ArrayList<>(records.size());
+        int items = 0;
+        for (OrderImportReader.Record record : records) {
+            if (record.valid()) {
+                orders.add(record.order());
+                items += record.order().items().size();
+            } else if (progress.loggedRejections.getAndIncrement() < MAX_LOGGED_REJECTIONS) {
+                log.atWarn()
+                        .addKeyValue("importId", importId)
+                        .addKeyValue("line", record.line())
+                        .log("Rejected order: {}", record.rejection());
+            }
+        }
+        int itemCount = items;
+        int rejected = records.size() - orders.size();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Recorded first: an attempt racing for the same chunk fails here, before copying
+            jdbcTemplate.update("INSERT INTO order_import_chunks (import_id, chunk, orders, items, rejected, imported_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)", importId, chunk, orders.size(), itemCount, rejected,
+                    Timestamp.from(Instant.now()));
+            // Losing the commit in a crash loses the checkpoint with it, so the chunk is simply copied again
+            jdbcTemplate.execute("SET LOCAL synchronous_commit TO off");
+            if (!orders.isEmpty()) {
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    copy(connection, COPY_ORDERS, orders, OrderBulkImporter::writeOrder);
+                    copy(connection, COPY_ITEMS, orders, OrderBulkImporter::writeItems);
+                    return null;
+                });
+            }
+        });
+        progress.orders.addAndGet(orders.size());
+        progress.items.addAndGet(itemCount);
+        progress.rejected.addAndGet(rejected);
+        log.debug("Import {} committed chunk {}: {} orders, {} rejected", importId, chunk, orders.size(), rejected);
+    }
+
+    private static void copy(Connection connection, String sql, List<ImportedOrder> orders, RowWriter rows)
+            throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (Writer out = new OutputStreamWriter(
+                new PGCopyOutputStream(pgConnection, sql, COPY_BUFFER_BYTES), StandardCharsets.UTF_8)) {
+            for (ImportedOrder order : orders) {
+                rows.write(out, order);
+            }
+        } catch (IOException e) {
+            // PGCopyOutputStream reports the server's error as an IOException
+            throw new UncheckedIOException("COPY into " + sql.substring(5, sql.indexOf(' ', 5)) + " failed", e);
+        }
+    }
+
+    private static void writeOrder(Writer out, ImportedOrder order) throws IOException {
+        row(out, order.id(), order.customerId(), order.status().name(), order.total().toPlainString(),
+                order.createdAt().toString(), order.updatedAt() != null ? order.updatedAt().toString() : null,
+                "0", order.sagaId(), order.failureReason());
+    }
+
+    private static void writeItems(Writer out, ImportedOrder order) throws IOException {
+        for (ImportedOrder.Item item : order.items()) {
+            row(out, order.id(), item.productId(), item.productName(), item.quantity().toString(),
+                    item.unitPrice().toPlainString());
+        }
+    }
+
+    // COPY csv: null is an empty unquoted field, so empty strings are quoted
+    private static void row(Writer out, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.isEmpty() || needsQuotes(value)) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer out, ImportedOrder order) throws IOException;
+    }
+
+    // ==================== INDEXES ====================
+
+    // Drops the secondary indexes, or returns the ones an earlier attempt of this import dropped
+    private List<DeferredIndex> dropSecondaryIndexes(String importId) {
+        return transactionTemplate.execute(status -> {
+            List<DeferredIndex> deferred = jdbcTemplate.query(
+                    "SELECT index_name, definition FROM order_import_deferred_indexes WHERE import_id = ?",
+                    (row, i) -> new DeferredIndex(row.getString("index_name"), row.getString("definition")), importId);
+            if (!deferred.isEmpty()) {
+                return deferred;
+            }
+            deferred = jdbcTemplate.query(SECONDARY_INDEXES,
+                    (row, i) -> new DeferredIndex(row.getString("index_name"), row.getString("definition")));
+            for (DeferredIndex index : deferred) {
+                jdbcTemplate.update("INSERT INTO order_import_deferred_indexes (import_id, index_name, definition)"
+                        + " VALUES (?, ?, ?)", importId, index.name(), index.definition());
+                jdbcTemplate.execute("DROP INDEX " + index.name());
+            }
+            log.info("Dropped {} secondary indexes for import {}: {}", deferred.size(), importId,
+                    deferred.stream().map(DeferredIndex::name).toList());
+            return deferred;
+        });
+    }
+
+    private void rebuildIndexes(String importId, List<DeferredIndex> deferred) throws InterruptedException {
+        if (deferred.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        ExecutorService builders = Executors.newFixedThreadPool(Math.min(settings.parallelism(), deferred.size()),
+                Thread.ofPlatform().name("order-import-index-", 0).factory());
+        List<Future<?>> builds = new ArrayList<>();
+        for (DeferredIndex index : deferred) {
+            builds.add(builders.submit(() -> rebuild(importId, index)));
+        }
+        builders.shutdown();
+        try {
+            for (Future<?> build : builds) {
+                build.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rebuilding the indexes of import " + importId + " failed; run it again to retry",
+                    e.getCause());
+        }
+        log.info("Rebuilt {} indexes for import {} in {}", deferred.size(), importId,
+                Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private void rebuild(String importId, DeferredIndex index) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("SET maintenance_work_mem = '" + settings.maintenanceWorkMem().toMegabytes() + "MB'");
+                statement.execute(index.createStatement());
+                statement.execute("RESET maintenance_work_mem");
+            }
+            return null;
+        });
+        jdbcTemplate.update("DELETE FROM order_import_deferred_indexes WHERE import_id = ? AND index_name = ?",
+                importId, index.name());
+    }
+
+    private record DeferredIndex(String name, String definition) {
+
+        // pg_get_indexdef gives "ON ONLY" for a partitioned table, which would not build the partitions
+        String createStatement() {
+            return definition
+                    .replaceFirst("^CREATE (UNIQUE )?INDEX ", "CREATE $1INDEX IF NOT EXISTS ")
+                    .replaceFirst(" ON ONLY ", " ON ");
+        }
+    }
+
+    private static final class Progress {
+        private final AtomicLong orders = new AtomicLong();
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicInteger loggedRejections = new AtomicInteger();
+    }
+
+    /**
+     * Import configuration. {@code parallelism} connections are used at once, so keep it below
+     * the pool size.
+     */
+    public record Settings(
+            int chunkSize,
+            int parallelism,
+            boolean deferIndexes,
+            DataSize maintenanceWorkMem) {
+    }
+
+    /**
+     * @param chunks chunks of the input, including those committed by earlier attempts
+     */
+    public record Result(
+            String importId,
+            long chunks,
+            long orders,
+            long items,
+            long rejected,
+            Duration elapsed,
+            boolean complete) {
+    }
+}
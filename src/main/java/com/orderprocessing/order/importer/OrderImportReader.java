@@ -0,0 +1,272 @@
+package com.orderprocessing.order.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.orderprocessing.order.domain.OrderStatus;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the orders of an import file, one at a time, validated with
+ * {@link ImportedOrder#violation()}. The format follows the file name, optionally gzipped:
+ * <ul>
+ *   <li>{@code .ndjson}/{@code .jsonl}: one {@link ImportedOrder} JSON object per line</li>
+ *   <li>{@code .csv}: a header row, then one row per item with the order columns repeated:
+ *   {@code order_id, customer_id, status, total_amount, created_at, updated_at, saga_id,
+ *   failure_reason, product_id, product_name, quantity, unit_price} in any order (the optional
+ *   ones may be left out). The rows of an order must be adjacent.</li>
+ * </ul>
+ * A record that cannot be parsed is returned with its rejection rather than failing the import.
+ */
+public abstract class OrderImportReader implements Closeable {
+
+    protected final BufferedReader in;
+    protected long line;
+
+    private OrderImportReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    public static OrderImportReader open(Path input, ObjectMapper objectMapper) throws IOException {
+        String name = input.getFileName().toString();
+        InputStream stream = Files.newInputStream(input);
+        if (name.endsWith(".gz")) {
+            stream = new GZIPInputStream(stream, 1 << 16);
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), 1 << 16);
+        if (name.endsWith(".csv")) {
+            return new Csv(in);
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new Ndjson(in, objectMapper);
+        }
+        in.close();
+        throw new IllegalArgumentException("Unknown import format of " + input + ", expected .csv, .ndjson or .jsonl");
+    }
+
+    /**
+     * Returns the next order, or null at the end of the input.
+     */
+    public abstract Record next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static Record validated(long line, ImportedOrder order) {
+        return new Record(line, order, order.violation());
+    }
+
+    /**
+     * An order and the line it starts on; {@code order} is null if it could not be parsed.
+     *
+     * @param rejection why the order is not imported, null if it is valid
+     */
+    public record Record(long line, ImportedOrder order, String rejection) {
+
+        public boolean valid() {
+            return rejection == null;
+        }
+    }
+
+    // ==================== NDJSON ====================
+
+    private static final class Ndjson extends OrderImportReader {
+
+        private final ObjectReader reader;
+
+        private Ndjson(BufferedReader in, ObjectMapper objectMapper) {
+            super(in);
+            this.reader = objectMapper.readerFor(ImportedOrder.class);
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+            try {
+                return validated(line, reader.readValue(text));
+            } catch (JsonProcessingException e) {
+                return new Record(line, null, e.getOriginalMessage());
+            }
+        }
+    }
+
+    // ==================== CSV ====================
+
+    private static final class Csv extends OrderImportReader {
+
+        private static final List<String> REQUIRED = List.of("order_id", "customer_id", "status", "created_at",
+                "product_id", "product_name", "quantity", "unit_price");
+
+        private final Map<String, Integer> columns = new HashMap<>();
+        private List<String> pending;
+        private long pendingLine;
+        private long rowLine;
+
+        private Csv(BufferedReader in) throws IOException {
+            super(in);
+            List<String> header = readRow();
+            if (header == null) {
+                return;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(Objects.requireNonNullElse(header.get(i), "").trim().toLowerCase(), i);
+            }
+            List<String> missing = REQUIRED.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new IOException("CSV header is missing the columns " + missing);
+            }
+            advance();
+        }
+
+        @Override
+        public Record next() throws IOException {
+            if (pending == null) {
+                return null;
+            }
+            List<String> first = pending;
+            long firstLine = pendingLine;
+            String orderId = field(first, "order_id");
+            List<ImportedOrder.Item> items = new ArrayList<>();
+            String rejection = null;
+            // An order ends at the first row of another order id
+            while (pending != null && Objects.equals(field(pending, "order_id"), orderId)) {
+                try {
+                    items.add(item(pending));
+                } catch (RuntimeException e) {
+                    rejection = "Line " + pendingLine + ": " + e.getMessage();
+                }
+                advance();
+            }
+            if (rejection != null) {
+                return new Record(firstLine, null, rejection);
+            }
+            try {
+                return validated(firstLine, new ImportedOrder(
+                        orderId,
+                        field(first, "customer_id"),
+                        status(field(first, "status")),
+                        decimal(field(first, "total_amount")),
+                        instant(field(first, "created_at")),
+                        instant(field(first, "updated_at")),
+                        field(first, "saga_id"),
+                        field(first, "failure_reason"),
+                        items));
+            } catch (RuntimeException e) {
+                return new Record(firstLine, null, e.getMessage());
+            }
+        }
+
+        private ImportedOrder.Item item(List<String> row) {
+            if (row.size() != columns.size()) {
+                throw new IllegalArgumentException("expected " + columns.size() + " fields, found " + row.size());
+            }
+            String quantity = field(row, "quantity");
+            return new ImportedOrder.Item(
+                    field(row, "product_id"),
+                    field(row, "product_name"),
+                    quantity == null ? null : Integer.valueOf(quantity),
+                    decimal(field(row, "unit_price")));
+        }
+
+        private String field(List<String> row, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= row.size() ? null : row.get(index);
+        }
+
+        private static OrderStatus status(String value) {
+            return value == null ? null : OrderStatus.valueOf(value);
+        }
+
+        private static BigDecimal decimal(String value) {
+            return value == null ? null : new BigDecimal(value);
+        }
+
+        private static Instant instant(String value) {
+            return value == null ? null : Instant.parse(value);
+        }
+
+        private void advance() throws IOException {
+            do {
+                pending = readRow();
+                pendingLine = rowLine;
+            } while (pending != null && pending.size() == 1 && pending.get(0) == null);
+        }
+
+        // RFC 4180: quoted fields may hold commas, "" and line breaks. Empty unquoted fields are null
+        private List<String> readRow() throws IOException {
+            String text = in.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            rowLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        fields.add(wasQuoted || !field.isEmpty() ? field.toString() : null);
+                        return fields;
+                    }
+                    text = in.readLine();
+                    if (text == null) {
+                        throw new IOException("Unterminated quoted field starting on line " + rowLine);
+                    }
+                    line++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == ',') {
+                    fields.add(wasQuoted || !field.isEmpty() ? field.toString() : null);
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else {
+                    field.append(c);
+                }
+            }
+        }
+    }
+}
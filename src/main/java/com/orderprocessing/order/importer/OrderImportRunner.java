@@ -0,0 +1,95 @@
+package com.orderprocessing.order.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs {@link OrderBulkImporter} on {@code order.import.input} once the service has started, then
+ * exits with 0 if the import completed and 1 otherwise:
+ * <pre>
+ * java -jar order-service.jar --spring.profiles.active=prod --spring.main.web-application-type=none \
+ *     --order.kafka.listeners.enabled=false --order.import.input=/data/orders-2019.csv.gz
+ * </pre>
+ * With sharding every shard is imported at the same time, each by its own
+ * {@link OrderBulkImporter}; do not rebalance the shards during an import.
+ */
+@Component
+@ConditionalOnProperty(name = "order.import.input")
+public class OrderImportRunner implements ApplicationRunner {
+
+    private final List<OrderBulkImporter> importers = new ArrayList<>();
+    private final ConfigurableApplicationContext context;
+    private final Path input;
+    private final String importId;
+    private final boolean exitWhenDone;
+
+    public OrderImportRunner(DataSource dataSource,
+                             ShardRouter shardRouter,
+                             ObjectMapper objectMapper,
+                             ConfigurableApplicationContext context,
+                             @Value("${order.import.input}") String input,
+                             @Value("${order.import.id:}") String importId,
+                             @Value("${order.import.chunk-size:10000}") int chunkSize,
+                             @Value("${order.import.parallelism:4}") int parallelism,
+                             @Value("${order.import.defer-indexes:true}") boolean deferIndexes,
+                             @Value("${order.import.maintenance-work-mem:1GB}") DataSize maintenanceWorkMem,
+                             @Value("${order.import.exit-when-done:true}") boolean exitWhenDone) {
+        OrderBulkImporter.Settings settings =
+                new OrderBulkImporter.Settings(chunkSize, parallelism, deferIndexes, maintenanceWorkMem);
+        if (!shardRouter.enabled()) {
+            importers.add(new OrderBulkImporter(dataSource, objectMapper, settings));
+        } else {
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                int target = shard;
+                // Each shard takes the orders of its customers; shard 0 also counts the rejected ones
+                importers.add(new OrderBulkImporter(shardRouter.dataSource(shard), objectMapper, settings,
+                        record -> record.valid()
+                                ? shardRouter.shardOfCustomer(record.order().customerId()) == target
+                                : target == 0));
+            }
+        }
+        this.context = context;
+        this.input = Path.of(input);
+        // The file name, so running the same file again resumes it
+        this.importId = importId.isBlank() ? this.input.getFileName().toString() : importId;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        boolean complete = true;
+        if (importers.size() == 1) {
+            complete = importers.get(0).importOrders(input, importId).complete();
+        } else {
+            try (ExecutorService shards = Executors.newFixedThreadPool(importers.size())) {
+                List<Future<OrderBulkImporter.Result>> results = new ArrayList<>();
+                for (OrderBulkImporter importer : importers) {
+                    results.add(shards.submit(() -> importer.importOrders(input, importId)));
+                }
+                for (Future<OrderBulkImporter.Result> result : results) {
+                    complete &= result.get().complete();
+                }
+            }
+        }
+        if (exitWhenDone) {
+            boolean succeeded = complete;
+            System.exit(SpringApplication.exit(context, () -> succeeded ? 0 : 1));
+        }
+    }
+}
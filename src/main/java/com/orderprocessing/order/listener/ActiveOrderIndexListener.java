@@ -0,0 +1,88 @@
+package com.orderprocessing.order.listener;
+
+import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.service.ActiveOrderIndex;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerPartitionIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Feeds {@link ActiveOrderIndex} from {@code order-events}. Every assigned partition is replayed
+ * from the beginning, so a node rebuilds its shard after a restart or a rebalance.
+ */
+@Component
+public class ActiveOrderIndexListener implements ConsumerAwareRebalanceListener {
+
+    public static final String LISTENER_ID = "active-order-index";
+
+    private final ActiveOrderIndex activeOrderIndex;
+
+    public ActiveOrderIndexListener(ActiveOrderIndex activeOrderIndex) {
+        this.activeOrderIndex = activeOrderIndex;
+    }
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
+            topics = KafkaConfig.ORDER_EVENTS_TOPIC,
+            groupId = "${spring.application.name}-active-order-index",
+            containerFactory = "activeOrderIndexListenerContainerFactory"
+    )
+    public void handleOrderEvent(
+            @Payload BaseEvent event,
+            @Header(KafkaHeaders.RECEIVED_KEY) String customerId,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset) {
+        switch (event) {
+            case OrderEvent created -> activeOrderIndex.apply(partition, offset, created);
+            case OrderTransitionEvent transition -> activeOrderIndex.apply(partition, offset, customerId, transition);
+            default -> activeOrderIndex.skip(partition, offset);
+        }
+    }
+
+    // On the consumer thread, once a partition had no records for the container's idle interval
+    @EventListener
+    public void onPartitionIdle(ListenerContainerPartitionIdleEvent event) {
+        if (event.getListenerId().startsWith(LISTENER_ID)) {
+            TopicPartition tp = event.getTopicPartition();
+            activeOrderIndex.idle(tp.partition(), event.getConsumer().position(tp));
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        int topicPartitions = consumer.partitionsFor(KafkaConfig.ORDER_EVENTS_TOPIC).size();
+        consumer.seekToBeginning(partitions);
+        Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+        for (TopicPartition tp : partitions) {
+            activeOrderIndex.assign(tp.partition(), topicPartitions, beginning.get(tp), end.get(tp));
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(tp -> activeOrderIndex.revoke(tp.partition()));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(tp -> activeOrderIndex.revoke(tp.partition()));
+    }
+}
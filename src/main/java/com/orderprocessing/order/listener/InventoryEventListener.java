@@ -1,9 +1,15 @@
 package com.orderprocessing.order.listener;
 
+import com.orderprocessing.order.admission.AdaptiveConcurrencyLimiter;
+import com.orderprocessing.order.config.AdmissionControlConfig;
 import com.orderprocessing.order.config.KafkaConfig;
 import com.orderprocessing.order.service.OrderCommandService;
+import com.orderprocessing.order.service.ProcessedMessageLedger;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -11,15 +17,30 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Optional;
+
 @Component
 public class InventoryEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryEventListener.class);
 
     private final OrderCommandService orderCommandService;
+    private final ProcessedMessageLedger processedMessages;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final TrafficSkewMonitor skewMonitor;
+    private final Duration saturationPause;
 
-    public InventoryEventListener(OrderCommandService orderCommandService) {
+    public InventoryEventListener(OrderCommandService orderCommandService,
+                                  ProcessedMessageLedger processedMessages,
+                                  @Qualifier(AdmissionControlConfig.INVENTORY_LISTENER_LIMITER) AdaptiveConcurrencyLimiter limiter,
+                                  TrafficSkewMonitor skewMonitor,
+                                  @Value("${order.admission.listeners.pause:500ms}") Duration saturationPause) {
         this.orderCommandService = orderCommandService;
+        this.processedMessages = processedMessages;
+        this.limiter = limiter;
+        this.skewMonitor = skewMonitor;
+        this.saturationPause = saturationPause;
     }
 
     @KafkaListener(
@@ -30,45 +51,73 @@ public class InventoryEventListener {
     public void handleInventoryEvent(
             @Payload InventoryEvent event,
             @Header(KafkaHeaders.RECEIVED_KEY) String key,
+            @Header(KafkaHeaders.GROUP_ID) String groupId,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
             Acknowledgment acknowledgment) {
-
-        log.info("Received inventory event: type={}, sagaId={}, partition={}, offset={}",
-                event.eventType(), event.sagaId(), partition, offset);
-
+        long start = System.nanoTime();
         try {
-            switch (event.eventType()) {
-                case INVENTORY_RESERVED -> handleInventoryReserved(event);
-                case INVENTORY_RESERVATION_FAILED -> handleInventoryFailed(event);
-                case INVENTORY_RELEASED -> handleInventoryReleased(event);
-                default -> log.warn("Unknown inventory event type: {}", event.eventType());
-            }
+            handle(event, groupId, topic, partition, offset, acknowledgment);
+        } finally {
+            // Nacked records count as well; the consumer's pause after a nack is not busy time
+            skewMonitor.consumed(topic, partition, key, System.nanoTime() - start);
+        }
+    }
 
-            acknowledgment.acknowledge();
-            log.debug("Successfully processed inventory event for saga: {}", event.sagaId());
+    private void handle(InventoryEvent event, String groupId, String topic, int partition, long offset,
+                        Acknowledgment acknowledgment) {
+        log.atDebug()
+                .addKeyValue("type", event.eventType())
+                .addKeyValue("sagaId", event.sagaId())
+                .addKeyValue("partition", partition)
+                .addKeyValue("offset", offset)
+                .log("Received inventory event");
 
+        // Downstream saturated: pause this consumer and redeliver the record after a back-off
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+        if (permit.isEmpty()) {
+            log.debug("Inventory listener saturated, pausing for {}", saturationPause);
+            acknowledgment.nack(saturationPause);
+            return;
+        }
+
+        try {
+            processedMessages.process(groupId, topic, partition, offset, event.sagaId(), () -> {
+                switch (event.eventType()) {
+                    case INVENTORY_RESERVED -> handleInventoryReserved(event);
+                    case INVENTORY_RESERVATION_FAILED -> handleInventoryFailed(event);
+                    case INVENTORY_RELEASED -> handleInventoryReleased(event);
+                    default -> log.warn("Unknown inventory event type: {}", event.eventType());
+                }
+            });
         } catch (Exception ex) {
+            permit.get().dropped();
             log.error("Error processing inventory event for saga {}: {}",
                     event.sagaId(), ex.getMessage(), ex);
             // Don't acknowledge - message will be retried based on error handler config
             throw ex;
         }
+
+        permit.get().success();
+        acknowledgment.acknowledge();
     }
 
     private void handleInventoryReserved(InventoryEvent event) {
-        log.info("Inventory reserved for saga: {}", event.sagaId());
+        log.atInfo().addKeyValue("sagaId", event.sagaId()).log("Inventory reserved");
         orderCommandService.handleInventoryReserved(event.sagaId());
     }
 
     private void handleInventoryFailed(InventoryEvent event) {
-        log.warn("Inventory reservation failed for saga: {}, reason: {}",
-                event.sagaId(), event.reason());
+        log.atWarn()
+                .addKeyValue("sagaId", event.sagaId())
+                .addKeyValue("reason", event.reason())
+                .log("Inventory reservation failed");
         orderCommandService.handleInventoryFailed(event.sagaId(), event.reason());
     }
 
     private void handleInventoryReleased(InventoryEvent event) {
-        log.info("Inventory released for saga: {} (compensation complete)", event.sagaId());
+        log.atInfo().addKeyValue("sagaId", event.sagaId()).log("Inventory released, compensation complete");
         // Order is already in COMPENSATING state, this confirms inventory rollback
     }
 
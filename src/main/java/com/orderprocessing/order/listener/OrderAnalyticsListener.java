@@ -0,0 +1,69 @@
+package com.orderprocessing.order.listener;
+
+import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore;
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.service.OrderStateBootstrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Feeds {@link OrderAnalyticsStore} from {@code order-events}. Partitions are assigned manually
+ * rather than through a consumer group, so every node aggregates all orders, rebuilt on each
+ * startup: by default from the start of the topic's retention, or, with
+ * {@code order.analytics.bootstrap-from-state}, from the compacted {@code order-state} topic plus
+ * the recent tail of {@code order-events}.
+ */
+@Component
+public class OrderAnalyticsListener implements ConsumerSeekAware {
+
+    private final OrderAnalyticsStore analyticsStore;
+    private final OrderStateBootstrapper stateBootstrapper;
+    private final boolean bootstrapFromState;
+
+    public OrderAnalyticsListener(OrderAnalyticsStore analyticsStore,
+                                  OrderStateBootstrapper stateBootstrapper,
+                                  @Value("${order.analytics.bootstrap-from-state:false}") boolean bootstrapFromState) {
+        this.analyticsStore = analyticsStore;
+        this.stateBootstrapper = stateBootstrapper;
+        this.bootstrapFromState = bootstrapFromState;
+    }
+
+    @KafkaListener(
+            groupId = "${spring.application.name}-analytics",
+            topicPartitions = @TopicPartition(
+                    topic = KafkaConfig.ORDER_EVENTS_TOPIC,
+                    partitions = "#{@partitionFinder.partitions('" + KafkaConfig.ORDER_EVENTS_TOPIC + "')}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")
+            ),
+            containerFactory = "orderAnalyticsListenerContainerFactory"
+    )
+    public void handleOrderEvent(@Payload BaseEvent event) {
+        if (event instanceof OrderEvent created) {
+            analyticsStore.apply(created);
+        } else if (event instanceof OrderTransitionEvent transition) {
+            analyticsStore.apply(transition);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments,
+                                     ConsumerSeekCallback callback) {
+        if (!bootstrapFromState || assignments.isEmpty()) {
+            return;
+        }
+        // Runs on the single consumer thread before the first poll, so no event interleaves
+        OrderStateBootstrapper.Bootstrap bootstrap = stateBootstrapper.rebuild(analyticsStore::apply);
+        assignments.keySet().forEach(tp -> callback.seek(tp.topic(), tp.partition(),
+                bootstrap.orderEventOffsets().getOrDefault(tp.partition(), 0L)));
+    }
+}
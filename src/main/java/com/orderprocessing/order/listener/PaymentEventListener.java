@@ -1,9 +1,16 @@
 package com.orderprocessing.order.listener;
 
+import com.orderprocessing.order.admission.AdaptiveConcurrencyLimiter;
+import com.orderprocessing.order.config.AdmissionControlConfig;
 import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.domain.Money;
 import com.orderprocessing.order.service.OrderCommandService;
+import com.orderprocessing.order.service.ProcessedMessageLedger;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -11,7 +18,8 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
 
 @Component
 public class PaymentEventListener {
@@ -19,9 +27,21 @@ public class PaymentEventListener {
     private static final Logger log = LoggerFactory.getLogger(PaymentEventListener.class);
 
     private final OrderCommandService orderCommandService;
-
-    public PaymentEventListener(OrderCommandService orderCommandService) {
+    private final ProcessedMessageLedger processedMessages;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final TrafficSkewMonitor skewMonitor;
+    private final Duration saturationPause;
+
+    public PaymentEventListener(OrderCommandService orderCommandService,
+                                ProcessedMessageLedger processedMessages,
+                                @Qualifier(AdmissionControlConfig.PAYMENT_LISTENER_LIMITER) AdaptiveConcurrencyLimiter limiter,
+                                TrafficSkewMonitor skewMonitor,
+                                @Value("${order.admission.listeners.pause:500ms}") Duration saturationPause) {
         this.orderCommandService = orderCommandService;
+        this.processedMessages = processedMessages;
+        this.limiter = limiter;
+        this.skewMonitor = skewMonitor;
+        this.saturationPause = saturationPause;
     }
 
     @KafkaListener(
@@ -32,45 +52,74 @@ public class PaymentEventListener {
     public void handlePaymentEvent(
             @Payload PaymentEvent event,
             @Header(KafkaHeaders.RECEIVED_KEY) String key,
+            @Header(KafkaHeaders.GROUP_ID) String groupId,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
             Acknowledgment acknowledgment) {
-
-        log.info("Received payment event: type={}, sagaId={}, partition={}, offset={}",
-                event.eventType(), event.sagaId(), partition, offset);
-
+        long start = System.nanoTime();
         try {
-            switch (event.eventType()) {
-                case PAYMENT_COMPLETED -> handlePaymentCompleted(event);
-                case PAYMENT_FAILED -> handlePaymentFailed(event);
-                case PAYMENT_REFUNDED -> handlePaymentRefunded(event);
-                default -> log.warn("Unknown payment event type: {}", event.eventType());
-            }
+            handle(event, groupId, topic, partition, offset, acknowledgment);
+        } finally {
+            skewMonitor.consumed(topic, partition, key, System.nanoTime() - start);
+        }
+    }
 
-            acknowledgment.acknowledge();
-            log.debug("Successfully processed payment event for saga: {}", event.sagaId());
+    private void handle(PaymentEvent event, String groupId, String topic, int partition, long offset,
+                        Acknowledgment acknowledgment) {
+        log.atDebug()
+                .addKeyValue("type", event.eventType())
+                .addKeyValue("sagaId", event.sagaId())
+                .addKeyValue("partition", partition)
+                .addKeyValue("offset", offset)
+                .log("Received payment event");
+
+        // Downstream saturated: pause this consumer and redeliver the record after a back-off
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+        if (permit.isEmpty()) {
+            log.debug("Payment listener saturated, pausing for {}", saturationPause);
+            acknowledgment.nack(saturationPause);
+            return;
+        }
 
+        try {
+            processedMessages.process(groupId, topic, partition, offset, event.sagaId(), () -> {
+                switch (event.eventType()) {
+                    case PAYMENT_COMPLETED -> handlePaymentCompleted(event);
+                    case PAYMENT_FAILED -> handlePaymentFailed(event);
+                    case PAYMENT_REFUNDED -> handlePaymentRefunded(event);
+                    default -> log.warn("Unknown payment event type: {}", event.eventType());
+                }
+            });
         } catch (Exception ex) {
+            permit.get().dropped();
             log.error("Error processing payment event for saga {}: {}",
                     event.sagaId(), ex.getMessage(), ex);
             throw ex;
         }
+
+        permit.get().success();
+        acknowledgment.acknowledge();
     }
 
     private void handlePaymentCompleted(PaymentEvent event) {
-        log.info("Payment completed for saga: {}, transactionId: {}",
-                event.sagaId(), event.transactionId());
+        log.atInfo()
+                .addKeyValue("sagaId", event.sagaId())
+                .addKeyValue("transactionId", event.transactionId())
+                .log("Payment completed");
         orderCommandService.handlePaymentCompleted(event.sagaId());
     }
 
     private void handlePaymentFailed(PaymentEvent event) {
-        log.warn("Payment failed for saga: {}, reason: {}",
-                event.sagaId(), event.reason());
+        log.atWarn()
+                .addKeyValue("sagaId", event.sagaId())
+                .addKeyValue("reason", event.reason())
+                .log("Payment failed");
         orderCommandService.handlePaymentFailed(event.sagaId(), event.reason());
     }
 
     private void handlePaymentRefunded(PaymentEvent event) {
-        log.info("Payment refunded for saga: {} (compensation complete)", event.sagaId());
+        log.atInfo().addKeyValue("sagaId", event.sagaId()).log("Payment refunded, compensation complete");
         // This confirms the payment was rolled back as part of compensation
     }
 
@@ -81,7 +130,7 @@ public class PaymentEventListener {
             String orderId,
             PaymentEventType eventType,
             String transactionId,
-            BigDecimal amount,
+            Money amount,
             String reason
     ) {}
 
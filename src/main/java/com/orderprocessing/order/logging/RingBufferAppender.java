@@ -0,0 +1,258 @@
+package com.orderprocessing.order.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender over a bounded lock-free ring buffer, a replacement for logback's
+ * {@code AsyncAppender} whose {@code ArrayBlockingQueue} serializes every logging thread on one
+ * lock.
+ * <p>
+ * Logging threads claim a slot with a single CAS and never block: when the buffer is full, events
+ * below {@code neverDropLevel} (WARN by default) are counted and dropped, WARN and above spin until
+ * there is room. One daemon thread drains the buffer into the attached appenders, so those see a
+ * single writer and formatting and I/O leave the caller's thread.
+ * <pre>
+ * &lt;appender name="ASYNC" class="com.orderprocessing.order.logging.RingBufferAppender"&gt;
+ *     &lt;capacity&gt;8192&lt;/capacity&gt;
+ *     &lt;appender-ref ref="CONSOLE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+
+    private int capacity = 8192;
+    private Level neverDropLevel = Level.WARN;
+    private boolean includeCallerData;
+    private long maxFlushTime = 1000;
+
+    // Vyukov bounded queue: slot i is free for the producer of position p when sequence[i] == p,
+    // and holds that producer's event once sequence[i] == p + 1
+    private ILoggingEvent[] buffer;
+    private AtomicLongArray sequences;
+    private int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // drain thread only
+
+    private Thread drainer;
+
+    // ==================== CONFIGURATION ====================
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setNeverDropLevel(String level) {
+        this.neverDropLevel = Level.toLevel(level, Level.WARN);
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public void setMaxFlushTime(long maxFlushTimeMillis) {
+        this.maxFlushTime = maxFlushTimeMillis;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            addError("capacity must be a power of two, got " + capacity);
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender-ref attached to [" + name + "]");
+            return;
+        }
+
+        buffer = new ILoggingEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+
+        super.start();
+        drainer = new Thread(this::drain, "log-ring-" + name);
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        // The drain loop empties the buffer before it exits
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainer.isAlive()) {
+            addWarn("Ring buffer not flushed within " + maxFlushTime + " ms, discarding remaining events");
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    // ==================== PRODUCERS ====================
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+        if (offer(event)) {
+            return;
+        }
+        if (!event.getLevel().isGreaterOrEqual(neverDropLevel)) {
+            dropped.increment();
+            return;
+        }
+        while (!offer(event)) {
+            if (!isStarted()) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean offer(ILoggingEvent event) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long sequence = sequences.getAcquire(slot);
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[slot] = event;
+                    sequences.setRelease(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false; // full: the slot still holds an event from one lap ago
+            } else {
+                position = tail.get(); // another producer took this position
+            }
+        }
+    }
+
+    // ==================== DRAIN THREAD ====================
+
+    private ILoggingEvent poll() {
+        int slot = (int) (head & mask);
+        if (sequences.getAcquire(slot) != head + 1) {
+            return null;
+        }
+        ILoggingEvent event = buffer[slot];
+        buffer[slot] = null;
+        // Free the slot for the producer one lap ahead
+        sequences.setRelease(slot, head + capacity);
+        head++;
+        return event;
+    }
+
+    private void drain() {
+        int idle = 0;
+        long lastDropReport = System.nanoTime();
+        long reportedDrops = 0;
+        while (true) {
+            ILoggingEvent event = poll();
+            if (event != null) {
+                idle = 0;
+                appenders.appendLoopOnAppenders(event);
+                continue;
+            }
+            if (!isStarted()) {
+                return; // stopped and empty
+            }
+
+            long now = System.nanoTime();
+            if (now - lastDropReport > DROP_REPORT_INTERVAL_NANOS) {
+                long total = dropped.sum();
+                if (total > reportedDrops) {
+                    addWarn("Dropped " + (total - reportedDrops) + " events below " + neverDropLevel
+                            + " on a full ring buffer");
+                    reportedDrops = total;
+                }
+                lastDropReport = now;
+            }
+
+            // Producers never signal; spin briefly, then poll at a millisecond pace
+            if (++idle < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // ==================== APPENDER ATTACHABLE ====================
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
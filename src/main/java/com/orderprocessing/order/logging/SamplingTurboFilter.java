@@ -0,0 +1,138 @@
+package com.orderprocessing.order.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.joran.spi.DefaultClass;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples and rate-limits chatty logger categories before a logging event is even created: a
+ * denied call costs a map lookup and two atomic increments, with no message formatting.
+ * <p>
+ * For each category (a logger name prefix, the longest one wins), calls below
+ * {@code unsampledLevel} (WARN by default) pass only every {@code sampleEvery}-th time and at most
+ * {@code maxPerSecond} times per second; WARN and above always pass.
+ * <pre>
+ * &lt;turboFilter class="com.orderprocessing.order.logging.SamplingTurboFilter"&gt;
+ *     &lt;category&gt;
+ *         &lt;name&gt;com.orderprocessing.order.listener&lt;/name&gt;
+ *         &lt;sampleEvery&gt;10&lt;/sampleEvery&gt;
+ *         &lt;maxPerSecond&gt;200&lt;/maxPerSecond&gt;
+ *     &lt;/category&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ * Level checks count as calls: {@code if (log.isDebugEnabled())} guards around sampled categories
+ * consume a sample, while the fluent {@code log.atInfo()...log()} API is decided once.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private static final Category UNSAMPLED = new Category();
+
+    private final List<Category> categories = new ArrayList<>();
+    private final Map<String, Category> byLogger = new ConcurrentHashMap<>();
+
+    @DefaultClass(Category.class)
+    public void addCategory(Category category) {
+        categories.add(category);
+    }
+
+    @Override
+    public void start() {
+        for (Category category : categories) {
+            if (category.name == null || category.sampleEvery < 1 || category.maxPerSecond < 0) {
+                addError("Invalid sampling category " + category.name);
+                return;
+            }
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (!isStarted() || level == null) {
+            return FilterReply.NEUTRAL;
+        }
+        Category category = byLogger.computeIfAbsent(logger.getName(), this::categoryFor);
+        if (category == UNSAMPLED
+                || level.isGreaterOrEqual(category.unsampledLevel)
+                // Disabled by level anyway: don't spend a sample on it
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        return category.admit() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Category categoryFor(String loggerName) {
+        Category match = UNSAMPLED;
+        int matchLength = -1;
+        for (Category category : categories) {
+            String prefix = category.name;
+            boolean matches = loggerName.equals(prefix)
+                    || (loggerName.startsWith(prefix) && loggerName.charAt(prefix.length()) == '.');
+            if (matches && prefix.length() > matchLength) {
+                match = category;
+                matchLength = prefix.length();
+            }
+        }
+        return match;
+    }
+
+    public static class Category {
+
+        private String name;
+        private int sampleEvery = 1;
+        private int maxPerSecond;
+        private Level unsampledLevel = Level.WARN;
+
+        private final AtomicLong calls = new AtomicLong();
+        // Upper 24 bits: current second (wrapping), lower 40 bits: events admitted in it
+        private final AtomicLong window = new AtomicLong();
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setSampleEvery(int sampleEvery) {
+            this.sampleEvery = sampleEvery;
+        }
+
+        public void setMaxPerSecond(int maxPerSecond) {
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        public void setUnsampledLevel(String level) {
+            this.unsampledLevel = Level.toLevel(level, Level.WARN);
+        }
+
+        boolean admit() {
+            if (sampleEvery > 1 && calls.getAndIncrement() % sampleEvery != 0) {
+                return false;
+            }
+            return maxPerSecond == 0 || withinRate();
+        }
+
+        private boolean withinRate() {
+            long second = System.nanoTime() / 1_000_000_000L;
+            while (true) {
+                long current = window.get();
+                long count = (current >>> 40) == (second & 0xFFFFFF) ? current & 0xFFFFFFFFFFL : 0;
+                if (count >= maxPerSecond) {
+                    return false;
+                }
+                long next = ((second & 0xFFFFFF) << 40) | (count + 1);
+                if (window.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.orderprocessing.order.repository;
+
+import com.orderprocessing.order.domain.ArchivedOrder;
+import com.orderprocessing.order.dto.OrderStatusResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, String> {
+
+    @Query("SELECT DISTINCT a FROM ArchivedOrder a LEFT JOIN FETCH a.items WHERE a.id IN :ids")
+    List<ArchivedOrder> fetchWithItemsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT DISTINCT a FROM ArchivedOrder a LEFT JOIN FETCH a.items WHERE a.sagaId IN :sagaIds")
+    List<ArchivedOrder> fetchWithItemsBySagaIdIn(@Param("sagaIds") Collection<String> sagaIds);
+
+    @Query("SELECT new com.orderprocessing.order.dto.OrderStatusResponse(a.id, a.sagaId, a.status, a.failureReason, a.updatedAt) "
+            + "FROM ArchivedOrder a WHERE a.id IN :ids")
+    List<OrderStatusResponse> findStatusByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT new com.orderprocessing.order.dto.OrderStatusResponse(a.id, a.sagaId, a.status, a.failureReason, a.updatedAt) "
+            + "FROM ArchivedOrder a WHERE a.sagaId IN :sagaIds")
+    List<OrderStatusResponse> findStatusBySagaIdIn(@Param("sagaIds") Collection<String> sagaIds);
+}
@@ -2,12 +2,15 @@ package com.orderprocessing.order.repository;
 
 import com.orderprocessing.order.domain.Order;
 import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.OrderStatusResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +19,8 @@ public interface OrderRepository extends JpaRepository<Order, String> {
 
     List<Order> findByCustomerIdOrderByCreatedAtDesc(String customerId);
 
-    List<Order> findByStatus(OrderStatus status);
+    // Sorted so the per-shard results merge in order (see OrderQueryService#getOrdersByStatus)
+    List<Order> findByStatusOrderByCreatedAt(OrderStatus status);
 
     Optional<Order> findBySagaId(String sagaId);
 
@@ -37,4 +41,32 @@ public interface OrderRepository extends JpaRepository<Order, String> {
             @Param("customerId") String customerId,
             @Param("status") OrderStatus status
     );
-}
\ No newline at end of file
+
+    // Oldest first so each archive batch stays within as few partitions as possible
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.createdAt < :threshold ORDER BY o.createdAt")
+    List<String> findArchivableIds(
+            @Param("statuses") List<OrderStatus> statuses,
+            @Param("threshold") Instant threshold,
+            Pageable pageable
+    );
+
+    // ==================== MULTI-GET (see OrderLookupService) ====================
+
+    @Query("SELECT o.id FROM Order o WHERE o.sagaId IN :sagaIds")
+    List<String> findIdsBySagaIdIn(@Param("sagaIds") Collection<String> sagaIds);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.status IN :statuses")
+    List<Order> fetchWithItemsByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+    // Initializes the items of orders already in the persistence context in the same round trip
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> fetchWithItemsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT new com.orderprocessing.order.dto.OrderStatusResponse(o.id, o.sagaId, o.status, o.failureReason, o.updatedAt) "
+            + "FROM Order o WHERE o.id IN :ids")
+    List<OrderStatusResponse> findStatusByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT new com.orderprocessing.order.dto.OrderStatusResponse(o.id, o.sagaId, o.status, o.failureReason, o.updatedAt) "
+            + "FROM Order o WHERE o.sagaId IN :sagaIds")
+    List<OrderStatusResponse> findStatusBySagaIdIn(@Param("sagaIds") Collection<String> sagaIds);
+}
@@ -0,0 +1,17 @@
+package com.orderprocessing.order.repository;
+
+import com.orderprocessing.order.domain.TerminalOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TerminalOrderRepository extends JpaRepository<TerminalOrder, String> {
+
+    @Query("SELECT DISTINCT t FROM TerminalOrder t LEFT JOIN FETCH t.items WHERE t.id IN :ids")
+    List<TerminalOrder> fetchWithItemsByIdIn(@Param("ids") Collection<String> ids);
+}
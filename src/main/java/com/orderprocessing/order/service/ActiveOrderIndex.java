@@ -0,0 +1,266 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.domain.Order;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-node in-memory index of active orders, fed from {@code order-events}.
+ * <p>
+ * {@code order-events} is keyed by customer ID, so every order of a customer lands in the same
+ * partition. The index keeps one shard per partition this node consumes; a customer can be
+ * answered locally only when its partition is assigned here and the shard has replayed the
+ * partition up to the end offset seen at assignment: it applied the record before that offset, or
+ * the consumer's position reached it while the partition was idle. Everything else falls back to
+ * the database.
+ * <p>
+ * Transitions only carry the new status, so an order is answerable from the index once its
+ * {@code ORDER_CREATED} has been seen. An active order known only from transitions (its creation
+ * is older than the topic's retention) sends its customer to the database until it terminates.
+ */
+@Component
+public class ActiveOrderIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveOrderIndex.class);
+
+    public static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.of(
+            OrderStatus.PENDING,
+            OrderStatus.INVENTORY_RESERVED,
+            OrderStatus.PAYMENT_PROCESSING
+    );
+
+    private final Map<Integer, Shard> shards = new ConcurrentHashMap<>();
+    private volatile int partitionCount;
+
+    /**
+     * Returns the customer's active orders if this node owns a warmed-up shard for the customer,
+     * or empty if the caller has to go to the database.
+     */
+    public Optional<List<OrderResponse>> findActiveOrders(String customerId) {
+        int partitions = partitionCount;
+        if (partitions == 0) {
+            return Optional.empty();
+        }
+        Shard shard = shards.get(partitionFor(customerId, partitions));
+        if (shard == null || !shard.ready) {
+            return Optional.empty();
+        }
+        Map<String, IndexedOrder> orders = shard.customers.get(customerId);
+        if (orders == null) {
+            return Optional.of(List.of());
+        }
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (IndexedOrder order : orders.values()) {
+            if (order.response() == null) {
+                return Optional.empty();
+            }
+            responses.add(order.response());
+        }
+        return Optional.of(responses);
+    }
+
+    // ==================== FEED (consumer thread) ====================
+
+    public void assign(int partition, int topicPartitions, long beginningOffset, long endOffset) {
+        this.partitionCount = topicPartitions;
+        Shard shard = new Shard(endOffset);
+        shard.ready = endOffset <= beginningOffset;
+        shards.put(partition, shard);
+        log.info("Active order index assigned partition {}, replaying offsets {}..{}",
+                partition, beginningOffset, endOffset);
+    }
+
+    /**
+     * Assigns every partition of a transport that retains nothing from before the process started
+     * (the in-process one), ready at once and holding {@code activeOrders} as the database has
+     * them, items fetched. Events replayed from a journal that are older than a loaded version are
+     * ignored like redeliveries.
+     */
+    public void assignAll(int topicPartitions, List<Order> activeOrders) {
+        this.partitionCount = topicPartitions;
+        for (int partition = 0; partition < topicPartitions; partition++) {
+            Shard shard = new Shard(0);
+            shard.ready = true;
+            shards.put(partition, shard);
+        }
+        for (Order order : activeOrders) {
+            shards.get(partitionFor(order.getCustomerId(), topicPartitions)).customers
+                    .computeIfAbsent(order.getCustomerId(), id -> new ConcurrentHashMap<>())
+                    .put(order.getId(), new IndexedOrder(OrderResponse.fromEntity(order), order.getVersion()));
+        }
+        log.info("Active order index assigned {} partitions with {} active orders from the database",
+                topicPartitions, activeOrders.size());
+    }
+
+    public void revoke(int partition) {
+        if (shards.remove(partition) != null) {
+            log.info("Active order index released partition {}", partition);
+        }
+    }
+
+    public void apply(int partition, long offset, OrderEvent event) {
+        Shard shard = shards.get(partition);
+        if (shard == null) {
+            return;
+        }
+
+        if (event.getCustomerId() != null && event.getStatus() != null) {
+            if (ACTIVE_STATUSES.contains(event.getStatus())) {
+                shard.customers
+                        .computeIfAbsent(event.getCustomerId(), id -> new ConcurrentHashMap<>())
+                        .compute(event.getAggregateId(), (id, existing) ->
+                                existing != null && existing.response() != null && existing.version() >= event.getVersion()
+                                        ? existing // redelivered after later transitions
+                                        : new IndexedOrder(toResponse(event), event.getVersion()));
+            } else {
+                remove(shard, event.getCustomerId(), event.getAggregateId());
+            }
+        }
+        advance(shard, partition, offset);
+    }
+
+    /**
+     * Applies a status change. {@code customerId} is the record key, which transitions don't repeat.
+     */
+    public void apply(int partition, long offset, String customerId, OrderTransitionEvent event) {
+        Shard shard = shards.get(partition);
+        if (shard == null) {
+            return;
+        }
+
+        if (customerId != null && event.getStatus() != null) {
+            if (ACTIVE_STATUSES.contains(event.getStatus())) {
+                shard.customers
+                        .computeIfAbsent(customerId, id -> new ConcurrentHashMap<>())
+                        .compute(event.getAggregateId(), (id, existing) -> transition(existing, event));
+            } else {
+                remove(shard, customerId, event.getAggregateId());
+            }
+        }
+        advance(shard, partition, offset);
+    }
+
+    // Counts towards warm-up without changing the index
+    public void skip(int partition, long offset) {
+        Shard shard = shards.get(partition);
+        if (shard != null) {
+            advance(shard, partition, offset);
+        }
+    }
+
+    private static IndexedOrder transition(IndexedOrder existing, OrderTransitionEvent event) {
+        if (existing == null || existing.response() == null) {
+            return new IndexedOrder(null, event.getVersion());
+        }
+        if (event.getVersion() <= existing.version()) {
+            return existing; // redelivered
+        }
+        if (event.getVersion() > existing.version() + 1) {
+            // Status is absolute and the body never changes, so the skipped transitions lose nothing here
+            log.debug("Order {} skipped from version {} to {}", event.getAggregateId(),
+                    existing.version(), event.getVersion());
+        }
+        OrderResponse order = existing.response();
+        return new IndexedOrder(new OrderResponse(
+                order.id(),
+                order.customerId(),
+                event.getStatus(),
+                order.items(),
+                order.totalAmount(),
+                order.createdAt(),
+                event.getTimestamp(),
+                event.getFailureReason()
+        ), event.getVersion());
+    }
+
+    private static void remove(Shard shard, String customerId, String orderId) {
+        shard.customers.computeIfPresent(customerId, (id, orders) -> {
+            orders.remove(orderId);
+            return orders.isEmpty() ? null : orders;
+        });
+    }
+
+    /**
+     * The consumer's position on a partition that has gone idle. A replay whose last offsets are a
+     * transaction marker or a compaction gap never gets a record at {@code warmUpOffset - 1}, but
+     * its position still reaches the warm-up offset.
+     */
+    public void idle(int partition, long position) {
+        Shard shard = shards.get(partition);
+        if (shard != null && !shard.ready && position >= shard.warmUpOffset) {
+            warm(shard, partition);
+        }
+    }
+
+    private static void advance(Shard shard, int partition, long offset) {
+        if (!shard.ready && offset + 1 >= shard.warmUpOffset) {
+            warm(shard, partition);
+        }
+    }
+
+    private static void warm(Shard shard, int partition) {
+        shard.ready = true;
+        log.info("Active order index partition {} is warm", partition);
+    }
+
+    /**
+     * Kafka's default partitioner for keyed records.
+     */
+    public static int partitionFor(String key, int partitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    private static OrderResponse toResponse(OrderEvent event) {
+        List<OrderResponse.OrderItemResponse> items = event.getItems() == null
+                ? List.of()
+                : event.getItems().stream()
+                        .map(item -> new OrderResponse.OrderItemResponse(
+                                null,
+                                item.getProductId(),
+                                item.getProductName(),
+                                item.getQuantity(),
+                                item.getUnitPrice(),
+                                item.getUnitPrice().times(item.getQuantity())
+                        ))
+                        .toList();
+
+        return new OrderResponse(
+                event.getAggregateId(),
+                event.getCustomerId(),
+                event.getStatus(),
+                items,
+                event.getTotalAmount(),
+                event.getTimestamp(),
+                event.getTimestamp(),
+                event.getFailureReason()
+        );
+    }
+
+    // response is null while the order's creation hasn't been seen
+    private record IndexedOrder(OrderResponse response, long version) {}
+
+    private static final class Shard {
+        private final long warmUpOffset;
+        private final Map<String, Map<String, IndexedOrder>> customers = new ConcurrentHashMap<>();
+        private volatile boolean ready;
+
+        private Shard(long warmUpOffset) {
+            this.warmUpOffset = warmUpOffset;
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.domain.BulkTransitionJob;
+import com.orderprocessing.order.domain.BulkTransitionJob.State;
+import com.orderprocessing.order.domain.OrderStateMachine;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.BulkTransitionRequest;
+import com.orderprocessing.order.sharding.ShardContext;
+import com.orderprocessing.order.sharding.ShardMovingException;
+import com.orderprocessing.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bulk transition jobs: e.g. cancelling every PENDING order of a customer, or everything stuck in
+ * COMPENSATING after an incident, instead of one cancel request per order.
+ * <p>
+ * Jobs run one at a time in the background. Matching orders are listed shard by shard in chunks
+ * of {@code order.bulk-transition.chunk-size}, paced to the job's rate, and up to
+ * {@code order.bulk-transition.parallelism} chunks are transitioned at once, each in one
+ * transaction ({@link OrderCommandService#transitionAll}). Nothing is written while buckets are
+ * being moved between shards.
+ * <p>
+ * Jobs and their progress are kept in {@code bulk_transition_jobs} on shard 0. Transitioned orders
+ * no longer match, so a job resumes by selecting again. The progress of each job queued or running
+ * here is written every {@code order.bulk-transition.heartbeat-interval}, however slowly the job is
+ * paced or long it waits for a bucket move. A job left RUNNING by an instance that went away can be
+ * resumed once its heartbeat is older than {@code order.bulk-transition.stale-after}.
+ */
+@Service
+public class BulkTransitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkTransitionService.class);
+
+    // Next to the bucket directory
+    private static final int JOB_SHARD = 0;
+    private static final int MAX_LISTED = 100;
+    private static final Duration MOVE_POLL = Duration.ofSeconds(1);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final OrderCommandService commandService;
+    private final ShardRouter shardRouter;
+    private final OrderStateMachine stateMachine;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int defaultRate;
+    private final int chunkAttempts;
+    private final Duration staleAfter;
+    private final Counter transitioned;
+    private final Counter skipped;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("bulk-transition").daemon(true).factory());
+    private final ExecutorService workers;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("bulk-transition-heartbeat").daemon(true).factory());
+    // Queued or running on this instance
+    private final Map<String, Run> local = new ConcurrentHashMap<>();
+
+    public BulkTransitionService(OrderCommandService commandService,
+                                 ShardRouter shardRouter,
+                                 OrderStateMachine stateMachine,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${order.bulk-transition.chunk-size:200}") int chunkSize,
+                                 @Value("${order.bulk-transition.parallelism:4}") int parallelism,
+                                 @Value("${order.bulk-transition.default-rate:500}") int defaultRate,
+                                 @Value("${order.bulk-transition.chunk-attempts:3}") int chunkAttempts,
+                                 @Value("${order.bulk-transition.stale-after:PT2M}") Duration staleAfter,
+                                 @Value("${order.bulk-transition.heartbeat-interval:PT15S}")
+                                 Duration heartbeatInterval) {
+        if (!heartbeatInterval.isPositive() || heartbeatInterval.compareTo(staleAfter) >= 0) {
+            throw new IllegalArgumentException("Heartbeat interval must be positive and shorter than stale-after ("
+                    + staleAfter + "), got " + heartbeatInterval);
+        }
+        this.commandService = commandService;
+        this.shardRouter = shardRouter;
+        this.stateMachine = stateMachine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName("BulkTransitionService.job");
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setName("BulkTransitionService.select");
+        this.readOnlyTemplate.setReadOnly(true);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.defaultRate = defaultRate;
+        this.chunkAttempts = chunkAttempts;
+        this.staleAfter = staleAfter;
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("bulk-transition-", 0).daemon(true).factory());
+        this.transitioned = counter("transitioned", meterRegistry);
+        this.skipped = counter("skipped", meterRegistry);
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static Counter counter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("orders.bulk-transition.orders")
+                .description("Orders handled by bulk transition jobs, by whether they were moved or had changed status")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ==================== JOBS ====================
+
+    /**
+     * Stores the job and queues it.
+     *
+     * @throws IllegalArgumentException if the saga does not allow every {@code fromStatuses} to
+     *                                  move to the target
+     */
+    public Progress submit(BulkTransitionRequest request) {
+        Set<OrderStatus> from = EnumSet.copyOf(request.fromStatuses());
+        for (OrderStatus status : from) {
+            if (!stateMachine.isAllowed(status, request.targetStatus())) {
+                throw new IllegalArgumentException("Orders in " + status + " cannot move to " + request.targetStatus());
+            }
+        }
+        BulkTransitionJob job = new BulkTransitionJob(UUID.randomUUID().toString(), from, request.targetStatus(),
+                request.customerId(), request.createdBefore(), request.reason(),
+                request.ratePerSecond() != null ? request.ratePerSecond() : defaultRate, Instant.now());
+        ShardContext.run(JOB_SHARD, () -> transactionTemplate.executeWithoutResult(status -> entityManager.persist(job)));
+
+        Progress progress = Progress.of(job, null);
+        enqueue(progress);
+        log.atInfo()
+                .addKeyValue("jobId", job.getId())
+                .addKeyValue("customerId", job.getCustomerId())
+                .log("Bulk transition of {} orders to {} queued", job.getFromStatuses(), job.getTargetStatus());
+        return progress;
+    }
+
+    public Progress get(String jobId) {
+        BulkTransitionJob job = ShardContext.call(JOB_SHARD, () -> readOnlyTemplate.execute(status ->
+                entityManager.find(BulkTransitionJob.class, jobId)));
+        if (job == null) {
+            throw new JobNotFoundException(jobId);
+        }
+        return Progress.of(job, local.get(jobId));
+    }
+
+    /**
+     * The latest jobs, newest first.
+     */
+    public List<Progress> list() {
+        List<BulkTransitionJob> jobs = ShardContext.call(JOB_SHARD, () -> readOnlyTemplate.execute(status ->
+                entityManager.createQuery("SELECT j FROM BulkTransitionJob j ORDER BY j.createdAt DESC",
+                                BulkTransitionJob.class)
+                        .setMaxResults(MAX_LISTED)
+                        .getResultList()));
+        return jobs.stream().map(job -> Progress.of(job, local.get(job.getId()))).toList();
+    }
+
+    /**
+     * Stops the job after the chunks in flight; it can be resumed later.
+     */
+    public Progress stop(String jobId) {
+        Run run = local.get(jobId);
+        if (run != null) {
+            run.stopRequested = true;
+            return get(jobId);
+        }
+        return update(jobId, job -> {
+            if (!isActive(job)) {
+                throw new IllegalStateException("Job " + jobId + " is " + job.getState());
+            }
+            if (!isAbandoned(job)) {
+                throw new IllegalStateException("Job " + jobId + " runs on another instance");
+            }
+            job.moveTo(State.STOPPED, Instant.now());
+        });
+    }
+
+    /**
+     * Queues a stopped, failed or abandoned job again. Orders it already moved are not selected again.
+     */
+    public Progress resume(String jobId) {
+        if (local.containsKey(jobId)) {
+            throw new IllegalStateException("Job " + jobId + " is already queued or running");
+        }
+        Progress progress;
+        try {
+            progress = update(jobId, job -> {
+                if (job.getState() == State.COMPLETED) {
+                    throw new IllegalStateException("Job " + jobId + " is complete");
+                }
+                if (isActive(job) && !isAbandoned(job)) {
+                    throw new IllegalStateException("Job " + jobId + " runs on another instance; it can be resumed "
+                            + "once it has had no heartbeat for " + staleAfter);
+                }
+                job.moveTo(State.QUEUED, Instant.now());
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("Job " + jobId + " was resumed concurrently");
+        }
+        enqueue(progress);
+        log.atInfo().addKeyValue("jobId", jobId).log("Bulk transition resumed");
+        return progress;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Stopped jobs can be resumed right away, unlike ones left RUNNING
+        local.values().forEach(run -> run.stopRequested = true);
+        heartbeats.shutdown();
+        coordinator.shutdown();
+        if (!coordinator.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Bulk transition jobs still running at shutdown; resume them after {}", staleAfter);
+        }
+        workers.shutdownNow();
+    }
+
+    private static boolean isActive(BulkTransitionJob job) {
+        return job.getState() == State.QUEUED || job.getState() == State.RUNNING;
+    }
+
+    private boolean isAbandoned(BulkTransitionJob job) {
+        return job.getUpdatedAt().isBefore(Instant.now().minus(staleAfter));
+    }
+
+    private void enqueue(Progress job) {
+        Run run = new Run(job, parallelism);
+        if (local.putIfAbsent(job.id(), run) != null) {
+            throw new IllegalStateException("Job " + job.id() + " is already queued or running");
+        }
+        coordinator.execute(() -> execute(run));
+    }
+
+    // Writes of a job running here, serialized with its heartbeat so they don't conflict on the version
+    private Progress update(Run run, Consumer<BulkTransitionJob> change) {
+        synchronized (run) {
+            return update(run.job.id(), change);
+        }
+    }
+
+    private Progress update(String jobId, Consumer<BulkTransitionJob> change) {
+        return ShardContext.call(JOB_SHARD, () -> transactionTemplate.execute(status -> {
+            BulkTransitionJob job = entityManager.find(BulkTransitionJob.class, jobId);
+            if (job == null) {
+                throw new JobNotFoundException(jobId);
+            }
+            change.accept(job);
+            return Progress.of(job, local.get(jobId));
+        }));
+    }
+
+    // ==================== EXECUTION ====================
+
+    private void execute(Run run) {
+        try {
+            if (run.stopRequested) {
+                finish(run, State.STOPPED);
+                return;
+            }
+            update(run, job -> job.moveTo(State.RUNNING, Instant.now()));
+            log.atInfo().addKeyValue("jobId", run.job.id()).log("Bulk transition started");
+            do {
+                // Orders whose bucket moved to a shard already passed are found by another pass
+                run.sawMove = false;
+                for (int shard : shardsOf(run)) {
+                    transitionShard(run, shard);
+                    if (run.stopping()) {
+                        break;
+                    }
+                }
+                run.awaitChunks();
+            } while (run.sawMove && !run.stopping());
+            finish(run, run.failure != null ? State.FAILED : run.stopRequested ? State.STOPPED : State.COMPLETED);
+        } catch (RuntimeException e) {
+            run.fail(e);
+            run.awaitChunks();
+            finish(run, State.FAILED);
+        } finally {
+            local.remove(run.job.id(), run);
+        }
+    }
+
+    private List<Integer> shardsOf(Run run) {
+        awaitNoMove(run);
+        return run.job.customerId() != null
+                ? List.of(shardRouter.shardOfCustomer(run.job.customerId()))
+                : shardRouter.allShards();
+    }
+
+    private void transitionShard(Run run, int shard) {
+        String after = "";
+        while (!run.stopping()) {
+            awaitNoMove(run);
+            String cursor = after;
+            List<String> ids = ShardContext.call(shard, () -> readOnlyTemplate.execute(status -> select(run, cursor)));
+            if (ids.isEmpty()) {
+                return;
+            }
+            after = ids.getLast();
+            run.selected.addAndGet(ids.size());
+            run.pace(ids.size());
+            run.submit(workers, () -> transitionChunk(run, shard, ids));
+        }
+    }
+
+    // Keyset pages by ID: orders that stay behind (skipped) are not listed again within a pass
+    private List<String> select(Run run, String after) {
+        StringBuilder jpql = new StringBuilder("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.id > :after");
+        if (run.job.customerId() != null) {
+            jpql.append(" AND o.customerId = :customerId");
+        }
+        if (run.job.createdBefore() != null) {
+            jpql.append(" AND o.createdAt < :createdBefore");
+        }
+        TypedQuery<String> query = entityManager.createQuery(jpql.append(" ORDER BY o.id").toString(), String.class)
+                .setParameter("statuses", run.job.fromStatuses())
+                .setParameter("after", after)
+                .setMaxResults(chunkSize);
+        if (run.job.customerId() != null) {
+            query.setParameter("customerId", run.job.customerId());
+        }
+        if (run.job.createdBefore() != null) {
+            query.setParameter("createdBefore", run.job.createdBefore());
+        }
+        return query.getResultList();
+    }
+
+    private void transitionChunk(Run run, int shard, List<String> ids) {
+        for (int attempt = 1; run.failure == null; attempt++) {
+            try {
+                OrderCommandService.BatchTransition result = ShardContext.call(shard, () -> commandService.transitionAll(
+                        ids, run.job.fromStatuses(), run.job.targetStatus(), run.job.reason()));
+                run.transitioned.addAndGet(result.transitioned());
+                run.skipped.addAndGet(result.skipped());
+                transitioned.increment(result.transitioned());
+                skipped.increment(result.skipped());
+                return;
+            } catch (ShardMovingException e) {
+                // The chunk's orders are on their new shard by the next pass
+                run.sawMove = true;
+                return;
+            } catch (TransientDataAccessException e) {
+                // A saga reply changed one of the orders meanwhile; the retry skips it if it left the statuses
+                if (attempt >= chunkAttempts) {
+                    run.fail(e);
+                    return;
+                }
+                log.debug("Bulk transition chunk conflicted (attempt {}), retrying", attempt, e);
+            } catch (RuntimeException e) {
+                run.fail(e);
+                return;
+            }
+        }
+    }
+
+    private void awaitNoMove(Run run) {
+        while (shardRouter.moving() && !run.stopping()) {
+            run.sawMove = true;
+            sleep(MOVE_POLL.toNanos());
+        }
+    }
+
+    // Keeps jobs that are paced slowly, wait for a bucket move or are queued behind another job from
+    // looking abandoned; a write failing here is retried by the next beat
+    private void heartbeat() {
+        for (Run run : local.values()) {
+            try {
+                synchronized (run) {
+                    if (!run.finished) {
+                        update(run.job.id(), job -> job.progress(run.selected.get(), run.transitioned.get(),
+                                run.skipped.get(), Instant.now()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.atWarn()
+                        .addKeyValue("jobId", run.job.id())
+                        .setCause(e)
+                        .log("Bulk transition heartbeat failed");
+            }
+        }
+    }
+
+    private void finish(Run run, State state) {
+        Progress progress = update(run, job -> {
+            job.progress(run.selected.get(), run.transitioned.get(), run.skipped.get(), Instant.now());
+            if (state == State.FAILED) {
+                job.fail(run.failure != null ? run.failure.toString() : null, Instant.now());
+            } else {
+                job.moveTo(state, Instant.now());
+            }
+            run.finished = true;
+        });
+        log.atInfo()
+                .addKeyValue("jobId", progress.id())
+                .addKeyValue("transitioned", progress.transitioned())
+                .addKeyValue("skipped", progress.skipped())
+                .log("Bulk transition {}", state.name().toLowerCase());
+        if (run.failure != null) {
+            log.error("Bulk transition {} failed; resume it to continue", progress.id(), run.failure);
+        }
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running a bulk transition", e);
+        }
+    }
+
+    // Live state of a job on this instance
+    private static final class Run {
+        private final Progress job;
+        private final long nanosPerOrder;
+        private final Semaphore inFlight;
+        private final int parallelism;
+        private final AtomicLong selected;
+        private final AtomicLong transitioned;
+        private final AtomicLong skipped;
+        private volatile boolean stopRequested;
+        private volatile RuntimeException failure;
+        // Reset by the coordinator thread before each pass, set by it and by the workers
+        private volatile boolean sawMove;
+        // Final state written; guarded by the run's monitor
+        private boolean finished;
+        private long nextSlot = System.nanoTime();
+
+        private Run(Progress job, int parallelism) {
+            this.job = job;
+            this.nanosPerOrder = TimeUnit.SECONDS.toNanos(1) / job.ratePerSecond();
+            this.parallelism = parallelism;
+            this.inFlight = new Semaphore(parallelism);
+            // Resumed jobs keep counting from where they stopped
+            this.selected = new AtomicLong(job.selected());
+            this.transitioned = new AtomicLong(job.transitioned());
+            this.skipped = new AtomicLong(job.skipped());
+        }
+
+        boolean stopping() {
+            return stopRequested || failure != null;
+        }
+
+        void fail(RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        // Spaces chunks so the job averages its rate
+        void pace(int orders) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextSlot);
+            nextSlot = start + orders * nanosPerOrder;
+            if (start > now) {
+                sleep(start - now);
+            }
+        }
+
+        void submit(ExecutorService workers, Runnable chunk) {
+            inFlight.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    chunk.run();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        void awaitChunks() {
+            inFlight.acquireUninterruptibly(parallelism);
+            inFlight.release(parallelism);
+        }
+    }
+
+    /**
+     * A job as stored, with live counters while it runs on this instance.
+     */
+    public record Progress(
+            String id,
+            State state,
+            Set<OrderStatus> fromStatuses,
+            OrderStatus targetStatus,
+            String customerId,
+            Instant createdBefore,
+            String reason,
+            int ratePerSecond,
+            long selected,
+            long transitioned,
+            long skipped,
+            String error,
+            Instant createdAt,
+            Instant updatedAt,
+            Instant finishedAt
+    ) {
+        static Progress of(BulkTransitionJob job, Run run) {
+            return new Progress(job.getId(), job.getState(), job.fromStatusSet(), job.getTargetStatus(),
+                    job.getCustomerId(), job.getCreatedBefore(), job.getReason(), job.getRatePerSecond(),
+                    run != null ? run.selected.get() : job.getSelected(),
+                    run != null ? run.transitioned.get() : job.getTransitioned(),
+                    run != null ? run.skipped.get() : job.getSkipped(),
+                    job.getError(), job.getCreatedAt(), job.getUpdatedAt(), job.getFinishedAt());
+        }
+    }
+
+    // Custom exceptions
+    public static class JobNotFoundException extends RuntimeException {
+        public JobNotFoundException(String jobId) {
+            super("Bulk transition job not found: " + jobId);
+        }
+    }
+}
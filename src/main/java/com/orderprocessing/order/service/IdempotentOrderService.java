@@ -0,0 +1,307 @@
+package com.orderprocessing.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.domain.IdempotencyRecord;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.sharding.ShardContext;
+import com.orderprocessing.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Order creation with an {@code Idempotency-Key}: a retried request gets the response of the
+ * first one instead of a second order and saga.
+ * <p>
+ * Keys are scoped to the customer and kept in two tiers. Recent results are held in a bounded
+ * in-memory map ({@code order.idempotency.local-capacity}), and concurrent duplicates on this
+ * instance wait for the first request instead of racing it. Every key is also claimed in
+ * {@code idempotency_keys} in the order's transaction, before the order is created or any event
+ * published, so a duplicate on another instance blocks on the claim and replays the stored
+ * response once the first commits. Keys expire after {@code order.idempotency.ttl}.
+ */
+@Service
+public class IdempotentOrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotentOrderService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final OrderCommandService commandService;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Stored> recent;
+    private final Map<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration holdTimeout;
+    private final Counter created;
+    private final Counter replayedFromMemory;
+    private final Counter replayedFromDatabase;
+    private final Counter held;
+
+    public IdempotentOrderService(OrderCommandService commandService,
+                                  ShardRouter shardRouter,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${order.idempotency.local-capacity:100000}") int localCapacity,
+                                  @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${order.idempotency.hold-timeout:30s}") Duration holdTimeout) {
+        this.commandService = commandService;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName("IdempotentOrderService.createOrder");
+        // Access order: the least recently used key is dropped first
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > localCapacity;
+            }
+        });
+        this.ttl = ttl;
+        this.holdTimeout = holdTimeout;
+        this.created = counter("created", null, meterRegistry);
+        this.replayedFromMemory = counter("replayed", "memory", meterRegistry);
+        this.replayedFromDatabase = counter("replayed", "database", meterRegistry);
+        this.held = Counter.builder("orders.idempotency.held")
+                .description("Duplicates that waited for the first request with their key")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(String result, String tier, MeterRegistry meterRegistry) {
+        Counter.Builder builder = Counter.builder("orders.idempotency.requests")
+                .description("Order creations with an Idempotency-Key, by whether they created the order or replayed it")
+                .tag("result", result);
+        if (tier != null) {
+            builder.tag("tier", tier);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    /**
+     * Creates the order unless {@code key} was already used by the customer, in which case the
+     * first response is returned again.
+     *
+     * @throws InvalidKeyException if the key is blank or too long
+     * @throws KeyReusedException if the key was used for a different request
+     * @throws KeyInFlightException if the first request is still running after the hold timeout
+     */
+    public Outcome createOrder(String key, CreateOrderRequest request) {
+        if (key.isBlank() || key.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new InvalidKeyException();
+        }
+        String id = IdempotencyRecord.idOf(request.customerId(), key);
+        String requestHash = hash(request);
+
+        while (true) {
+            Stored stored = recent.get(id);
+            if (stored != null && !stored.expired(ttl)) {
+                replayedFromMemory.increment();
+                return replay(stored, requestHash);
+            }
+
+            CompletableFuture<Stored> flight = new CompletableFuture<>();
+            CompletableFuture<Stored> first = inFlight.putIfAbsent(id, flight);
+            if (first != null) {
+                held.increment();
+                stored = await(first, key);
+                if (stored == null) {
+                    // The first request failed without creating an order: this one may
+                    continue;
+                }
+                replayedFromMemory.increment();
+                return replay(stored, requestHash);
+            }
+
+            try {
+                Outcome outcome = createOnce(id, key, requestHash, request);
+                Stored result = new Stored(requestHash, outcome.response(), Instant.now());
+                recent.put(id, result);
+                flight.complete(result);
+                return outcome;
+            } catch (RuntimeException | Error e) {
+                flight.complete(null);
+                throw e;
+            } finally {
+                inFlight.remove(id, flight);
+            }
+        }
+    }
+
+    private Outcome createOnce(String id, String key, String requestHash, CreateOrderRequest request) {
+        try {
+            return transactionTemplate.execute(status -> {
+                shardRouter.routeCustomer(request.customerId(), ShardRouter.Access.WRITE);
+                IdempotencyRecord existing = entityManager.find(IdempotencyRecord.class, id);
+                if (existing != null) {
+                    Stored stored = read(existing);
+                    if (!stored.expired(ttl)) {
+                        replayedFromDatabase.increment();
+                        return replay(stored, requestHash);
+                    }
+                    // Expired but not purged yet: the key is free again. A concurrent duplicate
+                    // deletes nothing here and loses the claim below
+                    entityManager.detach(existing);
+                    entityManager.createQuery(
+                                    "DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.createdAt = :createdAt")
+                            .setParameter("id", id)
+                            .setParameter("createdAt", existing.getCreatedAt())
+                            .executeUpdate();
+                }
+
+                // Claimed before the order is created and ORDER_CREATED sent: a duplicate on another
+                // instance blocks on the primary key here and fails once this transaction commits
+                IdempotencyRecord claim = new IdempotencyRecord(request.customerId(), key, requestHash, Instant.now());
+                try {
+                    entityManager.persist(claim);
+                    entityManager.flush();
+                } catch (ConstraintViolationException e) {
+                    // Hibernate's own exception: nothing translates it outside a repository
+                    throw new DuplicateKeyException("Idempotency key " + id + " was claimed concurrently", e);
+                }
+
+                OrderResponse response = commandService.createOrder(request);
+                claim.complete(response.id(), write(response));
+                created.increment();
+                return new Outcome(response, false);
+            });
+        } catch (DuplicateKeyException e) {
+            // Lost the claim to a concurrent duplicate, which has committed by now
+            IdempotencyRecord winner = transactionTemplate.execute(status -> {
+                shardRouter.routeCustomer(request.customerId(), ShardRouter.Access.READ);
+                return entityManager.find(IdempotencyRecord.class, id);
+            });
+            if (winner == null) {
+                throw e;
+            }
+            replayedFromDatabase.increment();
+            return replay(read(winner), requestHash);
+        }
+    }
+
+    private static Outcome replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new KeyReusedException();
+        }
+        return new Outcome(stored.response(), true);
+    }
+
+    private Stored await(CompletableFuture<Stored> first, String key) {
+        try {
+            return first.get(holdTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new KeyInFlightException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KeyInFlightException();
+        } catch (ExecutionException e) {
+            // Not completed exceptionally; see createOrder
+            throw new IllegalStateException("Idempotent request " + key + " failed", e.getCause());
+        }
+    }
+
+    // ==================== RETENTION ====================
+
+    @Scheduled(initialDelayString = "${order.idempotency.purge-interval:PT1H}",
+            fixedDelayString = "${order.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Instant threshold = Instant.now().minus(ttl);
+        for (int shard : shardRouter.allShards()) {
+            Integer purged = ShardContext.call(shard, () -> transactionTemplate.execute(status -> entityManager
+                    .createQuery("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :threshold")
+                    .setParameter("threshold", threshold)
+                    .executeUpdate()));
+            log.debug("Purged {} idempotency keys older than {} on shard {}", purged, threshold, shard);
+        }
+        recent.values().removeIf(stored -> stored.expired(ttl));
+    }
+
+    // ==================== SERIALIZATION ====================
+
+    private String hash(CreateOrderRequest request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash the request", e);
+        }
+    }
+
+    private String write(OrderResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the response", e);
+        }
+    }
+
+    private Stored read(IdempotencyRecord record) {
+        try {
+            return new Stored(record.getRequestHash(),
+                    objectMapper.readValue(record.getResponse(), OrderResponse.class), record.getCreatedAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize the response of " + record.getId(), e);
+        }
+    }
+
+    private record Stored(String requestHash, OrderResponse response, Instant createdAt) {
+
+        boolean expired(Duration ttl) {
+            return createdAt.plus(ttl).isBefore(Instant.now());
+        }
+    }
+
+    /**
+     * @param replayed whether the response is that of an earlier request with the same key
+     */
+    public record Outcome(OrderResponse response, boolean replayed) {
+    }
+
+    // Custom exceptions
+    public static class InvalidKeyException extends RuntimeException {
+        public InvalidKeyException() {
+            super("Idempotency-Key must have 1 to " + IdempotencyRecord.MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException() {
+            super("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    public static class KeyInFlightException extends RuntimeException {
+        public KeyInFlightException() {
+            super("A request with this Idempotency-Key is still being processed, retry shortly");
+        }
+    }
+}
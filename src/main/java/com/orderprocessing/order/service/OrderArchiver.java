@@ -0,0 +1,173 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.domain.OrderItem;
+import com.orderprocessing.order.domain.OrderStateMachine;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.domain.TerminalOrder;
+import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.sharding.ShardContext;
+import com.orderprocessing.order.sharding.ShardMovingException;
+import com.orderprocessing.order.sharding.ShardRouter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves terminal orders older than {@code order.archive.age} from {@code orders}/{@code order_items}
+ * into {@code orders_archive}/{@code order_items_archive}, in bounded batches so the hot tables
+ * (and their vacuum cost) stay proportional to recent traffic.
+ * <p>
+ * Each batch is one short transaction: copy with INSERT ... SELECT, then delete. Archived orders
+ * are still readable through {@link OrderQueryService#getOrderById(String)}. With sharding every
+ * shard is archived in turn, and nothing is archived while buckets are being moved between shards.
+ */
+@Component
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final String ORDER_COLUMNS =
+            "id, customer_id, status, total_amount, created_at, updated_at, version, saga_id, failure_reason";
+    private static final String ITEM_COLUMNS = "id, order_id, product_id, product_name, quantity, unit_price";
+    private static final String ITEMS_ROLE = TerminalOrder.class.getName() + ".items";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final OrderRepository orderRepository;
+    private final SessionFactory sessionFactory;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OrderStatus> terminalStatuses;
+    private final Duration age;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         SessionFactory sessionFactory,
+                         ShardRouter shardRouter,
+                         PlatformTransactionManager transactionManager,
+                         OrderStateMachine stateMachine,
+                         @Value("${order.archive.age:30d}") Duration age,
+                         @Value("${order.archive.batch-size:500}") int batchSize,
+                         @Value("${order.archive.max-batches:20}") int maxBatches) {
+        this.orderRepository = orderRepository;
+        this.sessionFactory = sessionFactory;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName("OrderArchiver.archiveBatch");
+        // COMPLETED and CANCELLED for the standard saga; never archive an order that can still move
+        this.terminalStatuses = Arrays.stream(OrderStatus.values())
+                .filter(stateMachine::isTerminal)
+                .toList();
+        this.age = age;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(initialDelayString = "${order.archive.initial-delay:PT1M}",
+            fixedDelayString = "${order.archive.interval:PT10M}")
+    public void archiveTerminalOrders() {
+        Instant threshold = Instant.now().minus(age);
+        for (int shard : shardRouter.allShards()) {
+            int archived = ShardContext.call(shard, () -> archiveShard(threshold));
+            if (archived > 0) {
+                log.info("Archived {} terminal orders created before {} on shard {}", archived, threshold, shard);
+            }
+        }
+    }
+
+    private int archiveShard(Instant threshold) {
+        int archived = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            // A bucket copy in progress would miss orders moving between the two tables
+            if (shardRouter.moving()) {
+                log.debug("Buckets are being moved between shards, archiving later");
+                break;
+            }
+            Integer moved;
+            try {
+                moved = transactionTemplate.execute(status -> archiveBatch(threshold));
+            } catch (ShardMovingException e) {
+                // This instance has not seen the move yet
+                log.debug("Buckets are being moved off this shard, archiving later");
+                break;
+            }
+            archived += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+
+    private int archiveBatch(Instant threshold) {
+        List<String> orderIds = orderRepository.findArchivableIds(
+                terminalStatuses, threshold, PageRequest.of(0, batchSize));
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        @SuppressWarnings("unchecked")
+        List<String> customerIds = entityManager
+                .createNativeQuery("SELECT DISTINCT customer_id FROM orders WHERE id IN (:ids)")
+                .setParameter("ids", orderIds)
+                .getResultList();
+        shardRouter.fenceCustomers(customerIds);
+
+        @SuppressWarnings("unchecked")
+        List<Number> itemIds = entityManager
+                .createNativeQuery("SELECT id FROM order_items WHERE order_id IN (:ids)")
+                .setParameter("ids", orderIds)
+                .getResultList();
+
+        execute("INSERT INTO orders_archive (" + ORDER_COLUMNS + ", archived_at) SELECT " + ORDER_COLUMNS
+                + ", :archivedAt FROM orders WHERE id IN (:ids)", orderIds, Instant.now());
+        execute("INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") SELECT " + ITEM_COLUMNS
+                + " FROM order_items WHERE order_id IN (:ids)", orderIds, null);
+        execute("DELETE FROM order_items WHERE order_id IN (:ids)", orderIds, null);
+        int deleted = execute("DELETE FROM orders WHERE id IN (:ids)", orderIds, null);
+
+        evict(orderIds, itemIds);
+        return deleted;
+    }
+
+    private int execute(String sql, List<String> orderIds, Instant archivedAt) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql)
+                .setParameter("ids", orderIds)
+                .unwrap(NativeQuery.class);
+        if (archivedAt != null) {
+            query.setParameter("archivedAt", archivedAt);
+        }
+        // Without a declared query space Hibernate would clear every second-level cache region;
+        // the archived rows are evicted individually instead
+        query.addSynchronizedQuerySpace("orders_archive");
+        return query.executeUpdate();
+    }
+
+    private void evict(List<String> orderIds, List<Number> itemIds) {
+        org.hibernate.Cache cache = sessionFactory.getCache();
+        for (String orderId : orderIds) {
+            cache.evictEntityData(TerminalOrder.class, orderId);
+            cache.evictCollectionData(ITEMS_ROLE, orderId);
+        }
+        for (Number itemId : itemIds) {
+            cache.evictEntityData(OrderItem.class, itemId.longValue());
+        }
+    }
+}
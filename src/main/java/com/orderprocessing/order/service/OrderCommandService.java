@@ -1,22 +1,33 @@
 package com.orderprocessing.order.service;
 
+import com.orderprocessing.common.event.BaseEvent;
 import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.domain.Money;
 import com.orderprocessing.order.domain.Order;
 import com.orderprocessing.order.domain.OrderItem;
+import com.orderprocessing.order.domain.OrderStateMachine;
 import com.orderprocessing.order.domain.OrderStatus;
 import com.orderprocessing.order.dto.CreateOrderRequest;
 import com.orderprocessing.order.dto.OrderResponse;
 import com.orderprocessing.order.event.OrderEvent;
 import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.event.OrderTransitionEvent;
 import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.sharding.ShardMovingException;
+import com.orderprocessing.order.sharding.ShardRouter;
+import com.orderprocessing.order.transport.EventTransport;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -24,18 +35,30 @@ public class OrderCommandService {
 
     private static final Logger log = LoggerFactory.getLogger(OrderCommandService.class);
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final OrderRepository orderRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventTransport eventTransport;
+    private final OrderStateMachine stateMachine;
+    private final OrderStatePublisher orderStatePublisher;
+    private final ShardRouter shardRouter;
 
     public OrderCommandService(OrderRepository orderRepository,
-                               KafkaTemplate<String, Object> kafkaTemplate) {
+                               EventTransport eventTransport,
+                               OrderStateMachine stateMachine,
+                               OrderStatePublisher orderStatePublisher,
+                               ShardRouter shardRouter) {
         this.orderRepository = orderRepository;
-        this.kafkaTemplate = kafkaTemplate;
+        this.eventTransport = eventTransport;
+        this.stateMachine = stateMachine;
+        this.orderStatePublisher = orderStatePublisher;
+        this.shardRouter = shardRouter;
     }
 
     @Transactional
     public OrderResponse createOrder(CreateOrderRequest request) {
-        log.info("Creating order for customer: {}", request.customerId());
+        shardRouter.routeCustomer(request.customerId(), ShardRouter.Access.WRITE);
 
         // Map request items to domain objects
         List<OrderItem> items = request.items().stream()
@@ -43,7 +66,7 @@ public class OrderCommandService {
                         item.productId(),
                         item.productName(),
                         item.quantity(),
-                        item.unitPrice()
+                        Money.of(item.unitPrice())
                 ))
                 .toList();
 
@@ -52,92 +75,107 @@ public class OrderCommandService {
 
         // Persist order
         Order savedOrder = orderRepository.save(order);
-        log.info("Order created with ID: {} and saga ID: {}", savedOrder.getId(), savedOrder.getSagaId());
+        log.atInfo()
+                .addKeyValue("orderId", savedOrder.getId())
+                .addKeyValue("sagaId", savedOrder.getSagaId())
+                .addKeyValue("customerId", savedOrder.getCustomerId())
+                .log("Order created");
 
         // Publish event to start saga
-        publishOrderEvent(savedOrder, OrderEventType.ORDER_CREATED);
+        publishOrderCreated(savedOrder);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
     @Transactional
     public OrderResponse updateOrderStatus(String orderId, OrderStatus newStatus) {
+        shardRouter.routeOrder(orderId, ShardRouter.Access.WRITE);
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
+        OrderStatus previousStatus = order.getStatus();
         order.transitionTo(newStatus);
         Order savedOrder = orderRepository.save(order);
 
-        // Determine event type based on new status
-        OrderEventType eventType = mapStatusToEventType(newStatus);
-        publishOrderEvent(savedOrder, eventType);
+        // Event emitted by the edge, per the saga definition
+        OrderEventType eventType = stateMachine.eventFor(previousStatus, newStatus);
+        publishTransition(savedOrder, previousStatus, eventType);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
     @Transactional
     public OrderResponse handleInventoryReserved(String sagaId) {
+        shardRouter.routeSaga(sagaId, ShardRouter.Access.WRITE);
         Order order = orderRepository.findBySagaId(sagaId)
                 .orElseThrow(() -> new SagaNotFoundException(sagaId));
 
-        order.transitionTo(OrderStatus.INVENTORY_RESERVED);
-        order.transitionTo(OrderStatus.PAYMENT_PROCESSING);
+        // INVENTORY_RESERVED -> PAYMENT_PROCESSING
+        OrderStatus previousStatus = order.getStatus();
+        OrderEventType eventType = order.advance(OrderStatus.INVENTORY_RESERVED);
 
         Order savedOrder = orderRepository.save(order);
-        publishOrderEvent(savedOrder, OrderEventType.ORDER_PAYMENT_PROCESSING);
+        publishTransition(savedOrder, previousStatus, eventType);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
     @Transactional
     public OrderResponse handleInventoryFailed(String sagaId, String reason) {
+        shardRouter.routeSaga(sagaId, ShardRouter.Access.WRITE);
         Order order = orderRepository.findBySagaId(sagaId)
                 .orElseThrow(() -> new SagaNotFoundException(sagaId));
 
-        order.transitionTo(OrderStatus.INVENTORY_FAILED);
+        // INVENTORY_FAILED -> CANCELLED
+        OrderStatus previousStatus = order.getStatus();
+        OrderEventType eventType = order.advance(OrderStatus.INVENTORY_FAILED);
         order.markFailed(reason);
-        order.transitionTo(OrderStatus.CANCELLED);
 
         Order savedOrder = orderRepository.save(order);
-        publishOrderEvent(savedOrder, OrderEventType.ORDER_CANCELLED);
+        publishTransition(savedOrder, previousStatus, eventType);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
     @Transactional
     public OrderResponse handlePaymentCompleted(String sagaId) {
+        shardRouter.routeSaga(sagaId, ShardRouter.Access.WRITE);
         Order order = orderRepository.findBySagaId(sagaId)
                 .orElseThrow(() -> new SagaNotFoundException(sagaId));
 
-        order.transitionTo(OrderStatus.PAYMENT_COMPLETED);
-        order.transitionTo(OrderStatus.COMPLETED);
+        // PAYMENT_COMPLETED -> COMPLETED
+        OrderStatus previousStatus = order.getStatus();
+        OrderEventType eventType = order.advance(OrderStatus.PAYMENT_COMPLETED);
 
         Order savedOrder = orderRepository.save(order);
-        publishOrderEvent(savedOrder, OrderEventType.ORDER_COMPLETED);
+        publishTransition(savedOrder, previousStatus, eventType);
 
-        log.info("Order {} completed successfully", savedOrder.getId());
+        log.atInfo().addKeyValue("orderId", savedOrder.getId()).log("Order completed");
         return OrderResponse.fromEntity(savedOrder);
     }
 
     @Transactional
     public OrderResponse handlePaymentFailed(String sagaId, String reason) {
+        shardRouter.routeSaga(sagaId, ShardRouter.Access.WRITE);
         Order order = orderRepository.findBySagaId(sagaId)
                 .orElseThrow(() -> new SagaNotFoundException(sagaId));
 
-        order.transitionTo(OrderStatus.PAYMENT_FAILED);
+        // PAYMENT_FAILED -> COMPENSATING
+        OrderStatus previousStatus = order.getStatus();
+        OrderEventType eventType = order.advance(OrderStatus.PAYMENT_FAILED);
         order.markFailed(reason);
-        order.transitionTo(OrderStatus.COMPENSATING);
 
         Order savedOrder = orderRepository.save(order);
 
         // Trigger compensation - release inventory
-        publishOrderEvent(savedOrder, OrderEventType.ORDER_COMPENSATION_STARTED);
+        publishTransition(savedOrder, previousStatus, eventType);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
     @Transactional
     public OrderResponse cancelOrder(String orderId) {
+        shardRouter.routeOrder(orderId, ShardRouter.Access.WRITE);
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
@@ -145,14 +183,67 @@ public class OrderCommandService {
             throw new IllegalStateException("Cannot cancel a completed order");
         }
 
+        OrderStatus previousStatus = order.getStatus();
         order.transitionTo(OrderStatus.CANCELLED);
         Order savedOrder = orderRepository.save(order);
-        publishOrderEvent(savedOrder, OrderEventType.ORDER_CANCELLED);
+        publishTransition(savedOrder, previousStatus, OrderEventType.ORDER_CANCELLED);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
-    private void publishOrderEvent(Order order, OrderEventType eventType) {
+    /**
+     * Moves the orders of {@code orderIds} that are still in one of {@code from} to {@code target},
+     * for bulk transition jobs: one transaction, one select, the updates as a JDBC batch and the
+     * events sent together. Orders that left {@code from} since they were selected are skipped.
+     * The caller picks the shard ({@code ShardContext}); a {@link ShardMovingException} means some
+     * of the orders' buckets were moved off it meanwhile.
+     */
+    @Transactional
+    public BatchTransition transitionAll(Collection<String> orderIds, Set<OrderStatus> from,
+                                         OrderStatus target, String reason) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(orderIds.size());
+        List<Order> orders = orderRepository.fetchWithItemsByIdIn(orderIds);
+        shardRouter.fenceCustomers(orders.stream().map(Order::getCustomerId).toList());
+
+        List<Order> moved = new ArrayList<>(orders.size());
+        List<OrderStatus> previousStatuses = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (!from.contains(order.getStatus())) {
+                continue;
+            }
+            previousStatuses.add(order.getStatus());
+            order.transitionTo(target);
+            if (reason != null) {
+                order.markFailed(reason);
+            }
+            moved.add(order);
+        }
+        // One flush for the whole batch; it also fixes the versions the events carry
+        orderRepository.flush();
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(moved.size());
+        for (int i = 0; i < moved.size(); i++) {
+            Order order = moved.get(i);
+            OrderStatus previousStatus = previousStatuses.get(i);
+            sends.add(eventTransport.send(KafkaConfig.ORDER_EVENTS_TOPIC, order.getCustomerId(), new OrderTransitionEvent(
+                    order.getId(),
+                    stateMachine.eventFor(previousStatus, target),
+                    order.getSagaId(),
+                    previousStatus,
+                    order.getStatus(),
+                    order.getVersion(),
+                    order.getFailureReason()
+            )));
+        }
+        // Accepted by the transport before the commit: a failed send rolls the batch back
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        orderStatePublisher.publishAll(moved);
+
+        return new BatchTransition(moved.size(), orderIds.size() - moved.size());
+    }
+
+    // The only event with the order body; everything after it is an OrderTransitionEvent
+    private void publishOrderCreated(Order order) {
         List<OrderEvent.OrderItemPayload> itemPayloads = order.getItems().stream()
                 .map(item -> new OrderEvent.OrderItemPayload(
                         item.getProductId(),
@@ -164,44 +255,49 @@ public class OrderCommandService {
 
         OrderEvent event = new OrderEvent(
                 order.getId(),
-                eventType,
+                OrderEventType.ORDER_CREATED,
                 order.getCustomerId(),
                 order.getStatus(),
                 order.getTotalAmount(),
                 itemPayloads,
                 order.getSagaId()
         );
+        event.setVersion(order.getVersion() != null ? order.getVersion() : 0L);
+        publish(order, event);
+    }
 
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(
+    private void publishTransition(Order order, OrderStatus previousStatus, OrderEventType eventType) {
+        // The version is incremented at flush; flushing now gives the one order-state will carry
+        orderRepository.flush();
+        publish(order, new OrderTransitionEvent(
+                order.getId(),
+                eventType,
+                order.getSagaId(),
+                previousStatus,
+                order.getStatus(),
+                order.getVersion(),
+                order.getFailureReason()
+        ));
+    }
+
+    private void publish(Order order, BaseEvent event) {
+        // Runs inside the transaction: a send blocked on the transport holds the connection
+        eventTransport.send(
                 KafkaConfig.ORDER_EVENTS_TOPIC,
-                order.getId(), // Use order ID as partition key for ordering
+                order.getCustomerId(), // Customer affinity: all orders of a customer share a partition
                 event
         );
+        // Sent again if this is a saga reply that is redelivered after the commit (exactly-once mode)
+        ProcessedMessageLedger.recordReply(KafkaConfig.ORDER_EVENTS_TOPIC, order.getCustomerId(), event);
 
-        future.whenComplete((result, ex) -> {
-            if (ex != null) {
-                log.error("Failed to publish event {} for order {}: {}",
-                        eventType, order.getId(), ex.getMessage());
-            } else {
-                log.debug("Published event {} for order {} to partition {}",
-                        eventType, order.getId(),
-                        result.getRecordMetadata().partition());
-            }
-        });
+        // Every event marks a state change; order-state gets the committed result
+        orderStatePublisher.publish(order);
     }
 
-    private OrderEventType mapStatusToEventType(OrderStatus status) {
-        return switch (status) {
-            case INVENTORY_RESERVED -> OrderEventType.ORDER_INVENTORY_RESERVED;
-            case INVENTORY_FAILED -> OrderEventType.ORDER_INVENTORY_FAILED;
-            case PAYMENT_PROCESSING -> OrderEventType.ORDER_PAYMENT_PROCESSING;
-            case PAYMENT_COMPLETED -> OrderEventType.ORDER_PAYMENT_COMPLETED;
-            case PAYMENT_FAILED -> OrderEventType.ORDER_PAYMENT_FAILED;
-            case COMPLETED -> OrderEventType.ORDER_COMPLETED;
-            case CANCELLED -> OrderEventType.ORDER_CANCELLED;
-            case COMPENSATING -> OrderEventType.ORDER_COMPENSATION_STARTED;
-            default -> throw new IllegalArgumentException("No event type for status: " + status);
-        };
+    /**
+     * @param skipped orders no longer in the expected status, or gone
+     */
+    public record BatchTransition(int transitioned, int skipped) {
     }
 
     // Custom exceptions
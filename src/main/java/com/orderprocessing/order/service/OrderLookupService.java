@@ -0,0 +1,265 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.domain.ArchivedOrder;
+import com.orderprocessing.order.domain.Order;
+import com.orderprocessing.order.domain.TerminalOrder;
+import com.orderprocessing.order.dto.OrderLookupRequest;
+import com.orderprocessing.order.dto.OrderLookupResponse;
+import com.orderprocessing.order.dto.OrderLookupResponse.Entry;
+import com.orderprocessing.order.dto.OrderLookupResponse.KeyType;
+import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.dto.OrderStatusResponse;
+import com.orderprocessing.order.repository.ArchivedOrderRepository;
+import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.repository.TerminalOrderRepository;
+import com.orderprocessing.order.sharding.ShardRouter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Multi-get for reconciliation clients: a bounded set of order IDs and saga IDs resolved with a
+ * constant number of queries instead of one request and query per order.
+ * <p>
+ * The full view takes terminal orders from the second-level cache where present and loads the
+ * rest with one multi-id query, fetching items in one join for those whose item collection is not
+ * cached; orders still in flight are not cached and come from one more join. The status view is a projection and never touches items. Keys missing from
+ * {@code orders} are looked up in the archive the same way. With sharding, the keys of each shard
+ * are resolved on it in parallel; keys from before sharding are tried on every shard.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderLookupService {
+
+    private static final String ITEMS_ROLE = TerminalOrder.class.getName() + ".items";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final OrderRepository orderRepository;
+    private final TerminalOrderRepository terminalOrderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final SessionFactory sessionFactory;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxKeys;
+
+    public OrderLookupService(OrderRepository orderRepository,
+                              TerminalOrderRepository terminalOrderRepository,
+                              ArchivedOrderRepository archivedOrderRepository,
+                              SessionFactory sessionFactory,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${order.query.lookup.max-keys:1000}") int maxKeys) {
+        this.orderRepository = orderRepository;
+        this.terminalOrderRepository = terminalOrderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.sessionFactory = sessionFactory;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setName("OrderLookupService.lookup");
+        this.maxKeys = maxKeys;
+    }
+
+    // One read-only transaction per shard, opened by the scatter
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OrderLookupResponse lookup(OrderLookupRequest request) {
+        Set<String> orderIds = new LinkedHashSet<>(request.orderIds());
+        Set<String> sagaIds = new LinkedHashSet<>(request.sagaIds());
+        int requested = orderIds.size() + sagaIds.size();
+        if (requested == 0) {
+            throw new InvalidLookupException("At least one order ID or saga ID is required");
+        }
+        if (requested > maxKeys) {
+            throw new InvalidLookupException("At most " + maxKeys + " keys per lookup, got " + requested);
+        }
+
+        return request.view() == OrderLookupRequest.View.STATUS
+                ? assemble(orderIds, sagaIds, onShards(orderIds, sagaIds, this::lookupStatus),
+                        (key, type, status) -> new Entry(key, type, true, status, null))
+                : assemble(orderIds, sagaIds, onShards(orderIds, sagaIds, this::lookupOrders),
+                        (key, type, order) -> new Entry(key, type, true, null, order));
+    }
+
+    private <T> Found<T> onShards(Set<String> orderIds, Set<String> sagaIds,
+                                  BiFunction<Set<String>, Set<String>, Found<T>> lookup) {
+        Found<T> found = new Found<>(new HashMap<>(), new HashMap<>());
+        for (Found<T> shardFound : shardRouter.scatter(shard -> {
+            Set<String> shardOrderIds = onShard(orderIds, shard);
+            Set<String> shardSagaIds = onShard(sagaIds, shard);
+            if (shardOrderIds.isEmpty() && shardSagaIds.isEmpty()) {
+                return null;
+            }
+            return readOnlyTransaction.execute(status -> lookup.apply(shardOrderIds, shardSagaIds));
+        })) {
+            if (shardFound != null) {
+                found.byId().putAll(shardFound.byId());
+                found.bySagaId().putAll(shardFound.bySagaId());
+            }
+        }
+        return found;
+    }
+
+    private Set<String> onShard(Set<String> keys, int shard) {
+        Set<String> onShard = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (shardRouter.candidatesFor(key).contains(shard)) {
+                onShard.add(key);
+            }
+        }
+        return onShard;
+    }
+
+    // ==================== FULL VIEW ====================
+
+    private Found<OrderResponse> lookupOrders(Set<String> orderIds, Set<String> sagaIds) {
+        Set<String> ids = new LinkedHashSet<>(orderIds);
+        if (!sagaIds.isEmpty()) {
+            ids.addAll(orderRepository.findIdsBySagaIdIn(sagaIds));
+        }
+
+        Map<String, OrderResponse> byId = new HashMap<>();
+        Map<String, OrderResponse> bySagaId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (TerminalOrder order : loadTerminalWithItems(ids)) {
+                OrderResponse response = OrderResponse.fromTerminal(order);
+                byId.put(order.getId(), response);
+                bySagaId.put(order.getSagaId(), response);
+            }
+            // Orders in flight are never cached
+            Set<String> activeIds = missing(ids, byId);
+            if (!activeIds.isEmpty()) {
+                for (Order order : orderRepository.fetchWithItemsByIdIn(activeIds)) {
+                    OrderResponse response = OrderResponse.fromEntity(order);
+                    byId.put(order.getId(), response);
+                    bySagaId.put(order.getSagaId(), response);
+                }
+            }
+        }
+
+        // Terminal orders moved out of the hot table by OrderArchiver
+        Set<String> archivedIds = missing(orderIds, byId);
+        if (!archivedIds.isEmpty()) {
+            archivedOrderRepository.fetchWithItemsByIdIn(archivedIds)
+                    .forEach(order -> byId.put(order.getId(), OrderResponse.fromArchive(order)));
+        }
+        Set<String> archivedSagaIds = missing(sagaIds, bySagaId);
+        if (!archivedSagaIds.isEmpty()) {
+            for (ArchivedOrder order : archivedOrderRepository.fetchWithItemsBySagaIdIn(archivedSagaIds)) {
+                bySagaId.put(order.getSagaId(), OrderResponse.fromArchive(order));
+            }
+        }
+
+        return new Found<>(byId, bySagaId);
+    }
+
+    private List<TerminalOrder> loadTerminalWithItems(Collection<String> ids) {
+        // Second-level cache first, one query for the misses; unknown and active IDs come back as null
+        List<TerminalOrder> orders = entityManager.unwrap(Session.class)
+                .byMultipleIds(TerminalOrder.class)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(ids.size())
+                .multiLoad(List.copyOf(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+
+        org.hibernate.Cache cache = sessionFactory.getCache();
+        List<String> uncachedItems = orders.stream()
+                .map(TerminalOrder::getId)
+                .filter(id -> !cache.containsCollection(ITEMS_ROLE, id))
+                .toList();
+        if (!uncachedItems.isEmpty()) {
+            terminalOrderRepository.fetchWithItemsByIdIn(uncachedItems);
+        }
+        return orders;
+    }
+
+    // ==================== STATUS VIEW ====================
+
+    private Found<OrderStatusResponse> lookupStatus(Set<String> orderIds, Set<String> sagaIds) {
+        Map<String, OrderStatusResponse> byId = new HashMap<>();
+        Map<String, OrderStatusResponse> bySagaId = new HashMap<>();
+
+        if (!orderIds.isEmpty()) {
+            orderRepository.findStatusByIdIn(orderIds).forEach(status -> byId.put(status.id(), status));
+            Set<String> archivedIds = missing(orderIds, byId);
+            if (!archivedIds.isEmpty()) {
+                archivedOrderRepository.findStatusByIdIn(archivedIds).forEach(status -> byId.put(status.id(), status));
+            }
+        }
+        if (!sagaIds.isEmpty()) {
+            orderRepository.findStatusBySagaIdIn(sagaIds).forEach(status -> bySagaId.put(status.sagaId(), status));
+            Set<String> archivedSagaIds = missing(sagaIds, bySagaId);
+            if (!archivedSagaIds.isEmpty()) {
+                archivedOrderRepository.findStatusBySagaIdIn(archivedSagaIds)
+                        .forEach(status -> bySagaId.put(status.sagaId(), status));
+            }
+        }
+
+        return new Found<>(byId, bySagaId);
+    }
+
+    // ==================== ASSEMBLY ====================
+
+    private static Set<String> missing(Set<String> keys, Map<String, ?> found) {
+        Set<String> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(found.keySet());
+        return missing;
+    }
+
+    private static <T> OrderLookupResponse assemble(Set<String> orderIds, Set<String> sagaIds, Found<T> found,
+                                                    EntryFactory<T> factory) {
+        Map<String, T> byId = found.byId();
+        Map<String, T> bySagaId = found.bySagaId();
+        List<Entry> results = new ArrayList<>(orderIds.size() + sagaIds.size());
+        int foundCount = 0;
+        for (String orderId : orderIds) {
+            T value = byId.get(orderId);
+            results.add(value != null ? factory.create(orderId, KeyType.ORDER_ID, value)
+                    : Entry.notFound(orderId, KeyType.ORDER_ID));
+            foundCount += value != null ? 1 : 0;
+        }
+        for (String sagaId : sagaIds) {
+            T value = bySagaId.get(sagaId);
+            results.add(value != null ? factory.create(sagaId, KeyType.SAGA_ID, value)
+                    : Entry.notFound(sagaId, KeyType.SAGA_ID));
+            foundCount += value != null ? 1 : 0;
+        }
+        return new OrderLookupResponse(results.size(), foundCount, results);
+    }
+
+    private record Found<T>(Map<String, T> byId, Map<String, T> bySagaId) {
+    }
+
+    @FunctionalInterface
+    private interface EntryFactory<T> {
+        Entry create(String key, KeyType keyType, T value);
+    }
+
+    // Custom exceptions
+    public static class InvalidLookupException extends RuntimeException {
+        public InvalidLookupException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.sharding.ShardContext;
+import com.orderprocessing.order.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps the monthly range partitions of {@code orders} (PostgreSQL only, see
+ * {@code db/postgres/orders-partitioned.sql}) created ahead of time, and drops partitions past the
+ * archive age once {@link OrderArchiver} has emptied them. Dropping an empty partition replaces
+ * the row-by-row delete and vacuum of a single ever-growing table. Every shard is maintained.
+ */
+@Component
+@ConditionalOnProperty(name = "order.partitioning.enabled", havingValue = "true")
+public class OrderPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPartitionMaintainer.class);
+
+    private static final String PARTITION_PREFIX = "orders_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final int monthsAhead;
+    private final int retainedMonths;
+
+    public OrderPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                    ShardRouter shardRouter,
+                                    @Value("${order.partitioning.months-ahead:3}") int monthsAhead,
+                                    @Value("${order.partitioning.retained-months:2}") int retainedMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.monthsAhead = monthsAhead;
+        this.retainedMonths = retainedMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${order.partitioning.cron:0 0 3 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int shard : shardRouter.allShards()) {
+            ShardContext.run(shard, () -> {
+                for (int i = 0; i <= monthsAhead; i++) {
+                    createPartition(current.plusMonths(i));
+                }
+                dropEmptyPartitionsBefore(current.minusMonths(retainedMonths));
+            });
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        // Fails if orders_default already holds rows for the month, hence the months-ahead margin
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                + " PARTITION OF orders FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    private void dropEmptyPartitionsBefore(YearMonth oldestRetained) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'orders' AND c.relname LIKE 'orders\\_p%'
+                """, String.class);
+
+        String oldestName = partitionName(oldestRetained);
+        for (String partition : partitions) {
+            // yyyy_MM suffixes sort chronologically
+            if (partition.compareTo(oldestName) >= 0) {
+                continue;
+            }
+            Boolean empty = jdbcTemplate.queryForObject(
+                    "SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+            if (Boolean.TRUE.equals(empty)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped empty order partition {}", partition);
+            } else {
+                log.debug("Partition {} still holds non-terminal or unarchived orders", partition);
+            }
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,58 +1,161 @@
 package com.orderprocessing.order.service;
 
 import com.orderprocessing.order.domain.Order;
+import com.orderprocessing.order.domain.OrderStateMachine;
 import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.domain.TerminalOrder;
 import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.repository.ArchivedOrderRepository;
 import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.repository.TerminalOrderRepository;
+import com.orderprocessing.order.sharding.ShardContext;
+import com.orderprocessing.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @Transactional(readOnly = true)
 public class OrderQueryService {
 
     private final OrderRepository orderRepository;
+    private final TerminalOrderRepository terminalOrderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ActiveOrderIndex activeOrderIndex;
+    private final ShardRouter shardRouter;
+    private final SessionFactory sessionFactory;
+    private final OrderStateMachine stateMachine;
+    private final TransactionTemplate readOnlyTransaction;
 
-    public OrderQueryService(OrderRepository orderRepository) {
+    // Hot-key protection: concurrent reads of the same key share one load
+    private final RequestCoalescer<String, OrderResponse> orderByIdLoads;
+    private final RequestCoalescer<String, OrderSummary> customerSummaryLoads;
+
+    public OrderQueryService(OrderRepository orderRepository,
+                             TerminalOrderRepository terminalOrderRepository,
+                             ArchivedOrderRepository archivedOrderRepository,
+                             ActiveOrderIndex activeOrderIndex,
+                             ShardRouter shardRouter,
+                             SessionFactory sessionFactory,
+                             OrderStateMachine stateMachine,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${order.query.coalescing.reuse-window:50ms}") Duration reuseWindow) {
         this.orderRepository = orderRepository;
+        this.terminalOrderRepository = terminalOrderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.activeOrderIndex = activeOrderIndex;
+        this.shardRouter = shardRouter;
+        this.sessionFactory = sessionFactory;
+        this.stateMachine = stateMachine;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setName("OrderQueryService.coalescedLoad");
+        this.orderByIdLoads = new RequestCoalescer<>("getOrderById", reuseWindow, meterRegistry);
+        this.customerSummaryLoads = new RequestCoalescer<>("getCustomerOrderSummary", reuseWindow, meterRegistry);
     }
 
+    // Runs outside a transaction so coalesced callers don't hold a connection while waiting
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderResponse getOrderById(String orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderCommandService.OrderNotFoundException(orderId));
-        return OrderResponse.fromEntity(order);
+        return orderByIdLoads.load(orderId, () -> loadOrder(orderId));
+    }
+
+    private OrderResponse loadOrder(String orderId) {
+        // The shard in the ID; every shard for an order from before sharding
+        for (int shard : shardRouter.candidatesFor(orderId)) {
+            Optional<OrderResponse> order = ShardContext.call(shard, () -> readOnlyTransaction.execute(status ->
+                    findOrder(orderId)
+                            // Terminal orders moved out of the hot table by OrderArchiver
+                            .or(() -> archivedOrderRepository.findById(orderId).map(OrderResponse::fromArchive))));
+            if (order.isPresent()) {
+                return order.get();
+            }
+        }
+        throw new OrderCommandService.OrderNotFoundException(orderId);
+    }
+
+    private Optional<OrderResponse> findOrder(String orderId) {
+        // Terminal orders already in the second-level cache are answered without a query
+        if (sessionFactory.getCache().containsEntity(TerminalOrder.class, orderId)) {
+            Optional<TerminalOrder> cached = terminalOrderRepository.findById(orderId);
+            if (cached.isPresent()) {
+                return cached.map(OrderResponse::fromTerminal);
+            }
+        }
+        // Orders in flight, the ones saga polling asks for, cost the single lookup by ID
+        Optional<Order> order = orderRepository.findById(orderId);
+        if (order.isPresent() && stateMachine.isTerminal(order.get().getStatus())) {
+            // Read once more through the cached view so the next lookup skips the database
+            return terminalOrderRepository.findById(orderId)
+                    .map(OrderResponse::fromTerminal)
+                    .or(() -> order.map(OrderResponse::fromEntity));
+        }
+        return order.map(OrderResponse::fromEntity);
     }
 
     public List<OrderResponse> getOrdersByCustomerId(String customerId) {
+        shardRouter.routeCustomer(customerId, ShardRouter.Access.READ);
         return orderRepository.findByCustomerIdOrderByCreatedAtDesc(customerId)
                 .stream()
                 .map(OrderResponse::fromEntity)
                 .toList();
     }
 
+    // The one query that spans customers: run on every shard in parallel, merged by creation time
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<OrderResponse> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status)
-                .stream()
-                .map(OrderResponse::fromEntity)
-                .toList();
+        return shardRouter.scatterMerge(shard -> readOnlyTransaction.execute(tx -> orderRepository
+                        .findByStatusOrderByCreatedAt(status)
+                        .stream()
+                        .map(OrderResponse::fromEntity)
+                        .toList()),
+                Comparator.comparing(OrderResponse::createdAt));
     }
 
     public List<OrderResponse> getActiveOrdersByCustomerId(String customerId) {
-        List<OrderStatus> activeStatuses = List.of(
-                OrderStatus.PENDING,
-                OrderStatus.INVENTORY_RESERVED,
-                OrderStatus.PAYMENT_PROCESSING
-        );
+        shardRouter.routeCustomer(customerId, ShardRouter.Access.READ);
+        // Answered from the local index when this node owns the customer's partition
+        return activeOrderIndex.findActiveOrders(customerId)
+                .orElseGet(() -> orderRepository
+                        .findByCustomerIdAndStatusIn(customerId, List.copyOf(ActiveOrderIndex.ACTIVE_STATUSES))
+                        .stream()
+                        .map(OrderResponse::fromEntity)
+                        .toList());
+    }
 
-        return orderRepository.findByCustomerIdAndStatusIn(customerId, activeStatuses)
+    /**
+     * Loads every shard's active orders into {@link ActiveOrderIndex}, for a transport that can't
+     * replay the events from before the process started (in-process). Call once, before it starts.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void loadActiveOrderIndex(int topicPartitions) {
+        List<Order> activeOrders = shardRouter.scatter(shard -> readOnlyTransaction.execute(tx -> orderRepository
+                        .fetchWithItemsByStatusIn(ActiveOrderIndex.ACTIVE_STATUSES)))
                 .stream()
-                .map(OrderResponse::fromEntity)
+                .flatMap(List::stream)
                 .toList();
+        activeOrderIndex.assignAll(topicPartitions, activeOrders);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderSummary getCustomerOrderSummary(String customerId) {
+        return customerSummaryLoads.load(customerId,
+                () -> readOnlyTransaction.execute(status -> loadCustomerOrderSummary(customerId)));
+    }
+
+    private OrderSummary loadCustomerOrderSummary(String customerId) {
+        shardRouter.routeCustomer(customerId, ShardRouter.Access.READ);
         long pendingCount = orderRepository.countByCustomerIdAndStatus(customerId, OrderStatus.PENDING);
         long completedCount = orderRepository.countByCustomerIdAndStatus(customerId, OrderStatus.COMPLETED);
         long cancelledCount = orderRepository.countByCustomerIdAndStatus(customerId, OrderStatus.CANCELLED);
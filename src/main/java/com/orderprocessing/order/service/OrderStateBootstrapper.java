@@ -0,0 +1,120 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.event.OrderSnapshot;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds in-memory order state from the compacted {@code order-state} topic: one snapshot per
+ * order instead of a replay of every event still retained on {@code order-events}.
+ * <p>
+ * The topic is read without a consumer group, from the beginning of each partition up to the end
+ * offsets seen when the rebuild starts. Uncompacted duplicates are resolved by version, so the
+ * sink sees exactly one snapshot per order, the latest.
+ */
+@Component
+public class OrderStateBootstrapper {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStateBootstrapper.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ConsumerFactory<String, OrderSnapshot> consumerFactory;
+    private final Duration timeout;
+    private final Duration overlap;
+
+    public OrderStateBootstrapper(ConsumerFactory<String, OrderSnapshot> orderStateConsumerFactory,
+                                  @Value("${order.state.bootstrap-timeout:PT2M}") Duration timeout,
+                                  @Value("${order.state.bootstrap-overlap:PT30S}") Duration overlap) {
+        this.consumerFactory = orderStateConsumerFactory;
+        this.timeout = timeout;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Hands the latest snapshot of every order to {@code sink}. The returned
+     * {@code orderEventOffsets} are where a consumer of {@code order-events} should resume: the
+     * first offsets at or after {@code order.state.bootstrap-overlap} before the rebuild. Events
+     * are sent inside the command transaction and snapshots only after commit, so the overlap
+     * covers events whose snapshot was not yet on the topic. Replaying a suffix of
+     * {@code order-events} over the snapshots converges on the same state.
+     */
+    public Bootstrap rebuild(java.util.function.Consumer<OrderSnapshot> sink) {
+        long started = System.nanoTime();
+        try (Consumer<String, OrderSnapshot> consumer = consumerFactory.createConsumer()) {
+            Map<Integer, Long> orderEventOffsets = resumeOffsets(consumer);
+
+            List<TopicPartition> partitions = partitions(consumer, KafkaConfig.ORDER_STATE_TOPIC);
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            Map<String, OrderSnapshot> latest = new HashMap<>();
+            Set<TopicPartition> remaining = new HashSet<>(partitions);
+            remaining.removeIf(tp -> consumer.position(tp) >= endOffsets.get(tp));
+            long records = 0;
+            long deadline = started + timeout.toNanos();
+
+            while (!remaining.isEmpty()) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("order-state not read to its end within " + timeout
+                            + ", " + remaining.size() + " partition(s) left");
+                }
+                for (ConsumerRecord<String, OrderSnapshot> record : consumer.poll(POLL_TIMEOUT)) {
+                    records++;
+                    OrderSnapshot snapshot = record.value();
+                    if (snapshot != null) { // undeserializable record
+                        latest.merge(record.key(), snapshot, (current, next) -> next.isNewerThan(current) ? next : current);
+                    }
+                }
+                remaining.removeIf(tp -> consumer.position(tp) >= endOffsets.get(tp));
+            }
+
+            latest.values().forEach(sink);
+            Duration took = Duration.ofNanos(System.nanoTime() - started);
+            log.info("Rebuilt {} orders from {} order-state records in {} ms", latest.size(), records, took.toMillis());
+            return new Bootstrap(latest.size(), records, took, orderEventOffsets);
+        }
+    }
+
+    private Map<Integer, Long> resumeOffsets(Consumer<?, ?> consumer) {
+        List<TopicPartition> partitions = partitions(consumer, KafkaConfig.ORDER_EVENTS_TOPIC);
+        long since = Instant.now().minus(overlap).toEpochMilli();
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        partitions.forEach(tp -> timestamps.put(tp, since));
+
+        Map<TopicPartition, OffsetAndTimestamp> byTime = consumer.offsetsForTimes(timestamps);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            OffsetAndTimestamp found = byTime.get(tp);
+            // No event since then: resume at the end
+            offsets.put(tp.partition(), found != null ? found.offset() : endOffsets.get(tp));
+        }
+        return offsets;
+    }
+
+    private static List<TopicPartition> partitions(Consumer<?, ?> consumer, String topic) {
+        return consumer.partitionsFor(topic).stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .toList();
+    }
+
+    public record Bootstrap(int orders, long records, Duration took, Map<Integer, Long> orderEventOffsets) {}
+}
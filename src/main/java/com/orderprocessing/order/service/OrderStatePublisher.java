@@ -0,0 +1,100 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.domain.Order;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderSnapshot;
+import com.orderprocessing.order.transport.EventTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Publishes the latest snapshot of an order to the compacted {@code order-state} topic, keyed by
+ * order ID.
+ * <p>
+ * Snapshots are sent after the surrounding transaction commits, so the topic never shows state
+ * that was rolled back, and carry the committed {@code @Version}. Together with the idempotent
+ * producer that makes publishing safe to repeat: duplicates and late arrivals from concurrent
+ * commits are dropped by version on the consuming side.
+ */
+@Component
+public class OrderStatePublisher {
+
+    private final EventTransport eventTransport;
+    private final boolean enabled;
+
+    public OrderStatePublisher(EventTransport eventTransport,
+                               @Value("${order.state.publish-enabled:true}") boolean enabled) {
+        this.eventTransport = eventTransport;
+        this.enabled = enabled;
+    }
+
+    public void publish(Order order) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(order);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // The version was incremented by the flush at commit
+                send(order);
+            }
+        });
+    }
+
+    /**
+     * {@link #publish} for a batch of orders, with one commit callback for all of them.
+     */
+    public void publishAll(List<Order> orders) {
+        if (!enabled || orders.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orders.forEach(this::send);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orders.forEach(OrderStatePublisher.this::send);
+            }
+        });
+    }
+
+    private void send(Order order) {
+        OrderSnapshot snapshot = toSnapshot(order);
+        // After commit the connection is still checked out until the transaction is cleaned up,
+        // so the send shows in its trace
+        eventTransport.send(KafkaConfig.ORDER_STATE_TOPIC, snapshot.orderId(), snapshot);
+    }
+
+    public static OrderSnapshot toSnapshot(Order order) {
+        return new OrderSnapshot(
+                order.getId(),
+                order.getCustomerId(),
+                order.getStatus(),
+                order.getItems().stream()
+                        .map(item -> new OrderEvent.OrderItemPayload(
+                                item.getProductId(),
+                                item.getProductName(),
+                                item.getQuantity(),
+                                item.getUnitPrice()
+                        ))
+                        .toList(),
+                order.getTotalAmount(),
+                order.getCreatedAt(),
+                order.getUpdatedAt(),
+                order.getVersion() != null ? order.getVersion() : 0L,
+                order.getSagaId(),
+                order.getFailureReason()
+        );
+    }
+}
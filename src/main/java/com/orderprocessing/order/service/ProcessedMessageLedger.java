@@ -0,0 +1,196 @@
+package com.orderprocessing.order.service;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.common.event.BaseEvent;
+import com.orderprocessing.order.domain.ProcessedMessage;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.sharding.ShardContext;
+import com.orderprocessing.order.sharding.ShardRouter;
+import com.orderprocessing.order.transport.EventTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Database half of exactly-once saga reply handling ({@code order.kafka.exactly-once.enabled}).
+ * <p>
+ * In that mode the listener container wraps each record in a Kafka transaction that carries the
+ * outgoing order events and the consumer offset, and commits it after the database transaction
+ * opened here. If the process dies between the two commits, the Kafka side is aborted and the
+ * record is delivered again. The database side then already has it in {@code processed_messages}, so
+ * instead of applying the transition twice the order events recorded with it are sent again, in
+ * the new Kafka transaction. Disabled, records are simply handled (at least once).
+ * <p>
+ * With sharding the record is kept on the shard of its saga, in the transaction of the transition.
+ * A record redelivered after {@code BucketMover} moved its saga's bucket is not found there, and
+ * its transition is rejected as a repeat by the state machine instead.
+ */
+@Component
+public class ProcessedMessageLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessedMessageLedger.class);
+
+    // Transaction-bound list of the order events sent while handling the current record
+    private static final Object REPLIES = new Object();
+
+    private static final TypeReference<List<Reply>> REPLY_LIST = new TypeReference<>() {};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final OrderRepository orderRepository;
+    private final EventTransport eventTransport;
+    private final OrderStatePublisher orderStatePublisher;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter replayed;
+    private final boolean enabled;
+    private final Duration retention;
+
+    public ProcessedMessageLedger(OrderRepository orderRepository,
+                                  EventTransport eventTransport,
+                                  OrderStatePublisher orderStatePublisher,
+                                  ShardRouter shardRouter,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${order.kafka.exactly-once.enabled:false}") boolean enabled,
+                                  @Value("${order.kafka.exactly-once.retention:7d}") Duration retention) {
+        this.orderRepository = orderRepository;
+        this.eventTransport = eventTransport;
+        this.orderStatePublisher = orderStatePublisher;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName("ProcessedMessageLedger.process");
+        this.replayed = Counter.builder("orders.kafka.exactly-once.replayed")
+                .description("Redelivered records whose recorded replies were sent again")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.retention = retention;
+    }
+
+    /**
+     * Runs {@code handler} for a consumed record, exactly once per record as far as the database is
+     * concerned. The handler's {@code @Transactional} methods join the transaction opened here,
+     * routed to the shard of {@code sagaId}.
+     */
+    public void process(String consumerGroup, String topic, int partition, long offset, String sagaId,
+                        Runnable handler) {
+        if (!enabled) {
+            handler.run();
+            return;
+        }
+        String id = ProcessedMessage.idOf(consumerGroup, topic, partition, offset);
+        transactionTemplate.executeWithoutResult(status -> {
+            shardRouter.routeSaga(sagaId, ShardRouter.Access.WRITE);
+            ProcessedMessage processed = entityManager.find(ProcessedMessage.class, id);
+            if (processed != null) {
+                replay(processed);
+                return;
+            }
+
+            List<Reply> replies = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(REPLIES, replies);
+            try {
+                handler.run();
+            } finally {
+                TransactionSynchronizationManager.unbindResource(REPLIES);
+            }
+            // A concurrent delivery of the same record fails here on the primary key and rolls back
+            entityManager.persist(new ProcessedMessage(id, Instant.now(), write(replies)));
+        });
+    }
+
+    /**
+     * Notes an order event sent while handling a record, so it can be sent again on redelivery.
+     * No-op outside {@link #process}.
+     */
+    @SuppressWarnings("unchecked")
+    public static void recordReply(String topic, String key, BaseEvent event) {
+        if (TransactionSynchronizationManager.getResource(REPLIES) instanceof List<?> replies) {
+            ((List<Reply>) replies).add(new Reply(topic, key, event));
+        }
+    }
+
+    private void replay(ProcessedMessage processed) {
+        List<Reply> replies = read(processed.getReplies());
+        for (Reply reply : replies) {
+            eventTransport.send(reply.topic(), reply.key(), reply.event());
+            // Snapshots are versioned, so the current one is as good as the lost one
+            orderRepository.findById(reply.event().getAggregateId()).ifPresent(orderStatePublisher::publish);
+        }
+        replayed.increment();
+        log.atInfo()
+                .addKeyValue("message", processed.getId())
+                .addKeyValue("replies", replies.size())
+                .log("Record already processed, replaying its replies");
+    }
+
+    // ==================== RETENTION ====================
+
+    // Records are only redelivered until their offsets are committed; the rest is history
+    @Scheduled(initialDelayString = "${order.kafka.exactly-once.purge-interval:PT1H}",
+            fixedDelayString = "${order.kafka.exactly-once.purge-interval:PT1H}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        Instant threshold = Instant.now().minus(retention);
+        for (int shard : shardRouter.allShards()) {
+            Integer purged = ShardContext.call(shard, () -> transactionTemplate.execute(status -> entityManager
+                    .createQuery("DELETE FROM ProcessedMessage p WHERE p.processedAt < :threshold")
+                    .setParameter("threshold", threshold)
+                    .executeUpdate()));
+            log.debug("Purged {} processed messages older than {} on shard {}", purged, threshold, shard);
+        }
+    }
+
+    // ==================== SERIALIZATION ====================
+
+    private String write(List<Reply> replies) {
+        try {
+            return objectMapper.writeValueAsString(replies);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize replies", e);
+        }
+    }
+
+    private List<Reply> read(String replies) {
+        try {
+            return objectMapper.readValue(replies, REPLY_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize replies", e);
+        }
+    }
+
+    record Reply(String topic, String key,
+                 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME)
+                 @JsonSubTypes({
+                         @JsonSubTypes.Type(value = OrderEvent.class, name = "created"),
+                         @JsonSubTypes.Type(value = OrderTransitionEvent.class, name = "transition")
+                 })
+                 BaseEvent event) {
+    }
+}
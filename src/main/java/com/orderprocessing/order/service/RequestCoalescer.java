@@ -0,0 +1,81 @@
+package com.orderprocessing.order.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight loader: concurrent callers asking for the same key share one in-flight load.
+ * A successful result is additionally reused for a short window after it completes, so a burst
+ * of requests for a hot key turns into one query per window. Failures are never reused.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final Executor expiry;
+    private final boolean reuseResults;
+    private final Counter loaded;
+    private final Counter coalesced;
+
+    public RequestCoalescer(String name, Duration reuseWindow, MeterRegistry meterRegistry) {
+        this.reuseResults = !reuseWindow.isZero();
+        this.expiry = CompletableFuture.delayedExecutor(reuseWindow.toNanos(), TimeUnit.NANOSECONDS);
+        this.loaded = Counter.builder("orders.query.coalescing")
+                .description("Query loads by whether they hit the database or joined another caller's load")
+                .tag("query", name)
+                .tag("result", "loaded")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("orders.query.coalescing")
+                .description("Query loads by whether they hit the database or joined another caller's load")
+                .tag("query", name)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        loaded.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            if (reuseResults) {
+                expiry.execute(() -> flights.remove(key, flight));
+            } else {
+                flights.remove(key, flight);
+            }
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
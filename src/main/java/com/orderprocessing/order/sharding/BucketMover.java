@@ -0,0 +1,271 @@
+package com.orderprocessing.order.sharding;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Online resharding: moves buckets, with their orders, items, archived orders and idempotency
+ * keys, from one shard to another while the service keeps running (PostgreSQL only).
+ * <p>
+ * A batch of buckets is frozen in the {@link ShardDirectory}, and once every instance has seen
+ * that (two refresh intervals plus {@code order.sharding.move-grace}) writes to those customers
+ * wait while reads still go to the source. The directory alone cannot stop a write routed before
+ * the freeze or by an instance that failed to refresh, so the buckets' {@code bucket_fences} rows
+ * on the source are then locked, which waits for the write transactions holding them, and
+ * released as no longer owned: from here on a write to them on the source fails (see
+ * {@link ShardRouter}). The rows are streamed with {@code COPY} into the target in one
+ * transaction that also fences them in there, the buckets are handed to the target, and after
+ * another refresh round the source copies are deleted. A move that fails part way leaves its
+ * buckets frozen; {@link #resume()} or the next rebalance finishes it.
+ */
+public class BucketMover {
+
+    private static final Logger log = LoggerFactory.getLogger(BucketMover.class);
+
+    private static final String ORDER_COLUMNS =
+            "id, customer_id, status, total_amount, created_at, updated_at, version, saga_id, failure_reason";
+    private static final String ITEM_COLUMNS = "id, order_id, product_id, product_name, quantity, unit_price";
+    // Parents before children for the copy; the delete goes the other way
+    private static final List<Table> TABLES = List.of(
+            new Table("orders", ORDER_COLUMNS, null),
+            new Table("order_items", ITEM_COLUMNS, "orders"),
+            new Table("orders_archive", ORDER_COLUMNS + ", archived_at", null),
+            new Table("order_items_archive", ITEM_COLUMNS, "orders_archive"),
+            new Table("idempotency_keys", "id, customer_id, request_hash, order_id, response, created_at", null));
+
+    private final ShardRouter router;
+    private final ShardDirectory directory;
+    private final Duration propagation;
+    private final int batchBuckets;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("bucket-mover").daemon(true).factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Status status = new Status(false, 0, 0, null);
+
+    public BucketMover(ShardRouter router, Duration refreshInterval, Duration grace, int batchBuckets) {
+        this.router = router;
+        this.directory = router.directory();
+        this.propagation = refreshInterval.multipliedBy(2).plus(grace);
+        this.batchBuckets = batchBuckets;
+    }
+
+    /**
+     * Starts moving every bucket to its shard in an even spread over the first {@code shards}
+     * shards, in the background.
+     *
+     * @return false if a rebalance is already running
+     */
+    public boolean rebalance(int shards) {
+        if (shards < 1 || shards > router.shardCount()) {
+            throw new IllegalArgumentException("Can rebalance over 1 to " + router.shardCount() + " shards, not " + shards);
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                resume();
+                run(plan(shards));
+            } catch (RuntimeException e) {
+                log.error("Rebalance over {} shards failed; run it again to continue", shards, e);
+                status = new Status(false, status.plannedBuckets(), status.movedBuckets(), e.toString());
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Finishes the moves a failure or restart left frozen.
+     */
+    public void resume() {
+        int[] owners = directory.layout().owners();
+        int[] targets = directory.layout().targets();
+        Map<Move, List<Integer>> frozen = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            if (targets[bucket] >= 0) {
+                frozen.computeIfAbsent(new Move(owners[bucket], targets[bucket]), m -> new ArrayList<>()).add(bucket);
+            }
+        }
+        frozen.forEach((move, buckets) -> {
+            log.info("Resuming the move of {} buckets from shard {} to {}", buckets.size(), move.source(), move.target());
+            copyAndHandOver(move, buckets);
+        });
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    private Map<Move, List<Integer>> plan(int shards) {
+        int[] owners = directory.layout().owners();
+        Map<Move, List<Integer>> plan = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            int target = ShardDirectory.evenShard(bucket, shards);
+            if (owners[bucket] != target) {
+                plan.computeIfAbsent(new Move(owners[bucket], target), m -> new ArrayList<>()).add(bucket);
+            }
+        }
+        return plan;
+    }
+
+    private void run(Map<Move, List<Integer>> plan) {
+        int planned = plan.values().stream().mapToInt(List::size).sum();
+        status = new Status(true, planned, 0, null);
+        log.info("Rebalance moves {} buckets: {}", planned, plan.entrySet().stream()
+                .map(e -> e.getKey().source() + "->" + e.getKey().target() + ": " + e.getValue().size())
+                .collect(Collectors.joining(", ")));
+        int moved = 0;
+        for (Map.Entry<Move, List<Integer>> entry : plan.entrySet()) {
+            List<Integer> buckets = entry.getValue();
+            for (int from = 0; from < buckets.size(); from += batchBuckets) {
+                List<Integer> batch = buckets.subList(from, Math.min(from + batchBuckets, buckets.size()));
+                move(entry.getKey(), batch);
+                moved += batch.size();
+                status = new Status(true, planned, moved, null);
+            }
+        }
+        status = new Status(false, planned, moved, null);
+        log.info("Rebalance complete: {} buckets moved", moved);
+    }
+
+    // ==================== MOVE ====================
+
+    /**
+     * Moves {@code buckets}, all owned by {@code source}, to {@code target}, in the calling thread.
+     */
+    void move(int source, int target, List<Integer> buckets) {
+        move(new Move(source, target), buckets);
+    }
+
+    private void move(Move move, List<Integer> buckets) {
+        directory.startMove(buckets, move.target());
+        copyAndHandOver(move, buckets);
+    }
+
+    private void copyAndHandOver(Move move, List<Integer> buckets) {
+        long startedAt = System.nanoTime();
+        // Until every instance has frozen the buckets, most writes still go to the source
+        sleep(propagation);
+        disown(move.source(), buckets);
+        long rows = copy(move, buckets);
+        directory.completeMove(buckets);
+        // Instances that have not refreshed yet still read from the source
+        sleep(propagation);
+        delete(move.source(), buckets);
+        log.atInfo()
+                .addKeyValue("rows", rows)
+                .addKeyValue("elapsed", Duration.ofNanos(System.nanoTime() - startedAt))
+                .log("Moved {} buckets from shard {} to shard {}", buckets.size(), move.source(), move.target());
+    }
+
+    // Waits for the source's write transactions on the buckets, and fails the ones after it
+    private void disown(int shard, List<Integer> buckets) {
+        DataSource source = router.dataSource(shard);
+        JdbcTemplate sourceJdbc = new JdbcTemplate(source);
+        new TransactionTemplate(new DataSourceTransactionManager(source)).executeWithoutResult(status -> {
+            // In bucket order, as writers take them FOR SHARE
+            sourceJdbc.queryForList("SELECT bucket FROM bucket_fences WHERE bucket IN (" + inList(buckets)
+                    + ") ORDER BY bucket FOR UPDATE", Integer.class);
+            sourceJdbc.update("UPDATE bucket_fences SET owned = false WHERE bucket IN (" + inList(buckets) + ")");
+        });
+    }
+
+    private long copy(Move move, List<Integer> buckets) {
+        DataSource target = router.dataSource(move.target());
+        JdbcTemplate targetJdbc = new JdbcTemplate(target);
+        Long rows = new TransactionTemplate(new DataSourceTransactionManager(target)).execute(status -> {
+            // Writes to the buckets on the target may start once the copy commits
+            targetJdbc.update("UPDATE bucket_fences SET owned = true WHERE bucket IN (" + inList(buckets) + ")");
+            // Left over from an attempt that failed before handing the buckets over
+            deleteBuckets(targetJdbc, buckets);
+            long copied = 0;
+            for (Table table : TABLES) {
+                copied += targetJdbc.execute((ConnectionCallback<Long>) connection ->
+                        copyTable(move.source(), connection, table, buckets));
+            }
+            return copied;
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private long copyTable(int source, Connection target, Table table, List<Integer> buckets) throws java.sql.SQLException {
+        try (Connection sourceConnection = router.dataSource(source).getConnection()) {
+            PGCopyInputStream rows = new PGCopyInputStream(sourceConnection.unwrap(PGConnection.class),
+                    "COPY (SELECT " + table.columns() + " FROM " + table.name() + " WHERE " + table.predicate(buckets)
+                            + ") TO STDOUT");
+            return target.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + table.name() + " (" + table.columns() + ") FROM STDIN", rows);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Copying " + table.name() + " from shard " + source + " failed", e);
+        }
+    }
+
+    private void delete(int shard, List<Integer> buckets) {
+        DataSource source = router.dataSource(shard);
+        new TransactionTemplate(new DataSourceTransactionManager(source))
+                .executeWithoutResult(status -> deleteBuckets(new JdbcTemplate(source), buckets));
+    }
+
+    private static void deleteBuckets(JdbcTemplate jdbcTemplate, List<Integer> buckets) {
+        for (Table table : TABLES.reversed()) {
+            jdbcTemplate.update("DELETE FROM " + table.name() + " WHERE " + table.predicate(buckets));
+        }
+    }
+
+    private static String inList(List<Integer> buckets) {
+        return buckets.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving buckets", e);
+        }
+    }
+
+    private record Move(int source, int target) {
+    }
+
+    // Child tables select through their parent's customer_id
+    private record Table(String name, String columns, String parent) {
+
+        String predicate(List<Integer> buckets) {
+            // Matches the expression indexes in db/postgres/sharding.sql
+            String inBuckets = "substr(md5(customer_id), 1, 3) IN ("
+                    + buckets.stream().map(b -> "'" + ShardKeys.hex(b) + "'").collect(Collectors.joining(",")) + ")";
+            return parent == null ? inBuckets : "order_id IN (SELECT id FROM " + parent + " WHERE " + inBuckets + ")";
+        }
+    }
+
+    /**
+     * Progress of the last rebalance.
+     */
+    public record Status(boolean running, int plannedBuckets, int movedBuckets, String error) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.orderprocessing.order.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Which shard owns each bucket, from the {@code shard_buckets} table on shard 0. Every instance
+ * keeps a copy and refreshes it every {@code order.sharding.refresh-interval}; a bucket being moved
+ * by {@link BucketMover} has a target shard, and writes to it wait until the move is done.
+ * <p>
+ * An empty table is filled on first start, with the buckets spread evenly over
+ * {@code order.sharding.initial-shards} (all shards by default; 1 when sharding an existing
+ * database, whose orders are then moved out with {@link BucketMover}).
+ */
+public class ShardDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardDirectory.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Layout layout;
+
+    public ShardDirectory(DataSource directoryShard, int initialShards) {
+        this.jdbcTemplate = new JdbcTemplate(directoryShard);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(directoryShard));
+        this.layout = load();
+        if (layout == null) {
+            initialize(initialShards);
+        }
+    }
+
+    private void initialize(int shards) {
+        List<Object[]> rows = new ArrayList<>(ShardKeys.BUCKETS);
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            rows.add(new Object[]{bucket, evenShard(bucket, shards), now});
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "INSERT INTO shard_buckets (bucket, shard, target_shard, updated_at) VALUES (?, ?, NULL, ?)", rows));
+            log.info("Initialized the shard directory with {} buckets over {} shards", ShardKeys.BUCKETS, shards);
+        } catch (DuplicateKeyException e) {
+            // Another instance initialized it first
+        }
+        layout = load();
+    }
+
+    /**
+     * The shard owning {@code bucket} when {@link ShardKeys#BUCKETS} are spread evenly over {@code shards}.
+     */
+    public static int evenShard(int bucket, int shards) {
+        return (int) ((long) bucket * shards / ShardKeys.BUCKETS);
+    }
+
+    @Scheduled(initialDelayString = "${order.sharding.refresh-interval:PT2S}",
+            fixedDelayString = "${order.sharding.refresh-interval:PT2S}")
+    public void refresh() {
+        Layout loaded = load();
+        if (loaded != null) {
+            layout = loaded;
+        }
+    }
+
+    private Layout load() {
+        int[] owners = new int[ShardKeys.BUCKETS];
+        int[] targets = new int[ShardKeys.BUCKETS];
+        Arrays.fill(owners, -1);
+        jdbcTemplate.query("SELECT bucket, shard, target_shard FROM shard_buckets", row -> {
+            int bucket = row.getInt("bucket");
+            owners[bucket] = row.getInt("shard");
+            int target = row.getInt("target_shard");
+            targets[bucket] = row.wasNull() ? -1 : target;
+        });
+        return Arrays.stream(owners).anyMatch(owner -> owner < 0) ? null : new Layout(owners, targets);
+    }
+
+    public int ownerOf(int bucket) {
+        return layout.owners()[bucket];
+    }
+
+    public boolean isMoving(int bucket) {
+        return layout.targets()[bucket] >= 0;
+    }
+
+    public Layout layout() {
+        return layout;
+    }
+
+    // ==================== MOVES (BucketMover) ====================
+
+    /**
+     * Marks {@code buckets} as moving to {@code target}; from the next refresh on, writes to them wait.
+     */
+    void startMove(Collection<Integer> buckets, int target) {
+        jdbcTemplate.update("UPDATE shard_buckets SET target_shard = ?, updated_at = ? WHERE bucket IN ("
+                + inList(buckets) + ")", target, Timestamp.from(Instant.now()));
+        refresh();
+    }
+
+    /**
+     * Hands {@code buckets} to their target shard.
+     */
+    void completeMove(Collection<Integer> buckets) {
+        jdbcTemplate.update("UPDATE shard_buckets SET shard = target_shard, target_shard = NULL, updated_at = ? "
+                + "WHERE target_shard IS NOT NULL AND bucket IN (" + inList(buckets) + ")", Timestamp.from(Instant.now()));
+        refresh();
+    }
+
+    private static String inList(Collection<Integer> buckets) {
+        return buckets.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Owner and move target (-1 if none) of every bucket.
+     */
+    public record Layout(int[] owners, int[] targets) {
+    }
+}
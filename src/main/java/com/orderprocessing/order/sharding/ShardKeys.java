@@ -0,0 +1,81 @@
+package com.orderprocessing.order.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Maps customers to one of {@link #BUCKETS} buckets, the unit {@link ShardDirectory} assigns to
+ * shards and {@link BucketMover} moves between them.
+ * <p>
+ * The bucket is the first three hex digits of the MD5 of the customer ID, so PostgreSQL computes
+ * the same value with {@code substr(md5(customer_id), 1, 3)} (see {@code db/postgres/sharding.sql}).
+ * Order and saga IDs are version 8 UUIDs whose first three hex digits are that bucket, so an ID
+ * is routed without a lookup. IDs from before sharding are version 4 and carry no bucket.
+ */
+public final class ShardKeys {
+
+    public static final int BUCKETS = 4096;
+
+    private static final int BUCKET_BITS = 12;
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long VERSION_8 = 0x8000L;
+    private static final long VARIANT_MASK = 0xC000_0000_0000_0000L;
+    private static final long VARIANT_IETF = 0x8000_0000_0000_0000L;
+
+    private ShardKeys() {
+    }
+
+    public static int bucketOfCustomer(String customerId) {
+        byte[] digest = md5().digest(customerId.getBytes(StandardCharsets.UTF_8));
+        return ((digest[0] & 0xFF) << 4) | ((digest[1] & 0xF0) >>> 4);
+    }
+
+    /**
+     * A new random ID carrying {@code bucket}.
+     */
+    public static String newId(int bucket) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = ((long) bucket << (64 - BUCKET_BITS))
+                | (random.nextLong() >>> BUCKET_BITS & ~VERSION_MASK)
+                | VERSION_8;
+        long lsb = random.nextLong() & ~VARIANT_MASK | VARIANT_IETF;
+        return new UUID(msb, lsb).toString();
+    }
+
+    /**
+     * The bucket an ID from {@link #newId(int)} carries, or -1 for any other ID.
+     */
+    public static int bucketOfId(String id) {
+        // xxxxxxxx-xxxx-8xxx-...: the version digit is at index 14
+        if (id == null || id.length() != 36 || id.charAt(14) != '8') {
+            return -1;
+        }
+        int bucket = 0;
+        for (int i = 0; i < 3; i++) {
+            int digit = Character.digit(id.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            bucket = bucket << 4 | digit;
+        }
+        return bucket;
+    }
+
+    /**
+     * The bucket as PostgreSQL's {@code substr(md5(customer_id), 1, 3)} spells it.
+     */
+    public static String hex(int bucket) {
+        return String.format("%03x", bucket);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required of every JVM", e);
+        }
+    }
+}
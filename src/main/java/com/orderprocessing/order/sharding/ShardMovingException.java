@@ -0,0 +1,12 @@
+package com.orderprocessing.order.sharding;
+
+/**
+ * A write to a bucket that stayed frozen for a move longer than {@code order.sharding.max-write-wait},
+ * or that reached a shard the bucket was moved away from. Retriable once the move completes.
+ */
+public class ShardMovingException extends RuntimeException {
+
+    public ShardMovingException(int bucket) {
+        super("Orders of bucket " + bucket + " are being moved to another shard, retry shortly");
+    }
+}
@@ -0,0 +1,351 @@
+package com.orderprocessing.order.sharding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Routes order persistence to the shard owning the order's customer bucket
+ * ({@code order.sharding.enabled}); with sharding disabled every method is a no-op or runs on the
+ * single database.
+ * <p>
+ * The {@code route*} methods pick the shard of the current transaction and must run before its
+ * first statement: the connection is only taken at that statement (see
+ * {@link ShardRoutingDataSource}). Order and saga IDs carry their bucket ({@link ShardKeys}); IDs
+ * from before sharding are looked up on every shard. Writes to a bucket that {@link BucketMover}
+ * is moving wait up to {@code order.sharding.max-write-wait}, then fail with
+ * {@link ShardMovingException}.
+ * <p>
+ * The directory each instance caches can be stale, and a write may have been routed just before a
+ * move started, so a write transaction also holds its bucket's row in {@code bucket_fences} on its
+ * shard {@code FOR SHARE} until it ends. {@link BucketMover} takes those rows {@code FOR UPDATE}
+ * and clears {@code owned} before copying: it waits for the writes in flight, and a write that
+ * reaches a shard no longer owning its bucket fails with {@link ShardMovingException} instead of
+ * committing rows the copy missed.
+ */
+public class ShardRouter {
+
+    public enum Access { READ, WRITE }
+
+    private static final long WRITE_POLL_MILLIS = 20;
+
+    private final List<DataSource> shards;
+    // The application's DataSource: joins the transaction being routed
+    private final JdbcTemplate routed;
+    private final ShardDirectory directory;
+    private final long maxWriteWaitNanos;
+    private final ExecutorService scatterPool;
+    private final Counter legacyLookups;
+
+    private ShardRouter() {
+        this.shards = List.of();
+        this.routed = null;
+        this.directory = null;
+        this.maxWriteWaitNanos = 0;
+        this.scatterPool = null;
+        this.legacyLookups = null;
+    }
+
+    /**
+     * @param routed the application's {@link DataSource}, routing over {@code shards}
+     */
+    public ShardRouter(List<DataSource> shards, DataSource routed, ShardDirectory directory, Duration maxWriteWait,
+                       MeterRegistry meterRegistry) {
+        this.shards = List.copyOf(shards);
+        this.routed = new JdbcTemplate(routed);
+        this.directory = directory;
+        this.maxWriteWaitNanos = maxWriteWait.toNanos();
+        this.scatterPool = Executors.newFixedThreadPool(shards.size() * 4, Thread.ofPlatform()
+                .name("order-shard-", 0).daemon(true).factory());
+        this.legacyLookups = Counter.builder("orders.sharding.legacy.lookups")
+                .description("Order or saga IDs without a bucket, looked up on every shard")
+                .register(meterRegistry);
+        Gauge.builder("orders.sharding.buckets.moving", directory,
+                        d -> Arrays.stream(d.layout().targets()).filter(target -> target >= 0).count())
+                .description("Buckets being moved to another shard, whose writes wait")
+                .register(meterRegistry);
+        initializeFences();
+    }
+
+    // A shard's fences start out as the directory's layout; moves flip them from then on
+    private void initializeFences() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.get(shard));
+            Integer fences = jdbcTemplate.queryForObject("SELECT count(*) FROM bucket_fences", Integer.class);
+            if (fences != null && fences == ShardKeys.BUCKETS) {
+                continue;
+            }
+            List<Object[]> rows = new ArrayList<>(ShardKeys.BUCKETS);
+            for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+                rows.add(new Object[]{bucket, directory.ownerOf(bucket) == shard});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO bucket_fences (bucket, owned) VALUES (?, ?) ON CONFLICT (bucket) DO NOTHING", rows);
+        }
+    }
+
+    /**
+     * Everything on the one database.
+     */
+    public static ShardRouter single() {
+        return new ShardRouter();
+    }
+
+    public boolean enabled() {
+        return directory != null;
+    }
+
+    public int shardCount() {
+        return enabled() ? shards.size() : 1;
+    }
+
+    /**
+     * Whether any bucket is being moved between shards, as far as this instance knows.
+     */
+    public boolean moving() {
+        return enabled() && Arrays.stream(directory.layout().targets()).anyMatch(target -> target >= 0);
+    }
+
+    public int shardOfCustomer(String customerId) {
+        return enabled() ? directory.ownerOf(ShardKeys.bucketOfCustomer(customerId)) : 0;
+    }
+
+    // ==================== TRANSACTION ROUTING ====================
+
+    public void routeCustomer(String customerId, Access access) {
+        if (enabled()) {
+            route(ShardKeys.bucketOfCustomer(customerId), access);
+        }
+    }
+
+    public void routeOrder(String orderId, Access access) {
+        if (enabled()) {
+            routeId("id", orderId, access);
+        }
+    }
+
+    public void routeSaga(String sagaId, Access access) {
+        if (enabled()) {
+            routeId("saga_id", sagaId, access);
+        }
+    }
+
+    private void routeId(String column, String id, Access access) {
+        int bucket = ShardKeys.bucketOfId(id);
+        if (bucket < 0) {
+            bucket = locateLegacy(column, id);
+        }
+        if (bucket < 0) {
+            // Unknown everywhere: shard 0 reports it as not found
+            bind(0);
+            return;
+        }
+        route(bucket, access);
+    }
+
+    private void route(int bucket, Access access) {
+        if (access == Access.WRITE) {
+            awaitWritable(bucket);
+        }
+        bind(directory.ownerOf(bucket));
+        if (access == Access.WRITE) {
+            fence(List.of(bucket));
+        }
+    }
+
+    private void awaitWritable(int bucket) {
+        long deadline = System.nanoTime() + maxWriteWaitNanos;
+        while (directory.isMoving(bucket)) {
+            if (System.nanoTime() > deadline) {
+                throw new ShardMovingException(bucket);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(WRITE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ShardMovingException(bucket);
+            }
+        }
+    }
+
+    private void bind(int shard) {
+        Integer current = ShardContext.current();
+        if (current != null) {
+            if (current != shard) {
+                throw new IllegalStateException("Already routed to shard " + current + ", cannot use shard " + shard);
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Shard routing needs a transaction or ShardContext.call");
+        }
+        ShardContext.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ShardContext.restore(null);
+            }
+        });
+    }
+
+    // ==================== WRITE FENCES ====================
+
+    /**
+     * Fences the buckets of {@code customerIds} for the rest of the current transaction, on the
+     * shard it is bound to: for writes that pick their shard themselves ({@link ShardContext#call})
+     * rather than through the {@code route*} methods, e.g. to rows they found on that shard.
+     *
+     * @throws ShardMovingException if the shard no longer owns one of the buckets
+     */
+    public void fenceCustomers(Collection<String> customerIds) {
+        if (enabled() && !customerIds.isEmpty()) {
+            fence(customerIds.stream().map(ShardKeys::bucketOfCustomer).distinct().sorted().toList());
+        }
+    }
+
+    // Held until the transaction ends; rows are locked in bucket order, as BucketMover locks them
+    private void fence(List<Integer> buckets) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Shard write fences need a transaction");
+        }
+        String inList = buckets.stream().map(String::valueOf).collect(Collectors.joining(","));
+        Set<Integer> owned = new HashSet<>(routed.queryForList("SELECT bucket FROM bucket_fences WHERE owned AND "
+                + "bucket IN (" + inList + ") ORDER BY bucket FOR SHARE", Integer.class));
+        for (int bucket : buckets) {
+            if (!owned.contains(bucket)) {
+                throw new ShardMovingException(bucket);
+            }
+        }
+    }
+
+    // IDs from before sharding: the bucket of the customer that has it, -1 if none has
+    private int locateLegacy(String column, String id) {
+        legacyLookups.increment();
+        for (DataSource shard : shards) {
+            // The shard's own pool, outside the transaction being routed
+            List<String> customers = new JdbcTemplate(shard).queryForList(
+                    "SELECT customer_id FROM orders WHERE " + column + " = ?", String.class, id);
+            if (!customers.isEmpty()) {
+                return ShardKeys.bucketOfCustomer(customers.get(0));
+            }
+        }
+        return -1;
+    }
+
+    // ==================== READS ACROSS SHARDS ====================
+
+    /**
+     * Shards that may hold the order or saga {@code id}: its own, or all for an ID without a bucket.
+     */
+    public List<Integer> candidatesFor(String id) {
+        int bucket = enabled() ? ShardKeys.bucketOfId(id) : 0;
+        return bucket >= 0 ? List.of(enabled() ? directory.ownerOf(bucket) : 0) : allShards();
+    }
+
+    public List<Integer> allShards() {
+        return IntStream.range(0, shardCount()).boxed().toList();
+    }
+
+    /**
+     * Runs {@code query} on every shard in parallel, each in {@link ShardContext#call}, and returns
+     * the results in shard order.
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        if (!enabled()) {
+            return List.of(query.apply(0));
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int target = shard;
+            futures.add(scatterPool.submit(() -> ShardContext.call(target, () -> query.apply(target))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * {@link #scatter} for queries that return lists sorted by {@code order}, merged into one
+     * sorted list.
+     */
+    public <T> List<T> scatterMerge(IntFunction<List<T>> query, Comparator<? super T> order) {
+        List<List<T>> perShard = scatter(query);
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        record Cursor<T>(List<T> rows, int index) {
+            T head() {
+                return rows.get(index);
+            }
+        }
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(perShard.size(),
+                Comparator.comparing(Cursor::head, order));
+        int total = 0;
+        for (List<T> rows : perShard) {
+            total += rows.size();
+            if (!rows.isEmpty()) {
+                heads.add(new Cursor<>(rows, 0));
+            }
+        }
+        List<T> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor<T> cursor = heads.poll();
+            merged.add(cursor.head());
+            if (cursor.index() + 1 < cursor.rows().size()) {
+                heads.add(new Cursor<>(cursor.rows(), cursor.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+    }
+
+    // ==================== SHARDS ====================
+
+    ShardDirectory directory() {
+        return directory;
+    }
+
+    /**
+     * The pool of {@code shard} itself, bypassing the routing and any transaction bound to it.
+     */
+    public DataSource dataSource(int shard) {
+        return shards.get(shard);
+    }
+}
@@ -0,0 +1,59 @@
+package com.orderprocessing.order.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code /actuator/shards}: buckets per shard and moves in progress; a POST with {@code shards}
+ * starts rebalancing the buckets evenly over that many shards (see {@link BucketMover}).
+ */
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final ShardRouter router;
+    private final BucketMover mover;
+
+    public ShardsEndpoint(ShardRouter router, BucketMover mover) {
+        this.router = router;
+        this.mover = mover;
+    }
+
+    @ReadOperation
+    public Overview shards() {
+        ShardDirectory.Layout layout = router.directory().layout();
+        int[] owned = new int[router.shardCount()];
+        int[] incoming = new int[router.shardCount()];
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            owned[layout.owners()[bucket]]++;
+            if (layout.targets()[bucket] >= 0) {
+                incoming[layout.targets()[bucket]]++;
+            }
+        }
+        List<Shard> shards = new ArrayList<>(owned.length);
+        for (int shard = 0; shard < owned.length; shard++) {
+            shards.add(new Shard(shard, owned[shard], incoming[shard]));
+        }
+        return new Overview(ShardKeys.BUCKETS, shards, mover.status());
+    }
+
+    @WriteOperation
+    public BucketMover.Status rebalance(int shards) {
+        if (!mover.rebalance(shards)) {
+            throw new IllegalStateException("A rebalance is already running");
+        }
+        return mover.status();
+    }
+
+    public record Overview(int buckets, List<Shard> shards, BucketMover.Status rebalance) {
+    }
+
+    /**
+     * @param movingIn buckets being moved to this shard, still owned by their source
+     */
+    public record Shard(int shard, int buckets, int movingIn) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.orderprocessing.order.skew;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code /actuator/skew}: events per partition, hot keys and consumer thread utilization of the
+ * last complete window and of the one in progress (see {@link TrafficSkewMonitor}).
+ */
+@Endpoint(id = "skew")
+public class SkewEndpoint {
+
+    private final TrafficSkewMonitor monitor;
+
+    public SkewEndpoint(TrafficSkewMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @ReadOperation
+    public Overview skew() {
+        return new Overview(monitor.lastWindow(), monitor.currentWindow());
+    }
+
+    public record Overview(TrafficSkewMonitor.Report lastWindow, TrafficSkewMonitor.Report currentWindow) {
+    }
+}
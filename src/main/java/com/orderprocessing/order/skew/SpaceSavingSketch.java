@@ -0,0 +1,169 @@
+package com.orderprocessing.order.skew;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters (Metwally, Agrawal, El Abbadi): counts keys in at most
+ * {@code capacity} counters. An unseen key takes over the smallest counter and inherits its count
+ * as the error, so estimates never undercount, overcount by at most {@link Estimate#error()},
+ * and every key with more than {@code total / capacity} occurrences is held.
+ * <p>
+ * The counters form a min-heap indexed by key, so an update is O(log capacity). Callers
+ * synchronize. Sketches of parts of one stream {@link #merge merge} into a sketch of the whole.
+ */
+final class SpaceSavingSketch {
+
+    private final Entry[] heap;
+    private final Map<String, Entry> index;
+    private int size;
+    private long total;
+
+    SpaceSavingSketch(int capacity) {
+        this.heap = new Entry[capacity];
+        this.index = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key) {
+        total++;
+        Entry entry = index.get(key);
+        if (entry != null) {
+            entry.count++;
+            siftDown(entry.position);
+        } else if (size < heap.length) {
+            entry = new Entry(key, 1, 0, size);
+            heap[size++] = entry;
+            index.put(key, entry);
+            siftUp(entry.position);
+        } else {
+            // Evict the smallest counter; the newcomer may have occurred up to that many times unseen
+            Entry min = heap[0];
+            index.remove(min.key);
+            min.key = key;
+            min.error = min.count;
+            min.count++;
+            index.put(key, min);
+            siftDown(0);
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * Adds the counters of {@code other} (Agarwal et al., mergeable summaries). A key missing from a
+     * full sketch may have occurred there up to that sketch's smallest count, which is added to its
+     * count and error, so estimates still never undercount. The largest counters are kept.
+     */
+    void merge(SpaceSavingSketch other) {
+        long missingHere = minCount();
+        long missingThere = other.minCount();
+        Map<String, Entry> merged = new HashMap<>((size + other.size) * 2);
+        for (int i = 0; i < size; i++) {
+            Entry entry = heap[i];
+            Entry there = other.index.get(entry.key);
+            merged.put(entry.key, there != null
+                    ? new Entry(entry.key, entry.count + there.count, entry.error + there.error, 0)
+                    : new Entry(entry.key, entry.count + missingThere, entry.error + missingThere, 0));
+        }
+        for (int i = 0; i < other.size; i++) {
+            Entry there = other.heap[i];
+            if (!index.containsKey(there.key)) {
+                merged.put(there.key, new Entry(there.key, there.count + missingHere, there.error + missingHere, 0));
+            }
+        }
+
+        Entry[] entries = merged.values().toArray(new Entry[0]);
+        Arrays.sort(entries, Comparator.comparingLong((Entry entry) -> entry.count).reversed());
+        Arrays.fill(heap, 0, size, null);
+        index.clear();
+        size = 0;
+        for (int i = 0; i < Math.min(entries.length, heap.length); i++) {
+            Entry entry = entries[i];
+            entry.position = size;
+            heap[size++] = entry;
+            index.put(entry.key, entry);
+            siftUp(entry.position);
+        }
+        total += other.total;
+    }
+
+    // What an unseen key may have occurred: nothing until every counter is taken
+    private long minCount() {
+        return size < heap.length ? 0 : heap[0].count;
+    }
+
+    /**
+     * The {@code limit} largest counters, largest first.
+     */
+    List<Estimate> top(int limit) {
+        Entry[] entries = Arrays.copyOf(heap, size);
+        Arrays.sort(entries, Comparator.comparingLong((Entry entry) -> entry.count).reversed());
+        List<Estimate> top = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            top.add(new Estimate(entries[i].key, entries[i].count, entries[i].error));
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        Entry entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(entry, position);
+    }
+
+    private void siftDown(int position) {
+        Entry entry = heap[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(entry, position);
+    }
+
+    private void place(Entry entry, int position) {
+        heap[position] = entry;
+        entry.position = position;
+    }
+
+    /**
+     * @param count upper bound of the key's occurrences
+     * @param error how much of {@code count} may come from keys it replaced
+     */
+    record Estimate(String key, long count, long error) {
+    }
+
+    private static final class Entry {
+        private String key;
+        private long count;
+        private long error;
+        private int position;
+
+        private Entry(String key, long count, long error, int position) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.orderprocessing.order.skew;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where saga traffic lands: events per partition and the heaviest keys, for the events this
+ * service sends (every topic, from the transport) and the saga replies it consumes (from the
+ * listeners), plus how busy each consumer thread is. A few hot customers, or a key that hashes
+ * unevenly over the partitions, saturate one partition and its consumer thread while the others
+ * idle; this shows it before it turns into lag.
+ * <p>
+ * Partition and thread counts are exact. Keys are counted in {@link SpaceSavingSketch}es per topic
+ * and direction, for a sample of the events ({@code order.skew.key-sample-rate}, 1 in 10). Each
+ * topic and direction has a sketch per stripe of sending or consuming threads, merged when the
+ * window is reported, so threads sending to the same topic rarely wait on one another's lock.
+ * Everything is kept per window of {@code order.skew.window}; the last complete window feeds the
+ * {@code orders.skew.*} gauges, {@code /actuator/skew} and a warning when a partition or thread
+ * crosses its threshold.
+ */
+public class TrafficSkewMonitor {
+
+    public enum Direction { PRODUCED, CONSUMED }
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficSkewMonitor.class);
+
+    private static final String NO_KEY = "<none>";
+    // A power of two at least the number of CPUs
+    private static final int KEY_STRIPES =
+            Math.max(1, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    private static final Map<String, String> GAUGES = Map.of(
+            "orders.skew.partition.rate", "Events per second of a partition in the last skew window",
+            "orders.skew.partition.imbalance", "Events of the busiest partition over the mean per partition (1 = even)",
+            "orders.skew.hot-key.share", "Estimated share of a topic's events taken by its most frequent key",
+            "orders.skew.consumer.utilization", "Fraction of the last skew window a consumer thread spent handling saga replies");
+
+    private final Settings settings;
+    private final MeterRegistry meterRegistry;
+    private final Set<GaugeKey> registered = ConcurrentHashMap.newKeySet();
+    private volatile Window current;
+    private volatile Report lastWindow;
+    private volatile Map<GaugeKey, Double> gaugeValues = Map.of();
+
+    public TrafficSkewMonitor(Settings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.current = new Window(Instant.now(), System.nanoTime());
+        this.lastWindow = new Report(current.start, current.start, List.of(), List.of());
+    }
+
+    // ==================== SAMPLING ====================
+
+    public void produced(String topic, int partition, String key) {
+        current.traffic(topic, Direction.PRODUCED).record(partition, key);
+    }
+
+    /**
+     * @param busyNanos time the current thread spent handling the event
+     */
+    public void consumed(String topic, int partition, String key, long busyNanos) {
+        Window window = current;
+        window.traffic(topic, Direction.CONSUMED).record(partition, key);
+        window.thread(Thread.currentThread().getName()).record(busyNanos);
+    }
+
+    // ==================== REPORT ====================
+
+    @Scheduled(initialDelayString = "${order.skew.window:PT1M}", fixedDelayString = "${order.skew.window:PT1M}")
+    public void rotate() {
+        Window finished = current;
+        current = new Window(Instant.now(), System.nanoTime());
+        // Events racing with the swap still count in the finished window
+        Report report = finished.report(current.start, current.startNanos);
+        lastWindow = report;
+        publish(report);
+        warn(report);
+    }
+
+    public Report lastWindow() {
+        return lastWindow;
+    }
+
+    /**
+     * The window in progress, so far.
+     */
+    public Report currentWindow() {
+        return current.report(Instant.now(), System.nanoTime());
+    }
+
+    private void publish(Report report) {
+        Map<GaugeKey, Double> values = new HashMap<>();
+        for (Traffic traffic : report.traffic()) {
+            Tags tags = Tags.of("topic", traffic.topic(), "direction", traffic.direction().name().toLowerCase());
+            values.put(new GaugeKey("orders.skew.partition.imbalance", tags), traffic.imbalance());
+            values.put(new GaugeKey("orders.skew.hot-key.share", tags),
+                    traffic.hotKeys().isEmpty() ? 0.0 : traffic.hotKeys().getFirst().share());
+            for (PartitionLoad partition : traffic.partitions()) {
+                values.put(new GaugeKey("orders.skew.partition.rate",
+                        tags.and("partition", String.valueOf(partition.partition()))), partition.eventsPerSecond());
+            }
+        }
+        for (ConsumerThread thread : report.consumerThreads()) {
+            values.put(new GaugeKey("orders.skew.consumer.utilization", Tags.of("thread", thread.thread())),
+                    thread.utilization());
+        }
+        gaugeValues = values;
+        // Gauges stay registered and read 0 once their topic, partition or thread goes quiet
+        for (GaugeKey key : values.keySet()) {
+            if (registered.add(key)) {
+                Gauge.builder(key.name(), this, monitor -> monitor.gaugeValues.getOrDefault(key, 0.0))
+                        .description(GAUGES.get(key.name()))
+                        .tags(key.tags())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    private void warn(Report report) {
+        for (Traffic traffic : report.traffic()) {
+            if (traffic.events() >= settings.warnMinEvents() && traffic.imbalance() >= settings.warnImbalance()) {
+                log.atWarn()
+                        .addKeyValue("topic", traffic.topic())
+                        .addKeyValue("direction", traffic.direction())
+                        .addKeyValue("hotKey", traffic.hotKeys().isEmpty() ? null : traffic.hotKeys().getFirst().key())
+                        .log("Partition skew: the busiest partition takes {}x the mean",
+                                String.format("%.2f", traffic.imbalance()));
+            }
+        }
+        for (ConsumerThread thread : report.consumerThreads()) {
+            if (thread.utilization() >= settings.warnUtilization()) {
+                log.atWarn()
+                        .addKeyValue("thread", thread.thread())
+                        .addKeyValue("events", thread.events())
+                        .log("Saga consumer thread busy {}% of the window", Math.round(thread.utilization() * 100));
+            }
+        }
+    }
+
+    // One skew window
+    private final class Window {
+        private final Instant start;
+        private final long startNanos;
+        // Per topic, indexed by Direction
+        private final Map<String, TrafficWindow[]> topics = new ConcurrentHashMap<>();
+        private final Map<String, ThreadWindow> threads = new ConcurrentHashMap<>();
+
+        private Window(Instant start, long startNanos) {
+            this.start = start;
+            this.startNanos = startNanos;
+        }
+
+        TrafficWindow traffic(String topic, Direction direction) {
+            return topics.computeIfAbsent(topic, t -> new TrafficWindow[]{new TrafficWindow(), new TrafficWindow()})
+                    [direction.ordinal()];
+        }
+
+        ThreadWindow thread(String name) {
+            return threads.computeIfAbsent(name, n -> new ThreadWindow());
+        }
+
+        Report report(Instant end, long endNanos) {
+            double seconds = Math.max(endNanos - startNanos, 1) / 1e9;
+            List<Traffic> traffic = new ArrayList<>();
+            topics.forEach((topic, directions) -> {
+                for (Direction direction : Direction.values()) {
+                    if (!directions[direction.ordinal()].partitions.isEmpty()) {
+                        traffic.add(directions[direction.ordinal()].report(topic, direction, seconds));
+                    }
+                }
+            });
+            traffic.sort(Comparator.comparing(Traffic::topic).thenComparing(Traffic::direction));
+            List<ConsumerThread> consumerThreads = threads.entrySet().stream()
+                    .map(entry -> new ConsumerThread(entry.getKey(), entry.getValue().events.sum(),
+                            Math.min(1.0, entry.getValue().busyNanos.sum() / (seconds * 1e9))))
+                    .sorted(Comparator.comparingDouble(ConsumerThread::utilization).reversed())
+                    .toList();
+            return new Report(start, end, traffic, consumerThreads);
+        }
+    }
+
+    private final class TrafficWindow {
+        private final Map<Integer, LongAdder> partitions = new ConcurrentHashMap<>();
+        // Each guarded by itself; a thread always counts into the same stripe
+        private final SpaceSavingSketch[] keyStripes = new SpaceSavingSketch[KEY_STRIPES];
+
+        private TrafficWindow() {
+            for (int stripe = 0; stripe < KEY_STRIPES; stripe++) {
+                keyStripes[stripe] = new SpaceSavingSketch(settings.sketchCapacity());
+            }
+        }
+
+        void record(int partition, String key) {
+            partitions.computeIfAbsent(partition, p -> new LongAdder()).increment();
+            if (settings.keySampleRate() >= 1 || ThreadLocalRandom.current().nextDouble() < settings.keySampleRate()) {
+                SpaceSavingSketch keys = keyStripes[(int) Thread.currentThread().threadId() & (KEY_STRIPES - 1)];
+                synchronized (keys) {
+                    keys.add(key != null ? key : NO_KEY);
+                }
+            }
+        }
+
+        private SpaceSavingSketch mergedKeys() {
+            SpaceSavingSketch merged = new SpaceSavingSketch(settings.sketchCapacity());
+            for (SpaceSavingSketch keys : keyStripes) {
+                synchronized (keys) {
+                    merged.merge(keys);
+                }
+            }
+            return merged;
+        }
+
+        Traffic report(String topic, Direction direction, double seconds) {
+            // Partitions without events in the window are idle, not absent
+            int partitionCount = Math.max(settings.partitions(),
+                    partitions.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1);
+            long[] counts = new long[partitionCount];
+            partitions.forEach((partition, count) -> counts[partition] = count.sum());
+            long events = 0;
+            long busiest = 0;
+            for (long count : counts) {
+                events += count;
+                busiest = Math.max(busiest, count);
+            }
+
+            List<PartitionLoad> loads = new ArrayList<>(partitionCount);
+            for (int partition = 0; partition < partitionCount; partition++) {
+                loads.add(new PartitionLoad(partition, counts[partition], counts[partition] / seconds,
+                        events == 0 ? 0.0 : counts[partition] / (double) events));
+            }
+
+            List<SpaceSavingSketch.Estimate> top = mergedKeys().top(settings.topKeys());
+            double scale = 1 / settings.keySampleRate();
+            long total = events;
+            List<HotKey> hotKeys = top.stream()
+                    .map(estimate -> new HotKey(estimate.key(), Math.round(estimate.count() * scale),
+                            Math.round(estimate.error() * scale),
+                            total == 0 ? 0.0 : Math.min(1.0, estimate.count() * scale / total)))
+                    .toList();
+
+            double imbalance = events == 0 ? 1.0 : busiest * partitionCount / (double) events;
+            return new Traffic(topic, direction, events, events / seconds, imbalance, loads, hotKeys);
+        }
+    }
+
+    private static final class ThreadWindow {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        void record(long nanos) {
+            events.increment();
+            busyNanos.add(nanos);
+        }
+    }
+
+    private record GaugeKey(String name, Tags tags) {
+    }
+
+    public record Report(Instant from, Instant to, List<Traffic> traffic, List<ConsumerThread> consumerThreads) {
+    }
+
+    /**
+     * @param imbalance events of the busiest partition over the mean per partition: 1 when even,
+     *                  the partition count when one partition takes everything
+     * @param hotKeys   the most frequent keys, most frequent first
+     */
+    public record Traffic(
+            String topic,
+            Direction direction,
+            long events,
+            double eventsPerSecond,
+            double imbalance,
+            List<PartitionLoad> partitions,
+            List<HotKey> hotKeys
+    ) {
+    }
+
+    public record PartitionLoad(int partition, long events, double eventsPerSecond, double share) {
+    }
+
+    /**
+     * @param events estimate, high by at most {@code error}; extrapolated when keys are sampled
+     */
+    public record HotKey(String key, long events, long error, double share) {
+    }
+
+    /**
+     * @param utilization fraction of the window spent handling saga replies
+     */
+    public record ConsumerThread(String thread, long events, double utilization) {
+    }
+
+    /**
+     * @param partitions     partitions per topic; more are reported as they show up
+     * @param keySampleRate  fraction of events whose key is counted, in (0, 1]
+     * @param warnMinEvents  events a topic needs in a window before its imbalance is logged
+     */
+    public record Settings(
+            int partitions,
+            int topKeys,
+            int sketchCapacity,
+            double keySampleRate,
+            long warnMinEvents,
+            double warnImbalance,
+            double warnUtilization
+    ) {
+        public Settings {
+            if (!(keySampleRate > 0 && keySampleRate <= 1)) {
+                throw new IllegalArgumentException("Key sample rate must be in (0, 1], got " + keySampleRate);
+            }
+        }
+    }
+}
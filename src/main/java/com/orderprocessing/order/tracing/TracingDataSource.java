@@ -0,0 +1,36 @@
+package com.orderprocessing.order.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Records in the current {@link TransactionTrace} when its connection is actually checked out and
+ * how long that took. Sits below a {@code LazyConnectionDataSourceProxy} (sharding): beginning a
+ * transaction there takes no connection, the pool is only hit at the first statement.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    public TracingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        TransactionTrace trace = TransactionTrace.current();
+        if (trace == null || trace.getConnectionNanos() != 0) {
+            return super.getConnection();
+        }
+        long requestedNanos = System.nanoTime();
+        try {
+            Connection connection = super.getConnection();
+            trace.connectionAcquired(requestedNanos);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            trace.connectionFailed(requestedNanos);
+            throw e;
+        }
+    }
+}
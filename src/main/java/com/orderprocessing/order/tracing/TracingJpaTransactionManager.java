@@ -0,0 +1,152 @@
+package com.orderprocessing.order.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JpaTransactionManager} that times every physical transaction per transactional method
+ * ({@code OrderCommandService.createOrder}, {@code SimpleJpaRepository.save}, ...):
+ * <ul>
+ *     <li>{@code orders.transaction.connection.acquire}: waiting for a pooled connection, when
+ *     beginning the transaction or, behind a {@link LazyConnectionDataSourceProxy} (sharding), at
+ *     its first statement (see {@link TracingDataSource})</li>
+ *     <li>{@code orders.transaction.connection.hold}: from checkout to release, which with
+ *     Hibernate includes {@code afterCommit} callbacks</li>
+ *     <li>{@code orders.transaction.duration}: the whole transaction, by commit or rollback</li>
+ * </ul>
+ * Transactions longer than {@code slowThreshold} are logged at WARN with the statements and
+ * external calls recorded in their {@link TransactionTrace}.
+ */
+public class TracingJpaTransactionManager extends JpaTransactionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TracingJpaTransactionManager.class);
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final int maxSteps;
+
+    public TracingJpaTransactionManager(MeterRegistry meterRegistry, Duration slowThreshold, int maxSteps) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxSteps = maxSteps;
+    }
+
+    // ==================== TRANSACTION LIFECYCLE ====================
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        TransactionTrace trace = TransactionTrace.begin(nameOf(definition), maxSteps);
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            // Typically a pool timeout; cleanup is never called for a transaction that didn't begin
+            trace.end();
+            if (!lazyConnections()) {
+                trace.connectionFailed(trace.getStartNanos());
+                recordAcquire(trace);
+            }
+            throw e;
+        }
+        if (!lazyConnections()) {
+            trace.connectionAcquired(trace.getStartNanos());
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        TransactionTrace trace = TransactionTrace.current();
+        if (trace != null) {
+            trace.rolledBack();
+        }
+        super.doRollback(status);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            // Closes the EntityManager, which returns the connection to the pool
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            TransactionTrace trace = TransactionTrace.current();
+            if (trace != null) {
+                trace.end();
+                completed(trace, System.nanoTime());
+            }
+        }
+    }
+
+    // ==================== REPORTING ====================
+
+    private void completed(TransactionTrace trace, long endNanos) {
+        String outcome = trace.isRolledBack() ? "rollback" : "commit";
+        long durationNanos = endNanos - trace.getStartNanos();
+        // A lazy transaction that ran no statement never held a connection
+        long holdNanos = trace.getConnectionNanos() != 0 ? endNanos - trace.getConnectionNanos() : 0;
+
+        recordAcquire(trace);
+        if (trace.getConnectionNanos() != 0) {
+            timer("orders.transaction.connection.hold", trace.getName(), outcome)
+                    .record(holdNanos, TimeUnit.NANOSECONDS);
+        }
+        timer("orders.transaction.duration", trace.getName(), outcome)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        if (durationNanos < slowThresholdNanos) {
+            return;
+        }
+        Counter.builder("orders.transaction.slow")
+                .description("Transactions above order.transaction.slow-threshold")
+                .tag("transaction", trace.getName())
+                .register(meterRegistry)
+                .increment();
+        log.atWarn()
+                .addKeyValue("transaction", trace.getName())
+                .addKeyValue("outcome", outcome)
+                .addKeyValue("durationMs", TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                .addKeyValue("connectionHoldMs", TimeUnit.NANOSECONDS.toMillis(holdNanos))
+                .addKeyValue("statements", trace.getStatements())
+                .addKeyValue("externalCalls", trace.getExternalCalls())
+                .log("Slow transaction {}{}", trace.getName(), trace.describeSteps());
+    }
+
+    private void recordAcquire(TransactionTrace trace) {
+        if (trace.getConnectionNanos() != 0 || trace.isAcquireFailed()) {
+            String outcome = trace.isAcquireFailed() ? "failed" : "acquired";
+            timer("orders.transaction.connection.acquire", trace.getName(), outcome)
+                    .record(trace.getAcquireNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // The connection is checked out at the first statement, not when the transaction begins
+    private boolean lazyConnections() {
+        return getDataSource() instanceof LazyConnectionDataSourceProxy;
+    }
+
+    private Timer timer(String name, String transaction, String outcome) {
+        return Timer.builder(name)
+                .tag("transaction", transaction)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // "com.orderprocessing.order.service.OrderCommandService.createOrder" -> "OrderCommandService.createOrder"
+    static String nameOf(TransactionDefinition definition) {
+        String name = definition.getName();
+        if (name == null) {
+            return "unnamed";
+        }
+        int method = name.lastIndexOf('.');
+        int type = method > 0 ? name.lastIndexOf('.', method - 1) : -1;
+        return name.substring(type + 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.orderprocessing.order.tracing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records each statement Hibernate prepares in the current {@link TransactionTrace}. Registered
+ * with {@code hibernate.session_factory.statement_inspector}; the SQL is passed through unchanged.
+ */
+public class TracingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        TransactionTrace.statement(sql);
+        return sql;
+    }
+}
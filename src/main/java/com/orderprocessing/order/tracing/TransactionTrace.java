@@ -0,0 +1,186 @@
+package com.orderprocessing.order.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * What one physical transaction did on the current thread: when it got its connection, the SQL it
+ * prepared and the external calls it made while holding that connection. Begun and ended by
+ * {@link TracingJpaTransactionManager}; a suspended outer transaction (REQUIRES_NEW) is restored
+ * when the inner one ends.
+ * <p>
+ * Statements and calls are recorded for every transaction, bounded by {@code maxSteps}, since
+ * whether a transaction is slow is only known at its end.
+ */
+public final class TransactionTrace {
+
+    private static final ThreadLocal<TransactionTrace> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final TransactionTrace suspended;
+    private final int maxSteps;
+    private final long startNanos = System.nanoTime();
+    private final List<Step> steps = new ArrayList<>();
+    private long connectionNanos;
+    private long acquireNanos;
+    private boolean acquireFailed;
+    private int statements;
+    private int externalCalls;
+    private int droppedSteps;
+    private boolean rolledBack;
+
+    private TransactionTrace(String name, TransactionTrace suspended, int maxSteps) {
+        this.name = name;
+        this.suspended = suspended;
+        this.maxSteps = maxSteps;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    static TransactionTrace begin(String name, int maxSteps) {
+        TransactionTrace trace = new TransactionTrace(name, CURRENT.get(), maxSteps);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    void connectionAcquired(long requestedNanos) {
+        connectionNanos = System.nanoTime();
+        acquireNanos = connectionNanos - requestedNanos;
+    }
+
+    void connectionFailed(long requestedNanos) {
+        acquireNanos = System.nanoTime() - requestedNanos;
+        acquireFailed = true;
+    }
+
+    void rolledBack() {
+        rolledBack = true;
+    }
+
+    void end() {
+        if (suspended != null) {
+            CURRENT.set(suspended);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static TransactionTrace current() {
+        return CURRENT.get();
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Called by {@link TracingStatementInspector} for every statement Hibernate prepares.
+     */
+    static void statement(String sql) {
+        TransactionTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.statements++;
+            trace.add(new Step(trace.offsetNanos(System.nanoTime()), 0, "sql", sql));
+        }
+    }
+
+    /**
+     * Runs a call to something other than the database, recording it against the current
+     * transaction if there is one: these calls are what keep a connection checked out for no use.
+     */
+    public static <T> T external(String target, Supplier<T> call) {
+        TransactionTrace trace = CURRENT.get();
+        if (trace == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            trace.externalCalls++;
+            trace.add(new Step(trace.offsetNanos(start), System.nanoTime() - start, "call", target));
+        }
+    }
+
+    private void add(Step step) {
+        if (steps.size() < maxSteps) {
+            steps.add(step);
+        } else {
+            droppedSteps++;
+        }
+    }
+
+    private long offsetNanos(long nanos) {
+        return nanos - startNanos;
+    }
+
+    // ==================== REPORTING ====================
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * When the connection was checked out, or 0 if it was not (yet): beginning the transaction
+     * failed, or with lazy connections no statement ran.
+     */
+    public long getConnectionNanos() {
+        return connectionNanos;
+    }
+
+    /**
+     * How long checking out the connection took, whether or not it succeeded; 0 if never tried.
+     */
+    public long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    public boolean isAcquireFailed() {
+        return acquireFailed;
+    }
+
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getExternalCalls() {
+        return externalCalls;
+    }
+
+    /**
+     * One line per step, with its offset from the start of the transaction:
+     * <pre>
+     *   +0.4ms sql select o1_0.id, ... from orders o1_0 where o1_0.saga_id=?
+     *   +1.1ms call kafka order-events (3012.7ms)
+     * </pre>
+     */
+    public String describeSteps() {
+        StringBuilder description = new StringBuilder();
+        for (Step step : steps) {
+            description.append("\n  +").append(millis(step.offsetNanos())).append("ms ")
+                    .append(step.kind()).append(' ').append(step.detail());
+            if (step.kind().equals("call")) {
+                description.append(" (").append(millis(step.durationNanos())).append("ms)");
+            }
+        }
+        if (droppedSteps > 0) {
+            description.append("\n  ... ").append(droppedSteps).append(" more");
+        }
+        return description.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private record Step(long offsetNanos, long durationNanos, String kind, String detail) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.orderprocessing.order.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Record format of the {@link MappedSegmentLog}s: topic, key (length -1 for null), event class,
+ * then the event as JSON. Only classes of this service are read back.
+ */
+final class EventCodec {
+
+    private static final String TRUSTED_PACKAGE = "com.orderprocessing.";
+
+    private final ObjectMapper objectMapper;
+
+    EventCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    byte[] encode(String topic, String key, Object event) {
+        try {
+            byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+            byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : null;
+            byte[] type = event.getClass().getName().getBytes(StandardCharsets.UTF_8);
+            byte[] json = objectMapper.writeValueAsBytes(event);
+            ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + topicBytes.length
+                    + (keyBytes != null ? keyBytes.length : 0) + type.length + json.length);
+            buffer.putInt(topicBytes.length).put(topicBytes);
+            buffer.putInt(keyBytes != null ? keyBytes.length : -1);
+            if (keyBytes != null) {
+                buffer.put(keyBytes);
+            }
+            buffer.putInt(type.length).put(type);
+            buffer.put(json);
+            return buffer.array();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot journal " + event.getClass().getName(), e);
+        }
+    }
+
+    Decoded decode(byte[] record, long offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        String topic = readString(buffer, buffer.getInt());
+        int keyLength = buffer.getInt();
+        String key = keyLength >= 0 ? readString(buffer, keyLength) : null;
+        String type = readString(buffer, buffer.getInt());
+        if (!type.startsWith(TRUSTED_PACKAGE)) {
+            throw new IllegalStateException("Untrusted event type in journal: " + type);
+        }
+        try {
+            Object event = objectMapper.readValue(record, buffer.position(), buffer.remaining(), Class.forName(type));
+            return new Decoded(topic, key, event);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot read journaled " + type + " at offset " + offset, e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    record Decoded(String topic, String key, Object event) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.orderprocessing.order.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue for one partition of the in-process bus: any number of producers, one
+ * consumer thread.
+ * <p>
+ * Same Vyukov queue as the logging {@code RingBufferAppender}: a producer claims the next
+ * position with a CAS on the tail, fills the slot and releases it by setting the slot's sequence;
+ * the consumer takes the slot once the sequence says it is filled and hands it back one lap later.
+ * The head is written only by the consumer, so the consumer side needs no CAS. A full buffer makes
+ * {@link #offer} fail rather than block; waiting is the caller's policy.
+ * <p>
+ * Not the single-writer, multi-consumer ring (one sequencer, consumers each tracking their own
+ * cursor) the bus was first sketched around. Events are sent from request threads, saga listener
+ * threads and the partition threads themselves, so a single writer would need a lock or a handoff
+ * thread in front of every ring, and that is the contention the ring is meant to avoid. Fan-out and
+ * key order come from the partitioning instead: one ring and one consumer per partition, and every
+ * subscriber of a topic called by that consumer in turn.
+ */
+final class EventRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Consumer-owned; volatile only so size() can be read from other threads
+    private volatile long head;
+    private volatile Thread parkedConsumer;
+
+    EventRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two, got " + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Appends {@code element}, or returns false if the buffer is full.
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    // Volatile, not release: must not pass the read of parkedConsumer below
+                    sequences.set(index, position + 1);
+                    Thread consumer = parkedConsumer;
+                    if (consumer != null) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false; // the consumer hasn't freed this slot from the previous lap
+            }
+            // else another producer took this position: retry with the new tail
+        }
+    }
+
+    /**
+     * Takes the next element, or returns null if there is none. Consumer thread only.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.getAcquire(index) != position + 1) {
+            return null;
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        // Free the slot for the producer one lap ahead
+        sequences.setRelease(index, position + slots.length);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Parks the consumer thread until a producer offers something or {@code maxNanos} pass.
+     */
+    void awaitElements(long maxNanos) {
+        parkedConsumer = Thread.currentThread();
+        // Re-check after publishing the parked thread, or an offer in between is missed
+        long position = head;
+        if (sequences.get((int) position & mask) != position + 1) {
+            LockSupport.parkNanos(this, maxNanos);
+        }
+        parkedConsumer = null;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,17 @@
+package com.orderprocessing.order.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outbound side of the saga: where order events and snapshots go. Kafka by default; the
+ * in-process bus ({@code order.transport.type=in-process}) for single-node deployments and tests
+ * without a broker.
+ */
+public interface EventTransport {
+
+    /**
+     * Sends {@code event} to {@code topic}. Events with the same key are delivered in send order.
+     * The future completes when the transport has accepted the event, not when it was handled.
+     */
+    CompletableFuture<?> send(String topic, String key, Object event);
+}
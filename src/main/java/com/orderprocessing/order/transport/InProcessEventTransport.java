@@ -0,0 +1,356 @@
+package com.orderprocessing.order.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
+import com.orderprocessing.order.tracing.TransactionTrace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Broker-less {@link EventTransport}: topics are dispatched to subscribers registered in this
+ * JVM.
+ * <p>
+ * Events are spread over a fixed number of partitions by key, with Kafka's partitioner, and each
+ * partition is an {@link EventRingBuffer} drained by one thread. Any thread may send; each
+ * partition has a single consumer, so events with the same key reach every subscriber in send
+ * order, while different keys are handled in parallel. Every subscriber of a topic gets every
+ * event, like separate consumer groups. Events are handed over by reference, so subscribers must
+ * not modify them.
+ * <p>
+ * A failing subscriber is retried {@code retry-attempts} times, {@code retry-interval} apart,
+ * then the event is logged and skipped for that subscriber. {@code Acknowledgment.nack(sleep)}
+ * redelivers after the sleep, as the Kafka container does. A full partition blocks the sender
+ * for up to {@code max-block}; a partition thread sending to its own full partition fails at once.
+ * <p>
+ * Without a journal, events still in a partition are lost when the process dies. With
+ * {@code journal.directory} set, every event is first appended to the partition's
+ * {@link MappedSegmentLog}, and the events not yet delivered are delivered again on startup.
+ * Producers of a partition then take turns on its journal, so sends are no longer lock-free.
+ */
+public class InProcessEventTransport implements EventTransport, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessEventTransport.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Partition[] partitions;
+    private final Map<String, List<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
+    private final EventCodec codec;
+    private final Settings settings;
+    private final TrafficSkewMonitor skewMonitor;
+    private final Counter dispatched;
+    private final Counter failed;
+    private volatile boolean running;
+
+    public InProcessEventTransport(Settings settings, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                   TrafficSkewMonitor skewMonitor) {
+        this.settings = settings;
+        this.skewMonitor = skewMonitor;
+        this.codec = new EventCodec(objectMapper);
+        this.partitions = new Partition[settings.partitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, new EventRingBuffer<>(settings.capacity()));
+        }
+        this.dispatched = Counter.builder("orders.transport.in-process.dispatched")
+                .description("Events handed to in-process subscribers")
+                .register(meterRegistry);
+        this.failed = Counter.builder("orders.transport.in-process.failed")
+                .description("Events skipped for a subscriber after the last retry")
+                .register(meterRegistry);
+        Gauge.builder("orders.transport.in-process.backlog", this, InProcessEventTransport::backlog)
+                .description("Events waiting in the in-process partitions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers {@code handler} for the events of {@code type} sent to {@code topic}. Subscribe
+     * before {@link #start()} to also receive the events replayed from the journal.
+     */
+    public <T> void subscribe(String topic, String group, Class<T> type, Handler<T> handler) {
+        subscriptions.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>())
+                .add(new Subscription<>(group, type, handler));
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    // ==================== SEND ====================
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, Object event) {
+        Partition partition = partitions[partitionFor(key)];
+        skewMonitor.produced(topic, partition.id, key);
+        // Only blocks on a full partition, which then shows in the transaction's trace
+        return TransactionTrace.external("in-process " + topic, () -> {
+            partition.publish(new Envelope(topic, key, event, -1));
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private int partitionFor(String key) {
+        if (key == null) {
+            return 0;
+        }
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions.length;
+    }
+
+    private long backlog() {
+        long backlog = 0;
+        for (Partition partition : partitions) {
+            backlog += partition.ring.size();
+        }
+        return backlog;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    @Override
+    public void start() {
+        for (Partition partition : partitions) {
+            if (settings.journalDirectory() != null) {
+                try {
+                    partition.journal = MappedSegmentLog.open(
+                            settings.journalDirectory().resolve("partition-" + partition.id), settings.segmentBytes());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open the in-process journal in " + settings.journalDirectory(), e);
+                }
+            }
+        }
+        running = true;
+        for (Partition partition : partitions) {
+            partition.thread = new Thread(partition::run, "in-process-bus-" + partition.id);
+            partition.thread.start();
+        }
+        log.info("In-process event transport started with {} partitions{}", partitions.length,
+                settings.journalDirectory() != null ? ", journal in " + settings.journalDirectory() : "");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + settings.maxBlock().toNanos();
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (partition.thread.isAlive()) {
+                log.warn("In-process partition {} not drained on shutdown, {} events left", partition.id, partition.ring.size());
+            }
+            if (partition.journal != null) {
+                partition.journal.close();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the web server and the Kafka listener containers, after everything they send to
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 2048;
+    }
+
+    // ==================== PARTITIONS ====================
+
+    private final class Partition {
+        private final int id;
+        private final EventRingBuffer<Envelope> ring;
+        private volatile Thread thread;
+        private MappedSegmentLog journal;
+        private long delivered; // partition thread only
+
+        private Partition(int id, EventRingBuffer<Envelope> ring) {
+            this.id = id;
+            this.ring = ring;
+        }
+
+        void publish(Envelope envelope) {
+            if (journal == null) {
+                enqueue(envelope);
+                return;
+            }
+            byte[] record = codec.encode(envelope.topic(), envelope.key(), envelope.event());
+            // Journal order must be delivery order, so append and enqueue under one lock
+            synchronized (this) {
+                awaitRoom();
+                enqueue(new Envelope(envelope.topic(), envelope.key(), envelope.event(), journal.append(record)));
+            }
+        }
+
+        private void enqueue(Envelope envelope) {
+            while (!ring.offer(envelope)) {
+                awaitRoom();
+            }
+        }
+
+        private void awaitRoom() {
+            if (ring.size() < ring.capacity()) {
+                return;
+            }
+            if (Thread.currentThread() == thread) {
+                throw new IllegalStateException("In-process partition " + id + " is full and its own thread is sending to it");
+            }
+            long deadline = System.nanoTime() + settings.maxBlock().toNanos();
+            while (ring.size() >= ring.capacity()) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("In-process partition " + id + " still full after " + settings.maxBlock());
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+
+        void run() {
+            if (journal != null) {
+                // Delivered but not checkpointed before the last shutdown: at least once
+                long end = journal.endOffset();
+                MappedSegmentLog.Reader reader = journal.reader(journal.committed());
+                while (reader.offset() < end) {
+                    long offset = reader.offset();
+                    EventCodec.Decoded record = codec.decode(reader.next(), offset);
+                    dispatch(new Envelope(record.topic(), record.key(), record.event(), offset));
+                    journal.commit(offset + 1);
+                }
+            }
+            while (true) {
+                Envelope envelope = ring.poll();
+                if (envelope == null) {
+                    if (!running) {
+                        return; // stopped and empty
+                    }
+                    ring.awaitElements(IDLE_PARK_NANOS);
+                    continue;
+                }
+                dispatch(envelope);
+                if (journal != null) {
+                    journal.commit(envelope.offset() + 1);
+                }
+            }
+        }
+
+        private void dispatch(Envelope envelope) {
+            long offset = envelope.offset() >= 0 ? envelope.offset() : delivered;
+            delivered = offset + 1;
+            List<Subscription<?>> subscribers = subscriptions.get(envelope.topic());
+            if (subscribers == null) {
+                return;
+            }
+            Delivery delivery = new Delivery(envelope.topic(), envelope.key(), id, offset);
+            for (Subscription<?> subscription : subscribers) {
+                if (subscription.type().isInstance(envelope.event())) {
+                    deliver(subscription, envelope.event(), delivery);
+                }
+            }
+        }
+
+        private <T> void deliver(Subscription<T> subscription, Object event, Delivery delivery) {
+            T typed = subscription.type().cast(event);
+            int attempt = 0;
+            while (true) {
+                RedeliveryRequest acknowledgment = new RedeliveryRequest();
+                try {
+                    subscription.handler().handle(typed, delivery, acknowledgment);
+                } catch (Exception ex) {
+                    if (++attempt > settings.retryAttempts()) {
+                        failed.increment();
+                        log.atError()
+                                .addKeyValue("topic", delivery.topic())
+                                .addKeyValue("partition", delivery.partition())
+                                .addKeyValue("offset", delivery.offset())
+                                .addKeyValue("group", subscription.group())
+                                .setCause(ex)
+                                .log("In-process event skipped after {} attempts", attempt);
+                        return;
+                    }
+                    sleep(settings.retryInterval());
+                    continue;
+                }
+                if (acknowledgment.sleep == null) {
+                    dispatched.increment();
+                    return;
+                }
+                sleep(acknowledgment.sleep);
+            }
+        }
+
+        private void sleep(Duration duration) {
+            LockSupport.parkNanos(duration.toNanos());
+        }
+    }
+
+    // ==================== TYPES ====================
+
+    /**
+     * Handles one event; the signature mirrors a Kafka listener's record metadata.
+     */
+    @FunctionalInterface
+    public interface Handler<T> {
+        void handle(T event, Delivery delivery, Acknowledgment acknowledgment);
+    }
+
+    /**
+     * Where an event came from; the offset counts the partition's events, across restarts only
+     * with a journal.
+     */
+    public record Delivery(String topic, String key, int partition, long offset) {
+    }
+
+    public record Settings(
+            int partitions,
+            int capacity,
+            Duration maxBlock,
+            int retryAttempts,
+            Duration retryInterval,
+            Path journalDirectory,
+            int segmentBytes
+    ) {
+    }
+
+    private record Envelope(String topic, String key, Object event, long offset) {
+    }
+
+    private record Subscription<T>(String group, Class<T> type, Handler<T> handler) {
+    }
+
+    // Delivery is done once the handler returns; nack asks for the same event again later
+    private static final class RedeliveryRequest implements Acknowledgment {
+        private Duration sleep;
+
+        @Override
+        public void acknowledge() {
+        }
+
+        @Override
+        public void nack(Duration sleep) {
+            this.sleep = sleep;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.orderprocessing.order.transport;
+
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.listener.InventoryEventListener.InventoryEvent;
+import com.orderprocessing.order.listener.InventoryEventListener.InventoryEventType;
+import com.orderprocessing.order.listener.PaymentEventListener.PaymentEvent;
+import com.orderprocessing.order.listener.PaymentEventListener.PaymentEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the inventory and payment services inside the JVM for the in-process transport
+ * ({@code order.transport.in-process.participants.enabled}): answers {@code ORDER_CREATED} on
+ * {@code inventory-events} and {@code ORDER_PAYMENT_PROCESSING} on {@code payment-events} after
+ * {@code latency}, failing the configured share of requests. Like a real payment service, it
+ * remembers the amount from {@code ORDER_CREATED}, since later transitions don't repeat it.
+ * <p>
+ * Replies are sent from a scheduler thread, never from the partition thread that delivered the
+ * request, which would fail at once on its own full partition.
+ */
+public class InProcessSagaParticipants implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessSagaParticipants.class);
+
+    private final InProcessEventTransport eventTransport;
+    private final Settings settings;
+    private final ScheduledExecutorService replyScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("in-process-participants").daemon().factory());
+    private final Map<String, Money> amounts = new ConcurrentHashMap<>();
+
+    public InProcessSagaParticipants(InProcessEventTransport eventTransport, Settings settings) {
+        if (settings.latency().isNegative()) {
+            throw new IllegalArgumentException(
+                    "order.transport.in-process.participants.latency must not be negative, got " + settings.latency());
+        }
+        requireRatio("inventory-failure-ratio", settings.inventoryFailureRatio());
+        requireRatio("payment-failure-ratio", settings.paymentFailureRatio());
+        this.eventTransport = eventTransport;
+        this.settings = settings;
+    }
+
+    private static void requireRatio(String name, double ratio) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException(
+                    "order.transport.in-process.participants." + name + " must be between 0 and 1, got " + ratio);
+        }
+    }
+
+    /**
+     * Subscribes to {@code order-events}; call before the transport starts.
+     */
+    public void subscribe(String group) {
+        eventTransport.subscribe(KafkaConfig.ORDER_EVENTS_TOPIC, group, OrderEvent.class,
+                (event, delivery, acknowledgment) -> {
+                    amounts.put(event.getAggregateId(), event.getTotalAmount());
+                    onOrderEvent(event.getEventType(), event.getSagaId(), event.getAggregateId());
+                });
+        eventTransport.subscribe(KafkaConfig.ORDER_EVENTS_TOPIC, group, OrderTransitionEvent.class,
+                (event, delivery, acknowledgment) ->
+                        onOrderEvent(event.getEventType(), event.getSagaId(), event.getAggregateId()));
+    }
+
+    private void onOrderEvent(String eventType, String sagaId, String orderId) {
+        switch (OrderEventType.valueOf(eventType)) {
+            case ORDER_CREATED -> replyLater(() -> replyInventory(sagaId, orderId));
+            case ORDER_PAYMENT_PROCESSING -> replyLater(() -> replyPayment(sagaId, orderId));
+            case ORDER_COMPLETED, ORDER_COMPENSATION_STARTED, ORDER_CANCELLED -> amounts.remove(orderId);
+            default -> { }
+        }
+    }
+
+    private void replyInventory(String sagaId, String orderId) {
+        boolean fail = fails(settings.inventoryFailureRatio());
+        InventoryEvent reply = new InventoryEvent(
+                UUID.randomUUID().toString(),
+                sagaId,
+                orderId,
+                fail ? InventoryEventType.INVENTORY_RESERVATION_FAILED : InventoryEventType.INVENTORY_RESERVED,
+                fail ? "Out of stock (in-process participant)" : null
+        );
+        eventTransport.send(KafkaConfig.INVENTORY_EVENTS_TOPIC, sagaId, reply);
+    }
+
+    private void replyPayment(String sagaId, String orderId) {
+        boolean fail = fails(settings.paymentFailureRatio());
+        PaymentEvent reply = new PaymentEvent(
+                UUID.randomUUID().toString(),
+                sagaId,
+                orderId,
+                fail ? PaymentEventType.PAYMENT_FAILED : PaymentEventType.PAYMENT_COMPLETED,
+                fail ? null : UUID.randomUUID().toString(),
+                amounts.get(orderId),
+                fail ? "Card declined (in-process participant)" : null
+        );
+        eventTransport.send(KafkaConfig.PAYMENT_EVENTS_TOPIC, sagaId, reply);
+    }
+
+    private void replyLater(Runnable reply) {
+        replyScheduler.schedule(() -> {
+            try {
+                reply.run();
+            } catch (RuntimeException ex) {
+                // The saga stays where it is, as it would when a participant loses the request
+                log.atError().setCause(ex).log("In-process participant reply failed");
+            }
+        }, settings.latency().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean fails(double ratio) {
+        return ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        replyScheduler.shutdown();
+        replyScheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public record Settings(Duration latency, double inventoryFailureRatio, double paymentFailureRatio) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.orderprocessing.order.transport;
+
+import com.orderprocessing.order.tracing.TransactionTrace;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link EventTransport} over the service's {@link KafkaTemplate}. Inside a Kafka transaction
+ * (exactly-once saga replies) the send joins it.
+ */
+public class KafkaEventTransport implements EventTransport {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public KafkaEventTransport(KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, Object event) {
+        // Send failures are logged once by the template's producer listener, not per send.
+        // Inside a transaction a send blocked on broker metadata holds the connection
+        return TransactionTrace.external("kafka " + topic, () -> kafkaTemplate.send(topic, key, event));
+    }
+}
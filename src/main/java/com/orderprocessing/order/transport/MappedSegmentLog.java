@@ -0,0 +1,294 @@
+package com.orderprocessing.order.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log in memory-mapped segment files, plus a mapped checkpoint holding the next
+ * offset to deliver: the journal of an in-process bus partition and the Kafka send spool.
+ * <p>
+ * Offsets number the records densely from 0, and each segment file is named after the offset of
+ * its first record. A record is its length followed by the payload; the length is written last,
+ * so a record torn by a crash reads as the end of the log. Appends land in the page cache, which
+ * survives a crash of the process but not of the machine; segments are forced to disk when they
+ * are rolled and on close. Segments whose records are all below the checkpoint are deleted; an
+ * optional segment limit bounds the disk the log may use.
+ */
+final class MappedSegmentLog implements Closeable {
+
+    private static final String SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final MappedByteBuffer checkpoint;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private Segment active;
+    private long nextOffset;
+    // End offset of the oldest rolled segment, MAX_VALUE if none; lets commit() skip the lock
+    private volatile long oldestRolledEnd = Long.MAX_VALUE;
+
+    private MappedSegmentLog(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.checkpoint = map(directory.resolve(CHECKPOINT), Long.BYTES);
+    }
+
+    static MappedSegmentLog open(Path directory, int segmentBytes) throws IOException {
+        return open(directory, segmentBytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Opens a log that keeps at most {@code maxSegments} segment files, at least two: the active
+     * segment is never deleted, so a single one could not take appends again once full.
+     */
+    static MappedSegmentLog open(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        if (maxSegments < 2) {
+            throw new IllegalArgumentException("A journal needs at least two segments, not " + maxSegments);
+        }
+        Files.createDirectories(directory);
+        MappedSegmentLog log = new MappedSegmentLog(directory, segmentBytes, maxSegments);
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(MappedSegmentLog::baseOffsetOf))
+                    .toList();
+        }
+        for (Path file : files) {
+            Segment segment = new Segment(file, baseOffsetOf(file), map(file, segmentBytes));
+            segment.scan();
+            segments.addLast(segment);
+        }
+        if (segments.isEmpty()) {
+            // Everything was delivered and deleted: continue numbering from the checkpoint
+            segments.addLast(newSegment(committed()));
+        }
+        active = segments.peekLast();
+        nextOffset = active.baseOffset + active.records;
+        updateOldestRolledEnd();
+    }
+
+    /**
+     * Appends a record and returns its offset, or -1 if it needs a new segment and the log already
+     * has {@code maxSegments}.
+     */
+    synchronized long append(byte[] payload) {
+        int recordBytes = Integer.BYTES + payload.length;
+        if (recordBytes + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds the journal segment size");
+        }
+        // Keep room for the zero length that ends a segment
+        if (active.position + recordBytes + Integer.BYTES > segmentBytes) {
+            if (segments.size() >= maxSegments) {
+                return -1;
+            }
+            roll();
+        }
+        active.buffer.put(active.position + Integer.BYTES, payload);
+        active.buffer.putInt(active.position, payload.length);
+        active.position += recordBytes;
+        active.records++;
+        return nextOffset++;
+    }
+
+    private void roll() {
+        active.buffer.force();
+        try {
+            active = newSegment(nextOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment in " + directory, e);
+        }
+        segments.addLast(active);
+        updateOldestRolledEnd();
+    }
+
+    /**
+     * Returns a reader positioned at {@code offset}, which must not be below {@link #committed()}.
+     * The reader also sees the records appended after it was created.
+     */
+    synchronized Reader reader(long offset) {
+        if (offset > nextOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is past the end of the log at " + nextOffset);
+        }
+        Reader reader = new Reader();
+        reader.segment = segmentOf(offset);
+        reader.offset = reader.segment.baseOffset;
+        while (reader.offset < offset) {
+            reader.position += Integer.BYTES + reader.segment.buffer.getInt(reader.position);
+            reader.offset++;
+        }
+        return reader;
+    }
+
+    // The segment holding offset, or the active one at the end of the log; under the lock
+    private Segment segmentOf(long offset) {
+        for (Segment segment : segments) {
+            if (offset < segment.baseOffset + segment.records) {
+                if (offset < segment.baseOffset) {
+                    throw new IllegalArgumentException("Offset " + offset + " was already deleted from " + directory);
+                }
+                return segment;
+            }
+        }
+        return active;
+    }
+
+    long committed() {
+        return checkpoint.getLong(0);
+    }
+
+    /**
+     * Records that everything below {@code nextOffset} has been delivered. Consumer thread only.
+     */
+    void commit(long nextOffset) {
+        checkpoint.putLong(0, nextOffset);
+        if (nextOffset >= oldestRolledEnd) {
+            deleteDelivered(nextOffset);
+        }
+    }
+
+    private synchronized void deleteDelivered(long committed) {
+        while (segments.size() > 1) {
+            Segment oldest = segments.peekFirst();
+            if (oldest.baseOffset + oldest.records > committed) {
+                break;
+            }
+            segments.removeFirst();
+            try {
+                // Still mapped until the buffer is collected; the file goes away now
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete journal segment " + oldest.path, e);
+            }
+        }
+        updateOldestRolledEnd();
+    }
+
+    private void updateOldestRolledEnd() {
+        Segment oldest = segments.peekFirst();
+        oldestRolledEnd = segments.size() > 1 ? oldest.baseOffset + oldest.records : Long.MAX_VALUE;
+    }
+
+    synchronized long endOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Disk used by the segment files, which are allocated at full size.
+     */
+    synchronized long sizeBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        active.buffer.force();
+        checkpoint.force();
+    }
+
+    // ==================== FILES ====================
+
+    private Segment newSegment(long baseOffset) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+        return new Segment(file, baseOffset, map(file, segmentBytes));
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+    }
+
+    private static long baseOffsetOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Reads the records in offset order. One thread at a time.
+     */
+    final class Reader {
+        private Segment segment;
+        private int position;
+        private long offset;
+
+        private Reader() {
+        }
+
+        /**
+         * Offset of the record {@link #next()} returns.
+         */
+        long offset() {
+            return offset;
+        }
+
+        /**
+         * Returns the next record, or null if the reader is at the end of the log.
+         */
+        byte[] next() {
+            synchronized (MappedSegmentLog.this) {
+                if (offset >= nextOffset) {
+                    return null;
+                }
+                if (offset == segment.baseOffset + segment.records) {
+                    // Past the last record of a rolled segment, which may already be deleted
+                    segment = segmentOf(offset);
+                    position = 0;
+                }
+                int length = segment.buffer.getInt(position);
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + Integer.BYTES, payload);
+                position += Integer.BYTES + length;
+                offset++;
+                return payload;
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long baseOffset;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long records;
+
+        private Segment(Path path, long baseOffset, MappedByteBuffer buffer) {
+            this.path = path;
+            this.baseOffset = baseOffset;
+            this.buffer = buffer;
+        }
+
+        // Finds the end of the records written before a restart
+        private void scan() {
+            while (position + Integer.BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + Integer.BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                position += Integer.BYTES + length;
+                records++;
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.orderprocessing.order.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link KafkaEventTransport} that keeps accepting events while the broker is unreachable, by
+ * appending them to a {@link MappedSegmentLog} spool on local disk instead of waiting in the
+ * producer.
+ * <p>
+ * A send that fails with a retriable error (the producer's {@code max.block.ms} or delivery
+ * timeout) is spooled, and from then on every send goes to the spool, so order intake pays an
+ * append to the page cache rather than the producer's block. A drain thread replays the spool to
+ * Kafka in batches, in spool order, backing off between attempts while the broker is down, and
+ * sends go to Kafka directly again once the spool is empty. Delivery is at least once: a batch that
+ * fails part way is replayed from its first failed event. Events that failed in flight are spooled
+ * behind the ones accepted after them, so consumers may see those out of order; order events carry
+ * their version for that.
+ * <p>
+ * The spool survives a restart and is drained on startup. At {@code max-size} it is full and
+ * sends fail. Sends inside a Kafka transaction (exactly-once saga replies) are never spooled.
+ */
+public class SpoolingKafkaEventTransport extends KafkaEventTransport implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolingKafkaEventTransport.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventCodec codec;
+    private final Settings settings;
+    private final MappedSegmentLog spool;
+    private final Object spoolLock = new Object();
+    private final Counter spooled;
+    private final Counter replayed;
+    private final Counter dropped;
+
+    private volatile boolean spooling;
+    private volatile boolean running;
+    private volatile Thread drainThread;
+
+    public SpoolingKafkaEventTransport(KafkaTemplate<String, Object> kafkaTemplate, Settings settings,
+                                       ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(kafkaTemplate);
+        this.kafkaTemplate = kafkaTemplate;
+        this.codec = new EventCodec(objectMapper);
+        this.settings = settings;
+        try {
+            this.spool = MappedSegmentLog.open(settings.directory(), settings.segmentBytes(),
+                    (int) Math.min(Integer.MAX_VALUE, settings.maxBytes() / settings.segmentBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the Kafka spool in " + settings.directory(), e);
+        }
+        // Left over from before a restart: keep new sends behind it
+        this.spooling = depth() > 0;
+
+        this.spooled = Counter.builder("orders.transport.spool.spooled")
+                .description("Events written to the local spool instead of Kafka")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("orders.transport.spool.replayed")
+                .description("Spooled events delivered to Kafka")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("orders.transport.spool.dropped")
+                .description("Spooled events Kafka rejected as non-retriable")
+                .register(meterRegistry);
+        Gauge.builder("orders.transport.spool.depth", this, SpoolingKafkaEventTransport::depth)
+                .description("Events in the local spool waiting for Kafka")
+                .register(meterRegistry);
+        Gauge.builder("orders.transport.spool.bytes", spool, MappedSegmentLog::sizeBytes)
+                .description("Disk used by the local spool")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("orders.transport.spool.active", this, transport -> transport.spooling ? 1 : 0)
+                .description("1 while sends go to the local spool")
+                .register(meterRegistry);
+    }
+
+    // ==================== SEND ====================
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, Object event) {
+        if (kafkaTemplate.inTransaction()) {
+            return super.send(topic, key, event);
+        }
+        if (spooling) {
+            synchronized (spoolLock) {
+                // Re-checked under the lock the drain thread switches back under
+                if (spooling) {
+                    append(topic, key, event);
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+        }
+        CompletableFuture<?> future;
+        try {
+            future = super.send(topic, key, event);
+        } catch (RuntimeException e) {
+            if (!isRetriable(e)) {
+                throw e;
+            }
+            spool(topic, key, event, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return future.handle((result, e) -> {
+            if (e == null) {
+                return result;
+            }
+            if (!isRetriable(e)) {
+                throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+            }
+            spool(topic, key, event, e);
+            return null;
+        });
+    }
+
+    private void spool(String topic, String key, Object event, Throwable cause) {
+        synchronized (spoolLock) {
+            if (!spooling) {
+                spooling = true;
+                log.atWarn()
+                        .addKeyValue("topic", topic)
+                        .addKeyValue("cause", cause.toString())
+                        .log("Kafka unavailable, spooling events to {}", settings.directory());
+            }
+            append(topic, key, event);
+        }
+        LockSupport.unpark(drainThread);
+    }
+
+    // Under spoolLock, so the spool order is the order sends were accepted in
+    private void append(String topic, String key, Object event) {
+        if (spool.append(codec.encode(topic, key, event)) < 0) {
+            throw new IllegalStateException("Kafka spool in " + settings.directory() + " is full at " + settings.maxBytes() + " bytes");
+        }
+        spooled.increment();
+    }
+
+    private static boolean isRetriable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long depth() {
+        return spool.endOffset() - spool.committed();
+    }
+
+    // ==================== DRAIN ====================
+
+    private void drain() {
+        MappedSegmentLog.Reader reader = spool.reader(spool.committed());
+        Duration backoff = settings.retryInterval();
+        while (running) {
+            long batchStart = reader.offset();
+            List<CompletableFuture<?>> batch = new ArrayList<>();
+            byte[] record;
+            while (batch.size() < settings.batchSize() && (record = reader.next()) != null) {
+                CompletableFuture<?> future = sendDirect(codec.decode(record, batchStart + batch.size()));
+                batch.add(future);
+                if (future.isCompletedExceptionally()) {
+                    break; // typically max.block.ms: the rest would each block as long
+                }
+            }
+            if (batch.isEmpty()) {
+                switchBackIfDrained(reader);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            long failedAt = awaitBatch(batchStart, batch);
+            if (failedAt < 0) {
+                spool.commit(reader.offset());
+                replayed.increment(batch.size());
+                backoff = settings.retryInterval();
+                continue;
+            }
+            spool.commit(failedAt);
+            replayed.increment(failedAt - batchStart);
+            reader = spool.reader(failedAt);
+            log.atWarn()
+                    .addKeyValue("spooled", depth())
+                    .log("Kafka still unavailable, retrying the spool in {}", backoff);
+            LockSupport.parkNanos(this, backoff.toNanos());
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+    }
+
+    private CompletableFuture<?> sendDirect(EventCodec.Decoded decoded) {
+        try {
+            return super.send(decoded.topic(), decoded.key(), decoded.event());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Offset of the first event to send again, -1 if the whole batch was delivered
+    private long awaitBatch(long batchStart, List<CompletableFuture<?>> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                batch.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return batchStart + i;
+            } catch (ExecutionException e) {
+                if (isRetriable(e.getCause())) {
+                    return batchStart + i;
+                }
+                // Would fail the same way forever, as it would have without the spool
+                log.atError()
+                        .addKeyValue("offset", batchStart + i)
+                        .setCause(e.getCause())
+                        .log("Dropping spooled event rejected by Kafka");
+                dropped.increment();
+            }
+        }
+        return -1;
+    }
+
+    private void switchBackIfDrained(MappedSegmentLog.Reader reader) {
+        if (!spooling) {
+            return;
+        }
+        synchronized (spoolLock) {
+            if (reader.offset() == spool.endOffset()) {
+                spooling = false;
+                log.info("Kafka spool drained, sending to Kafka directly again");
+            }
+        }
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    @Override
+    public void start() {
+        running = true;
+        drainThread = new Thread(this::drain, "kafka-spool-drain");
+        drainThread.setDaemon(true);
+        drainThread.start();
+        if (spooling) {
+            log.info("Kafka spool in {} holds {} events from before the restart, draining", settings.directory(), depth());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = drainThread;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(settings.retryInterval().toMillis() + TimeUnit.NANOSECONDS.toMillis(IDLE_PARK_NANOS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever is left is drained after the next start
+        spool.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server, so requests in flight can still spool
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 2048;
+    }
+
+    /**
+     * Spool configuration. {@code maxBytes} is rounded down to whole segments and must hold at
+     * least two: a segment is only reclaimed once the spool has rolled past it.
+     */
+    public record Settings(
+            Path directory,
+            int segmentBytes,
+            long maxBytes,
+            int batchSize,
+            Duration retryInterval) {
+
+        public Settings {
+            if (segmentBytes <= 0 || maxBytes / segmentBytes < 2) {
+                throw new IllegalArgumentException("order.transport.spool.max-size (" + maxBytes
+                        + " bytes) must hold at least two segments of order.transport.spool.segment-size ("
+                        + segmentBytes + " bytes)");
+            }
+        }
+    }
+}
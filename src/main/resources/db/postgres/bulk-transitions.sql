@@ -0,0 +1,25 @@
+-- PostgreSQL schema for bulk transition jobs (BulkTransitionService).
+--
+-- Required with ddl-auto=validate (prod profile); with sharding, on shard 0 only. One row per job,
+-- updated with its progress after every chunk.
+
+CREATE TABLE IF NOT EXISTS bulk_transition_jobs (
+    id                  VARCHAR(36)    NOT NULL PRIMARY KEY,
+    from_statuses       VARCHAR(255)   NOT NULL,
+    target_status       VARCHAR(255)   NOT NULL,
+    customer_id         VARCHAR(255),
+    created_before      TIMESTAMP(6) WITH TIME ZONE,
+    reason              VARCHAR(255),
+    rate_per_second     INTEGER        NOT NULL,
+    state               VARCHAR(16)    NOT NULL,
+    selected            BIGINT         NOT NULL,
+    transitioned        BIGINT         NOT NULL,
+    skipped             BIGINT         NOT NULL,
+    error               VARCHAR(1000),
+    created_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    finished_at         TIMESTAMP(6) WITH TIME ZONE,
+    version             BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_bulk_transition_jobs_created_at ON bulk_transition_jobs (created_at);
@@ -0,0 +1,15 @@
+-- PostgreSQL schema for Idempotency-Key handling of order creation (IdempotentOrderService).
+--
+-- Required with ddl-auto=validate (prod profile); with sharding, on every shard. Keys are scoped to
+-- the customer and purged after order.idempotency.ttl.
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id              VARCHAR(511)   NOT NULL PRIMARY KEY,
+    customer_id     VARCHAR(255)   NOT NULL,
+    request_hash    VARCHAR(64)    NOT NULL,
+    order_id        VARCHAR(255),
+    response        TEXT,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,24 @@
+-- PostgreSQL schema for the bulk importer's checkpoints (OrderBulkImporter).
+--
+-- Only needed where historical orders are imported with order.import.input. Both tables are keyed
+-- by the import id, so a failed import resumes from its committed chunks and restores the
+-- secondary indexes it dropped.
+
+-- One row per committed chunk, written in the same transaction as the chunk's COPY
+CREATE TABLE IF NOT EXISTS order_import_chunks (
+    import_id       VARCHAR(255)   NOT NULL,
+    chunk           BIGINT         NOT NULL,
+    orders          INTEGER        NOT NULL,
+    items           INTEGER        NOT NULL,
+    rejected        INTEGER        NOT NULL,
+    imported_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (import_id, chunk)
+);
+
+-- Secondary indexes of orders/order_items dropped for the import, rebuilt once it completes
+CREATE TABLE IF NOT EXISTS order_import_deferred_indexes (
+    import_id       VARCHAR(255)   NOT NULL,
+    index_name      VARCHAR(255)   NOT NULL,
+    definition      TEXT           NOT NULL,
+    PRIMARY KEY (import_id, index_name)
+);
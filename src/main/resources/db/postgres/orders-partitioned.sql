@@ -0,0 +1,69 @@
+-- PostgreSQL schema for the orders tables with time-based range partitioning.
+--
+-- Apply once per database before starting the service with ddl-auto=validate (prod profile) and
+-- order.partitioning.enabled=true. OrderPartitionMaintainer then keeps monthly partitions created
+-- ahead of time and drops old partitions once OrderArchiver has emptied them.
+--
+-- PostgreSQL requires the partition key in every unique constraint, so the primary key of
+-- "orders" is (id, created_at) and order_items cannot declare a foreign key to it; the order
+-- aggregate (cascade + orphan removal in JPA) keeps both tables consistent.
+
+CREATE TABLE IF NOT EXISTS orders (
+    id              VARCHAR(255)   NOT NULL,
+    customer_id     VARCHAR(255)   NOT NULL,
+    status          VARCHAR(255)   NOT NULL,
+    total_amount    NUMERIC(12, 2) NOT NULL,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at      TIMESTAMP(6) WITH TIME ZONE,
+    version         BIGINT,
+    saga_id         VARCHAR(255),
+    failure_reason  VARCHAR(255),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Rows outside every monthly partition (e.g. clock skew) still have somewhere to go
+CREATE TABLE IF NOT EXISTS orders_default PARTITION OF orders DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_orders_id ON orders (id);
+CREATE INDEX IF NOT EXISTS idx_orders_saga_id ON orders (saga_id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_created_at ON orders (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_orders_customer_id_created_at ON orders (customer_id, created_at DESC);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id        VARCHAR(255)   NOT NULL,
+    product_id      VARCHAR(255)   NOT NULL,
+    product_name    VARCHAR(255)   NOT NULL,
+    quantity        INTEGER        NOT NULL,
+    unit_price      NUMERIC(10, 2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
+
+-- Archive of terminal orders moved out of the hot tables by OrderArchiver
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id              VARCHAR(255)   NOT NULL PRIMARY KEY,
+    customer_id     VARCHAR(255)   NOT NULL,
+    status          VARCHAR(255)   NOT NULL,
+    total_amount    NUMERIC(12, 2) NOT NULL,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at      TIMESTAMP(6) WITH TIME ZONE,
+    version         BIGINT,
+    saga_id         VARCHAR(255),
+    failure_reason  VARCHAR(255),
+    archived_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_orders_archive_customer_id ON orders_archive (customer_id);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id              BIGINT         NOT NULL PRIMARY KEY,
+    order_id        VARCHAR(255)   NOT NULL REFERENCES orders_archive (id),
+    product_id      VARCHAR(255)   NOT NULL,
+    product_name    VARCHAR(255)   NOT NULL,
+    quantity        INTEGER        NOT NULL,
+    unit_price      NUMERIC(10, 2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_archive_order_id ON order_items_archive (order_id);
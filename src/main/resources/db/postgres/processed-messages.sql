@@ -0,0 +1,13 @@
+-- PostgreSQL schema for the exactly-once ledger (ProcessedMessageLedger).
+--
+-- Required with ddl-auto=validate (prod profile) whether or not order.kafka.exactly-once.enabled
+-- is set, since the entity is always mapped. Rows older than order.kafka.exactly-once.retention
+-- are purged by the service.
+
+CREATE TABLE IF NOT EXISTS processed_messages (
+    id              VARCHAR(255)   NOT NULL PRIMARY KEY,
+    processed_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    replies         TEXT           NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_messages_processed_at ON processed_messages (processed_at);
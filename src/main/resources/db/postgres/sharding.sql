@@ -0,0 +1,33 @@
+-- PostgreSQL schema for sharding orders by customer (order.sharding.enabled, ShardingConfig).
+--
+-- Run on every shard, after orders-partitioned.sql, processed-messages.sql and idempotency-keys.sql,
+-- with the shard's index from order.sharding.shards:
+--   psql -v shard=2 -f sharding.sql
+-- A customer's bucket is substr(md5(customer_id), 1, 3), 4096 buckets (ShardKeys).
+
+-- Bucket -> shard directory, read from shard 0 only; filled by the service on first start
+CREATE TABLE IF NOT EXISTS shard_buckets (
+    bucket          INTEGER        NOT NULL PRIMARY KEY,
+    shard           INTEGER        NOT NULL,
+    -- Set while BucketMover moves the bucket; its writes wait until the move completes
+    target_shard    INTEGER,
+    updated_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Whether this shard owns each bucket; filled from the directory on first start (ShardRouter).
+-- Write transactions hold their bucket's row FOR SHARE; BucketMover locks it FOR UPDATE and clears
+-- owned on the source before copying, so no write commits there after the copy was taken
+CREATE TABLE IF NOT EXISTS bucket_fences (
+    bucket          INTEGER        NOT NULL PRIMARY KEY,
+    owned           BOOLEAN        NOT NULL
+);
+
+-- BucketMover copies and deletes whole buckets
+CREATE INDEX IF NOT EXISTS idx_orders_bucket ON orders ((substr(md5(customer_id), 1, 3)));
+CREATE INDEX IF NOT EXISTS idx_orders_archive_bucket ON orders_archive ((substr(md5(customer_id), 1, 3)));
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_bucket ON idempotency_keys ((substr(md5(customer_id), 1, 3)));
+
+-- Item IDs stay unique across shards (second-level cache keys, moved rows keep their IDs):
+-- each shard generates them in its own range
+SELECT setval(pg_get_serial_sequence('order_items', 'id'),
+              GREATEST(:shard::bigint * 1000000000000000, (SELECT COALESCE(max(id), 1) FROM order_items)));
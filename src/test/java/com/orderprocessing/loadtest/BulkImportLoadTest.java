@@ -0,0 +1,135 @@
+package com.orderprocessing.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.importer.OrderBulkImporter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of {@link OrderBulkImporter} on a generated gzipped CSV of
+ * {@code loadtest.import.orders} orders (default 500k, three items each, one in a thousand
+ * invalid), then a second run of the same import to check that every committed chunk is skipped.
+ * <pre>
+ * ./mvnw -Pload-test test -Dtest=BulkImportLoadTest -Dloadtest.import.orders=2000000 -Dloadtest.import.parallelism=8
+ * </pre>
+ */
+@Tag("load")
+@Testcontainers
+class BulkImportLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportLoadTest.class);
+
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int INVALID_EVERY = 1000;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+            .withCommand("postgres", "-c", "max_wal_size=4GB", "-c", "max_parallel_maintenance_workers=4");
+
+    private static HikariDataSource dataSource;
+
+    @TempDir
+    static Path directory;
+
+    @BeforeAll
+    static void schema() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(16);
+        new ResourceDatabasePopulator(
+                new ClassPathResource("db/postgres/orders-partitioned.sql"),
+                new ClassPathResource("db/postgres/order-import.sql")).execute(dataSource);
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void importThroughput() throws Exception {
+        int orders = Integer.getInteger("loadtest.import.orders", 500_000);
+        int parallelism = Integer.getInteger("loadtest.import.parallelism", 4);
+        Path input = generate(directory.resolve("orders.csv.gz"), orders);
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        OrderBulkImporter importer = new OrderBulkImporter(dataSource, objectMapper,
+                new OrderBulkImporter.Settings(10_000, parallelism, true, DataSize.ofMegabytes(512)));
+
+        OrderBulkImporter.Result result = importer.importOrders(input, "load-test");
+        long rowsPerHour = (long) ((result.orders() + result.items()) * 3600.0 / result.elapsed().toMillis() * 1000);
+        log.warn("Imported {} orders and {} items in {} ({} rows/hour, {} rejected)",
+                result.orders(), result.items(), result.elapsed(), rowsPerHour, result.rejected());
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        int invalid = orders / INVALID_EVERY;
+        assertThat(result.complete()).isTrue();
+        assertThat(result.rejected()).isEqualTo(invalid);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM orders", Long.class)).isEqualTo(orders - invalid);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM order_items", Long.class))
+                .isEqualTo((long) (orders - invalid) * ITEMS_PER_ORDER);
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = 'orders'", String.class))
+                .contains("idx_orders_saga_id", "idx_orders_customer_id_created_at");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM order_import_deferred_indexes", Long.class)).isZero();
+
+        // Every chunk is committed, so a rerun copies nothing
+        OrderBulkImporter.Result rerun = importer.importOrders(input, "load-test");
+        assertThat(rerun.complete()).isTrue();
+        assertThat(rerun.orders()).isEqualTo(result.orders());
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM orders", Long.class)).isEqualTo(orders - invalid);
+    }
+
+    private static Path generate(Path file, int orders) throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        List<OrderStatus> statuses = List.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+        Instant start = Instant.parse("2019-01-01T00:00:00Z");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("order_id,customer_id,status,created_at,updated_at,saga_id,product_id,product_name,quantity,unit_price\n");
+            for (int i = 0; i < orders; i++) {
+                Instant createdAt = start.plus(random.nextLong(5 * 365 * 24 * 3600L), ChronoUnit.SECONDS);
+                String prefix = "legacy-" + i + ",customer-" + random.nextInt(100_000) + ","
+                        + statuses.get(random.nextInt(statuses.size())) + "," + createdAt + ","
+                        + createdAt.plusSeconds(90) + ",saga-" + i + ",";
+                for (int item = 0; item < ITEMS_PER_ORDER; item++) {
+                    // Quantity 0 breaks the invariants, so the order is rejected
+                    int quantity = i % INVALID_EVERY == INVALID_EVERY - 1 ? 0 : 1 + random.nextInt(5);
+                    out.write(prefix + "product-" + random.nextInt(10_000) + ",\"Product, size " + item + "\","
+                            + quantity + "," + (1 + random.nextInt(500)) + "." + random.nextInt(10) + "9\n");
+                }
+            }
+        }
+        return file;
+    }
+}
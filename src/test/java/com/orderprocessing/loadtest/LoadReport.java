@@ -0,0 +1,61 @@
+package com.orderprocessing.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Machine-readable result of one load-test run, written as JSON so runs can be diffed
+ * against a stored baseline.
+ */
+public record LoadReport(
+        Instant startedAt,
+        String variant,
+        LoadTestSettings settings,
+        SagaLatencyRecorder.Summary sagas,
+        Map<String, Object> database,
+        Map<String, Object> kafka,
+        Map<String, Object> jvm
+) {
+
+    public void writeTo(Path path) throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        mapper.writeValue(path.toFile(), this);
+    }
+
+    public record Percentiles(
+            long count,
+            double mean,
+            long p50,
+            long p90,
+            long p99,
+            long p999,
+            long max
+    ) {
+        public static Percentiles of(Histogram histogram) {
+            return new Percentiles(
+                    histogram.getTotalCount(),
+                    histogram.getMean(),
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue()
+            );
+        }
+    }
+}
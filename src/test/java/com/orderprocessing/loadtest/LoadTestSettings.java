@@ -0,0 +1,72 @@
+package com.orderprocessing.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load-test knobs, read from system properties so runs can be repeated from the command line:
+ * <pre>
+ * ./mvnw -Pload-test test -Dloadtest.rate=200 -Dloadtest.duration=60 -Dloadtest.payment.failure-ratio=0.05
+ * </pre>
+ * With {@code loadtest.poll-interval-ms > 0} every accepted order is also polled with
+ * {@code GET /api/v1/orders/{id}} until it is terminal, like a client waiting for its confirmation.
+ * {@code loadtest.exactly-once=true} runs the service with {@code order.kafka.exactly-once.enabled}
+ * and reports it as variant {@code mvc-exactly-once}.
+ */
+public record LoadTestSettings(
+        int ratePerSecond,
+        Duration duration,
+        Duration drainTimeout,
+        Duration inventoryLatency,
+        double inventoryFailureRatio,
+        Duration paymentLatency,
+        double paymentFailureRatio,
+        int customers,
+        int itemsPerOrder,
+        long seed,
+        Duration pollInterval,
+        boolean exactlyOnce,
+        Path reportPath
+) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.rate", 50),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 30L)),
+                Duration.ofSeconds(Long.getLong("loadtest.drain-timeout", 30L)),
+                Duration.ofMillis(Long.getLong("loadtest.inventory.latency-ms", 20L)),
+                doubleProperty("loadtest.inventory.failure-ratio", 0.02),
+                Duration.ofMillis(Long.getLong("loadtest.payment.latency-ms", 50L)),
+                doubleProperty("loadtest.payment.failure-ratio", 0.05),
+                Integer.getInteger("loadtest.customers", 1000),
+                Integer.getInteger("loadtest.items-per-order", 3),
+                Long.getLong("loadtest.seed", 42L),
+                Duration.ofMillis(Long.getLong("loadtest.poll-interval-ms", 0L)),
+                Boolean.getBoolean("loadtest.exactly-once"),
+                Path.of(System.getProperty("loadtest.report", "target/load-report.json"))
+        );
+    }
+
+    public boolean polling() {
+        return !pollInterval.isZero();
+    }
+
+    /**
+     * {@link #reportPath()} for the MVC service; other variants get a {@code -<variant>} suffix.
+     */
+    public Path reportPath(String variant) {
+        if ("mvc".equals(variant)) {
+            return reportPath;
+        }
+        String fileName = reportPath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String suffixed = dot < 0 ? fileName + "-" + variant
+                : fileName.substring(0, dot) + "-" + variant + fileName.substring(dot);
+        return reportPath.resolveSibling(suffixed);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,161 @@
+package com.orderprocessing.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop generator posting orders to {@code POST /api/v1/orders} at a fixed rate.
+ * Requests are sent on schedule regardless of how long earlier ones take, and latency is
+ * measured from the scheduled send time.
+ * <p>
+ * When polling is enabled each accepted order gets its own client polling
+ * {@code GET /api/v1/orders/{id}} until the order is terminal.
+ */
+public class OrderLoadGenerator implements AutoCloseable {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "CANCELLED", "COMPENSATING");
+
+    private final URI ordersUri;
+    private final LoadTestSettings settings;
+    private final SagaLatencyRecorder recorder;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private volatile boolean polling = true;
+
+    public OrderLoadGenerator(String baseUrl, LoadTestSettings settings, SagaLatencyRecorder recorder) {
+        this.ordersUri = URI.create(baseUrl + "/api/v1/orders");
+        this.settings = settings;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Sends {@code rate * duration} requests and waits for all responses.
+     */
+    public void run() throws JsonProcessingException {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        long intervalNanos = 1_000_000_000L / settings.ratePerSecond();
+        long total = settings.ratePerSecond() * settings.duration().toSeconds();
+        ConcurrentLinkedQueue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            byte[] body = objectMapper.writeValueAsBytes(nextRequest(random));
+            long intendedStart = start + i * intervalNanos;
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.add(send(body, intendedStart));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<?> send(byte[] body, long intendedStart) {
+        HttpRequest request = HttpRequest.newBuilder(ordersUri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        recorder.recordSubmitted();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenAccept(response -> {
+                    long now = System.nanoTime();
+                    if (response.statusCode() != 201) {
+                        recorder.recordRejected();
+                        return;
+                    }
+                    try {
+                        JsonNode order = objectMapper.readTree(response.body());
+                        String orderId = order.get("id").asText();
+                        recorder.recordCreated(orderId, intendedStart, now);
+                        if (settings.polling()) {
+                            recorder.recordPollerStarted();
+                            pollLater(orderId);
+                        }
+                    } catch (java.io.IOException ex) {
+                        recorder.recordRejected();
+                    }
+                })
+                .exceptionally(ex -> {
+                    recorder.recordRejected();
+                    return null;
+                });
+    }
+
+    private void pollLater(String orderId) {
+        CompletableFuture.runAsync(() -> poll(orderId),
+                CompletableFuture.delayedExecutor(settings.pollInterval().toNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    private void poll(String orderId) {
+        if (!polling) {
+            recorder.recordPollerFinished();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ordersUri + "/" + orderId))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long sent = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, ex) -> {
+                    recorder.recordPoll(sent, System.nanoTime());
+                    if (response != null && response.statusCode() == 200 && isTerminal(response.body())) {
+                        recorder.recordPollerFinished();
+                    } else {
+                        pollLater(orderId);
+                    }
+                });
+    }
+
+    private boolean isTerminal(byte[] body) {
+        try {
+            return TERMINAL_STATUSES.contains(objectMapper.readTree(body).path("status").asText());
+        } catch (java.io.IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops pollers of sagas that have not finished yet.
+     */
+    @Override
+    public void close() {
+        polling = false;
+    }
+
+    private CreateOrderRequest nextRequest(SplittableRandom random) {
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>(settings.itemsPerOrder());
+        for (int i = 0; i < settings.itemsPerOrder(); i++) {
+            int product = random.nextInt(10_000);
+            items.add(new CreateOrderRequest.OrderItemRequest(
+                    "PROD-" + product,
+                    "Product " + product,
+                    1 + random.nextInt(5),
+                    BigDecimal.valueOf(100 + random.nextInt(99_900), 2)
+            ));
+        }
+        return new CreateOrderRequest("CUST-" + random.nextInt(settings.customers()), items);
+    }
+}
@@ -0,0 +1,108 @@
+package com.orderprocessing.loadtest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.TestSocketUtils;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link SagaLoadTest} against the WebFlux/R2DBC/reactor-kafka variant in
+ * {@code order-service-reactive}, with the same generator, stub participants and report.
+ * <p>
+ * Build the jar first ({@code cd order-service-reactive && ../mvnw package}); the report goes to
+ * {@code target/load-report-reactive.json}. Child JVM options: {@code -Dloadtest.reactive.jvm-args}.
+ */
+@Tag("load")
+@Testcontainers
+class ReactiveSagaLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveSagaLoadTest.class);
+
+    private static final Path JAR = Path.of(System.getProperty("loadtest.reactive.jar",
+            "order-service-reactive/target/order-service-reactive-1.0.0-SNAPSHOT.jar"));
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+
+    @Container
+    static final KafkaContainer kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    @BeforeAll
+    static void createTopics() throws Exception {
+        SagaLoadTest.createTopics(kafka.getBootstrapServers());
+    }
+
+    @Test
+    void sagaThroughputReactive() throws Exception {
+        assumeTrue(Files.isRegularFile(JAR), "Reactive service jar not built: " + JAR.toAbsolutePath());
+
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        SagaLatencyRecorder recorder = new SagaLatencyRecorder();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        Map<String, String> properties = Map.of(
+                "spring.r2dbc.url", "r2dbc:postgresql://" + postgres.getHost() + ":"
+                        + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName(),
+                "spring.r2dbc.username", postgres.getUsername(),
+                "spring.r2dbc.password", postgres.getPassword(),
+                "spring.kafka.bootstrap-servers", kafka.getBootstrapServers(),
+                // Keep logging out of the measurement
+                "logging.level.com.orderprocessing", "WARN");
+        List<String> jvmArgs = Arrays.stream(System.getProperty("loadtest.reactive.jvm-args", "").split(" "))
+                .filter(arg -> !arg.isBlank())
+                .toList();
+        Instant startedAt = Instant.now();
+
+        try (ReactiveServiceProcess service = new ReactiveServiceProcess(JAR, jvmArgs, properties,
+                     TestSocketUtils.findAvailableTcpPort());
+             StubSagaParticipants participants = new StubSagaParticipants(kafka.getBootstrapServers(), settings, recorder);
+             ResourceUsageSampler database = new ResourceUsageSampler(new SimpleMeterRegistry(), jdbcTemplate, null);
+             OrderLoadGenerator generator = new OrderLoadGenerator(service.baseUrl(), settings, recorder)) {
+
+            service.awaitHealthy(Duration.ofSeconds(60));
+            participants.start(Duration.ofSeconds(30));
+            database.start();
+            service.startSampling();
+
+            generator.run();
+            SagaLoadTest.awaitSagas(recorder, settings.drainTimeout());
+
+            LoadReport report = new LoadReport(
+                    startedAt,
+                    "reactive",
+                    settings,
+                    recorder.summarize(),
+                    database.databaseUsage(),
+                    Map.of(),
+                    service.jvmUsage()
+            );
+            Path reportPath = settings.reportPath("reactive");
+            report.writeTo(reportPath);
+            log.warn("Load report written to {}: {} sagas finished, {}/s",
+                    reportPath.toAbsolutePath(), report.sagas().finished(), report.sagas().sagasPerSecond());
+
+            assertThat(report.sagas().finished()).isPositive();
+        }
+    }
+}
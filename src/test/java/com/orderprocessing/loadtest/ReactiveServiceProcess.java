@@ -0,0 +1,123 @@
+package com.orderprocessing.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@code order-service-reactive} jar as a child JVM for the load test and samples its
+ * resident memory, CPU time and thread count, so both variants are compared on whole-process use.
+ */
+public class ReactiveServiceProcess implements AutoCloseable {
+
+    private final Process process;
+    private final Path log;
+    private final int port;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile long maxResidentBytes;
+    private volatile long maxThreads;
+    private Duration cpuBefore = Duration.ZERO;
+
+    public ReactiveServiceProcess(Path jar, List<String> jvmArgs, Map<String, String> properties, int port)
+            throws IOException {
+        this.port = port;
+        this.log = Files.createTempFile("order-service-reactive", ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        command.add("--server.port=" + port);
+        properties.forEach((name, value) -> command.add("--" + name + "=" + value));
+
+        this.process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    public void awaitHealthy(Duration timeout) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health")).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Reactive service exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Reactive service not healthy within " + timeout + ", see " + log);
+    }
+
+    public void startSampling() {
+        cpuBefore = cpuTime();
+        sampler.scheduleAtFixedRate(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        maxResidentBytes = Math.max(maxResidentBytes, ResourceUsageSampler.residentBytes(process.pid()));
+        maxThreads = Math.max(maxThreads, threads());
+    }
+
+    public Map<String, Object> jvmUsage() {
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("pid", process.pid());
+        jvm.put("maxResidentBytes", maxResidentBytes);
+        jvm.put("maxThreads", maxThreads);
+        jvm.put("cpuMillis", cpuTime().minus(cpuBefore).toMillis());
+        jvm.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        jvm.put("log", log.toString());
+        return jvm;
+    }
+
+    private Duration cpuTime() {
+        return process.toHandle().info().totalCpuDuration().orElse(Duration.ZERO);
+    }
+
+    private long threads() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(process.pid()), "status"))) {
+                if (line.startsWith("Threads:")) {
+                    return Long.parseLong(line.substring("Threads:".length()).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            // not Linux, or the process is gone
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sampler.shutdownNow();
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
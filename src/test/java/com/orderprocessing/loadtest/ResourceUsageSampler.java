@@ -0,0 +1,154 @@
+package com.orderprocessing.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples DB pool, PostgreSQL, Kafka producer and JVM resource use while the load runs.
+ * <p>
+ * For a service running in another process only PostgreSQL is sampled here (pass an empty
+ * registry and no template); {@link ReactiveServiceProcess} reports that process' JVM.
+ */
+public class ResourceUsageSampler implements AutoCloseable {
+
+    private static final String PG_STATS_SQL = """
+            SELECT xact_commit, xact_rollback, blks_read, blks_hit,
+                   tup_returned, tup_fetched, tup_inserted, tup_updated
+            FROM pg_stat_database WHERE datname = current_database()
+            """;
+
+    private static final Set<String> PRODUCER_METRICS = Set.of(
+            "record-send-rate", "record-send-total", "request-latency-avg", "request-latency-max",
+            "batch-size-avg", "records-per-request-avg", "buffer-available-bytes",
+            "bufferpool-wait-time-ns-total", "outgoing-byte-total", "record-error-total");
+
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+
+    private Map<String, Object> pgStatsBefore = Map.of();
+    private volatile double maxActiveConnections;
+    private volatile double maxPendingConnections;
+    private volatile double maxProcessCpuLoad;
+    private volatile long maxHeapUsed;
+    private volatile long maxResidentBytes;
+
+    public ResourceUsageSampler(MeterRegistry meterRegistry, JdbcTemplate jdbcTemplate,
+                                KafkaTemplate<String, Object> kafkaTemplate) {
+        this.meterRegistry = meterRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void start() {
+        pgStatsBefore = jdbcTemplate.queryForMap(PG_STATS_SQL);
+        sampler.scheduleAtFixedRate(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        maxActiveConnections = Math.max(maxActiveConnections, gauge("hikaricp.connections.active"));
+        maxPendingConnections = Math.max(maxPendingConnections, gauge("hikaricp.connections.pending"));
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            maxProcessCpuLoad = Math.max(maxProcessCpuLoad, os.getProcessCpuLoad());
+        }
+        maxHeapUsed = Math.max(maxHeapUsed, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        maxResidentBytes = Math.max(maxResidentBytes, residentBytes(ProcessHandle.current().pid()));
+    }
+
+    public Map<String, Object> databaseUsage() {
+        Map<String, Object> db = new LinkedHashMap<>();
+        db.put("maxActiveConnections", maxActiveConnections);
+        db.put("maxPendingConnections", maxPendingConnections);
+
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire != null) {
+            db.put("connectionAcquireMeanMillis", acquire.mean(TimeUnit.MILLISECONDS));
+            db.put("connectionAcquireMaxMillis", acquire.max(TimeUnit.MILLISECONDS));
+        }
+        Timer usage = meterRegistry.find("hikaricp.connections.usage").timer();
+        if (usage != null) {
+            db.put("connectionUsageMeanMillis", usage.mean(TimeUnit.MILLISECONDS));
+            db.put("connectionUsageMaxMillis", usage.max(TimeUnit.MILLISECONDS));
+        }
+
+        Map<String, Object> after = jdbcTemplate.queryForMap(PG_STATS_SQL);
+        Map<String, Object> delta = new LinkedHashMap<>();
+        after.forEach((column, value) -> delta.put(column,
+                ((Number) value).longValue() - ((Number) pgStatsBefore.get(column)).longValue()));
+        db.put("postgres", delta);
+        return db;
+    }
+
+    public Map<String, Object> kafkaUsage() {
+        Map<String, Object> kafka = new LinkedHashMap<>();
+        if (kafkaTemplate == null) {
+            return kafka;
+        }
+        for (Map.Entry<MetricName, ? extends Metric> entry : kafkaTemplate.metrics().entrySet()) {
+            MetricName name = entry.getKey();
+            if ("producer-metrics".equals(name.group()) && PRODUCER_METRICS.contains(name.name())) {
+                kafka.put(name.name(), entry.getValue().metricValue());
+            }
+        }
+        return kafka;
+    }
+
+    public Map<String, Object> jvmUsage() {
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("maxProcessCpuLoad", maxProcessCpuLoad);
+        jvm.put("maxHeapUsedBytes", maxHeapUsed);
+        // Includes the load generator and stub participants sharing this JVM
+        jvm.put("maxResidentBytes", maxResidentBytes);
+        jvm.put("liveThreads", ManagementFactory.getThreadMXBean().getThreadCount());
+        jvm.put("gcPauseMillis", ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(gc -> gc.getCollectionTime())
+                .sum());
+        jvm.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        jvm.put("javaVersion", System.getProperty("java.version"));
+        return jvm;
+    }
+
+    /**
+     * Resident set size of a process (Linux), or 0 where {@code /proc} is not available.
+     */
+    static long residentBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            // not Linux, or the process is gone
+        }
+        return 0;
+    }
+
+    private double gauge(String name) {
+        List<Gauge> gauges = List.copyOf(meterRegistry.find(name).gauges());
+        return gauges.stream().mapToDouble(Gauge::value).sum();
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
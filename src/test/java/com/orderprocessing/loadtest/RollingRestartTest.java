@@ -0,0 +1,316 @@
+package com.orderprocessing.loadtest;
+
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderEventType;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Processing pause of the saga reply consumers during a rolling restart, on an embedded broker.
+ * <p>
+ * Two pods, each the service's {@code kafkaListenerContainerFactory} with three consumers, share
+ * a six-partition topic fed at a steady rate. Each pod in turn is stopped, left down for
+ * {@code loadtest.rebalance.restart-delay-ms} like a pod being replaced, and started again. The
+ * longest gap between two records of a partition is reported separately for the partitions of the
+ * pod being restarted and for those of the pod that kept running, under eager assignment,
+ * cooperative-sticky assignment, and cooperative-sticky with static membership. Run with
+ * {@code ./mvnw -Pload-test test -Dtest=RollingRestartTest}.
+ */
+@Tag("load")
+class RollingRestartTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RollingRestartTest.class);
+
+    private static final int PARTITIONS = 6;
+    // Two pods with the factory's three consumers each
+    private static final int CONSUMERS = 6;
+    private static final int RATE_PER_SECOND = Integer.getInteger("loadtest.rebalance.rate", 600);
+    private static final Duration RESTART_DELAY =
+            Duration.ofMillis(Long.getLong("loadtest.rebalance.restart-delay-ms", 2000L));
+    private static final Duration SETTLE = Duration.ofSeconds(5);
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        String[] topics = Arrays.stream(Mode.values()).map(Mode::topic).toArray(String[]::new);
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, topics)
+                .brokerProperty("group.initial.rebalance.delay.ms", "0");
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void pauseDuringRollingRestart() throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (Mode mode : Mode.values()) {
+            results.add(run(mode));
+        }
+        results.forEach(result -> log.warn("{}", result));
+
+        for (Result result : results) {
+            assertThat(result.unprocessed()).as(result.mode() + " unprocessed").isZero();
+        }
+        // Static members rejoin without a rebalance: the pod that keeps running never stops
+        Result staticMembership = results.get(Mode.COOPERATIVE_STATIC.ordinal());
+        assertThat(staticMembership.maxPauseRunningMs()).isLessThan(RESTART_DELAY.toMillis());
+    }
+
+    private Result run(Mode mode) throws Exception {
+        ConcurrentLinkedQueue<Processed> processed = new ConcurrentLinkedQueue<>();
+        String group = mode.topic();
+        List<Window> restarts = new ArrayList<>();
+        long sent;
+
+        try (Feeder feeder = new Feeder(group)) {
+            AnnotationConfigApplicationContext[] pods = {
+                    startPod(mode, group, "pod-0", processed),
+                    startPod(mode, group, "pod-1", processed)
+            };
+            Thread feed = Thread.ofPlatform().name("rolling-restart-feeder").start(feeder);
+            awaitStable(group);
+
+            for (int i = 0; i < pods.length; i++) {
+                String pod = "pod-" + i;
+                long stoppedAt = System.currentTimeMillis();
+                pods[i].close();
+                Thread.sleep(RESTART_DELAY.toMillis());
+                pods[i] = startPod(mode, group, pod, processed);
+                awaitStable(group);
+                restarts.add(new Window(pod, stoppedAt, System.currentTimeMillis()));
+            }
+
+            feeder.stop();
+            feed.join();
+            sent = feeder.sent;
+            awaitProcessed(processed, sent, Duration.ofSeconds(30));
+            for (AnnotationConfigApplicationContext pod : pods) {
+                pod.close();
+            }
+        }
+        return Result.of(mode, sent, List.copyOf(processed), restarts);
+    }
+
+    private static AnnotationConfigApplicationContext startPod(Mode mode, String group, String pod,
+                                                               ConcurrentLinkedQueue<Processed> processed) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.kafka.bootstrap-servers", broker.getBrokersAsString());
+        properties.put("order.kafka.listeners.enabled", "true");
+        properties.put("order.kafka.provision-topics", "false");
+        properties.put("order.kafka.consumer.assignment-strategy", mode.assignmentStrategy);
+        properties.put("order.kafka.consumer.instance-id", mode.staticMembership ? pod : "");
+        properties.put("loadtest.topic", mode.topic());
+        properties.put("loadtest.group", group);
+        properties.put("loadtest.pod", pod);
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("pod", properties));
+        // Durations and data sizes in @Value, as in the Boot application
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.getBeanFactory().registerSingleton("processed", processed);
+        context.register(KafkaConfig.class, PodListener.class);
+        context.refresh();
+        return context;
+    }
+
+    // Restarting mid-rebalance would measure the close timeout, not the restart
+    private static void awaitStable(String group) throws Exception {
+        Thread.sleep(SETTLE.toMillis());
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+            while (System.nanoTime() < deadline) {
+                ConsumerGroupDescription description =
+                        admin.describeConsumerGroups(List.of(group)).describedGroups().get(group).get();
+                int assigned = description.members().stream()
+                        .mapToInt(member -> member.assignment().topicPartitions().size())
+                        .sum();
+                if (description.state() == ConsumerGroupState.STABLE
+                        && description.members().size() == CONSUMERS && assigned == PARTITIONS) {
+                    return;
+                }
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("Group " + group + " did not stabilize");
+    }
+
+    private static void awaitProcessed(ConcurrentLinkedQueue<Processed> processed, long sent, Duration timeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (distinct(processed) < sent && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static long distinct(ConcurrentLinkedQueue<Processed> processed) {
+        return processed.stream().map(p -> p.partition() + ":" + p.offset()).distinct().count();
+    }
+
+    // ==================== POD ====================
+
+    static class PodListener {
+
+        private final ConcurrentLinkedQueue<Processed> processed;
+        private final String pod;
+
+        PodListener(ConcurrentLinkedQueue<Processed> processed, @Value("${loadtest.pod}") String pod) {
+            this.processed = processed;
+            this.pod = pod;
+        }
+
+        @KafkaListener(topics = "${loadtest.topic}", groupId = "${loadtest.group}", containerFactory = "kafkaListenerContainerFactory")
+        public void handle(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment) {
+            processed.add(new Processed(pod, record.partition(), record.offset(), System.currentTimeMillis()));
+            acknowledgment.acknowledge();
+        }
+    }
+
+    // Steady stream of keyed events over all partitions
+    private static final class Feeder implements Runnable, AutoCloseable {
+
+        private final KafkaTemplate<String, Object> template;
+        private final String prefix;
+        private volatile boolean running = true;
+        private long sent;
+
+        // The mode's topic, also the prefix of its order IDs
+        Feeder(String prefix) {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+            this.template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void run() {
+            long intervalNanos = 1_000_000_000L / RATE_PER_SECOND;
+            long next = System.nanoTime();
+            while (running) {
+                String orderId = prefix + "-" + sent;
+                template.send(prefix, orderId, new OrderEvent(orderId, OrderEventType.ORDER_CREATED, "customer",
+                        null, null, List.of(), "saga-" + sent));
+                sent++;
+                next += intervalNanos;
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+            template.flush();
+        }
+
+        void stop() {
+            running = false;
+        }
+
+        @Override
+        public void close() {
+            template.destroy();
+        }
+    }
+
+    // ==================== REPORT ====================
+
+    enum Mode {
+        EAGER("org.apache.kafka.clients.consumer.RangeAssignor", false),
+        COOPERATIVE("org.apache.kafka.clients.consumer.CooperativeStickyAssignor", false),
+        COOPERATIVE_STATIC("org.apache.kafka.clients.consumer.CooperativeStickyAssignor", true);
+
+        private final String assignmentStrategy;
+        private final boolean staticMembership;
+
+        Mode(String assignmentStrategy, boolean staticMembership) {
+            this.assignmentStrategy = assignmentStrategy;
+            this.staticMembership = staticMembership;
+        }
+
+        String topic() {
+            return "rolling-restart-" + name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    record Processed(String pod, int partition, long offset, long processedAt) {
+    }
+
+    record Window(String pod, long from, long to) {
+    }
+
+    /**
+     * Longest gap in a partition's processing while a pod was restarting, split by whether the
+     * record before the gap was processed by that pod or by the one that kept running.
+     */
+    record Result(Mode mode, long sent, long unprocessed, long duplicates,
+                  long maxPauseRestartingMs, long maxPauseRunningMs) {
+
+        static Result of(Mode mode, long sent, List<Processed> processed, List<Window> restarts) {
+            long distinct = processed.stream().map(p -> p.partition() + ":" + p.offset()).distinct().count();
+            long restarting = 0;
+            long running = 0;
+            Map<Integer, List<Processed>> byPartition = processed.stream()
+                    .collect(Collectors.groupingBy(Processed::partition));
+            for (List<Processed> records : byPartition.values()) {
+                records.sort(Comparator.comparingLong(Processed::processedAt));
+                for (int i = 1; i < records.size(); i++) {
+                    Processed before = records.get(i - 1);
+                    long gap = records.get(i).processedAt() - before.processedAt();
+                    // Windows are back to back: a gap belongs to the restarting pod if any window says so
+                    boolean inWindow = false;
+                    boolean ownerRestarting = false;
+                    for (Window window : restarts) {
+                        if (before.processedAt() >= window.from() - 1000 && before.processedAt() < window.to()) {
+                            inWindow = true;
+                            ownerRestarting |= before.pod().equals(window.pod());
+                        }
+                    }
+                    if (ownerRestarting) {
+                        restarting = Math.max(restarting, gap);
+                    } else if (inWindow) {
+                        running = Math.max(running, gap);
+                    }
+                }
+            }
+            return new Result(mode, sent, sent - distinct, processed.size() - distinct, restarting, running);
+        }
+    }
+}
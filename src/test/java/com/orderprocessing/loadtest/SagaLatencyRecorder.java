@@ -0,0 +1,173 @@
+package com.orderprocessing.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects per-saga timestamps from the load generator (HTTP side) and the stub participants
+ * (order-events side) and turns them into per-stage HdrHistograms once the run is over.
+ * <p>
+ * All timestamps are {@link System#nanoTime()} of this JVM. Latencies are measured from the
+ * <em>intended</em> send time of each request, so a stalled service is not hidden by the
+ * generator falling behind (coordinated omission).
+ */
+public class SagaLatencyRecorder {
+
+    public enum Outcome { COMPLETED, CANCELLED, COMPENSATED }
+
+    private final Map<String, SagaTimeline> timelines = new ConcurrentHashMap<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Histogram polls = new ConcurrentHistogram(3);
+    private final AtomicInteger activePollers = new AtomicInteger();
+    private final AtomicInteger maxActivePollers = new AtomicInteger();
+
+    public void recordSubmitted() {
+        submitted.incrementAndGet();
+    }
+
+    public void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    public void recordCreated(String orderId, long intendedStartNanos, long responseNanos) {
+        SagaTimeline timeline = timeline(orderId);
+        timeline.intendedStartNanos = intendedStartNanos;
+        timeline.createdNanos = responseNanos;
+    }
+
+    public void recordCreatedEvent(String orderId, long nanos) {
+        timeline(orderId).createdEventNanos = nanos;
+    }
+
+    public void recordInventoryDone(String orderId, long nanos) {
+        timeline(orderId).inventoryDoneNanos = nanos;
+    }
+
+    public void recordTerminal(String orderId, Outcome outcome, long nanos) {
+        SagaTimeline timeline = timeline(orderId);
+        if (timeline.outcome == null) {
+            timeline.outcome = outcome;
+            timeline.terminalNanos = nanos;
+        }
+    }
+
+    public void recordPollerStarted() {
+        maxActivePollers.accumulateAndGet(activePollers.incrementAndGet(), Math::max);
+    }
+
+    public void recordPollerFinished() {
+        activePollers.decrementAndGet();
+    }
+
+    public void recordPoll(long sentNanos, long responseNanos) {
+        record(polls, sentNanos, responseNanos);
+    }
+
+    public int activePollers() {
+        return activePollers.get();
+    }
+
+    public long submitted() {
+        return submitted.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public long accepted() {
+        return timelines.values().stream().filter(t -> t.createdNanos != 0).count();
+    }
+
+    public long finished() {
+        return timelines.values().stream().filter(t -> t.outcome != null).count();
+    }
+
+    public Summary summarize() {
+        Histogram create = new Histogram(3);
+        Histogram inventory = new Histogram(3);
+        Histogram payment = new Histogram(3);
+        Histogram saga = new Histogram(3);
+        Map<Outcome, Long> outcomes = new LinkedHashMap<>();
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, 0L);
+        }
+
+        long firstStart = Long.MAX_VALUE;
+        long lastTerminal = Long.MIN_VALUE;
+        long pending = 0;
+
+        for (SagaTimeline t : timelines.values()) {
+            if (t.createdNanos == 0) {
+                continue;
+            }
+            firstStart = Math.min(firstStart, t.intendedStartNanos);
+            record(create, t.intendedStartNanos, t.createdNanos);
+            record(inventory, t.createdEventNanos, t.inventoryDoneNanos);
+
+            if (t.outcome == null) {
+                pending++;
+                continue;
+            }
+            outcomes.merge(t.outcome, 1L, Long::sum);
+            lastTerminal = Math.max(lastTerminal, t.terminalNanos);
+            record(saga, t.intendedStartNanos, t.terminalNanos);
+            if (t.outcome != Outcome.CANCELLED) {
+                record(payment, t.inventoryDoneNanos, t.terminalNanos);
+            }
+        }
+
+        long finished = outcomes.values().stream().mapToLong(Long::longValue).sum();
+        double elapsedSeconds = finished == 0 ? 0 : (lastTerminal - firstStart) / 1e9;
+        double throughput = elapsedSeconds > 0 ? finished / elapsedSeconds : 0;
+
+        Map<String, LoadReport.Percentiles> stages = new LinkedHashMap<>();
+        stages.put("create", LoadReport.Percentiles.of(create));
+        stages.put("inventory", LoadReport.Percentiles.of(inventory));
+        stages.put("payment", LoadReport.Percentiles.of(payment));
+        stages.put("saga", LoadReport.Percentiles.of(saga));
+        stages.put("poll", LoadReport.Percentiles.of(polls));
+
+        return new Summary(submitted.get(), rejected.get(), finished, pending, outcomes, throughput,
+                maxActivePollers.get(), stages);
+    }
+
+    private static void record(Histogram histogram, long fromNanos, long toNanos) {
+        if (fromNanos != 0 && toNanos != 0 && toNanos >= fromNanos) {
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(toNanos - fromNanos));
+        }
+    }
+
+    private SagaTimeline timeline(String orderId) {
+        return timelines.computeIfAbsent(orderId, id -> new SagaTimeline());
+    }
+
+    public record Summary(
+            long submitted,
+            long rejected,
+            long finished,
+            long pending,
+            Map<Outcome, Long> outcomes,
+            double sagasPerSecond,
+            int maxConcurrentPollers,
+            Map<String, LoadReport.Percentiles> stageLatencyMicros
+    ) {}
+
+    // Written by the HTTP client threads and the stub consumer thread
+    private static final class SagaTimeline {
+        volatile long intendedStartNanos;
+        volatile long createdNanos;
+        volatile long createdEventNanos;
+        volatile long inventoryDoneNanos;
+        volatile long terminalNanos;
+        volatile Outcome outcome;
+    }
+}
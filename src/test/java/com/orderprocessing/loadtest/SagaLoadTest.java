@@ -0,0 +1,143 @@
+package com.orderprocessing.loadtest;
+
+import com.orderprocessing.order.OrderServiceApplication;
+import com.orderprocessing.order.config.KafkaConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end saga load test against real PostgreSQL and Kafka.
+ * <p>
+ * Excluded from the regular build; run with {@code ./mvnw -Pload-test test} and tune with the
+ * {@code loadtest.*} system properties (see {@link LoadTestSettings}). The JSON report is written
+ * to {@code target/load-report.json} by default.
+ */
+@Tag("load")
+@Testcontainers
+@SpringBootTest(classes = OrderServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SagaLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaLoadTest.class);
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+
+    @Container
+    static final KafkaContainer kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    @DynamicPropertySource
+    static void infrastructure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
+        // Keep logging out of the measurement
+        registry.add("logging.level.com.orderprocessing", () -> "WARN");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+        registry.add("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", () -> "WARN");
+        // The saga listeners are off by default
+        registry.add("order.kafka.listeners.enabled", () -> "true");
+        registry.add("order.kafka.exactly-once.enabled",
+                () -> LoadTestSettings.fromSystemProperties().exactlyOnce());
+    }
+
+    @BeforeAll
+    static void createTopics() throws Exception {
+        createTopics(kafka.getBootstrapServers());
+    }
+
+    static void createTopics(String bootstrapServers) throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            admin.createTopics(List.of(
+                    new NewTopic(KafkaConfig.ORDER_EVENTS_TOPIC, 3, (short) 1),
+                    new NewTopic(KafkaConfig.INVENTORY_EVENTS_TOPIC, 3, (short) 1),
+                    new NewTopic(KafkaConfig.PAYMENT_EVENTS_TOPIC, 3, (short) 1),
+                    new NewTopic(KafkaConfig.ORDER_STATE_TOPIC, 3, (short) 1)
+                            .configs(Map.of("cleanup.policy", "compact"))
+            )).all().get();
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Test
+    void sagaThroughputBaseline() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        SagaLatencyRecorder recorder = new SagaLatencyRecorder();
+        Instant startedAt = Instant.now();
+        String variant = settings.exactlyOnce() ? "mvc-exactly-once" : "mvc";
+
+        try (StubSagaParticipants participants = new StubSagaParticipants(kafka.getBootstrapServers(), settings, recorder);
+             ResourceUsageSampler resources = new ResourceUsageSampler(meterRegistry, jdbcTemplate, kafkaTemplate);
+             OrderLoadGenerator generator = new OrderLoadGenerator("http://localhost:" + port, settings, recorder)) {
+
+            participants.start(Duration.ofSeconds(30));
+            resources.start();
+
+            generator.run();
+            awaitSagas(recorder, settings.drainTimeout());
+
+            LoadReport report = new LoadReport(
+                    startedAt,
+                    variant,
+                    settings,
+                    recorder.summarize(),
+                    resources.databaseUsage(),
+                    resources.kafkaUsage(),
+                    resources.jvmUsage()
+            );
+            report.writeTo(settings.reportPath(variant));
+            log.warn("Load report written to {}: {} sagas finished, {}/s",
+                    settings.reportPath(variant).toAbsolutePath(), report.sagas().finished(), report.sagas().sagasPerSecond());
+
+            assertThat(report.sagas().finished()).isPositive();
+        }
+    }
+
+    static void awaitSagas(SagaLatencyRecorder recorder, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while ((recorder.finished() < recorder.accepted() || recorder.activePollers() > 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+}
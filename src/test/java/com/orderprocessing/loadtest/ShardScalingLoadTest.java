@@ -0,0 +1,185 @@
+package com.orderprocessing.loadtest;
+
+import com.orderprocessing.order.OrderServiceApplication;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.service.OrderCommandService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order creation throughput of the service on 1, 2 and 4 PostgreSQL shards, driven closed-loop
+ * through {@link OrderCommandService#createOrder} by {@code loadtest.sharding.clients-per-shard}
+ * threads per shard, so the offered load grows with the shards. The saga transport is in-process
+ * and nothing consumes it; only the order writes are measured.
+ * <pre>
+ * ./mvnw -Pload-test test -Dtest=ShardScalingLoadTest -Dloadtest.duration=60
+ * </pre>
+ * Scaling is bounded by the cores of the Docker host, which runs every shard; the test only
+ * requires that more shards are not slower ({@code loadtest.sharding.min-speedup}, 4 vs 1 shard).
+ */
+@Tag("load")
+class ShardScalingLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardScalingLoadTest.class);
+
+    private static final int[] SHARD_COUNTS = {1, 2, 4};
+
+    private static final List<PostgreSQLContainer<?>> shards = new ArrayList<>();
+
+    @BeforeAll
+    static void start() {
+        for (int i = 0; i < SHARD_COUNTS[SHARD_COUNTS.length - 1]; i++) {
+            PostgreSQLContainer<?> shard = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"))
+                    .withCommand("postgres", "-c", "max_connections=200");
+            shard.start();
+            shards.add(shard);
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        shards.forEach(PostgreSQLContainer::stop);
+    }
+
+    @Test
+    void writeThroughputScalesWithShards() throws Exception {
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30L));
+        int clientsPerShard = Integer.getInteger("loadtest.sharding.clients-per-shard", 16);
+        double minSpeedup = Double.parseDouble(System.getProperty("loadtest.sharding.min-speedup", "1.0"));
+
+        Map<Integer, Double> throughput = new LinkedHashMap<>();
+        for (int shardCount : SHARD_COUNTS) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                resetSchema(shard);
+            }
+            try (ConfigurableApplicationContext context = startService(shardCount, clientsPerShard)) {
+                double perSecond = createOrders(context.getBean(OrderCommandService.class),
+                        clientsPerShard * shardCount, duration);
+                throughput.put(shardCount, perSecond);
+                log.warn("{} shard(s): {} orders/s ({} clients), rows per shard {}", shardCount,
+                        Math.round(perSecond), clientsPerShard * shardCount, ordersPerShard(shardCount));
+            }
+        }
+
+        double base = throughput.get(1);
+        throughput.forEach((shardCount, perSecond) -> log.warn("{} shard(s): speedup {} (linear {})",
+                shardCount, String.format("%.2f", perSecond / base), shardCount));
+        assertThat(throughput.get(4) / base).isGreaterThanOrEqualTo(minSpeedup);
+    }
+
+    private static ConfigurableApplicationContext startService(int shardCount, int poolSize) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.jpa.hibernate.ddl-auto", "none");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        properties.put("order.sharding.enabled", "true");
+        properties.put("order.sharding.pool-size", poolSize);
+        for (int shard = 0; shard < shardCount; shard++) {
+            PostgreSQLContainer<?> container = shards.get(shard);
+            properties.put("order.sharding.shards[" + shard + "].url", container.getJdbcUrl());
+            properties.put("order.sharding.shards[" + shard + "].username", container.getUsername());
+            properties.put("order.sharding.shards[" + shard + "].password", container.getPassword());
+        }
+        properties.put("order.transport.type", "in-process");
+        properties.put("order.state.publish-enabled", "false");
+        properties.put("order.kafka.provision-topics", "false");
+        properties.put("order.archive.enabled", "false");
+        properties.put("order.admission.enabled", "false");
+        // Keep logging out of the measurement
+        properties.put("logging.level.com.orderprocessing", "WARN");
+        // As arguments: default properties would lose to application.yml
+        return new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static double createOrders(OrderCommandService commands, int clients, Duration duration)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder created = new LongAdder();
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int client = 0; client < clients; client++) {
+            SplittableRandom random = new SplittableRandom(client);
+            threads.add(Thread.ofPlatform().name("shard-load-" + client).start(() -> {
+                while (running.get()) {
+                    commands.createOrder(new CreateOrderRequest("customer-" + random.nextInt(1_000_000), List.of(
+                            new CreateOrderRequest.OrderItemRequest("product-" + random.nextInt(10_000), "Product",
+                                    1 + random.nextInt(5), new BigDecimal("19.99")))));
+                    created.increment();
+                }
+            }));
+        }
+        long startedAt = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return created.sum() / ((System.nanoTime() - startedAt) / 1e9);
+    }
+
+    private static void resetSchema(int shard) throws Exception {
+        try (HikariDataSource dataSource = dataSource(shard)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+            jdbcTemplate.execute("CREATE SCHEMA public");
+            // sharding.sql takes the shard index as a psql variable
+            String sharding = new ClassPathResource("db/postgres/sharding.sql")
+                    .getContentAsString(StandardCharsets.UTF_8)
+                    .replace(":shard::bigint", shard + "::bigint");
+            new ResourceDatabasePopulator(
+                    new ClassPathResource("db/postgres/orders-partitioned.sql"),
+                    new ClassPathResource("db/postgres/processed-messages.sql"),
+                    new ClassPathResource("db/postgres/idempotency-keys.sql"),
+                    new ByteArrayResource(sharding.getBytes(StandardCharsets.UTF_8))).execute(dataSource);
+        }
+    }
+
+    private static List<Long> ordersPerShard(int shardCount) {
+        List<Long> counts = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            try (HikariDataSource dataSource = dataSource(shard)) {
+                counts.add(new JdbcTemplate(dataSource).queryForObject("SELECT count(*) FROM orders", Long.class));
+            }
+        }
+        return counts;
+    }
+
+    private static HikariDataSource dataSource(int shard) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(shards.get(shard).getJdbcUrl());
+        dataSource.setUsername(shards.get(shard).getUsername());
+        dataSource.setPassword(shards.get(shard).getPassword());
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
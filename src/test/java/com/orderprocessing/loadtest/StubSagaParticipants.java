@@ -0,0 +1,196 @@
+package com.orderprocessing.loadtest;
+
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.event.OrderEvent;
+import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.listener.InventoryEventListener.InventoryEvent;
+import com.orderprocessing.order.listener.InventoryEventListener.InventoryEventType;
+import com.orderprocessing.order.listener.PaymentEventListener.PaymentEvent;
+import com.orderprocessing.order.listener.PaymentEventListener.PaymentEventType;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the inventory and payment services: consumes {@code order-events} and answers on
+ * {@code inventory-events}/{@code payment-events} after a configurable delay, failing a
+ * configurable share of requests. Failure decisions are derived from the saga ID and the seed,
+ * so the same run settings fail the same sagas. Like a real payment service, it remembers the
+ * amount from {@code ORDER_CREATED}, since later transitions don't repeat it.
+ */
+public class StubSagaParticipants implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StubSagaParticipants.class);
+
+    private final LoadTestSettings settings;
+    private final SagaLatencyRecorder recorder;
+    private final KafkaConsumer<String, Object> consumer;
+    private final KafkaProducer<String, Object> producer;
+    private final ScheduledExecutorService replyScheduler = Executors.newScheduledThreadPool(4);
+    private final Thread pollThread;
+    private final CountDownLatch assigned = new CountDownLatch(1);
+    private final Map<String, Money> amounts = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public StubSagaParticipants(String bootstrapServers, LoadTestSettings settings, SagaLatencyRecorder recorder) {
+        this.settings = settings;
+        this.recorder = recorder;
+
+        this.consumer = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ConsumerConfig.GROUP_ID_CONFIG, "loadtest-stub-participants",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest",
+                // Like real participants: never act on events of aborted transactions (exactly-once runs)
+                ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed",
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class,
+                JsonDeserializer.TRUSTED_PACKAGES, "com.orderprocessing.*",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName()
+        ));
+        this.producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, 1
+        ));
+        this.pollThread = new Thread(this::pollLoop, "loadtest-stub-participants");
+    }
+
+    public void start(Duration assignmentTimeout) throws InterruptedException {
+        consumer.subscribe(List.of(KafkaConfig.ORDER_EVENTS_TOPIC), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                assigned.countDown();
+            }
+        });
+        pollThread.start();
+        if (!assigned.await(assignmentTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Stub participants got no order-events partitions within " + assignmentTimeout);
+        }
+    }
+
+    private void pollLoop() {
+        try {
+            while (running) {
+                for (ConsumerRecord<String, Object> record : consumer.poll(Duration.ofMillis(100))) {
+                    if (record.value() instanceof OrderEvent event) {
+                        amounts.put(event.getAggregateId(), event.getTotalAmount());
+                        onOrderEvent(event.getEventType(), event.getSagaId(), event.getAggregateId(), System.nanoTime());
+                    } else if (record.value() instanceof OrderTransitionEvent event) {
+                        onOrderEvent(event.getEventType(), event.getSagaId(), event.getAggregateId(), System.nanoTime());
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            if (running) {
+                log.error("Stub participants stopped unexpectedly", ex);
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void onOrderEvent(String eventType, String sagaId, String orderId, long nanos) {
+        switch (OrderEventType.valueOf(eventType)) {
+            case ORDER_CREATED -> {
+                recorder.recordCreatedEvent(orderId, nanos);
+                replyLater(settings.inventoryLatency(), () -> replyInventory(sagaId, orderId));
+            }
+            case ORDER_PAYMENT_PROCESSING -> {
+                recorder.recordInventoryDone(orderId, nanos);
+                replyLater(settings.paymentLatency(), () -> replyPayment(sagaId, orderId));
+            }
+            case ORDER_COMPLETED -> {
+                amounts.remove(orderId);
+                recorder.recordTerminal(orderId, SagaLatencyRecorder.Outcome.COMPLETED, nanos);
+            }
+            case ORDER_COMPENSATION_STARTED -> {
+                amounts.remove(orderId);
+                recorder.recordTerminal(orderId, SagaLatencyRecorder.Outcome.COMPENSATED, nanos);
+            }
+            case ORDER_CANCELLED -> {
+                amounts.remove(orderId);
+                recorder.recordInventoryDone(orderId, nanos);
+                recorder.recordTerminal(orderId, SagaLatencyRecorder.Outcome.CANCELLED, nanos);
+            }
+            default -> { }
+        }
+    }
+
+    private void replyInventory(String sagaId, String orderId) {
+        boolean fail = fails(sagaId, "inventory", settings.inventoryFailureRatio());
+        InventoryEvent reply = new InventoryEvent(
+                UUID.randomUUID().toString(),
+                sagaId,
+                orderId,
+                fail ? InventoryEventType.INVENTORY_RESERVATION_FAILED : InventoryEventType.INVENTORY_RESERVED,
+                fail ? "Out of stock (load test)" : null
+        );
+        producer.send(new ProducerRecord<>(KafkaConfig.INVENTORY_EVENTS_TOPIC, sagaId, reply));
+    }
+
+    private void replyPayment(String sagaId, String orderId) {
+        boolean fail = fails(sagaId, "payment", settings.paymentFailureRatio());
+        PaymentEvent reply = new PaymentEvent(
+                UUID.randomUUID().toString(),
+                sagaId,
+                orderId,
+                fail ? PaymentEventType.PAYMENT_FAILED : PaymentEventType.PAYMENT_COMPLETED,
+                fail ? null : UUID.randomUUID().toString(),
+                amounts.get(orderId),
+                fail ? "Card declined (load test)" : null
+        );
+        producer.send(new ProducerRecord<>(KafkaConfig.PAYMENT_EVENTS_TOPIC, sagaId, reply));
+    }
+
+    private void replyLater(Duration delay, Runnable reply) {
+        replyScheduler.schedule(reply, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private boolean fails(String sagaId, String stage, double ratio) {
+        if (ratio <= 0) {
+            return false;
+        }
+        long hash = (sagaId + stage).hashCode() * 0x9E3779B97F4A7C15L ^ settings.seed();
+        double sample = (hash >>> 11) * 0x1.0p-53;
+        return sample < ratio;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        pollThread.join(5_000);
+        replyScheduler.shutdown();
+        replyScheduler.awaitTermination(5, TimeUnit.SECONDS);
+        producer.close(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,44 @@
+package com.orderprocessing.order.benchmark;
+
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * AppCDS training run of the packaged service: starts the jar with AOT once, against a
+ * {@link StartupBroker}, exits right after context refresh and dumps every class loaded up to
+ * there. {@code ./mvnw -Pfast-startup package} runs it.
+ * <p>
+ * Arguments: {@code <jar> <cds-archive>}
+ */
+public final class CdsTrainingRun {
+
+    private CdsTrainingRun() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args[0]);
+        Path archive = Path.of(args[1]);
+
+        EmbeddedKafkaBroker broker = StartupBroker.start();
+        try {
+            List<String> command = List.of(
+                    ProcessHandle.current().info().command().orElse("java"),
+                    "-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath(),
+                    // Classes that cannot be archived (proxies, old bytecode) are only logged
+                    "-Xlog:cds=off",
+                    "-Dspring.aot.enabled=true",
+                    "-Dspring.context.exit=onRefresh",
+                    "-Dspring.profiles.active=fast-startup",
+                    "-jar", jar.toAbsolutePath().toString(),
+                    StartupBroker.bootstrapServersArgument(broker));
+            int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exitCode != 0) {
+                throw new IllegalStateException("Training run exited with " + exitCode);
+            }
+        } finally {
+            broker.destroy();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.orderprocessing.order.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
+import com.orderprocessing.order.transport.InProcessEventTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Sustained send rate of the {@link InProcessEventTransport} with four sending threads and a
+ * subscriber that only counts, with and without the journal, counting every key for the skew
+ * monitor or the default sample of them. Partitions are bounded, so once they fill up the rate is
+ * the dispatch rate. Run with
+ * {@code -Pbenchmark -Djmh.include=InProcessTransportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class InProcessTransportBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({"false", "true"})
+    public boolean journal;
+
+    @Param({"1.0", "0.1"})
+    public double keySampleRate;
+
+    private final String[] keys = new String[KEYS];
+    private final LongAdder handled = new LongAdder();
+    private InProcessEventTransport transport;
+    private OrderTransitionEvent event;
+    private Path journalDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "customer-" + i;
+        }
+        journalDirectory = journal ? Files.createTempDirectory("in-process-journal") : null;
+        transport = new InProcessEventTransport(new InProcessEventTransport.Settings(
+                4, 65536, Duration.ofSeconds(60), 0, Duration.ZERO, journalDirectory, 64 * 1024 * 1024),
+                new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(),
+                new TrafficSkewMonitor(new TrafficSkewMonitor.Settings(4, 10, 256, keySampleRate, 1000, 2.0, 0.8),
+                        new SimpleMeterRegistry()));
+        transport.subscribe(KafkaConfig.ORDER_EVENTS_TOPIC, "benchmark", OrderTransitionEvent.class,
+                (received, delivery, acknowledgment) -> handled.increment());
+        transport.start();
+        event = new OrderTransitionEvent("order-1", OrderEventType.ORDER_PAYMENT_PROCESSING, "saga-1",
+                OrderStatus.PENDING, OrderStatus.PAYMENT_PROCESSING, 1, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        transport.stop();
+        System.out.println("handled " + handled.sum() + " events");
+        if (journalDirectory != null) {
+            try (Stream<Path> files = Files.walk(journalDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sender {
+        int next;
+    }
+
+    @Benchmark
+    public void send(Sender sender) {
+        transport.send(KafkaConfig.ORDER_EVENTS_TOPIC, keys[sender.next++ & (KEYS - 1)], event);
+    }
+}
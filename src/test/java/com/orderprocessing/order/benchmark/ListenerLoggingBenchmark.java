@@ -0,0 +1,157 @@
+package com.orderprocessing.order.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.orderprocessing.order.admission.AdaptiveConcurrencyLimiter;
+import com.orderprocessing.order.config.KafkaConfig;
+import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.listener.InventoryEventListener;
+import com.orderprocessing.order.logging.RingBufferAppender;
+import com.orderprocessing.order.logging.SamplingTurboFilter;
+import com.orderprocessing.order.service.OrderCommandService;
+import com.orderprocessing.order.service.ProcessedMessageLedger;
+import com.orderprocessing.order.sharding.ShardRouter;
+import com.orderprocessing.order.skew.TrafficSkewMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saga listener throughput by log level and logging pipeline: synchronous appender, the
+ * {@link RingBufferAppender}, and the ring buffer behind {@link SamplingTurboFilter} (1 in 10,
+ * at most 200/s) as configured for prod. Three threads, like the listener containers. The sink
+ * formats with the console pattern into a null stream, so formatting is measured but disk and
+ * terminal I/O are not. Run with {@code -Pbenchmark -Djmh.include=ListenerLoggingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(3)
+@Fork(1)
+public class ListenerLoggingBenchmark {
+
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m %kvp{NONE}%n";
+
+    @Param({"WARN", "INFO", "DEBUG"})
+    public String level;
+
+    @Param({"sync", "ring-buffer", "ring-buffer-sampled"})
+    public String pipeline;
+
+    private final AtomicLong offsets = new AtomicLong();
+    private InventoryEventListener listener;
+    private InventoryEventListener.InventoryEvent event;
+    private Acknowledgment acknowledgment;
+    private RingBufferAppender ringBuffer;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        Appender<ILoggingEvent> sink = nullSink(context);
+        Appender<ILoggingEvent> rootAppender = sink;
+        if (!pipeline.equals("sync")) {
+            ringBuffer = new RingBufferAppender();
+            ringBuffer.setContext(context);
+            ringBuffer.setName("ASYNC");
+            ringBuffer.addAppender(sink);
+            ringBuffer.start();
+            rootAppender = ringBuffer;
+        }
+        if (pipeline.equals("ring-buffer-sampled")) {
+            SamplingTurboFilter.Category category = new SamplingTurboFilter.Category();
+            category.setName("com.orderprocessing.order.listener");
+            category.setSampleEvery(10);
+            category.setMaxPerSecond(200);
+            SamplingTurboFilter sampling = new SamplingTurboFilter();
+            sampling.setContext(context);
+            sampling.addCategory(category);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.WARN);
+        root.addAppender(rootAppender);
+        context.getLogger("com.orderprocessing").setLevel(Level.toLevel(level));
+
+        listener = new InventoryEventListener(
+                new NoOpCommandService(),
+                new ProcessedMessageLedger(null, null, null, ShardRouter.single(), null, null, new SimpleMeterRegistry(), false, Duration.ZERO),
+                new AdaptiveConcurrencyLimiter("benchmark", 1000, 1, 1000, new SimpleMeterRegistry()),
+                new TrafficSkewMonitor(new TrafficSkewMonitor.Settings(3, 10, 256, 1.0, 1000, 2.0, 0.8),
+                        new SimpleMeterRegistry()),
+                Duration.ofMillis(500));
+        event = new InventoryEventListener.InventoryEvent(
+                "event-1", "saga-1", "order-1", InventoryEventListener.InventoryEventType.INVENTORY_RESERVED, null);
+        acknowledgment = () -> { };
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (ringBuffer != null) {
+            System.out.println("ring buffer dropped " + ringBuffer.getDroppedCount() + " events");
+        }
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public void handleInventoryEvent() {
+        listener.handleInventoryEvent(event, "customer-1", "order-service-inventory-group",
+                KafkaConfig.INVENTORY_EVENTS_TOPIC, 0, offsets.getAndIncrement(), acknowledgment);
+    }
+
+    private static Appender<ILoggingEvent> nullSink(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName("NULL");
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    // Only the logging around the command is measured
+    private static final class NoOpCommandService extends OrderCommandService {
+        NoOpCommandService() {
+            super(null, null, null, null, ShardRouter.single());
+        }
+
+        @Override
+        public OrderResponse handleInventoryReserved(String sagaId) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.orderprocessing.order.benchmark;
+
+import com.orderprocessing.order.domain.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order totals and the analytics amount column with the former {@link BigDecimal} arithmetic
+ * versus {@link Money} in minor units, over {@value #ORDERS} orders of 1 to 8 items each. Run
+ * with {@code -Pbenchmark -Djmh.include=MoneyBenchmark}; {@code gc.alloc.rate.norm} should be
+ * 0 B/op for the Money variants.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int ORDERS = 1024;
+    private static final int MAX_ITEMS = 8;
+
+    private final BigDecimal[][] decimalPrices = new BigDecimal[ORDERS][];
+    private final Money[][] moneyPrices = new Money[ORDERS][];
+    private final int[][] quantities = new int[ORDERS][];
+    private final BigDecimal[] decimalTotals = new BigDecimal[ORDERS];
+    private final Money[] moneyTotals = new Money[ORDERS];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int order = 0; order < ORDERS; order++) {
+            int items = 1 + random.nextInt(MAX_ITEMS);
+            decimalPrices[order] = new BigDecimal[items];
+            moneyPrices[order] = new Money[items];
+            quantities[order] = new int[items];
+            for (int item = 0; item < items; item++) {
+                // As loaded from NUMERIC(10, 2)
+                BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(99_900), 2);
+                decimalPrices[order][item] = price;
+                moneyPrices[order][item] = Money.of(price);
+                quantities[order][item] = 1 + random.nextInt(5);
+            }
+            decimalTotals[order] = legacyTotal(decimalPrices[order], quantities[order]);
+            moneyTotals[order] = Money.of(decimalTotals[order]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long bigDecimalOrderTotal() {
+        long hash = 0;
+        for (int order = 0; order < ORDERS; order++) {
+            hash += legacyTotal(decimalPrices[order], quantities[order]).hashCode();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long moneyOrderTotal() {
+        long hash = 0;
+        for (int order = 0; order < ORDERS; order++) {
+            Money[] prices = moneyPrices[order];
+            int[] quantity = quantities[order];
+            // As Order.recalculateTotal
+            long total = 0;
+            for (int item = 0; item < prices.length; item++) {
+                total = Math.addExact(total, prices[item].times(quantity[item]).minorUnits());
+            }
+            hash += total;
+        }
+        return hash;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long bigDecimalAnalyticsFeed() {
+        long sum = 0;
+        for (int order = 0; order < ORDERS; order++) {
+            // Copy of the former OrderAnalyticsStore.toCents
+            sum += decimalTotals[order].setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long moneyAnalyticsFeed() {
+        long sum = 0;
+        for (int order = 0; order < ORDERS; order++) {
+            sum = Math.addExact(sum, moneyTotals[order].minorUnits());
+        }
+        return sum;
+    }
+
+    // Copy of the former OrderItem.getTotalPrice and Order.recalculateTotal
+    private static BigDecimal legacyTotal(BigDecimal[] prices, int[] quantities) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int item = 0; item < prices.length; item++) {
+            total = total.add(prices[item].multiply(BigDecimal.valueOf(quantities[item])));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,129 @@
+package com.orderprocessing.order.benchmark;
+
+import com.orderprocessing.order.domain.OrderStateMachine;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.domain.SagaDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transition validation: the former hand-written switch in {@code Order.validateTransition}
+ * versus the compiled {@link OrderStateMachine} tables. Run with {@code -Pbenchmark}; the GC
+ * profiler's {@code gc.alloc.rate.norm} should be 0 B/op for the table variants.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTransitionBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private final OrderStatus[] from = new OrderStatus[PAIRS];
+    private final OrderStatus[] to = new OrderStatus[PAIRS];
+    private OrderStateMachine stateMachine;
+
+    @Setup
+    public void setUp() {
+        stateMachine = SagaDefinition.standard().compile();
+        OrderStatus[] statuses = OrderStatus.values();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = statuses[random.nextInt(statuses.length)];
+            to[i] = statuses[random.nextInt(statuses.length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int switchValidation() {
+        int valid = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (legacyIsValid(from[i], to[i])) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int tableValidation() {
+        int valid = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (stateMachine.isAllowed(from[i], to[i])) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int switchTwoStepSaga() {
+        // e.g. PENDING -> INVENTORY_RESERVED -> PAYMENT_PROCESSING as two validated transitions
+        int settled = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            OrderStatus next = legacyContinuation(to[i]);
+            if (legacyIsValid(from[i], to[i]) && (next == null || legacyIsValid(to[i], next))) {
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int tableMultiHopSaga() {
+        int settled = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (stateMachine.settle(from[i], to[i]) != null) {
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    // Copy of the original Order.validateTransition switch
+    private static boolean legacyIsValid(OrderStatus current, OrderStatus newStatus) {
+        return switch (current) {
+            case PENDING -> newStatus == OrderStatus.INVENTORY_RESERVED
+                    || newStatus == OrderStatus.INVENTORY_FAILED
+                    || newStatus == OrderStatus.CANCELLED;
+            case INVENTORY_RESERVED -> newStatus == OrderStatus.PAYMENT_PROCESSING
+                    || newStatus == OrderStatus.COMPENSATING;
+            case PAYMENT_PROCESSING -> newStatus == OrderStatus.PAYMENT_COMPLETED
+                    || newStatus == OrderStatus.PAYMENT_FAILED;
+            case PAYMENT_COMPLETED -> newStatus == OrderStatus.COMPLETED;
+            case PAYMENT_FAILED, INVENTORY_FAILED -> newStatus == OrderStatus.COMPENSATING
+                    || newStatus == OrderStatus.CANCELLED;
+            case COMPENSATING -> newStatus == OrderStatus.CANCELLED;
+            default -> false;
+        };
+    }
+
+    // The chains that were hard-coded in OrderCommandService's handlers
+    private static OrderStatus legacyContinuation(OrderStatus reached) {
+        return switch (reached) {
+            case INVENTORY_RESERVED -> OrderStatus.PAYMENT_PROCESSING;
+            case PAYMENT_COMPLETED -> OrderStatus.COMPLETED;
+            case INVENTORY_FAILED -> OrderStatus.CANCELLED;
+            case PAYMENT_FAILED -> OrderStatus.COMPENSATING;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.orderprocessing.order.benchmark;
+
+import com.orderprocessing.order.config.KafkaConfig;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+/**
+ * Embedded broker for launches of the fast-startup jar. Its AOT bean graph is built with the
+ * {@code prod} Kafka switches: listeners on, which resolve the {@code order-events} partitions
+ * while the context refreshes, and no topic provisioning, so the topics are created here.
+ */
+final class StartupBroker {
+
+    private static final int PARTITIONS = 3;
+
+    private StartupBroker() {
+    }
+
+    static EmbeddedKafkaBroker start() {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS,
+                KafkaConfig.ORDER_EVENTS_TOPIC, KafkaConfig.INVENTORY_EVENTS_TOPIC,
+                KafkaConfig.PAYMENT_EVENTS_TOPIC, KafkaConfig.ORDER_STATE_TOPIC);
+        broker.afterPropertiesSet();
+        return broker;
+    }
+
+    static String bootstrapServersArgument(EmbeddedKafkaBroker broker) {
+        return "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString();
+    }
+}
@@ -0,0 +1,153 @@
+package com.orderprocessing.order.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time-to-first-request of the packaged service: from JVM launch until
+ * {@code GET /api/v1/orders} answers 200. Not a JMH benchmark; {@code ./mvnw -Pfast-startup verify}
+ * runs it against the plain, AOT and AOT+CDS launches of the same jar and writes
+ * {@code target/startup-report.json}. Every launch uses the same {@link StartupBroker}.
+ * <p>
+ * Arguments: {@code <jar> <cds-archive> <runs> <report>}
+ */
+public final class StartupTimeBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    private StartupTimeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args[0]);
+        Path archive = Path.of(args[1]);
+        int runs = Integer.parseInt(args[2]);
+        Path report = Path.of(args[3]);
+
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("default", List.of()));
+        variants.add(new Variant("aot", List.of("-Dspring.aot.enabled=true")));
+        if (Files.exists(archive)) {
+            variants.add(new Variant("aot+cds", List.of("-Dspring.aot.enabled=true",
+                    "-XX:SharedArchiveFile=" + archive.toAbsolutePath())));
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        EmbeddedKafkaBroker broker = StartupBroker.start();
+        try {
+            for (Variant variant : variants) {
+                long[] firstRequestMillis = new long[runs];
+                double[] reportedSeconds = new double[runs];
+                for (int run = 0; run < runs; run++) {
+                    Launch launch = launch(jar, variant.jvmArgs(), broker);
+                    firstRequestMillis[run] = launch.firstRequestMillis();
+                    reportedSeconds[run] = launch.reportedSeconds();
+                }
+                Result result = Result.of(firstRequestMillis, reportedSeconds);
+                results.put(variant.name(), result);
+                System.out.printf("%-8s time-to-first-request p50=%dms min=%dms max=%dms (Spring reported p50=%.2fs)%n",
+                        variant.name(), result.p50Millis(), result.minMillis(), result.maxMillis(),
+                        result.reportedP50Seconds());
+            }
+        } finally {
+            broker.destroy();
+        }
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), results);
+        System.out.println("Startup report written to " + report.toAbsolutePath());
+    }
+
+    private static Launch launch(Path jar, List<String> jvmArgs, EmbeddedKafkaBroker broker)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        Path log = Files.createTempFile("order-service-startup", ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.add("-Dspring.profiles.active=fast-startup");
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        command.add("--server.port=" + port);
+        command.add(StartupBroker.bootstrapServersArgument(broker));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest probe = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/v1/orders?customerId=startup-probe")).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Service exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+                        return new Launch(elapsed, reportedSeconds(log));
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful request within " + STARTUP_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static double reportedSeconds(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Variant(String name, List<String> jvmArgs) {}
+
+    private record Launch(long firstRequestMillis, double reportedSeconds) {}
+
+    public record Result(long[] firstRequestMillis, long p50Millis, long minMillis, long maxMillis,
+                         double reportedP50Seconds) {
+
+        static Result of(long[] firstRequestMillis, double[] reportedSeconds) {
+            long[] sorted = firstRequestMillis.clone();
+            Arrays.sort(sorted);
+            double[] reported = reportedSeconds.clone();
+            Arrays.sort(reported);
+            return new Result(firstRequestMillis, sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1],
+                    reported[reported.length / 2]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.orderprocessing.order.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link Money} against the {@code BigDecimal} amounts it replaced: same values in cents, exact
+ * arithmetic that fails instead of wrapping, and the same JSON on the wire.
+ */
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void convertsDecimalsToMinorUnits() {
+        assertThat(Money.of(new BigDecimal("19.99")).minorUnits()).isEqualTo(1999);
+        assertThat(Money.of(new BigDecimal("20")).minorUnits()).isEqualTo(2000);
+        assertThat(Money.of(new BigDecimal("-0.5")).minorUnits()).isEqualTo(-50);
+        assertThat(Money.of(new BigDecimal("0.00"))).isSameAs(Money.ZERO);
+        assertThat(Money.ofMinor(1999).toBigDecimal()).isEqualTo(new BigDecimal("19.99"));
+    }
+
+    @Test
+    void rejectsFractionsOfACent() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("19.999")))
+                .isInstanceOf(ArithmeticException.class)
+                .hasMessageContaining("19.999");
+    }
+
+    @Test
+    void arithmeticMatchesBigDecimal() {
+        Money unitPrice = Money.of(new BigDecimal("19.99"));
+
+        assertThat(unitPrice.times(3).toBigDecimal())
+                .isEqualTo(new BigDecimal("19.99").multiply(BigDecimal.valueOf(3)));
+        assertThat(unitPrice.plus(Money.of(new BigDecimal("0.01"))).toBigDecimal())
+                .isEqualTo(new BigDecimal("20.00"));
+        assertThat(Money.ofMinor(-1).plus(Money.ofMinor(1))).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void orderTotalOverflowThrows() {
+        OrderItem item = new OrderItem("product-1", "Product", Integer.MAX_VALUE, Money.ofMinor(Long.MAX_VALUE / 2));
+
+        assertThatThrownBy(() -> Order.create("customer-1", List.of(item)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void comparesAndPrintsLikeADecimal() {
+        assertThat(Money.ofMinor(2000)).isGreaterThan(Money.ofMinor(1999));
+        assertThat(Money.ofMinor(-5).signum()).isEqualTo(-1);
+        assertThat(Money.ofMinor(2000)).hasToString("20.00");
+        assertThat(Money.ofMinor(1905)).hasToString("19.05");
+        assertThat(Money.ofMinor(-50)).hasToString("-0.50");
+        assertThat(Money.ofMinor(-150)).hasToString("-1.50");
+    }
+
+    @Test
+    void jsonRoundTripKeepsTheDecimalWireFormat() throws Exception {
+        String json = objectMapper.writeValueAsString(new Amount(Money.ofMinor(1999)));
+
+        assertThat(json).isEqualTo("{\"amount\":19.99}");
+        assertThat(objectMapper.readValue(json, Amount.class).amount()).isEqualTo(Money.ofMinor(1999));
+    }
+
+    @Test
+    void readsIntegersAndStringsFromOlderProducers() throws Exception {
+        assertThat(objectMapper.readValue("{\"amount\":20}", Amount.class).amount()).isEqualTo(Money.ofMinor(2000));
+        assertThat(objectMapper.readValue("{\"amount\":\" 19.99 \"}", Amount.class).amount())
+                .isEqualTo(Money.ofMinor(1999));
+    }
+
+    @Test
+    void rejectsAmountsThatAreNotWholeCents() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\":19.999}", Amount.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\":\"abc\"}", Amount.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\":true}", Amount.class))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+
+    private record Amount(Money amount) {
+    }
+}
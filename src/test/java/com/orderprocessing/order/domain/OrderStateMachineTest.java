@@ -0,0 +1,183 @@
+package com.orderprocessing.order.domain;
+
+import com.orderprocessing.order.config.SagaConfig;
+import com.orderprocessing.order.event.OrderEventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The compiled tables of {@link SagaDefinition#standard()} against the hand-written switches
+ * they replaced, for every pair of statuses.
+ */
+class OrderStateMachineTest {
+
+    private final OrderStateMachine stateMachine = SagaDefinition.standard().compile();
+
+    @Test
+    void allowsExactlyTheEdgesOfTheOldSwitch() {
+        for (OrderStatus from : OrderStatus.values()) {
+            for (OrderStatus to : OrderStatus.values()) {
+                assertThat(stateMachine.isAllowed(from, to))
+                        .as("%s -> %s", from, to)
+                        .isEqualTo(legacyIsValid(from, to));
+            }
+        }
+    }
+
+    @Test
+    void edgesEmitTheEventOfTheirTargetStatus() {
+        for (OrderStatus from : OrderStatus.values()) {
+            for (OrderStatus to : OrderStatus.values()) {
+                assertThat(stateMachine.eventFor(from, to))
+                        .as("%s -> %s", from, to)
+                        .isEqualTo(legacyIsValid(from, to) ? legacyEventFor(to) : null);
+            }
+        }
+    }
+
+    @Test
+    void settlesWhereTheOldHandlersEnded() {
+        for (OrderStatus from : OrderStatus.values()) {
+            for (OrderStatus reached : OrderStatus.values()) {
+                OrderStatus expected = null;
+                if (legacyIsValid(from, reached)) {
+                    OrderStatus next = legacyContinuation(reached);
+                    expected = next != null ? next : reached;
+                }
+                assertThat(stateMachine.settle(from, reached))
+                        .as("%s -> %s", from, reached)
+                        .isEqualTo(expected);
+                assertThat(stateMachine.settledEvent(from, reached))
+                        .as("event of %s -> %s", from, reached)
+                        .isEqualTo(expected != null ? legacyEventFor(expected) : null);
+            }
+        }
+    }
+
+    @Test
+    void terminalAndCompensatingStatuses() {
+        assertThat(Arrays.stream(OrderStatus.values()).filter(stateMachine::isTerminal))
+                .containsExactlyInAnyOrder(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+        assertThat(Arrays.stream(OrderStatus.values()).filter(stateMachine::startsCompensation))
+                .containsExactlyInAnyOrder(OrderStatus.INVENTORY_FAILED, OrderStatus.PAYMENT_FAILED);
+    }
+
+    @Test
+    void orderRejectsTransitionsTheTableDisallows() {
+        Order order = Order.create("customer-1", List.of(
+                new OrderItem("product-1", "Product", 1, Money.ofMinor(1999))));
+
+        assertThat(order.advance(OrderStatus.INVENTORY_RESERVED)).isEqualTo(OrderEventType.ORDER_PAYMENT_PROCESSING);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_PROCESSING);
+        assertThatThrownBy(() -> order.transitionTo(OrderStatus.COMPLETED))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Invalid transition from PAYMENT_PROCESSING to COMPLETED");
+        assertThatThrownBy(() -> order.advance(OrderStatus.INVENTORY_RESERVED))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_PROCESSING);
+    }
+
+    @Test
+    void extendedDefinitionAddsEdgesWithoutLosingTheStandardOnes() {
+        OrderStateMachine extended = SagaDefinition.standard().toBuilder()
+                .transition(OrderStatus.COMPENSATING, OrderStatus.PENDING, OrderEventType.ORDER_CREATED)
+                .build()
+                .compile();
+
+        assertThat(extended.isAllowed(OrderStatus.COMPENSATING, OrderStatus.PENDING)).isTrue();
+        assertThat(extended.isAllowed(OrderStatus.PENDING, OrderStatus.INVENTORY_RESERVED)).isTrue();
+        assertThat(stateMachine.isAllowed(OrderStatus.COMPENSATING, OrderStatus.PENDING)).isFalse();
+    }
+
+    @Test
+    void documentedConfigExampleCompiles() {
+        OrderStateMachine configured = new SagaConfig().sagaDefinition(
+                List.of("PAYMENT_PROCESSING>COMPENSATING:ORDER_COMPENSATION_STARTED"),
+                List.of("COMPENSATING>CANCELLED")).compile();
+
+        assertThat(configured.settle(OrderStatus.PAYMENT_PROCESSING, OrderStatus.COMPENSATING))
+                .isEqualTo(OrderStatus.CANCELLED);
+        assertThat(configured.settle(OrderStatus.PAYMENT_PROCESSING, OrderStatus.PAYMENT_FAILED))
+                .isEqualTo(OrderStatus.CANCELLED);
+        assertThat(configured.isTerminal(OrderStatus.COMPLETED)).isTrue();
+    }
+
+    @Test
+    void configRejectsTransitionsOutOfTerminalStatuses() {
+        assertThatThrownBy(() -> new SagaConfig().sagaDefinition(
+                List.of("COMPLETED>CANCELLED:ORDER_CANCELLED"), List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Terminal status COMPLETED");
+    }
+
+    @Test
+    void rejectsInvalidDefinitions() {
+        assertThatThrownBy(() -> SagaDefinition.standard().toBuilder()
+                .transition(OrderStatus.PENDING, OrderStatus.CANCELLED, OrderEventType.ORDER_CANCELLED)
+                .build().compile())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Duplicate transition PENDING -> CANCELLED");
+        assertThatThrownBy(() -> SagaDefinition.standard().toBuilder()
+                .continueWith(OrderStatus.COMPENSATING, OrderStatus.COMPLETED)
+                .build().compile())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not an allowed transition");
+        assertThatThrownBy(() -> SagaDefinition.builder()
+                .transition(OrderStatus.PENDING, OrderStatus.CANCELLED, OrderEventType.ORDER_CANCELLED)
+                .transition(OrderStatus.CANCELLED, OrderStatus.PENDING, OrderEventType.ORDER_CREATED)
+                .continueWith(OrderStatus.PENDING, OrderStatus.CANCELLED)
+                .continueWith(OrderStatus.CANCELLED, OrderStatus.PENDING)
+                .build().compile())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Continuation cycle");
+    }
+
+    // Copy of the original Order.validateTransition switch
+    private static boolean legacyIsValid(OrderStatus current, OrderStatus newStatus) {
+        return switch (current) {
+            case PENDING -> newStatus == OrderStatus.INVENTORY_RESERVED
+                    || newStatus == OrderStatus.INVENTORY_FAILED
+                    || newStatus == OrderStatus.CANCELLED;
+            case INVENTORY_RESERVED -> newStatus == OrderStatus.PAYMENT_PROCESSING
+                    || newStatus == OrderStatus.COMPENSATING;
+            case PAYMENT_PROCESSING -> newStatus == OrderStatus.PAYMENT_COMPLETED
+                    || newStatus == OrderStatus.PAYMENT_FAILED;
+            case PAYMENT_COMPLETED -> newStatus == OrderStatus.COMPLETED;
+            case PAYMENT_FAILED, INVENTORY_FAILED -> newStatus == OrderStatus.COMPENSATING
+                    || newStatus == OrderStatus.CANCELLED;
+            case COMPENSATING -> newStatus == OrderStatus.CANCELLED;
+            default -> false;
+        };
+    }
+
+    // Copy of the original OrderCommandService.mapStatusToEventType
+    private static OrderEventType legacyEventFor(OrderStatus status) {
+        return switch (status) {
+            case INVENTORY_RESERVED -> OrderEventType.ORDER_INVENTORY_RESERVED;
+            case INVENTORY_FAILED -> OrderEventType.ORDER_INVENTORY_FAILED;
+            case PAYMENT_PROCESSING -> OrderEventType.ORDER_PAYMENT_PROCESSING;
+            case PAYMENT_COMPLETED -> OrderEventType.ORDER_PAYMENT_COMPLETED;
+            case PAYMENT_FAILED -> OrderEventType.ORDER_PAYMENT_FAILED;
+            case COMPLETED -> OrderEventType.ORDER_COMPLETED;
+            case CANCELLED -> OrderEventType.ORDER_CANCELLED;
+            case COMPENSATING -> OrderEventType.ORDER_COMPENSATION_STARTED;
+            default -> throw new IllegalArgumentException("No event type for status: " + status);
+        };
+    }
+
+    // The chains that were hard-coded in OrderCommandService's handlers
+    private static OrderStatus legacyContinuation(OrderStatus reached) {
+        return switch (reached) {
+            case INVENTORY_RESERVED -> OrderStatus.PAYMENT_PROCESSING;
+            case PAYMENT_COMPLETED -> OrderStatus.COMPLETED;
+            case INVENTORY_FAILED -> OrderStatus.CANCELLED;
+            case PAYMENT_FAILED -> OrderStatus.COMPENSATING;
+            default -> null;
+        };
+    }
+}
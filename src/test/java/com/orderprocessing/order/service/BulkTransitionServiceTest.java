@@ -0,0 +1,99 @@
+package com.orderprocessing.order.service;
+
+import com.orderprocessing.order.OrderServiceApplication;
+import com.orderprocessing.order.domain.BulkTransitionJob.State;
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.domain.Order;
+import com.orderprocessing.order.domain.OrderItem;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.BulkTransitionRequest;
+import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.service.BulkTransitionService.Progress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link BulkTransitionService} with a job paced slower than {@code stale-after}: its heartbeat
+ * keeps it from looking abandoned, so another instance cannot resume it while it runs.
+ */
+@SpringBootTest(classes = OrderServiceApplication.class, properties = {
+        "order.transport.type=in-process",
+        "order.kafka.provision-topics=false",
+        "order.bulk-transition.chunk-size=2",
+        "order.bulk-transition.stale-after=PT1S",
+        "order.bulk-transition.heartbeat-interval=PT0.2S"
+})
+class BulkTransitionServiceTest {
+
+    private static final Duration STALE_AFTER = Duration.ofSeconds(1);
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private BulkTransitionService service;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void slowlyPacedJobKeepsItsHeartbeat() throws Exception {
+        String customerId = "customer-bulk-slow";
+        for (int i = 0; i < 6; i++) {
+            orderRepository.save(Order.create(customerId, List.of(
+                    new OrderItem("product-1", "Product", 1, Money.ofMinor(1999)))));
+        }
+        // One order per second: every chunk of two waits two seconds for its slot
+        Progress job = service.submit(new BulkTransitionRequest(Set.of(OrderStatus.PENDING), OrderStatus.CANCELLED,
+                customerId, null, "Slow job", 1));
+        BulkTransitionService otherInstance = beanFactory.createBean(BulkTransitionService.class);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (System.nanoTime() < deadline) {
+                Progress progress = service.get(job.id());
+                assertThat(progress.state()).isIn(State.QUEUED, State.RUNNING);
+                assertThat(progress.updatedAt()).isAfter(Instant.now().minus(STALE_AFTER));
+                Thread.sleep(100);
+            }
+            assertThatThrownBy(() -> otherInstance.resume(job.id()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("runs on another instance");
+        } finally {
+            otherInstance.shutdown();
+            service.stop(job.id());
+        }
+
+        await(() -> service.get(job.id()).state() == State.STOPPED);
+        // Stopped after the chunk that was waiting for its slot
+        assertThat(service.get(job.id()).transitioned()).isPositive();
+    }
+
+    @Test
+    void rejectsHeartbeatsNoMoreFrequentThanStaleAfter() {
+        assertThatThrownBy(() -> new BulkTransitionService(null, null, null, null, new SimpleMeterRegistry(),
+                200, 4, 500, 3, Duration.ofMinutes(2), Duration.ofMinutes(2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("shorter than stale-after");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
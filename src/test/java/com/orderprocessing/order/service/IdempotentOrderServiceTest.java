@@ -0,0 +1,198 @@
+package com.orderprocessing.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderprocessing.order.OrderServiceApplication;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.service.IdempotentOrderService.Outcome;
+import com.orderprocessing.order.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link IdempotentOrderService} against the database tier: replays, conflicting reuse, expiry and
+ * duplicates arriving at the same or at different instances. Each instance is a separate bean, so
+ * nothing in memory is shared between them.
+ */
+@SpringBootTest(classes = OrderServiceApplication.class, properties = {
+        "order.transport.type=in-process",
+        "order.kafka.provision-topics=false"
+})
+class IdempotentOrderServiceTest {
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderCommandService commandService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void duplicateBlockedOnTheClaimReplaysTheFirstOrder() throws Exception {
+        IdempotentOrderService first = beanFactory.createBean(IdempotentOrderService.class);
+        IdempotentOrderService second = beanFactory.createBean(IdempotentOrderService.class);
+        CreateOrderRequest request = request("customer-claim-race");
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // The first request's transaction stays open after its claim until the duplicate waits on it
+        Future<Outcome> winner = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            Outcome outcome = first.createOrder("key-1", request);
+            claimed.countDown();
+            await(commit);
+            return outcome;
+        }));
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<Outcome> duplicate = executor.submit(() -> second.createOrder("key-1", request));
+        Thread.sleep(300);
+        assertThat(duplicate).isNotDone();
+        commit.countDown();
+
+        Outcome created = winner.get(10, TimeUnit.SECONDS);
+        Outcome replayed = duplicate.get(10, TimeUnit.SECONDS);
+        assertThat(created.replayed()).isFalse();
+        assertThat(replayed.replayed()).isTrue();
+        assertThat(replayed.response().id()).isEqualTo(created.response().id());
+        assertThat(ordersOf(request.customerId())).isEqualTo(1);
+    }
+
+    @Test
+    void expiredKeyCreatesAnotherOrder() throws Exception {
+        CreateOrderRequest request = request("customer-expired-key");
+        Outcome first = beanFactory.createBean(IdempotentOrderService.class).createOrder("key-1", request);
+
+        // Another instance, past the TTL of the key but before it was purged
+        IdempotentOrderService later = new IdempotentOrderService(commandService, shardRouter, objectMapper,
+                transactionManager, new SimpleMeterRegistry(), 100, Duration.ofMillis(1), Duration.ofSeconds(5));
+        beanFactory.autowireBean(later);
+        Thread.sleep(10);
+        Outcome second = later.createOrder("key-1", request);
+
+        assertThat(second.replayed()).isFalse();
+        assertThat(second.response().id()).isNotEqualTo(first.response().id());
+        assertThat(ordersOf(request.customerId())).isEqualTo(2);
+    }
+
+    @Test
+    void retryReplaysTheFirstResponseOnThisAndOtherInstances() {
+        IdempotentOrderService first = beanFactory.createBean(IdempotentOrderService.class);
+        CreateOrderRequest request = request("customer-replay");
+
+        Outcome created = first.createOrder("key-1", request);
+        Outcome fromMemory = first.createOrder("key-1", request);
+        Outcome fromDatabase = beanFactory.createBean(IdempotentOrderService.class).createOrder("key-1", request);
+
+        assertThat(created.replayed()).isFalse();
+        assertThat(fromMemory.replayed()).isTrue();
+        assertThat(fromDatabase.replayed()).isTrue();
+        assertThat(fromMemory.response()).isEqualTo(created.response());
+        assertThat(fromDatabase.response()).isEqualTo(created.response());
+        assertThat(ordersOf(request.customerId())).isEqualTo(1);
+    }
+
+    @Test
+    void keyReusedForADifferentRequestConflicts() {
+        IdempotentOrderService first = beanFactory.createBean(IdempotentOrderService.class);
+        CreateOrderRequest request = request("customer-conflict");
+        CreateOrderRequest different = new CreateOrderRequest(request.customerId(), List.of(
+                new CreateOrderRequest.OrderItemRequest("product-2", "Other product", 1, new BigDecimal("5.00"))));
+        first.createOrder("key-1", request);
+
+        assertThatThrownBy(() -> first.createOrder("key-1", different))
+                .isInstanceOf(IdempotentOrderService.KeyReusedException.class);
+        assertThatThrownBy(() -> beanFactory.createBean(IdempotentOrderService.class).createOrder("key-1", different))
+                .isInstanceOf(IdempotentOrderService.KeyReusedException.class);
+        // Keys are scoped to the customer
+        assertThat(first.createOrder("key-1", request("customer-conflict-other")).replayed()).isFalse();
+        assertThat(ordersOf(request.customerId())).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateGivesUpAfterTheHoldTimeout() throws Exception {
+        IdempotentOrderService blocker = beanFactory.createBean(IdempotentOrderService.class);
+        IdempotentOrderService impatient = new IdempotentOrderService(commandService, shardRouter, objectMapper,
+                transactionManager, new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMillis(100));
+        beanFactory.autowireBean(impatient);
+        CreateOrderRequest request = request("customer-hold-timeout");
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // Another instance holds the claim, so the first request here blocks in the database
+        Future<Outcome> winner = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            Outcome outcome = blocker.createOrder("key-1", request);
+            claimed.countDown();
+            await(commit);
+            return outcome;
+        }));
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<Outcome> blocked = executor.submit(() -> impatient.createOrder("key-1", request));
+        Thread.sleep(100);
+
+        // The duplicate on the same instance waits for the first one, but only for the hold timeout
+        assertThatThrownBy(() -> impatient.createOrder("key-1", request))
+                .isInstanceOf(IdempotentOrderService.KeyInFlightException.class);
+        assertThat(blocked).isNotDone();
+
+        commit.countDown();
+        Outcome created = winner.get(10, TimeUnit.SECONDS);
+        assertThat(blocked.get(10, TimeUnit.SECONDS).response().id()).isEqualTo(created.response().id());
+        assertThat(impatient.createOrder("key-1", request).replayed()).isTrue();
+        assertThat(ordersOf(request.customerId())).isEqualTo(1);
+    }
+
+    private int ordersOf(String customerId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM orders WHERE customer_id = ?", Integer.class, customerId);
+        return count != null ? count : 0;
+    }
+
+    private static CreateOrderRequest request(String customerId) {
+        return new CreateOrderRequest(customerId, List.of(
+                new CreateOrderRequest.OrderItemRequest("product-1", "Product", 2, new BigDecimal("19.99"))));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
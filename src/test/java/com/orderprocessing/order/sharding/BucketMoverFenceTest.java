@@ -0,0 +1,181 @@
+package com.orderprocessing.order.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link BucketMover} against writes the directory does not hold back: one routed before the move
+ * started and still running, and one from an instance whose directory is out of date. Two shards
+ * as two databases of one PostgreSQL container (Docker required, skipped without).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BucketMoverFenceTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres =
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool();
+    private static List<HikariDataSource> pools;
+    private static DataSource routed;
+
+    private ShardRouter router;
+    private BucketMover mover;
+    private TransactionTemplate transactions;
+
+    @BeforeAll
+    static void createShards() {
+        try (HikariDataSource admin = pool(postgres.getDatabaseName())) {
+            new JdbcTemplate(admin).execute("CREATE DATABASE shard1");
+        }
+        pools = List.of(pool(postgres.getDatabaseName()), pool("shard1"));
+        routed = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(List.copyOf(pools)));
+    }
+
+    @AfterAll
+    static void closePools() {
+        executor.shutdownNow();
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @BeforeEach
+    void resetShards() throws Exception {
+        for (int shard = 0; shard < pools.size(); shard++) {
+            resetSchema(shard);
+        }
+        // Every bucket on shard 0
+        router = router(new ShardDirectory(pools.get(0), 1));
+        mover = new BucketMover(router, Duration.ofMillis(10), Duration.ZERO, 64);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(routed));
+    }
+
+    @Test
+    void moveWaitsForWritesInFlightAndCopiesThem() throws Exception {
+        String customer = "customer-1";
+        int bucket = ShardKeys.bucketOfCustomer(customer);
+        CountDownLatch routedToSource = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+
+        // Routed before the move starts, commits long after the directory froze the bucket
+        Future<?> writer = executor.submit(() -> transactions.executeWithoutResult(status -> {
+            router.routeCustomer(customer, ShardRouter.Access.WRITE);
+            routedToSource.countDown();
+            await(proceed);
+            insertOrder("order-1", customer);
+        }));
+        assertThat(routedToSource.await(10, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> move = executor.submit(() -> mover.move(0, 1, List.of(bucket)));
+        // Well past the propagation delay: the mover is waiting for the writer's fence
+        Thread.sleep(500);
+        assertThat(move).isNotDone();
+
+        proceed.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        move.get(30, TimeUnit.SECONDS);
+
+        assertThat(ordersOf(customer, 0)).isZero();
+        assertThat(ordersOf(customer, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void writeFromStaleDirectoryFailsInsteadOfBeingLost() throws Exception {
+        String customer = "customer-2";
+        int bucket = ShardKeys.bucketOfCustomer(customer);
+        // Loaded before the move and never refreshed, like an instance whose refresh keeps failing
+        ShardRouter stale = router(new ShardDirectory(pools.get(0), 1));
+
+        mover.move(0, 1, List.of(bucket));
+
+        assertThatThrownBy(() -> transactions.executeWithoutResult(status -> {
+            stale.routeCustomer(customer, ShardRouter.Access.WRITE);
+            insertOrder("order-2", customer);
+        })).isInstanceOf(ShardMovingException.class);
+        assertThat(ordersOf(customer, 0)).isZero();
+
+        transactions.executeWithoutResult(status -> {
+            router.routeCustomer(customer, ShardRouter.Access.WRITE);
+            insertOrder("order-3", customer);
+        });
+        assertThat(ordersOf(customer, 1)).isEqualTo(1);
+    }
+
+    private static ShardRouter router(ShardDirectory directory) {
+        return new ShardRouter(List.copyOf(pools), routed, directory, Duration.ofSeconds(5), new SimpleMeterRegistry());
+    }
+
+    // Joins the transaction of the calling thread, on the shard it was routed to
+    private static void insertOrder(String id, String customerId) {
+        new JdbcTemplate(routed).update("INSERT INTO orders (id, customer_id, status, total_amount, created_at, version) "
+                + "VALUES (?, ?, 'PENDING', 10.00, now(), 0)", id, customerId);
+    }
+
+    private static int ordersOf(String customerId, int shard) {
+        Integer count = new JdbcTemplate(pools.get(shard)).queryForObject(
+                "SELECT count(*) FROM orders WHERE customer_id = ?", Integer.class, customerId);
+        return count != null ? count : 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void resetSchema(int shard) throws Exception {
+        DataSource dataSource = pools.get(shard);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA public");
+        // sharding.sql takes the shard index as a psql variable
+        String sharding = new ClassPathResource("db/postgres/sharding.sql")
+                .getContentAsString(StandardCharsets.UTF_8)
+                .replace(":shard::bigint", shard + "::bigint");
+        new ResourceDatabasePopulator(
+                new ClassPathResource("db/postgres/orders-partitioned.sql"),
+                new ClassPathResource("db/postgres/processed-messages.sql"),
+                new ClassPathResource("db/postgres/idempotency-keys.sql"),
+                new ByteArrayResource(sharding.getBytes(StandardCharsets.UTF_8))).execute(dataSource);
+    }
+
+    private static HikariDataSource pool(String database) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + database);
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(4);
+        return dataSource;
+    }
+}
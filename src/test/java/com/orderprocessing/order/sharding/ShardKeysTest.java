@@ -0,0 +1,100 @@
+package com.orderprocessing.order.sharding;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ShardKeys} buckets as {@code db/postgres/sharding.sql} computes them with
+ * {@code substr(md5(customer_id), 1, 3)}, and the bucket carried in order and saga IDs.
+ */
+class ShardKeysTest {
+
+    // ASCII, multi-byte UTF-8 and the shapes the load generators use
+    private static final List<String> CUSTOMERS = List.of(
+            "", "abc", "customer-1", "customer-42", "CUSTOMER-42", "kunde-müller", "顧客-7",
+            UUID.nameUUIDFromBytes("customer".getBytes(StandardCharsets.UTF_8)).toString());
+
+    @Test
+    void bucketIsTheFirstThreeHexDigitsOfTheMd5() throws Exception {
+        // md5('') = d41d8cd9..., md5('abc') = 90015098...
+        assertThat(ShardKeys.bucketOfCustomer("")).isEqualTo(0xd41);
+        assertThat(ShardKeys.bucketOfCustomer("abc")).isEqualTo(0x900);
+
+        for (String customer : CUSTOMERS) {
+            assertThat(ShardKeys.hex(ShardKeys.bucketOfCustomer(customer)))
+                    .as(customer)
+                    .isEqualTo(substrMd5(customer));
+        }
+    }
+
+    @Test
+    void hexIsThreeLowercaseDigits() {
+        assertThat(ShardKeys.hex(0)).isEqualTo("000");
+        assertThat(ShardKeys.hex(0xab)).isEqualTo("0ab");
+        assertThat(ShardKeys.hex(ShardKeys.BUCKETS - 1)).isEqualTo("fff");
+    }
+
+    @Test
+    void newIdsCarryTheirBucket() {
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            String id = ShardKeys.newId(bucket);
+            UUID uuid = UUID.fromString(id);
+
+            assertThat(id).startsWith(ShardKeys.hex(bucket));
+            assertThat(uuid.version()).isEqualTo(8);
+            assertThat(uuid.variant()).isEqualTo(2);
+            assertThat(ShardKeys.bucketOfId(id)).isEqualTo(bucket);
+        }
+    }
+
+    @Test
+    void idsFromBeforeShardingCarryNoBucket() {
+        assertThat(ShardKeys.bucketOfId(UUID.randomUUID().toString())).isEqualTo(-1);
+        assertThat(ShardKeys.bucketOfId("order-1")).isEqualTo(-1);
+        assertThat(ShardKeys.bucketOfId(null)).isEqualTo(-1);
+        assertThat(ShardKeys.bucketOfId("zzzzzzzz-zzzz-8zzz-8zzz-zzzzzzzzzzzz")).isEqualTo(-1);
+    }
+
+    // What PostgreSQL's md5() hashes: the UTF-8 bytes of the text, as lowercase hex
+    private static String substrMd5(String value) throws Exception {
+        byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest).substring(0, 3);
+    }
+
+    /**
+     * The same expression evaluated by PostgreSQL (Docker required, skipped without).
+     */
+    @Nested
+    @Testcontainers(disabledWithoutDocker = true)
+    class InPostgres {
+
+        @Container
+        private static final PostgreSQLContainer<?> postgres =
+                new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+
+        @Test
+        void matchesSubstrMd5() {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+            for (String customer : CUSTOMERS) {
+                assertThat(jdbcTemplate.queryForObject("SELECT substr(md5(?), 1, 3)", String.class, customer))
+                        .as(customer)
+                        .isEqualTo(ShardKeys.hex(ShardKeys.bucketOfCustomer(customer)));
+            }
+        }
+    }
+}
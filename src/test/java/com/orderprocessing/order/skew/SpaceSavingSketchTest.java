@@ -0,0 +1,82 @@
+package com.orderprocessing.order.skew;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link SpaceSavingSketch} guarantees for one sketch and for stripes of a stream merged into one:
+ * estimates never undercount, overcount by at most their error, and heavy keys are always held.
+ */
+class SpaceSavingSketchTest {
+
+    private static final int CAPACITY = 16;
+
+    @Test
+    void countsExactlyWhileThereIsRoom() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(CAPACITY);
+        for (int i = 0; i < 5; i++) {
+            sketch.add("hot");
+        }
+        sketch.add("cold");
+
+        assertThat(sketch.top(2)).containsExactly(
+                new SpaceSavingSketch.Estimate("hot", 5, 0),
+                new SpaceSavingSketch.Estimate("cold", 1, 0));
+        assertThat(sketch.total()).isEqualTo(6);
+    }
+
+    @Test
+    void mergedStripesKeepTheGuaranteesOfOneSketch() {
+        // A few hot keys over a long tail, spread over four stripes as threads would
+        Random random = new Random(42);
+        SpaceSavingSketch[] stripes = new SpaceSavingSketch[4];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new SpaceSavingSketch(CAPACITY);
+        }
+        Map<String, Long> exact = new HashMap<>();
+        for (int event = 0; event < 100_000; event++) {
+            String key = random.nextInt(10) < 3 ? "hot-" + random.nextInt(3) : "tail-" + random.nextInt(5_000);
+            stripes[random.nextInt(stripes.length)].add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        SpaceSavingSketch merged = new SpaceSavingSketch(CAPACITY);
+        for (SpaceSavingSketch stripe : stripes) {
+            merged.merge(stripe);
+        }
+
+        assertThat(merged.total()).isEqualTo(100_000);
+        List<SpaceSavingSketch.Estimate> top = merged.top(CAPACITY);
+        assertThat(top).hasSize(CAPACITY);
+        assertThat(top.subList(0, 3)).extracting(SpaceSavingSketch.Estimate::key)
+                .containsExactlyInAnyOrder("hot-0", "hot-1", "hot-2");
+        for (SpaceSavingSketch.Estimate estimate : top) {
+            long actual = exact.getOrDefault(estimate.key(), 0L);
+            assertThat(estimate.count()).as(estimate.key()).isGreaterThanOrEqualTo(actual);
+            assertThat(estimate.count() - estimate.error()).as(estimate.key()).isLessThanOrEqualTo(actual);
+        }
+    }
+
+    @Test
+    void mergeAddsCountsOfKeysHeldByBoth() {
+        SpaceSavingSketch first = new SpaceSavingSketch(CAPACITY);
+        SpaceSavingSketch second = new SpaceSavingSketch(CAPACITY);
+        first.add("a");
+        first.add("a");
+        second.add("a");
+        second.add("b");
+
+        first.merge(second);
+
+        assertThat(first.top(CAPACITY)).containsExactly(
+                new SpaceSavingSketch.Estimate("a", 3, 0),
+                new SpaceSavingSketch.Estimate("b", 1, 0));
+        assertThat(first.total()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,114 @@
+package com.orderprocessing.order.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * {@link EventRingBuffer} across many laps of a small buffer, full and empty, and with producers
+ * racing each other for positions.
+ */
+class EventRingBufferTest {
+
+    @Test
+    void keepsOrderAcrossWrapAround() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // Ten laps, with the consumer one to three elements behind
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(next++)).isTrue();
+            }
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.poll()).isEqualTo(expected++);
+            }
+            assertThat(buffer.offer(next++)).isTrue();
+            assertThat(buffer.poll()).isEqualTo(expected++);
+        }
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void fullBufferRejectsOffersUntilTheConsumerFreesASlot() {
+        EventRingBuffer<String> buffer = new EventRingBuffer<>(2);
+        assertThat(buffer.offer("a")).isTrue();
+        assertThat(buffer.offer("b")).isTrue();
+
+        assertThat(buffer.offer("c")).isFalse();
+        assertThat(buffer.size()).isEqualTo(2);
+
+        assertThat(buffer.poll()).isEqualTo("a");
+        assertThat(buffer.offer("c")).isTrue();
+        assertThat(buffer.poll()).isEqualTo("b");
+        assertThat(buffer.poll()).isEqualTo("c");
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void rejectsCapacitiesThatAreNotPowersOfTwo() {
+        assertThatThrownBy(() -> new EventRingBuffer<>(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EventRingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentProducersKeepTheirOwnOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        EventRingBuffer<long[]> buffer = new EventRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                sends.add(executor.submit(() -> {
+                    start.await();
+                    for (long sequence = 0; sequence < perProducer; sequence++) {
+                        // Full buffer: the caller's policy is to wait
+                        while (!buffer.offer(new long[]{producer, sequence})) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            long[] nextSequence = new long[producers];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (int received = 0; received < producers * perProducer; ) {
+                long[] element = buffer.poll();
+                if (element == null) {
+                    if (System.nanoTime() > deadline) {
+                        fail("Received only %d elements", received);
+                    }
+                    buffer.awaitElements(TimeUnit.MILLISECONDS.toNanos(1));
+                    continue;
+                }
+                if (element[1] != nextSequence[(int) element[0]]++) {
+                    fail("Producer %d sent %d out of order", element[0], element[1]);
+                }
+                received++;
+            }
+            for (Future<?> send : sends) {
+                send.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(nextSequence).containsOnly(perProducer);
+            assertThat(buffer.poll()).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.orderprocessing.order.transport;
+
+import com.orderprocessing.order.OrderServiceApplication;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore.AnalyticsQuery;
+import com.orderprocessing.order.analytics.OrderAnalyticsStore.GroupBy;
+import com.orderprocessing.order.domain.Money;
+import com.orderprocessing.order.domain.Order;
+import com.orderprocessing.order.domain.OrderItem;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.dto.CreateOrderRequest;
+import com.orderprocessing.order.dto.OrderResponse;
+import com.orderprocessing.order.repository.OrderRepository;
+import com.orderprocessing.order.service.ActiveOrderIndex;
+import com.orderprocessing.order.service.OrderCommandService;
+import com.orderprocessing.order.service.OrderQueryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The whole saga on the in-process transport, with inventory and payment played in the JVM: an
+ * order goes from creation to {@code COMPLETED}, and the active order index and analytics store
+ * follow it from {@code order-events}.
+ */
+@SpringBootTest(classes = OrderServiceApplication.class, properties = {
+        "order.transport.type=in-process",
+        "order.kafka.provision-topics=false",
+        "order.transport.in-process.participants.enabled=true",
+        "order.transport.in-process.participants.latency=300ms"
+})
+class InProcessSagaTest {
+
+    @Autowired
+    private OrderCommandService orderCommandService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ActiveOrderIndex activeOrderIndex;
+
+    @Autowired
+    private OrderAnalyticsStore analyticsStore;
+
+    @Autowired
+    private InProcessEventTransport eventTransport;
+
+    @Test
+    void orderCompletesAndFeedsTheIndexAndAnalytics() throws Exception {
+        String customerId = "customer-in-process-saga";
+        OrderResponse created = orderCommandService.createOrder(new CreateOrderRequest(customerId, List.of(
+                new CreateOrderRequest.OrderItemRequest("product-1", "Product", 2, new BigDecimal("19.99")))));
+
+        // Indexed while the participants take their time
+        await(() -> activeOrderIndex.findActiveOrders(customerId)
+                .filter(orders -> orders.size() == 1)
+                .isPresent());
+        assertThat(activeOrderIndex.findActiveOrders(customerId).orElseThrow().getFirst().id())
+                .isEqualTo(created.id());
+
+        await(() -> orderQueryService.getOrderById(created.id()).status() == OrderStatus.COMPLETED);
+        await(() -> activeOrderIndex.findActiveOrders(customerId).equals(Optional.of(List.of())));
+        await(() -> completedCount(customerId) == 1);
+        assertThat(analyticsStore.aggregate(query(customerId)).groups().getFirst().totalAmount())
+                .isEqualTo(Money.ofMinor(3998));
+    }
+
+    @Test
+    void indexIsLoadedWithTheActiveOrdersInTheDatabase() {
+        String customerId = "customer-in-process-loaded";
+        // Saved without events, like an order left from before a restart
+        Order order = orderRepository.save(Order.create(customerId, List.of(
+                new OrderItem("product-1", "Product", 1, Money.ofMinor(1999)))));
+
+        assertThat(activeOrderIndex.findActiveOrders(customerId)).contains(List.of());
+        orderQueryService.loadActiveOrderIndex(eventTransport.partitionCount());
+
+        assertThat(activeOrderIndex.findActiveOrders(customerId).orElseThrow())
+                .singleElement()
+                .satisfies(indexed -> {
+                    assertThat(indexed.id()).isEqualTo(order.getId());
+                    assertThat(indexed.status()).isEqualTo(OrderStatus.PENDING);
+                    assertThat(indexed.items()).hasSize(1);
+                });
+    }
+
+    private long completedCount(String customerId) {
+        return analyticsStore.aggregate(query(customerId)).groups().stream()
+                .mapToLong(OrderAnalyticsStore.Group::count)
+                .sum();
+    }
+
+    private static AnalyticsQuery query(String customerId) {
+        return new AnalyticsQuery(Set.of(GroupBy.STATUS), Set.of(OrderStatus.COMPLETED), customerId,
+                null, null, null, null);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 10s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.orderprocessing.order.transport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link MappedSegmentLog} across segment rolls and restarts: records torn by a crash, replay from
+ * the checkpoint and the segment limit. Each reopen maps the files again, as a new process would.
+ */
+class MappedSegmentLogTest {
+
+    // Room for four 12-byte records and the zero length that ends a segment
+    private static final int SEGMENT_BYTES = 4 * (Integer.BYTES + 12) + Integer.BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRecordsInOrderAcrossSegments() throws Exception {
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        for (int i = 0; i < 10; i++) {
+            assertThat(log.append(record(i))).isEqualTo(i);
+        }
+
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(readAll(log, 0)).containsExactly(records(0, 10));
+        assertThat(readAll(log, 6)).containsExactly(records(6, 10));
+        log.close();
+    }
+
+    @Test
+    void readerSeesRecordsAppendedAfterIt() throws Exception {
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        MappedSegmentLog.Reader reader = log.reader(0);
+        assertThat(reader.next()).isNull();
+
+        log.append(record(0));
+        assertThat(reader.next()).isEqualTo(record(0));
+        assertThat(reader.offset()).isEqualTo(1);
+        assertThat(reader.next()).isNull();
+        log.close();
+    }
+
+    @Test
+    void tornRecordReadsAsTheEndOfTheLog() throws Exception {
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        for (int i = 0; i < 3; i++) {
+            log.append(record(i));
+        }
+        log.close();
+        // A crash after the payload of record 3 was written but before its length
+        Path segment = segmentFiles().getLast();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(record(3)), 3L * (Integer.BYTES + 12) + Integer.BYTES);
+        }
+
+        MappedSegmentLog recovered = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        assertThat(recovered.endOffset()).isEqualTo(3);
+        assertThat(readAll(recovered, 0)).containsExactly(records(0, 3));
+
+        // The torn record's space is reused
+        assertThat(recovered.append(record(7))).isEqualTo(3);
+        assertThat(readAll(recovered, 3)).containsExactly(record(7));
+        recovered.close();
+    }
+
+    @Test
+    void replaysFromTheCheckpointAfterRestart() throws Exception {
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        for (int i = 0; i < 10; i++) {
+            log.append(record(i));
+        }
+        MappedSegmentLog.Reader reader = log.reader(log.committed());
+        for (int i = 0; i < 6; i++) {
+            reader.next();
+        }
+        log.commit(reader.offset());
+        log.close();
+
+        // The first segment held records 0-3, all delivered
+        assertThat(segmentFiles()).hasSize(2);
+
+        MappedSegmentLog reopened = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        assertThat(reopened.committed()).isEqualTo(6);
+        assertThat(reopened.endOffset()).isEqualTo(10);
+        assertThat(readAll(reopened, reopened.committed())).containsExactly(records(6, 10));
+        assertThatThrownBy(() -> reopened.reader(2)).isInstanceOf(IllegalArgumentException.class);
+        reopened.close();
+    }
+
+    @Test
+    void continuesNumberingWhenEverythingWasDelivered() throws Exception {
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        for (int i = 0; i < 5; i++) {
+            log.append(record(i));
+        }
+        log.commit(5);
+        log.close();
+        for (Path segment : segmentFiles()) {
+            Files.delete(segment);
+        }
+
+        MappedSegmentLog reopened = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        assertThat(reopened.append(record(5))).isEqualTo(5);
+        assertThat(readAll(reopened, 5)).containsExactly(record(5));
+        reopened.close();
+    }
+
+    @Test
+    void segmentLimitRejectsAppendsUntilSegmentsAreDelivered() throws Exception {
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES, 2);
+        for (int i = 0; i < 8; i++) {
+            assertThat(log.append(record(i))).isEqualTo(i);
+        }
+        assertThat(log.append(record(8))).isEqualTo(-1);
+        assertThat(log.sizeBytes()).isEqualTo(2L * SEGMENT_BYTES);
+
+        log.commit(4);
+        assertThat(log.append(record(8))).isEqualTo(8);
+        assertThat(readAll(log, 4)).containsExactly(records(4, 9));
+        log.close();
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegmentAndLimitsBelowTwoSegments() throws Exception {
+        assertThatThrownBy(() -> MappedSegmentLog.open(directory, SEGMENT_BYTES, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        MappedSegmentLog log = MappedSegmentLog.open(directory, SEGMENT_BYTES);
+        assertThatThrownBy(() -> log.append(new byte[SEGMENT_BYTES]))
+                .isInstanceOf(IllegalArgumentException.class);
+        log.close();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static List<byte[]> readAll(MappedSegmentLog log, long offset) {
+        List<byte[]> records = new ArrayList<>();
+        MappedSegmentLog.Reader reader = log.reader(offset);
+        for (byte[] record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static byte[][] records(int from, int to) {
+        byte[][] records = new byte[to - from][];
+        for (int i = from; i < to; i++) {
+            records[i - from] = record(i);
+        }
+        return records;
+    }
+
+    // 12 bytes each
+    private static byte[] record(int i) {
+        return String.format("record-%05d", i).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,186 @@
+package com.orderprocessing.order.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.orderprocessing.order.domain.OrderStatus;
+import com.orderprocessing.order.event.OrderEventType;
+import com.orderprocessing.order.event.OrderTransitionEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SpoolingKafkaEventTransport} against a broker that goes away and comes back: sends switch
+ * to the spool on the first retriable failure, the spool is replayed in order once the broker is
+ * back, and sends go to Kafka directly again after it is drained, across a restart too.
+ */
+class SpoolingKafkaEventTransportTest {
+
+    private static final String TOPIC = "order-events";
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final List<SpoolingKafkaEventTransport> transports = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    private FakeBroker broker;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createBroker() {
+        broker = new FakeBroker();
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), any(), any())).thenAnswer(invocation ->
+                broker.send(invocation.getArgument(2)));
+    }
+
+    @AfterEach
+    void stopTransports() {
+        transports.forEach(transport -> {
+            if (transport.isRunning()) {
+                transport.stop();
+            }
+        });
+    }
+
+    @Test
+    void spoolsWhileTheBrokerIsDownAndReplaysInOrder() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SpoolingKafkaEventTransport transport = start(meterRegistry);
+
+        transport.send(TOPIC, "customer-1", event(0)).get(5, TimeUnit.SECONDS);
+        broker.up = false;
+        // The first failure switches to the spool; the send itself still succeeds
+        transport.send(TOPIC, "customer-1", event(1)).get(5, TimeUnit.SECONDS);
+        for (int version = 2; version < 50; version++) {
+            assertThat(transport.send(TOPIC, "customer-1", event(version))).isCompleted();
+        }
+        assertThat(meterRegistry.get("orders.transport.spool.active").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("orders.transport.spool.depth").gauge().value()).isEqualTo(49.0);
+        assertThat(broker.delivered()).containsExactly(0L);
+
+        broker.up = true;
+        await(() -> meterRegistry.get("orders.transport.spool.active").gauge().value() == 0.0);
+        assertThat(broker.delivered()).hasSize(50).isSorted();
+        assertThat(meterRegistry.get("orders.transport.spool.replayed").counter().count()).isEqualTo(49.0);
+
+        // Directly again
+        transport.send(TOPIC, "customer-1", event(50)).get(5, TimeUnit.SECONDS);
+        assertThat(broker.delivered()).hasSize(51).endsWith(50L);
+    }
+
+    @Test
+    void replaysTheSpoolLeftBeforeARestart() throws Exception {
+        SpoolingKafkaEventTransport first = start(new SimpleMeterRegistry());
+        broker.up = false;
+        for (int version = 0; version < 20; version++) {
+            first.send(TOPIC, "customer-1", event(version)).get(5, TimeUnit.SECONDS);
+        }
+        first.stop();
+        assertThat(broker.delivered()).isEmpty();
+
+        broker.up = true;
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SpoolingKafkaEventTransport second = transport(meterRegistry);
+        // Sends before the drain caught up stay behind the spooled events
+        second.send(TOPIC, "customer-1", event(20)).get(5, TimeUnit.SECONDS);
+        second.start();
+
+        await(() -> broker.delivered().size() == 21);
+        assertThat(broker.delivered()).isSorted();
+        assertThat(meterRegistry.get("orders.transport.spool.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void nonRetriableFailuresAreNotSpooled() {
+        SpoolingKafkaEventTransport transport = start(new SimpleMeterRegistry());
+        broker.rejecting = true;
+
+        assertThat(transport.send(TOPIC, "customer-1", event(0))).isCompletedExceptionally();
+        broker.rejecting = false;
+        assertThat(transport.send(TOPIC, "customer-1", event(1))).isCompleted();
+        assertThat(broker.delivered()).containsExactly(1L);
+    }
+
+    @Test
+    void rejectsSpoolsSmallerThanTwoSegments() {
+        assertThatThrownBy(() -> settings(SEGMENT_BYTES)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SpoolingKafkaEventTransport start(MeterRegistry meterRegistry) {
+        SpoolingKafkaEventTransport transport = transport(meterRegistry);
+        transport.start();
+        return transport;
+    }
+
+    private SpoolingKafkaEventTransport transport(MeterRegistry meterRegistry) {
+        SpoolingKafkaEventTransport transport = new SpoolingKafkaEventTransport(kafkaTemplate,
+                settings(4L * SEGMENT_BYTES), objectMapper, meterRegistry);
+        transports.add(transport);
+        return transport;
+    }
+
+    private SpoolingKafkaEventTransport.Settings settings(long maxBytes) {
+        return new SpoolingKafkaEventTransport.Settings(directory, SEGMENT_BYTES, maxBytes, 8, Duration.ofMillis(10));
+    }
+
+    private static OrderTransitionEvent event(long version) {
+        return new OrderTransitionEvent("order-1", OrderEventType.ORDER_PAYMENT_PROCESSING, "saga-1",
+                OrderStatus.PENDING, OrderStatus.PAYMENT_PROCESSING, version, null);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // Delivers synchronously; while down, fails the way the producer does after max.block.ms
+    private static final class FakeBroker {
+        private final List<Long> delivered = new ArrayList<>();
+        private volatile boolean up = true;
+        private volatile boolean rejecting;
+
+        synchronized CompletableFuture<?> send(OrderTransitionEvent event) {
+            if (rejecting) {
+                return CompletableFuture.failedFuture(new KafkaException("Record too large"));
+            }
+            if (!up) {
+                return CompletableFuture.failedFuture(new KafkaException("Send failed",
+                        new TimeoutException("Topic order-events not present in metadata after 60000 ms")));
+            }
+            delivered.add(event.getVersion());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        synchronized List<Long> delivered() {
+            return List.copyOf(delivered);
+        }
+    }
+}